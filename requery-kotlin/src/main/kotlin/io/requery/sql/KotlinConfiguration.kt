@@ -48,7 +48,11 @@ class KotlinConfiguration(
     private val statementListeners: Set<StatementListener> = LinkedHashSet(),
     private val entityStateListeners: Set<EntityStateListener<Any>> = LinkedHashSet(),
     private val transactionListeners: Set<Supplier<TransactionListener>> = LinkedHashSet(),
-    private val writeExecutor: Executor? = null) : Configuration {
+    private val writeExecutor: Executor? = null,
+    private val keyAllocator: KeyAllocator? = null,
+    private val queryCacheInvalidation: QueryCacheInvalidation = QueryCacheInvalidation.TYPE,
+    private val cacheAssociations: Boolean = false)
+    : Configuration {
 
     private val connectionProvider = when (dataSource) {
         is ConnectionPoolDataSource -> PooledConnectionProvider(dataSource);
@@ -127,4 +131,16 @@ class KotlinConfiguration(
     override fun getWriteExecutor(): Executor? {
         return writeExecutor
     }
+
+    override fun getKeyAllocator(): KeyAllocator? {
+        return keyAllocator
+    }
+
+    override fun getQueryCacheInvalidation(): QueryCacheInvalidation {
+        return queryCacheInvalidation
+    }
+
+    override fun getCacheAssociations(): Boolean {
+        return cacheAssociations
+    }
 }
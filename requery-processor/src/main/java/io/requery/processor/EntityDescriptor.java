@@ -101,6 +101,11 @@ interface EntityDescriptor {
      */
     boolean isCacheable();
 
+    /**
+     * @return true if all the entities of the type are loaded into the cache at once
+     */
+    boolean isPreloaded();
+
     /**
      * @return true if the entity is copyable, false otherwise
      */
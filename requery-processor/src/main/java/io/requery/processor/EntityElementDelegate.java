@@ -50,6 +50,7 @@ class EntityElementDelegate implements EntityElement {
     private final Supplier<PropertyNameStyle> propertyNameStyle;
     private final Supplier<PropertyVisibility> propertyVisibility;
     private final Supplier<Boolean> isCacheable;
+    private final Supplier<Boolean> isPreloaded;
     private final Supplier<Boolean> isCopyable;
     private final Supplier<Boolean> isEmbedded;
     private final Supplier<Boolean> isImmutable;
@@ -74,6 +75,7 @@ class EntityElementDelegate implements EntityElement {
         propertyNameStyle = memoized(delegate::propertyNameStyle);
         propertyVisibility = memoized(delegate::propertyVisibility);
         isCacheable = memoized(delegate::isCacheable);
+        isPreloaded = memoized(delegate::isPreloaded);
         isCopyable = memoized(delegate::isCopyable);
         isEmbedded = memoized(delegate::isEmbedded);
         isImmutable = memoized(delegate::isImmutable);
@@ -194,6 +196,11 @@ class EntityElementDelegate implements EntityElement {
         return isCacheable.get();
     }
 
+    @Override
+    public boolean isPreloaded() {
+        return isPreloaded.get();
+    }
+
     @Override
     public boolean isCopyable() {
         return isCopyable.get();
@@ -23,6 +23,7 @@ import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.WildcardTypeName;
 import io.requery.CascadeAction;
 import io.requery.ReferentialAction;
 import io.requery.meta.Attribute;
@@ -35,6 +36,8 @@ import io.requery.meta.Type;
 import io.requery.meta.TypeBuilder;
 import io.requery.proxy.BooleanProperty;
 import io.requery.proxy.ByteProperty;
+import io.requery.proxy.ColumnReader;
+import io.requery.proxy.ColumnWriter;
 import io.requery.proxy.DoubleProperty;
 import io.requery.proxy.EntityProxy;
 import io.requery.proxy.FloatProperty;
@@ -42,21 +45,30 @@ import io.requery.proxy.IntProperty;
 import io.requery.proxy.LongProperty;
 import io.requery.proxy.Property;
 import io.requery.proxy.PropertyState;
+import io.requery.proxy.ResultSetReader;
 import io.requery.proxy.ShortProperty;
+import io.requery.proxy.StatementWriter;
 import io.requery.query.Order;
 import io.requery.util.function.Function;
 import io.requery.util.function.Supplier;
 
 import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Modifier;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
 import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.ElementFilter;
 import javax.tools.Diagnostic;
 import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -125,6 +137,7 @@ class EntityMetaGenerator extends EntityPartGenerator {
 
         block.add(".setBaseType($T.class)\n", ClassName.get(typeElement))
                 .add(".setCacheable($L)\n", entity.isCacheable())
+                .add(".setPreloaded($L)\n", entity.isPreloaded())
                 .add(".setImmutable($L)\n", entity.isImmutable())
                 .add(".setReadOnly($L)\n", entity.isReadOnly())
                 .add(".setStateless($L)\n", entity.isStateless())
@@ -190,6 +203,12 @@ class EntityMetaGenerator extends EntityPartGenerator {
 
         block.add(".setProxyProvider($L)\n", proxyProvider.build());
 
+        if (!entity.isImmutable() && !entity.isUnimplementable() &&
+            entity.attributes().stream().noneMatch(AttributeDescriptor::isEmbedded)) {
+            block.add(".setResultSetReader($L)\n", generateResultSetReader(targetName));
+            block.add(".setStatementWriter($L)\n", generateStatementWriter(targetName));
+        }
+
         if (entity.tableAttributes().length > 0) {
             StringJoiner joiner = new StringJoiner(",", "new String[] {", "}");
             for (String attribute : entity.tableAttributes()) {
@@ -217,6 +236,182 @@ class EntityMetaGenerator extends EntityPartGenerator {
                         .build());
     }
 
+    private TypeSpec generateResultSetReader(TypeName targetName) {
+        TypeName attributeType = ParameterizedTypeName.get(ClassName.get(Attribute.class),
+            targetName, WildcardTypeName.subtypeOf(Object.class));
+        MethodSpec.Builder readMethod = CodeGeneration.overridePublicMethod("read")
+            .addParameter(targetName, "entity")
+            .addParameter(ResultSet.class, "results")
+            .addParameter(parameterizedTypeName(ColumnReader.class, targetName), "reader")
+            .addParameter(boolean.class, "overwrite")
+            .addException(SQLException.class);
+        // same columns and order as the default selection of the type
+        StringJoiner attributes = new StringJoiner(", ");
+        int index = 1;
+        for (AttributeDescriptor attribute : entity.attributes()) {
+            boolean isAssociation = attribute.cardinality() != null;
+            boolean isKey = attribute.isKey() || attribute.isForeignKey();
+            if (attribute.isTransient() || attribute.isLazy() || (isAssociation && !isKey)) {
+                continue;
+            }
+            String name = upperCaseUnderscoreRemovePrefixes(attribute.fieldName());
+            attributes.add(name);
+            String jdbcType = isKey || isAssociation || attribute.isOptional() ||
+                attribute.converterName() != null ? null : jdbcTypeOf(attribute.typeMirror());
+            if (jdbcType == null) {
+                readMethod.addStatement(
+                    "reader.read(entity, $L, results, $L, overwrite)", name, index);
+            } else {
+                String fieldName = attribute.fieldName();
+                String stateName = propertyStateFieldName(attribute);
+                if (!entity.isStateless()) {
+                    readMethod.beginControlFlow(
+                        "if (overwrite || entity.$L != $T.MODIFIED)", stateName, PropertyState.class);
+                }
+                readMethod.addStatement(
+                    "entity.$L = results.get$L($L)", fieldName, jdbcType, index);
+                if (!attribute.typeMirror().getKind().isPrimitive()) {
+                    readMethod.beginControlFlow("if (results.wasNull())")
+                        .addStatement("entity.$L = null", fieldName)
+                        .endControlFlow();
+                }
+                if (!entity.isStateless()) {
+                    readMethod.addStatement("entity.$L = $T.LOADED", stateName, PropertyState.class)
+                        .endControlFlow();
+                }
+            }
+            index++;
+        }
+        return TypeSpec.anonymousClassBuilder("")
+            .addSuperinterface(parameterizedTypeName(ResultSetReader.class, targetName))
+            .addMethod(generateAttributesMethod(attributeType, attributes.toString()))
+            .addMethod(readMethod.build())
+            .build();
+    }
+
+    private TypeSpec generateStatementWriter(TypeName targetName) {
+        TypeName attributeType = ParameterizedTypeName.get(ClassName.get(Attribute.class),
+            targetName, WildcardTypeName.subtypeOf(Object.class));
+        MethodSpec.Builder writeMethod = CodeGeneration.overridePublicMethod("write")
+            .addParameter(targetName, "entity")
+            .addParameter(PreparedStatement.class, "statement")
+            .addParameter(parameterizedTypeName(ColumnWriter.class, targetName), "writer")
+            .addException(SQLException.class);
+        // same attributes and order as the bindable attributes of the type
+        StringJoiner attributes = new StringJoiner(", ");
+        int index = 1;
+        for (AttributeDescriptor attribute : entity.attributes()) {
+            boolean isAssociation = attribute.cardinality() != null;
+            boolean isKey = attribute.isKey() || attribute.isForeignKey();
+            boolean isGeneratedKey = attribute.isKey() && attribute.isGenerated();
+            if (attribute.isTransient() || attribute.isReadOnly() || isGeneratedKey ||
+                (isAssociation && !isKey)) {
+                continue;
+            }
+            String name = upperCaseUnderscoreRemovePrefixes(attribute.fieldName());
+            attributes.add(name);
+            String jdbcType = isKey || isAssociation || attribute.isOptional() ||
+                attribute.converterName() != null ? null : jdbcTypeOf(attribute.typeMirror());
+            if (jdbcType == null) {
+                writeMethod.addStatement("writer.write(entity, $L, statement, $L)", name, index);
+            } else {
+                String fieldName = attribute.fieldName();
+                if (attribute.typeMirror().getKind().isPrimitive()) {
+                    writeMethod.addStatement(
+                        "statement.set$L($L, entity.$L)", jdbcType, index, fieldName);
+                } else {
+                    writeMethod.beginControlFlow("if (entity.$L == null)", fieldName)
+                        .addStatement("statement.setNull($L, $T.$L)",
+                            index, Types.class, sqlTypeOf(jdbcType))
+                        .nextControlFlow("else")
+                        .addStatement("statement.set$L($L, entity.$L)", jdbcType, index, fieldName)
+                        .endControlFlow();
+                }
+                if (!entity.isStateless()) {
+                    writeMethod.addStatement("entity.$L = $T.LOADED",
+                        propertyStateFieldName(attribute), PropertyState.class);
+                }
+            }
+            index++;
+        }
+        return TypeSpec.anonymousClassBuilder("")
+            .addSuperinterface(parameterizedTypeName(StatementWriter.class, targetName))
+            .addMethod(generateAttributesMethod(attributeType, attributes.toString()))
+            .addMethod(writeMethod.build())
+            .build();
+    }
+
+    private static MethodSpec generateAttributesMethod(TypeName attributeType, String names) {
+        return CodeGeneration.overridePublicMethod("getAttributes")
+            .returns(ParameterizedTypeName.get(ClassName.get(List.class), attributeType))
+            .addStatement("return $T.<$T>asList($L)", Arrays.class, attributeType, names)
+            .build();
+    }
+
+    // suffix of the ResultSet getter and PreparedStatement setter used for the type by default
+    private static String jdbcTypeOf(TypeMirror typeMirror) {
+        switch (typeMirror.getKind()) {
+            case BOOLEAN:
+                return "Boolean";
+            case BYTE:
+                return "Byte";
+            case SHORT:
+                return "Short";
+            case INT:
+                return "Int";
+            case LONG:
+                return "Long";
+            case FLOAT:
+                return "Float";
+            case DOUBLE:
+                return "Double";
+            case DECLARED:
+                Element element = ((DeclaredType) typeMirror).asElement();
+                String name = ((TypeElement) element).getQualifiedName().toString();
+                switch (name) {
+                    case "java.lang.Boolean":
+                        return "Boolean";
+                    case "java.lang.Byte":
+                        return "Byte";
+                    case "java.lang.Short":
+                        return "Short";
+                    case "java.lang.Integer":
+                        return "Int";
+                    case "java.lang.Long":
+                        return "Long";
+                    case "java.lang.Float":
+                        return "Float";
+                    case "java.lang.Double":
+                        return "Double";
+                    case "java.lang.String":
+                        return "String";
+                }
+        }
+        return null;
+    }
+
+    // java.sql.Types constant of the default field type for the jdbc type
+    private static String sqlTypeOf(String jdbcType) {
+        switch (jdbcType) {
+            case "Boolean":
+                return "BOOLEAN";
+            case "Byte":
+                return "TINYINT";
+            case "Short":
+                return "SMALLINT";
+            case "Int":
+                return "INTEGER";
+            case "Long":
+                return "BIGINT";
+            case "Float":
+                return "FLOAT";
+            case "Double":
+                return "REAL";
+            default:
+                return "VARCHAR";
+        }
+    }
+
     private void generateEmbeddedAttributes(AttributeDescriptor parent,
                                             EntityDescriptor embedded,
                                             TypeSpec.Builder builder,
@@ -381,6 +381,11 @@ class EntityType extends BaseProcessableElement<TypeElement> implements EntityEl
             .orElse( annotationOf(Cacheable.class).map(Cacheable::value).orElse(true));
     }
 
+    @Override
+    public boolean isPreloaded() {
+        return annotationOf(Entity.class).map(Entity::preload).orElse(false);
+    }
+
     @Override
     public boolean isCopyable() {
         return annotationOf(Entity.class).map(Entity::copyable).orElse(false);
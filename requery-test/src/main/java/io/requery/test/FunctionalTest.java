@@ -25,8 +25,14 @@ import io.requery.meta.Attribute;
 import io.requery.proxy.CompositeKey;
 import io.requery.proxy.EntityProxy;
 import io.requery.proxy.PropertyState;
+import io.requery.query.BulkResult;
+import io.requery.query.Columns;
+import io.requery.query.ExportFormat;
+import io.requery.query.IntColumn;
+import io.requery.query.ModifiableResult;
 import io.requery.query.NamedExpression;
 import io.requery.query.Result;
+import io.requery.query.StringColumn;
 import io.requery.query.Return;
 import io.requery.query.Tuple;
 import io.requery.query.function.Case;
@@ -35,7 +41,10 @@ import io.requery.query.function.Count;
 import io.requery.query.function.Now;
 import io.requery.query.function.Random;
 import io.requery.query.function.Upper;
+import io.requery.sql.BulkLoadListener;
+import io.requery.sql.CollectionResult;
 import io.requery.sql.EntityDataStore;
+import io.requery.sql.GroupCommitWriter;
 import io.requery.sql.RowCountException;
 import io.requery.sql.StatementExecutionException;
 import io.requery.test.model.Address;
@@ -51,11 +60,14 @@ import io.requery.test.model.Parent;
 import io.requery.test.model.ParentNoCascade;
 import io.requery.test.model.Person;
 import io.requery.test.model.Phone;
+import io.requery.util.CloseableIterator;
 import io.requery.util.function.Consumer;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -75,6 +87,8 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 import static io.requery.query.Unary.not;
 import static org.junit.Assert.assertEquals;
@@ -204,6 +218,28 @@ public abstract class FunctionalTest extends RandomData {
         assertEquals(100, people);
     }
 
+    @Test
+    public void testBulkLoad() {
+        List<Person> persons = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            persons.add(randomPerson());
+        }
+        final long[] progress = new long[1];
+        long count = data.bulkLoader(Person.class)
+            .chunkSize(64)
+            .progress(new BulkLoadListener() {
+                @Override
+                public void onProgress(long rows, double rowsPerSecond) {
+                    assertTrue(rows > progress[0]);
+                    progress[0] = rows;
+                }
+            })
+            .load(persons);
+        assertEquals(250, count);
+        assertEquals(250, progress[0]);
+        assertEquals(250, data.count(Person.class).get().value().intValue());
+    }
+
     @Test
     public void testInsertConcurrent() throws InterruptedException {
         ExecutorService executorService = Executors.newFixedThreadPool(3);
@@ -232,6 +268,112 @@ public abstract class FunctionalTest extends RandomData {
         executorService.shutdownNow();
     }
 
+    @Test
+    public void testGroupCommitWriter() throws InterruptedException {
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        final int count = 40;
+        final CountDownLatch latch = new CountDownLatch(count);
+        final Map<Integer, Person> map = new ConcurrentHashMap<>();
+        try (final GroupCommitWriter<Persistable> writer =
+                 data.groupCommitWriter(5, TimeUnit.MILLISECONDS)) {
+            for (int i = 0; i < count; i++) {
+                executorService.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        Person person = randomPerson();
+                        writer.insert(person);
+                        map.put(person.getId(), person);
+                        latch.countDown();
+                    }
+                });
+            }
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            Person person = map.values().iterator().next();
+            person.setName("group commit");
+            writer.update(person);
+        }
+        executorService.shutdownNow();
+        assertEquals(count, map.size());
+        assertEquals(count, data.count(Person.class).get().value().intValue());
+        assertEquals(1, data.count(Person.class)
+            .where(Person.NAME.eq("group commit")).get().value().intValue());
+    }
+
+    @Test
+    public void testGroupCommitWriterFailedWrite() throws InterruptedException {
+        Person existing = randomPerson();
+        data.insert(existing);
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        final int count = 8;
+        final CountDownLatch latch = new CountDownLatch(count);
+        final List<Person> inserted = Collections.synchronizedList(new ArrayList<Person>());
+        final List<Exception> errors = Collections.synchronizedList(new ArrayList<Exception>());
+        final UUID duplicate = existing.getUUID();
+        try (final GroupCommitWriter<Persistable> writer =
+                 data.groupCommitWriter(200, TimeUnit.MILLISECONDS)) {
+            for (int i = 0; i < count; i++) {
+                final boolean fails = i == count / 2;
+                executorService.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        Person person = randomPerson();
+                        if (fails) {
+                            // violates the unique constraint
+                            person.setUUID(duplicate);
+                        }
+                        try {
+                            writer.insert(person);
+                            inserted.add(person);
+                        } catch (Exception e) {
+                            errors.add(e);
+                        } finally {
+                            latch.countDown();
+                        }
+                    }
+                });
+            }
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        }
+        executorService.shutdownNow();
+        assertEquals(1, errors.size());
+        assertEquals(count - 1, inserted.size());
+        assertEquals(count, data.count(Person.class).get().value().intValue());
+        for (Person person : inserted) {
+            assertSame(person, data.findByKey(Person.class, person.getId()));
+        }
+    }
+
+    @Test
+    public void testUnitOfWork() {
+        final List<Person> persons = new ArrayList<>(randomPersons(10));
+        data.runInUnitOfWork(new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+                for (Person person : persons) {
+                    data.insert(person);
+                }
+                // recorded but not yet written
+                assertEquals(0, data.count(Person.class).get().value().intValue());
+                data.flush();
+                assertEquals(10, data.count(Person.class).get().value().intValue());
+                Person first = persons.get(0);
+                first.setName("unit of work");
+                data.update(first);
+                first.setAge(99);
+                data.update(first);
+                data.delete(persons.get(1));
+                Person inserted = randomPerson();
+                data.insert(inserted);
+                data.delete(inserted);
+                return null;
+            }
+        });
+        assertEquals(9, data.count(Person.class).get().value().intValue());
+        Person first = data.select(Person.class)
+            .where(Person.NAME.eq("unit of work")).get().first();
+        assertEquals(99, first.getAge());
+    }
+
     @Test
     public void testInsertEmptyObject() {
         Phone phone = new Phone();
@@ -377,6 +519,58 @@ public abstract class FunctionalTest extends RandomData {
         assertNull(cached);
     }
 
+    @Test
+    public void testPreloadFindByKey() {
+        List<Person> people = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            people.add(randomPerson());
+        }
+        data.insert(people);
+        data.preload(Person.class);
+        for (Person person : people) {
+            assertSame(person, data.findByKey(Person.class, person.getId()));
+        }
+        assertNull(data.findByKey(Person.class, -1));
+        Person person = randomPerson();
+        data.insert(person);
+        assertSame(person, data.findByKey(Person.class, person.getId()));
+        data.delete(person);
+        assertNull(data.findByKey(Person.class, person.getId()));
+        assertSame(people.get(0), data.findByKey(Person.class, people.get(0).getId()));
+    }
+
+    @Test
+    public void testPreloadedQuery() {
+        List<Person> people = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Person person = randomPerson();
+            person.setAge(20 + i);
+            people.add(person);
+        }
+        data.insert(people);
+        data.preload(Person.class);
+        List<Person> result = data.select(Person.class)
+            .where(Person.AGE.greaterThan(24))
+            .orderBy(Person.AGE.desc())
+            .limit(3).get().toList();
+        assertEquals(3, result.size());
+        assertSame(people.get(9), result.get(0));
+        assertSame(people.get(8), result.get(1));
+        assertSame(people.get(7), result.get(2));
+        result = data.select(Person.class)
+            .where(Person.ID.in(Arrays.asList(people.get(1).getId(), people.get(3).getId())))
+            .orderBy(Person.AGE.asc()).get().toList();
+        assertEquals(2, result.size());
+        assertSame(people.get(1), result.get(0));
+        assertSame(people.get(3), result.get(1));
+        Person person = people.get(2);
+        person.setAge(50);
+        data.update(person);
+        assertSame(person, data.select(Person.class)
+            .where(Person.AGE.eq(50)).get().firstOrNull());
+        assertEquals(0, data.select(Person.class).where(Person.AGE.eq(22)).get().toList().size());
+    }
+
     @Test
     public void testTransactionRollback() {
         ArrayList<Integer> ids = new ArrayList<>();
@@ -711,6 +905,25 @@ public abstract class FunctionalTest extends RandomData {
         assertEquals(person, phone2.getOwner());
     }
 
+    @Test
+    public void testInsertOneToManyBatched() {
+        Person person = randomPerson();
+        List<Phone> phones = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Phone phone = randomPhone();
+            person.getPhoneNumbers().add(phone);
+            phones.add(phone);
+        }
+        data.insert(person);
+        for (Phone phone : phones) {
+            assertTrue(phone.getId() > 0);
+            assertEquals(person, phone.getOwner());
+        }
+        assertEquals(50, data.count(Phone.class).where(Phone.OWNER.eq(person)).get().value()
+            .intValue());
+        assertEquals(50, person.getPhoneNumbers().toList().size());
+    }
+
     @Test
     public void testInsertOneToManyInverseThroughSet() {
         Person person = randomPerson();
@@ -852,6 +1065,28 @@ public abstract class FunctionalTest extends RandomData {
         data.update(person);
     }
 
+    @Test
+    public void testUpdateManyToManyBatched() {
+        Person person = randomPerson();
+        List<Group> groups = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Group group = new Group();
+            group.setName("BatchGroup" + i);
+            person.getGroups().add(group);
+            groups.add(group);
+        }
+        data.insert(person);
+        assertEquals(20, person.getGroups().toList().size());
+        for (Group group : groups.subList(0, 15)) {
+            person.getGroups().remove(group);
+        }
+        data.update(person);
+        data.refresh(person, Person.GROUPS);
+        List<Group> remaining = person.getGroups().toList();
+        assertEquals(5, remaining.size());
+        assertTrue(remaining.containsAll(groups.subList(15, 20)));
+    }
+
     @Test
     public void testManyOrderBy() {
         Group group = new Group();
@@ -1081,6 +1316,211 @@ public abstract class FunctionalTest extends RandomData {
                 data.count(Person.class).where(Person.NAME.eq("countme")).get().value().intValue());
     }
 
+    @Test
+    public void testQueryToColumns() {
+        for (int i = 0; i < 10; i++) {
+            Person person = randomPerson();
+            person.setName(i % 2 == 0 ? "even" : "odd");
+            data.insert(person);
+        }
+        try (BulkResult<Tuple> result = (BulkResult<Tuple>) data.select(Person.ID, Person.NAME)
+            .orderBy(Person.ID).get()) {
+            Columns columns = result.toColumns();
+            assertEquals(2, columns.count());
+            assertEquals(10, columns.rows());
+            IntColumn ids = (IntColumn) columns.get(Person.ID);
+            StringColumn names = (StringColumn) columns.get(Person.NAME);
+            assertEquals(10, ids.toArray().length);
+            assertEquals(2, names.getDictionary().size());
+            assertEquals("even", names.get(0));
+            assertEquals("odd", names.get(1));
+        }
+        try (BulkResult<Tuple> result = (BulkResult<Tuple>) data.select(Person.ID).get()) {
+            assertEquals(10, result.longStream().count());
+        }
+    }
+
+    @Test
+    public void testEmptyQueryToColumns() {
+        try (BulkResult<Tuple> result =
+                 (BulkResult<Tuple>) data.select(Person.ID, Person.NAME).get()) {
+            Columns columns = result.toColumns();
+            assertEquals(2, columns.count());
+            assertEquals(0, columns.rows());
+            assertNotNull(columns.get(Person.NAME));
+        }
+        Columns columns = new CollectionResult<Tuple>().toColumns();
+        assertEquals(0, columns.count());
+        assertEquals(0, columns.rows());
+        assertNull(columns.get(Person.NAME));
+        columns = new ModifiableResult<Tuple>(null, null).toColumns();
+        assertEquals(0, columns.count());
+    }
+
+    @Test
+    public void testQueryParallelStream() {
+        data.insert(randomPersons(100));
+        try (BulkResult<Person> result = (BulkResult<Person>) data.select(Person.class).get();
+             Stream<Person> stream = result.parallelStream(Person.ID, 4)) {
+            assertEquals(100, stream.map(new Function<Person, Integer>() {
+                @Override
+                public Integer apply(Person person) {
+                    return person.getId();
+                }
+            }).distinct().count());
+        }
+    }
+
+    @Test
+    public void testQueryParallelStreamWhere() {
+        Collection<Person> persons = randomPersons(100);
+        int age = 0;
+        for (Person person : persons) {
+            person.setAge(age++);
+        }
+        data.insert(persons);
+        try (BulkResult<Person> result = (BulkResult<Person>) data.select(Person.class)
+                .where(Person.AGE.lessThan(50)).get();
+             Stream<Person> stream = result.parallelStream(Person.ID, 4)) {
+            assertEquals(50, stream.count());
+        }
+    }
+
+    @Test
+    public void testQueryPipelinedIterator() {
+        data.insert(randomPersons(50));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try (BulkResult<Person> result =
+                 (BulkResult<Person>) data.select(Person.class).orderBy(Person.ID).get()) {
+            List<Person> expected = result.toList();
+            List<Person> persons = new ArrayList<>();
+            try (CloseableIterator<Person> iterator = result.pipelinedIterator(executor)) {
+                while (iterator.hasNext()) {
+                    persons.add(iterator.next());
+                }
+            }
+            assertEquals(expected, persons);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testQueryPipelinedIteratorRejected() {
+        data.insert(randomPersons(300));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.shutdown();
+        try (BulkResult<Person> result =
+                 (BulkResult<Person>) data.select(Person.class).orderBy(Person.ID).get()) {
+            List<Person> expected = result.toList();
+            List<Person> persons = new ArrayList<>();
+            try (CloseableIterator<Person> iterator = result.pipelinedIterator(executor)) {
+                while (iterator.hasNext()) {
+                    persons.add(iterator.next());
+                }
+            }
+            assertEquals(expected, persons);
+        }
+    }
+
+    @Test
+    public void testQueryPrefetchingIterator() {
+        data.insert(randomPersons(50));
+        try (BulkResult<Person> result =
+                 (BulkResult<Person>) data.select(Person.class).orderBy(Person.ID).get()) {
+            List<Person> expected = result.toList();
+            List<Person> persons = new ArrayList<>();
+            try (CloseableIterator<Person> iterator = result.prefetchingIterator(8)) {
+                while (iterator.hasNext()) {
+                    persons.add(iterator.next());
+                }
+            }
+            assertEquals(expected, persons);
+        }
+    }
+
+    @Test
+    public void testQueryDetach() {
+        data.insert(randomPersons(20));
+        Result<Person> detached;
+        try (BulkResult<Person> result =
+                 (BulkResult<Person>) data.select(Person.class).orderBy(Person.ID).get()) {
+            detached = result.detach();
+        }
+        try {
+            List<Person> persons = detached.toList();
+            assertEquals(20, persons.size());
+            assertEquals(persons, detached.toList());
+        } finally {
+            detached.close();
+        }
+    }
+
+    @Test
+    public void testQueryWriteTo() throws IOException {
+        data.insert(randomPersons(10));
+        StringWriter csv = new StringWriter();
+        try (BulkResult<Tuple> result = (BulkResult<Tuple>)
+                 data.select(Person.ID, Person.NAME).orderBy(Person.ID).get()) {
+            result.writeTo(csv, ExportFormat.CSV);
+        }
+        String[] lines = csv.toString().split("\r\n");
+        assertEquals(11, lines.length);
+        assertEquals(Person.ID.getName() + "," + Person.NAME.getName(), lines[0]);
+        StringWriter json = new StringWriter();
+        try (BulkResult<Person> result = (BulkResult<Person>) data.select(Person.class).get()) {
+            result.writeTo(json, ExportFormat.JSON_LINES);
+        }
+        lines = json.toString().split("\n");
+        assertEquals(10, lines.length);
+        for (String line : lines) {
+            assertTrue(line.startsWith("{") && line.endsWith("}"));
+        }
+    }
+
+    @Test
+    public void testQueryWriteToEntities() throws IOException {
+        data.insert(randomPersons(3));
+        BulkResult<Person> detached;
+        try (BulkResult<Person> result =
+                 (BulkResult<Person>) data.select(Person.class).orderBy(Person.ID).get()) {
+            detached = result.detach();
+        }
+        StringWriter csv = new StringWriter();
+        try {
+            detached.writeTo(csv, ExportFormat.CSV);
+        } finally {
+            detached.close();
+        }
+        String[] lines = csv.toString().split("\r\n");
+        assertEquals(4, lines.length);
+        assertTrue(lines[0].contains(Person.NAME.getName()));
+        // an empty result still has the header
+        try (BulkResult<Person> result =
+                 (BulkResult<Person>) data.select(Person.class).where(Person.ID.eq(-1)).get()) {
+            detached = result.detach();
+        }
+        csv = new StringWriter();
+        try {
+            detached.writeTo(csv, ExportFormat.CSV);
+        } finally {
+            detached.close();
+        }
+        lines = csv.toString().split("\r\n");
+        assertEquals(1, lines.length);
+        assertTrue(lines[0].contains(Person.NAME.getName()));
+        // not yet saved elements of a collection are exported
+        Person person = randomPerson();
+        Phone phone = randomPhone();
+        person.getPhoneNumbers().add(phone);
+        csv = new StringWriter();
+        ((BulkResult<Phone>) person.getPhoneNumbers()).writeTo(csv, ExportFormat.CSV);
+        lines = csv.toString().split("\r\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains(Phone.PHONE_NUMBER.getName()));
+        assertTrue(lines[1].contains(phone.getPhoneNumber()));
+    }
+
     @Test
     public void testQueryNotNull() {
         for (int i = 0; i < 10; i++) {
@@ -1360,6 +1800,40 @@ public abstract class FunctionalTest extends RandomData {
         assertSame(50, selected.getAge());
     }
 
+    @Test
+    public void testQueryUpdateInvalidatesCache() {
+        Person person = randomPerson();
+        person.setAge(10);
+        data.insert(person);
+        int id = person.getId();
+        assertNotNull(data.findByKey(Person.class, id));
+        int rowCount = data.update(Person.class)
+                .set(Person.AGE, 60)
+                .where(Person.AGE.lessThan(20)).get().value();
+        assertEquals(1, rowCount);
+        Person cached = data.findByKey(Person.class, id);
+        assertSame(60, cached.getAge());
+        data.delete(Person.class).where(Person.ID.eq(id)).get().value();
+        assertNull(data.findByKey(Person.class, id));
+    }
+
+    @Test
+    public void testQueryUpdateRollbackInvalidatesCache() {
+        Person person = randomPerson();
+        person.setAge(10);
+        data.insert(person);
+        int id = person.getId();
+        try (Transaction transaction = data.transaction().begin()) {
+            data.update(Person.class)
+                .set(Person.AGE, 60)
+                .where(Person.ID.eq(id)).get().value();
+            // loads the uncommitted row into the cache
+            assertSame(60, data.findByKey(Person.class, id).getAge());
+            transaction.rollback();
+        }
+        assertSame(10, data.findByKey(Person.class, id).getAge());
+    }
+
     @Test
     public void testQueryCoalesce() {
         Person person = randomPerson();
@@ -0,0 +1,22 @@
+package io.requery.test.model;
+
+import io.requery.Entity;
+import io.requery.ForeignKey;
+import io.requery.Generated;
+import io.requery.Key;
+import io.requery.ManyToOne;
+import io.requery.ReferentialAction;
+
+@Entity
+public abstract class AbstractChildDatabaseCascade {
+
+    @Key
+    @Generated
+    long id;
+
+    String attribute;
+
+    @ManyToOne
+    @ForeignKey(delete = ReferentialAction.CASCADE)
+    ParentDatabaseCascade parent;
+}
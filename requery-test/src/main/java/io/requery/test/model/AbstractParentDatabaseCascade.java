@@ -0,0 +1,21 @@
+package io.requery.test.model;
+
+import io.requery.CascadeAction;
+import io.requery.Entity;
+import io.requery.Generated;
+import io.requery.Key;
+import io.requery.OneToMany;
+
+import java.util.List;
+
+@Entity
+public abstract class AbstractParentDatabaseCascade {
+
+    @Key
+    @Generated
+    long id;
+
+    @OneToMany(mappedBy = "parent",
+        cascade = {CascadeAction.SAVE, CascadeAction.DATABASE_DELETE})
+    List<ChildDatabaseCascade> children;
+}
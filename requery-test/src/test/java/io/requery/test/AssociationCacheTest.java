@@ -0,0 +1,189 @@
+/*
+ * Copyright 2018 requery.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.requery.test;
+
+import io.requery.Transaction;
+import io.requery.meta.EntityModel;
+import io.requery.sql.Configuration;
+import io.requery.sql.ConfigurationBuilder;
+import io.requery.sql.EntityDataStore;
+import io.requery.sql.Platform;
+import io.requery.sql.SchemaModifier;
+import io.requery.sql.TableCreationMode;
+import io.requery.sql.platform.H2;
+import io.requery.test.model.Models;
+import io.requery.test.model.Person;
+import io.requery.test.model.Phone;
+import io.requery.test.model3.Event;
+import io.requery.test.model3.Tag;
+import io.requery.test.model3.Tag_Event;
+import org.junit.After;
+import org.junit.Test;
+
+import javax.sql.CommonDataSource;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+
+public class AssociationCacheTest {
+
+    private EntityDataStore<Object> data;
+    private Configuration configuration;
+    private final StatementCounter counter = new StatementCounter();
+
+    private void setup(EntityModel model) {
+        Platform platform = new H2();
+        CommonDataSource dataSource = DatabaseType.getDataSource(platform);
+        configuration = new ConfigurationBuilder(dataSource, model)
+            .setCacheAssociations(true)
+            .addStatementListener(counter)
+            .build();
+        new SchemaModifier(configuration).createTables(TableCreationMode.DROP_CREATE);
+        data = new EntityDataStore<>(configuration);
+    }
+
+    @After
+    public void teardown() {
+        if (data != null) {
+            data.close();
+        }
+    }
+
+    /**
+     * @return a new instance of a cached entity, with none of its associations loaded
+     */
+    private <E> E reload(Class<E> type, Object key) {
+        configuration.getCache().invalidate(type, key);
+        return data.findByKey(type, key);
+    }
+
+    private Person insertPerson(int phones) {
+        Person person = RandomData.randomPerson();
+        data.insert(person);
+        for (int i = 0; i < phones; i++) {
+            Phone phone = RandomData.randomPhone();
+            phone.setOwner(person);
+            data.insert(phone);
+        }
+        return person;
+    }
+
+    @Test
+    public void testOneToManyFromCache() {
+        setup(Models.DEFAULT);
+        Person person = insertPerson(3);
+        data.refresh(person, Person.PHONE_NUMBERS_SET);
+        assertEquals(3, person.getPhoneNumbersSet().size());
+
+        person = reload(Person.class, person.getId());
+        counter.reset();
+        assertEquals(3, person.getPhoneNumbersSet().size());
+        assertEquals(0, counter.queries.get());
+
+        // an explicit refresh always reads the association
+        data.refresh(person, Person.PHONE_NUMBERS_SET);
+        assertEquals(3, person.getPhoneNumbersSet().size());
+        assertEquals(1, counter.queries.get());
+
+        // inserting an element of the owner invalidates the association
+        Phone phone = RandomData.randomPhone();
+        phone.setOwner(person);
+        data.insert(phone);
+        person = reload(Person.class, person.getId());
+        counter.reset();
+        assertEquals(4, person.getPhoneNumbersSet().size());
+        assertEquals(1, counter.queries.get());
+
+        // deleted elements are not returned from the cache
+        data.delete(phone);
+        person = reload(Person.class, person.getId());
+        assertEquals(3, person.getPhoneNumbersSet().size());
+    }
+
+    @Test
+    public void testOneToManyQueryUpdateInvalidatesOwners() {
+        setup(Models.DEFAULT);
+        Person from = insertPerson(3);
+        Person to = insertPerson(0);
+        data.refresh(from, Person.PHONE_NUMBERS_SET);
+        data.refresh(to, Person.PHONE_NUMBERS_SET);
+        assertEquals(3, from.getPhoneNumbersSet().size());
+        assertEquals(0, to.getPhoneNumbersSet().size());
+
+        data.update(Phone.class)
+            .set(Phone.OWNER, to)
+            .where(Phone.OWNER.eq(from)).get().value();
+
+        from = reload(Person.class, from.getId());
+        to = reload(Person.class, to.getId());
+        assertEquals(0, from.getPhoneNumbersSet().size());
+        assertEquals(3, to.getPhoneNumbersSet().size());
+    }
+
+    @Test
+    public void testRolledBackDelete() {
+        setup(Models.DEFAULT);
+        Person person = insertPerson(3);
+        data.refresh(person, Person.PHONE_NUMBERS_SET);
+        Phone phone = person.getPhoneNumbersSet().iterator().next();
+        try (Transaction transaction = data.transaction().begin()) {
+            data.delete(phone);
+            // loaded with the uncommitted delete
+            data.refresh(person, Person.PHONE_NUMBERS_SET);
+            assertEquals(2, person.getPhoneNumbersSet().size());
+            transaction.rollback();
+        }
+        person = reload(Person.class, person.getId());
+        assertEquals(3, person.getPhoneNumbersSet().size());
+    }
+
+    @Test
+    public void testManyToManyFromCache() {
+        setup(io.requery.test.model3.Models.MODEL3);
+        Event event = new Event();
+        event.setId(UUID.randomUUID());
+        event.setName("event");
+        for (int i = 0; i < 2; i++) {
+            Tag tag = new Tag();
+            tag.setId(UUID.randomUUID());
+            event.getTags().add(tag);
+        }
+        data.insert(event);
+        data.refresh(event, Event.TAGS);
+        assertEquals(2, event.getTags().size());
+
+        event = reload(Event.class, event.getId());
+        counter.reset();
+        assertEquals(2, event.getTags().size());
+        assertEquals(0, counter.queries.get());
+
+        // writing the association of the owner invalidates it
+        Tag tag = new Tag();
+        tag.setId(UUID.randomUUID());
+        event.getTags().add(tag);
+        data.update(event);
+        event = reload(Event.class, event.getId());
+        counter.reset();
+        assertEquals(3, event.getTags().size());
+        assertEquals(1, counter.queries.get());
+
+        // removing junction rows with a query invalidates it
+        data.delete(Tag_Event.class).get().value();
+        event = reload(Event.class, event.getId());
+        assertEquals(0, event.getTags().size());
+    }
+}
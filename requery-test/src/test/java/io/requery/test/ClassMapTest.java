@@ -4,6 +4,8 @@ import io.requery.util.ClassMap;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.lang.reflect.Array;
+
 public class ClassMapTest {
 
     @Test
@@ -14,4 +16,34 @@ public class ClassMapTest {
         Assert.assertEquals(map.get(String.class), "test");
         Assert.assertNull(map.get(Object.class));
     }
+
+    @Test
+    public void testDerivedLookupUpdatedAfterPut() {
+        ClassMap<String> map = new ClassMap<>();
+        map.put(Number.class, "number");
+        Assert.assertNull(map.get(String.class));
+        Assert.assertEquals("number", map.get(Integer.class));
+        map.put(CharSequence.class, "chars");
+        map.put(Integer.class, "integer");
+        Assert.assertEquals("chars", map.get(String.class));
+        Assert.assertEquals("integer", map.get(Integer.class));
+        map.remove(CharSequence.class);
+        Assert.assertNull(map.get(String.class));
+    }
+
+    @Test
+    public void testDerivedLookupBeyondMemoLimit() {
+        ClassMap<String> map = new ClassMap<>();
+        map.put(Number[].class, "numbers");
+        // distinct array classes, more than are remembered
+        for (int i = 1; i < 255; i++) {
+            int[] dimensions = new int[i];
+            Assert.assertNull(map.get(Array.newInstance(String.class, dimensions).getClass()));
+            Assert.assertEquals(i == 1 ? "numbers" : null,
+                map.get(Array.newInstance(Integer.class, dimensions).getClass()));
+        }
+        map.put(Number.class, "number");
+        Assert.assertEquals("number", map.get(Long.class));
+        Assert.assertEquals("numbers", map.get(Long[].class));
+    }
 }
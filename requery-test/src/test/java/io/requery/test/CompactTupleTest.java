@@ -0,0 +1,86 @@
+package io.requery.test;
+
+import io.requery.query.Columns;
+import io.requery.query.CompactTuple;
+import io.requery.query.Expression;
+import io.requery.query.NamedExpression;
+import io.requery.query.TupleSchema;
+import io.requery.sql.CollectionResult;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+
+public class CompactTupleTest {
+
+    private final NamedExpression<Integer> id = NamedExpression.ofInteger("id");
+    private final NamedExpression<String> name = NamedExpression.of("name", String.class);
+    private final TupleSchema schema =
+        new TupleSchema(Arrays.<Expression<?>>asList(id, name));
+
+    @Test
+    public void testLookup() {
+        CompactTuple tuple = new CompactTuple(schema);
+        tuple.setLong(0, 42);
+        tuple.set(1, "test");
+        Assert.assertEquals(2, tuple.count());
+        Assert.assertEquals(42, tuple.getInt(0));
+        Assert.assertEquals(42L, tuple.getLong(0));
+        Assert.assertEquals(Integer.valueOf(42), tuple.get(id));
+        Assert.assertEquals("test", tuple.get(name));
+        Assert.assertEquals("test", tuple.get("NAME"));
+        Assert.assertNull(tuple.get("missing"));
+    }
+
+    @Test
+    public void testNullValues() {
+        CompactTuple tuple = new CompactTuple(schema);
+        Assert.assertNull(tuple.get(id));
+        Assert.assertNull(tuple.get(0));
+        Assert.assertEquals(0, tuple.getInt(0));
+    }
+
+    @Test
+    public void testEquals() {
+        CompactTuple a = new CompactTuple(schema);
+        a.setLong(0, 1);
+        a.set(1, "a");
+        CompactTuple b = new CompactTuple(schema);
+        b.set(0, 1);
+        b.set(1, "a");
+        Assert.assertEquals(a, b);
+        Assert.assertEquals(a.hashCode(), b.hashCode());
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        CompactTuple tuple = new CompactTuple(schema);
+        tuple.setLong(0, 42);
+        tuple.set(1, "test");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(tuple);
+        }
+        CompactTuple copy;
+        try (ObjectInputStream input =
+                 new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (CompactTuple) input.readObject();
+        }
+        Assert.assertEquals(2, copy.count());
+        Assert.assertEquals(2, copy.schema().size());
+        Assert.assertEquals(tuple, copy);
+        Assert.assertEquals(42L, copy.getLong(0));
+        Assert.assertEquals("test", copy.get("name"));
+        Assert.assertEquals("test", copy.get(name));
+        // only names are kept, columns are still named by them
+        Assert.assertNull(copy.schema().expressionAt(1));
+        Assert.assertEquals("name", copy.schema().nameAt(1));
+        Columns columns = new CollectionResult<>(copy).toColumns();
+        Assert.assertEquals(1, columns.rows());
+        Assert.assertEquals("name", columns.get(1).getName());
+    }
+}
@@ -0,0 +1,97 @@
+package io.requery.test;
+
+import io.requery.sql.Configuration;
+import io.requery.sql.ConfigurationBuilder;
+import io.requery.sql.EntityDataStore;
+import io.requery.sql.Platform;
+import io.requery.sql.SchemaModifier;
+import io.requery.sql.TableCreationMode;
+import io.requery.sql.platform.H2;
+import io.requery.test.model.ChildDatabaseCascade;
+import io.requery.test.model.Models;
+import io.requery.test.model.ParentDatabaseCascade;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.sql.CommonDataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class DatabaseCascadeTest {
+
+    private EntityDataStore<Object> data;
+    private final StatementCounter counter = new StatementCounter();
+
+    @Before
+    public void setup() {
+        Platform platform = new H2();
+        CommonDataSource dataSource = DatabaseType.getDataSource(platform);
+        Configuration configuration = new ConfigurationBuilder(dataSource, Models.DEFAULT)
+            .addStatementListener(counter)
+            .build();
+        new SchemaModifier(configuration).createTables(TableCreationMode.DROP_CREATE);
+        data = new EntityDataStore<>(configuration);
+    }
+
+    @After
+    public void teardown() {
+        if (data != null) {
+            data.close();
+        }
+    }
+
+    private List<ChildDatabaseCascade> insertChildren(ParentDatabaseCascade parent) {
+        List<ChildDatabaseCascade> children = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ChildDatabaseCascade child = new ChildDatabaseCascade();
+            child.setAttribute("child" + i);
+            child.setParent(parent);
+            data.insert(child);
+            children.add(child);
+        }
+        return children;
+    }
+
+    @Test
+    public void testDeleteDoesNotLoadChildren() {
+        ParentDatabaseCascade parent = new ParentDatabaseCascade();
+        data.insert(parent);
+        List<ChildDatabaseCascade> children = insertChildren(parent);
+        ChildDatabaseCascade first = children.get(0);
+        assertSame(first, data.findByKey(ChildDatabaseCascade.class, first.getId()));
+
+        counter.reset();
+        data.delete(parent);
+        // only the parent row is deleted, the children are deleted by the database
+        assertEquals(0, counter.queries.get());
+        assertEquals(1, counter.updates.get());
+
+        assertEquals(0, data.count(ChildDatabaseCascade.class).get().value().intValue());
+        for (ChildDatabaseCascade child : children) {
+            assertNull(data.findByKey(ChildDatabaseCascade.class, child.getId()));
+        }
+    }
+
+    @Test
+    public void testDeleteInvalidatesLoadedChildren() {
+        ParentDatabaseCascade parent = new ParentDatabaseCascade();
+        data.insert(parent);
+        List<ChildDatabaseCascade> children = insertChildren(parent);
+        data.refresh(parent, ParentDatabaseCascade.CHILDREN);
+        assertEquals(3, parent.getChildren().size());
+
+        counter.reset();
+        data.delete(parent);
+        assertEquals(0, counter.queries.get());
+        assertEquals(1, counter.updates.get());
+
+        for (ChildDatabaseCascade child : children) {
+            assertNull(data.findByKey(ChildDatabaseCascade.class, child.getId()));
+        }
+    }
+}
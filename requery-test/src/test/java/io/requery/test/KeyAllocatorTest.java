@@ -0,0 +1,139 @@
+/*
+ * Copyright 2018 requery.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.requery.test;
+
+import io.requery.PersistenceException;
+import io.requery.meta.EntityModel;
+import io.requery.sql.Configuration;
+import io.requery.sql.ConfigurationBuilder;
+import io.requery.sql.ConnectionProvider;
+import io.requery.sql.EntityDataStore;
+import io.requery.sql.HiLoKeyAllocator;
+import io.requery.sql.Platform;
+import io.requery.sql.SchemaModifier;
+import io.requery.sql.TableCreationMode;
+import io.requery.sql.TimeOrderedKeyAllocator;
+import io.requery.sql.platform.H2;
+import io.requery.test.model.Models;
+import io.requery.test.model.Person;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class KeyAllocatorTest {
+
+    @Test
+    public void testTimeOrderedKeys() {
+        TimeOrderedKeyAllocator allocator = new TimeOrderedKeyAllocator(1);
+        Set<Long> keys = new HashSet<>();
+        long last = 0;
+        for (int i = 0; i < 100000; i++) {
+            long key = allocator.next();
+            assertTrue(key > last);
+            last = key;
+            keys.add(key);
+        }
+        assertEquals(100000, keys.size());
+    }
+
+    @Test
+    public void testHiLoKeysInsert() throws SQLException {
+        Platform platform = new H2();
+        final DataSource dataSource = (DataSource) DatabaseType.getDataSource(platform);
+        EntityModel model = Models.DEFAULT;
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("drop sequence if exists key_sequence");
+            statement.execute("create sequence key_sequence");
+        }
+        ConnectionProvider connectionProvider = new ConnectionProvider() {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return dataSource.getConnection();
+            }
+        };
+        Configuration configuration = new ConfigurationBuilder(dataSource, model)
+            .setKeyAllocator(new HiLoKeyAllocator(connectionProvider, platform, "key_sequence", 50))
+            .build();
+        new SchemaModifier(configuration).createTables(TableCreationMode.DROP_CREATE);
+        EntityDataStore<Object> data = new EntityDataStore<>(configuration);
+        try {
+            List<Person> persons = new ArrayList<>();
+            for (int i = 0; i < 120; i++) {
+                persons.add(RandomData.randomPerson());
+            }
+            data.insert(persons);
+            Set<Integer> ids = new HashSet<>();
+            for (Person person : persons) {
+                ids.add(person.getId());
+            }
+            assertEquals(120, ids.size());
+            assertEquals(120, data.count(Person.class).get().value().intValue());
+            Person person = RandomData.randomPerson();
+            Integer id = data.insert(person, Integer.class);
+            assertEquals(person.getId(), id.intValue());
+            assertEquals(person, data.findByKey(Person.class, id));
+        } finally {
+            data.close();
+        }
+    }
+
+    @Test
+    public void testHiLoKeysOverflow() throws SQLException {
+        Platform platform = new H2();
+        final DataSource dataSource = (DataSource) DatabaseType.getDataSource(platform);
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("drop sequence if exists key_sequence");
+            // the first block starts past Integer.MAX_VALUE
+            statement.execute("create sequence key_sequence start with " +
+                (Integer.MAX_VALUE / 50 + 1));
+        }
+        ConnectionProvider connectionProvider = new ConnectionProvider() {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return dataSource.getConnection();
+            }
+        };
+        HiLoKeyAllocator allocator =
+            new HiLoKeyAllocator(connectionProvider, platform, "key_sequence", 50);
+        Configuration configuration = new ConfigurationBuilder(dataSource, Models.DEFAULT)
+            .setKeyAllocator(allocator)
+            .build();
+        new SchemaModifier(configuration).createTables(TableCreationMode.DROP_CREATE);
+        EntityDataStore<Object> data = new EntityDataStore<>(configuration);
+        try {
+            data.insert(RandomData.randomPerson());
+            fail();
+        } catch (PersistenceException e) {
+            assertEquals(0, data.count(Person.class).get().value().intValue());
+        } finally {
+            data.close();
+        }
+    }
+}
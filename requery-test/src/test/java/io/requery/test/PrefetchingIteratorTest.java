@@ -0,0 +1,81 @@
+package io.requery.test;
+
+import io.requery.PersistenceException;
+import io.requery.util.CloseableIterator;
+import io.requery.util.PrefetchingIterator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+
+public class PrefetchingIteratorTest {
+
+    /**
+     * Iterator that blocks reading the first element until it is cancelled.
+     */
+    private static class BlockingIterator implements CloseableIterator<Integer> {
+
+        final CountDownLatch cancelled = new CountDownLatch(1);
+        volatile boolean closed;
+
+        @Override
+        public boolean hasNext() {
+            try {
+                cancelled.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return false;
+        }
+
+        @Override
+        public Integer next() {
+            throw new NoSuchElementException();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    private static PrefetchingIterator<Integer> prefetch(final BlockingIterator iterator) {
+        return new PrefetchingIterator<Integer>(iterator, 16) {
+            @Override
+            protected void cancel() {
+                iterator.cancelled.countDown();
+            }
+        };
+    }
+
+    @Test
+    public void testCloseCancelsRead() {
+        BlockingIterator iterator = new BlockingIterator();
+        PrefetchingIterator<Integer> prefetching = prefetch(iterator);
+        prefetching.close();
+        Assert.assertEquals(0, iterator.cancelled.getCount());
+        Assert.assertTrue(iterator.closed);
+        Assert.assertFalse(prefetching.hasNext());
+    }
+
+    @Test
+    public void testInterruptedWhileWaiting() {
+        BlockingIterator iterator = new BlockingIterator();
+        PrefetchingIterator<Integer> prefetching = prefetch(iterator);
+        Thread.currentThread().interrupt();
+        try {
+            prefetching.hasNext();
+            Assert.fail();
+        } catch (PersistenceException e) {
+            Assert.assertTrue(e.getCause() instanceof InterruptedException);
+        }
+        Assert.assertTrue(Thread.interrupted());
+        Assert.assertTrue(iterator.closed);
+    }
+}
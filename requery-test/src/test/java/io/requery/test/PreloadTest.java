@@ -0,0 +1,236 @@
+/*
+ * Copyright 2018 requery.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.requery.test;
+
+import io.requery.Transaction;
+import io.requery.sql.Configuration;
+import io.requery.sql.ConfigurationBuilder;
+import io.requery.sql.EntityDataStore;
+import io.requery.sql.Platform;
+import io.requery.sql.SchemaModifier;
+import io.requery.sql.TableCreationMode;
+import io.requery.sql.platform.H2;
+import io.requery.test.model.Models;
+import io.requery.test.model.Person;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.sql.CommonDataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class PreloadTest {
+
+    private EntityDataStore<Object> data;
+    private final StatementCounter counter = new StatementCounter();
+
+    @Before
+    public void setup() {
+        Platform platform = new H2();
+        CommonDataSource dataSource = DatabaseType.getDataSource(platform);
+        Configuration configuration = new ConfigurationBuilder(dataSource, Models.DEFAULT)
+            .addStatementListener(counter)
+            .build();
+        new SchemaModifier(configuration).createTables(TableCreationMode.DROP_CREATE);
+        data = new EntityDataStore<>(configuration);
+    }
+
+    @After
+    public void teardown() {
+        if (data != null) {
+            data.close();
+        }
+    }
+
+    private List<Person> insertPeople(int count) {
+        List<Person> people = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Person person = RandomData.randomPerson();
+            person.setName("Person " + i);
+            person.setEmail("person" + i + "@example.com");
+            person.setAge(i);
+            people.add(person);
+        }
+        data.insert(people);
+        return people;
+    }
+
+    @Test
+    public void testInvalidateKeepsOtherEntities() {
+        List<Person> people = insertPeople(10);
+        data.preload(Person.class);
+        Person removed = people.get(0);
+        data.delete(removed);
+
+        counter.reset();
+        for (Person person : people.subList(1, people.size())) {
+            assertSame(person, data.findByKey(Person.class, person.getId()));
+        }
+        assertEquals(0, counter.queries.get());
+        // only the invalidated key is read again
+        assertNull(data.findByKey(Person.class, removed.getId()));
+        assertEquals(1, counter.queries.get());
+    }
+
+    @Test
+    public void testPreloadKeepsCachedEntities() {
+        // inserted before preloading so already in the entity cache
+        List<Person> people = insertPeople(10);
+        data.preload(Person.class);
+
+        counter.reset();
+        for (Person person : people) {
+            assertSame(person, data.findByKey(Person.class, person.getId()));
+        }
+        assertEquals(0, counter.queries.get());
+    }
+
+    @Test
+    public void testQueryUpdateKeepsPreloadedEntities() {
+        List<Person> people = insertPeople(10);
+        data.preload(Person.class);
+        int count = data.update(Person.class)
+            .set(Person.AGE, 100)
+            .where(Person.NAME.eq("Person 2")).get().value();
+        assertEquals(1, count);
+
+        counter.reset();
+        assertSame(people.get(5), data.findByKey(Person.class, people.get(5).getId()));
+        assertEquals(0, counter.queries.get());
+        // only the updated key is read again
+        Person updated = data.findByKey(Person.class, people.get(2).getId());
+        assertEquals(100, updated.getAge());
+        assertEquals(1, counter.queries.get());
+    }
+
+    private Person selectByName(String name) {
+        return data.select(Person.class).where(Person.NAME.eq(name)).get().firstOrNull();
+    }
+
+    @Test
+    public void testIndexedQueryFromMemory() {
+        List<Person> people = insertPeople(10);
+        data.preload(Person.class);
+
+        counter.reset();
+        assertSame(people.get(3), selectByName("Person 3"));
+        List<Person> result = data.select(Person.class)
+            .where(Person.EMAIL.in(Arrays.asList("person1@example.com", "person5@example.com")))
+            .orderBy(Person.AGE.asc()).get().toList();
+        assertEquals(2, result.size());
+        assertSame(people.get(1), result.get(0));
+        assertSame(people.get(5), result.get(1));
+        assertEquals(0, counter.queries.get());
+    }
+
+    @Test
+    public void testIndexUpdatedOnWrite() {
+        List<Person> people = insertPeople(10);
+        data.preload(Person.class);
+        assertSame(people.get(3), selectByName("Person 3"));
+
+        Person person = people.get(3);
+        person.setName("Renamed");
+        data.update(person);
+        counter.reset();
+        assertSame(person, selectByName("Renamed"));
+        assertNull(selectByName("Person 3"));
+        assertEquals(0, counter.queries.get());
+
+        // the deleted key is read once before the query is evaluated in memory again
+        data.delete(people.get(4));
+        counter.reset();
+        assertNull(selectByName("Person 4"));
+        assertEquals(1, counter.queries.get());
+        assertSame(people.get(5), selectByName("Person 5"));
+        assertEquals(1, counter.queries.get());
+    }
+
+    @Test
+    public void testModifiedAttributeQueriesDatabase() {
+        List<Person> people = insertPeople(10);
+        data.preload(Person.class);
+        people.get(0).setName("Modified");
+
+        counter.reset();
+        assertSame(people.get(1), selectByName("Person 1"));
+        assertEquals(1, counter.queries.get());
+    }
+
+    @Test
+    public void testNullOrderingQueriesDatabase() {
+        List<Person> people = insertPeople(10);
+        data.preload(Person.class);
+        counter.reset();
+        assertEquals(10, data.select(Person.class)
+            .orderBy(Person.BIRTHDAY.asc()).get().toList().size());
+        assertEquals(0, counter.queries.get());
+
+        Person person = people.get(0);
+        person.setBirthday(null);
+        data.update(person);
+        counter.reset();
+        assertEquals(10, data.select(Person.class)
+            .orderBy(Person.BIRTHDAY.asc()).get().toList().size());
+        assertEquals(1, counter.queries.get());
+    }
+
+    @Test
+    public void testStringRangeQueriesDatabase() {
+        insertPeople(10);
+        data.preload(Person.class);
+
+        counter.reset();
+        assertEquals(4, data.select(Person.class)
+            .where(Person.NAME.greaterThan("Person 5")).get().toList().size());
+        assertEquals(1, counter.queries.get());
+    }
+
+    @Test
+    public void testUncommittedChangesNotVisible() throws InterruptedException {
+        List<Person> people = insertPeople(10);
+        data.preload(Person.class);
+        final Person person = people.get(0);
+        final Person[] found = new Person[1];
+        try (Transaction transaction = data.transaction().begin()) {
+            person.setName("Uncommitted");
+            data.update(person);
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    found[0] = selectByName("Uncommitted");
+                }
+            });
+            thread.start();
+            thread.join(10000);
+            assertFalse(thread.isAlive());
+            assertNull(found[0]);
+            transaction.commit();
+        }
+        counter.reset();
+        assertSame(person, selectByName("Uncommitted"));
+        assertEquals(0, counter.queries.get());
+    }
+}
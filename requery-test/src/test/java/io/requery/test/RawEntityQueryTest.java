@@ -0,0 +1,156 @@
+/*
+ * Copyright 2018 requery.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.requery.test;
+
+import io.requery.proxy.EntityProxy;
+import io.requery.proxy.PropertyState;
+import io.requery.query.Result;
+import io.requery.sql.Configuration;
+import io.requery.sql.ConfigurationBuilder;
+import io.requery.sql.EntityDataStore;
+import io.requery.sql.Platform;
+import io.requery.sql.SchemaModifier;
+import io.requery.sql.TableCreationMode;
+import io.requery.sql.platform.H2;
+import io.requery.test.model.Address;
+import io.requery.test.model.Models;
+import io.requery.test.model.Person;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.sql.CommonDataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests reading entities from raw queries whose columns are matched to attributes by name.
+ */
+public class RawEntityQueryTest {
+
+    private EntityDataStore<Object> data;
+    private Configuration configuration;
+
+    @Before
+    public void setup() {
+        Platform platform = new H2();
+        CommonDataSource dataSource = DatabaseType.getDataSource(platform);
+        configuration = new ConfigurationBuilder(dataSource, Models.DEFAULT).build();
+        new SchemaModifier(configuration).createTables(TableCreationMode.DROP_CREATE);
+        data = new EntityDataStore<>(configuration);
+    }
+
+    @After
+    public void teardown() {
+        if (data != null) {
+            data.close();
+        }
+    }
+
+    private List<Person> insertPeople(int count) {
+        List<Person> people = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Person person = RandomData.randomPerson();
+            person.setName("Person " + i);
+            person.setAge(i);
+            data.insert(person);
+            people.add(person);
+        }
+        return people;
+    }
+
+    private static void assertRead(Person expected, Person person) {
+        assertEquals(expected.getId(), person.getId());
+        assertEquals(expected.getName(), person.getName());
+        assertEquals(expected.getEmail(), person.getEmail());
+        assertEquals(expected.getAge(), person.getAge());
+    }
+
+    @Test
+    public void testExtraColumns() {
+        List<Person> people = insertPeople(5);
+        configuration.getCache().clear();
+        // columns not matching an attribute shift the position of the entity columns
+        try (Result<Person> result = data.raw(Person.class,
+            "select 1 as extra, p.*, 'x' as other from Person p order by p.id")) {
+            List<Person> list = result.toList();
+            assertEquals(people.size(), list.size());
+            for (int i = 0; i < people.size(); i++) {
+                assertRead(people.get(i), list.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void testReorderedColumns() {
+        List<Person> people = insertPeople(3);
+        configuration.getCache().clear();
+        try (Result<Person> result = data.raw(Person.class,
+            "select age, email, name, id from Person order by id")) {
+            List<Person> list = result.toList();
+            assertEquals(people.size(), list.size());
+            for (int i = 0; i < people.size(); i++) {
+                Person person = list.get(i);
+                EntityProxy<Person> proxy = Person.$TYPE.getProxyProvider().apply(person);
+                assertEquals(PropertyState.LOADED, proxy.getState(Person.AGE));
+                // not part of the result
+                assertEquals(PropertyState.FETCH, proxy.getState(Person.UUID));
+                assertRead(people.get(i), person);
+            }
+        }
+    }
+
+    @Test
+    public void testJoinedColumns() {
+        List<Person> people = insertPeople(3);
+        for (Person person : people) {
+            person.setAddress(RandomData.randomAddress());
+            data.update(person);
+        }
+        configuration.getCache().clear();
+        // the first column of a name is used, the address id doesn't replace the person id
+        try (Result<Person> result = data.raw(Person.class,
+            "select p.*, a.* from Person p join Address a on p." +
+                Person.ADDRESS.getName() + " = a.id order by p.id")) {
+            List<Person> list = result.toList();
+            assertEquals(people.size(), list.size());
+            for (int i = 0; i < people.size(); i++) {
+                Person person = list.get(i);
+                assertRead(people.get(i), person);
+                Address address = people.get(i).getAddress();
+                assertEquals(address.getId(), person.getAddress().getId());
+            }
+        }
+    }
+
+    @Test
+    public void testCachedEntity() {
+        List<Person> people = insertPeople(3);
+        // key read from its column in the layout finds the cached instance
+        try (Result<Person> result = data.raw(Person.class,
+            "select name, id from Person order by id")) {
+            List<Person> list = result.toList();
+            for (int i = 0; i < people.size(); i++) {
+                assertSame(people.get(i), list.get(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2018 requery.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.requery.test;
+
+import io.requery.meta.Attribute;
+import io.requery.meta.Types;
+import io.requery.proxy.EntityProxy;
+import io.requery.proxy.PropertyState;
+import io.requery.proxy.ResultSetReader;
+import io.requery.sql.Configuration;
+import io.requery.sql.ConfigurationBuilder;
+import io.requery.sql.EntityDataStore;
+import io.requery.sql.GenericMapping;
+import io.requery.sql.Mapping;
+import io.requery.sql.Platform;
+import io.requery.sql.SchemaModifier;
+import io.requery.sql.TableCreationMode;
+import io.requery.sql.platform.H2;
+import io.requery.sql.type.VarCharType;
+import io.requery.test.model.Address;
+import io.requery.test.model.Models;
+import io.requery.test.model.Person;
+import org.junit.After;
+import org.junit.Test;
+
+import javax.sql.CommonDataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests reading entities with the {@link ResultSetReader} generated for a type, and falling back
+ * to the mapping when the reader can't be used.
+ */
+public class ResultSetReaderTest {
+
+    private EntityDataStore<Object> data;
+    private Configuration configuration;
+
+    private void setup(Mapping mapping) {
+        Platform platform = new H2();
+        CommonDataSource dataSource = DatabaseType.getDataSource(platform);
+        configuration = new ConfigurationBuilder(dataSource, Models.DEFAULT)
+            .setMapping(mapping)
+            .build();
+        new SchemaModifier(configuration).createTables(TableCreationMode.DROP_CREATE);
+        data = new EntityDataStore<>(configuration);
+    }
+
+    @After
+    public void teardown() {
+        if (data != null) {
+            data.close();
+        }
+    }
+
+    private Person reload(Person person) {
+        configuration.getCache().clear();
+        return data.findByKey(Person.class, person.getId());
+    }
+
+    @Test
+    public void testGeneratedReaderAttributes() {
+        ResultSetReader<Person> reader = Types.getResultSetReader(Person.$TYPE);
+        assertNotNull(reader);
+        List<Attribute<Person, ?>> attributes = reader.getAttributes();
+        assertTrue(attributes.contains(Person.ID));
+        assertTrue(attributes.contains(Person.NAME));
+        assertTrue(attributes.contains(Person.AGE));
+        // foreign key is read, lazy attributes and mapped associations are not
+        assertTrue(attributes.contains(Person.ADDRESS));
+        assertFalse(attributes.contains(Person.ABOUT));
+        assertFalse(attributes.contains(Person.PHONE_NUMBERS));
+    }
+
+    @Test
+    public void testReadValues() {
+        setup(null);
+        Person person = RandomData.randomPerson();
+        person.setAge(42);
+        person.setDescription("description");
+        Address address = RandomData.randomAddress();
+        person.setAddress(address);
+        data.insert(person);
+
+        Person loaded = reload(person);
+        assertEquals(person.getId(), loaded.getId());
+        assertEquals(person.getName(), loaded.getName());
+        assertEquals(person.getEmail(), loaded.getEmail());
+        assertEquals(person.getDescription(), loaded.getDescription());
+        assertEquals(42, loaded.getAge());
+        // read through the column reader
+        assertEquals(person.getUUID(), loaded.getUUID());
+        assertEquals(person.getHomepage(), loaded.getHomepage());
+        assertEquals(address.getId(), loaded.getAddress().getId());
+        EntityProxy<Person> proxy = Person.$TYPE.getProxyProvider().apply(loaded);
+        assertEquals(PropertyState.LOADED, proxy.getState(Person.NAME));
+        assertEquals(PropertyState.LOADED, proxy.getState(Person.AGE));
+        assertEquals(PropertyState.FETCH, proxy.getState(Person.ABOUT));
+    }
+
+    @Test
+    public void testReadNullValues() {
+        setup(null);
+        Person person = RandomData.randomPerson();
+        person.setAge(42);
+        data.insert(person);
+        data.update(Person.class)
+            .set(Person.NAME, null)
+            .set(Person.EMAIL, null)
+            .set(Person.AGE, null)
+            .set(Person.UUID, null)
+            .where(Person.ID.eq(person.getId())).get().value();
+
+        Person loaded = reload(person);
+        assertNull(loaded.getName());
+        assertNull(loaded.getEmail());
+        assertNull(loaded.getUUID());
+        // null primitive column is read as the default value
+        assertEquals(0, loaded.getAge());
+        assertNull(loaded.getAddress());
+    }
+
+    @Test
+    public void testReadKeepsModifiedValues() {
+        setup(null);
+        Person person = RandomData.randomPerson();
+        person.setAge(42);
+        data.insert(person);
+        String name = person.getName();
+        person.setName("modified");
+        data.update(Person.class)
+            .set(Person.AGE, 50)
+            .where(Person.ID.eq(person.getId())).get().value();
+
+        configuration.getCache().put(Person.class, person.getId(), person);
+        Person selected = data.select(Person.class)
+            .where(Person.ID.eq(person.getId())).get().first();
+        assertSame(person, selected);
+        assertEquals("modified", selected.getName());
+        assertEquals(50, selected.getAge());
+        // a refresh overwrites the modified value
+        data.refresh(selected);
+        assertEquals(name, selected.getName());
+    }
+
+    @Test
+    public void testReadPartialSelection() {
+        setup(null);
+        Person person = RandomData.randomPerson();
+        person.setAge(42);
+        data.insert(person);
+        configuration.getCache().clear();
+
+        // not the default selection, read by the column layout of the query
+        Person loaded = data.select(Person.class, Person.AGE, Person.NAME, Person.ID)
+            .where(Person.ID.eq(person.getId())).get().first();
+        assertEquals(person.getId(), loaded.getId());
+        assertEquals(person.getName(), loaded.getName());
+        assertEquals(42, loaded.getAge());
+        EntityProxy<Person> proxy = Person.$TYPE.getProxyProvider().apply(loaded);
+        assertEquals(PropertyState.FETCH, proxy.getState(Person.EMAIL));
+        assertEquals(person.getEmail(), loaded.getEmail());
+    }
+
+    @Test
+    public void testReadReplacedType() {
+        // a replaced string type must be used instead of the generated reader
+        GenericMapping mapping = new GenericMapping();
+        mapping.putType(String.class, new VarCharType() {
+            @Override
+            public String read(ResultSet results, int column) throws SQLException {
+                String value = super.read(results, column);
+                return value == null ? null : value.toUpperCase(Locale.ROOT);
+            }
+        });
+        setup(mapping);
+        Person person = RandomData.randomPerson();
+        data.insert(person);
+
+        Person loaded = reload(person);
+        assertEquals(person.getName().toUpperCase(Locale.ROOT), loaded.getName());
+        assertEquals(person.getEmail().toUpperCase(Locale.ROOT), loaded.getEmail());
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2018 requery.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.requery.test;
+
+import io.requery.sql.Configuration;
+import io.requery.sql.ConfigurationBuilder;
+import io.requery.sql.EntityDataStore;
+import io.requery.sql.Platform;
+import io.requery.sql.SchemaModifier;
+import io.requery.sql.TableCreationMode;
+import io.requery.sql.platform.PostgresSQL;
+import io.requery.test.model.Group;
+import io.requery.test.model.Models;
+import io.requery.test.model.Person;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.sql.CommonDataSource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the values generated by the database are read back by the insert or update statement
+ * itself on a platform supporting returning clauses.
+ */
+public class ReturningTest {
+
+    private EntityDataStore<Object> data;
+    private final StatementCounter counter = new StatementCounter();
+
+    @Before
+    public void setup() {
+        Platform platform = new PostgresSQL();
+        CommonDataSource dataSource = DatabaseType.getDataSource(platform);
+        Configuration configuration = new ConfigurationBuilder(dataSource, Models.DEFAULT)
+            .addStatementListener(counter)
+            .build();
+        new SchemaModifier(configuration).createTables(TableCreationMode.DROP_CREATE);
+        data = new EntityDataStore<>(configuration);
+    }
+
+    @After
+    public void teardown() {
+        if (data != null) {
+            data.close();
+        }
+    }
+
+    @Test
+    public void testInsertReturnsGeneratedValues() {
+        // the description is not set so the column default is used
+        Person inserted = new Person();
+        inserted.setName("Bob");
+        inserted.setEmail("bob@example.com");
+        inserted.setAge(30);
+
+        counter.reset();
+        data.insert(inserted);
+        assertEquals(0, counter.queries.get());
+        assertEquals(1, counter.updates.get());
+        assertTrue(inserted.getId() > 0);
+        assertEquals("empty", inserted.getDescription());
+
+        Person read = data.select(Person.class)
+            .where(Person.ID.eq(inserted.getId())).get().first();
+        assertEquals("empty", read.getDescription());
+    }
+
+    @Test
+    public void testInsertReturnsSystemVersion() {
+        Group group = new Group();
+        group.setName("group");
+
+        counter.reset();
+        data.insert(group);
+        assertEquals(0, counter.queries.get());
+        assertTrue(group.getId() > 0);
+        assertNotEquals(0, group.getVersion());
+    }
+
+    @Test
+    public void testUpdateReturnsSystemVersion() {
+        Group group = new Group();
+        group.setName("group");
+        data.insert(group);
+        int version = group.getVersion();
+
+        group.setName("renamed");
+        counter.reset();
+        data.update(group);
+        // the new version is read by the update, not by a refresh
+        assertEquals(0, counter.queries.get());
+        assertEquals(1, counter.updates.get());
+        assertNotEquals(version, group.getVersion());
+
+        // the returned version is current so a further update succeeds
+        group.setName("renamed again");
+        data.update(group);
+        assertEquals("renamed again",
+            data.select(Group.class).where(Group.ID.eq(group.getId())).get().first().getName());
+    }
+}
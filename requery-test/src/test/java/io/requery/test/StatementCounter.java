@@ -0,0 +1,50 @@
+package io.requery.test;
+
+import io.requery.sql.BoundParameters;
+import io.requery.sql.StatementListener;
+
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the queries and updates executed, used to check what a test sends to the database.
+ */
+class StatementCounter implements StatementListener {
+
+    final AtomicInteger queries = new AtomicInteger();
+    final AtomicInteger updates = new AtomicInteger();
+
+    void reset() {
+        queries.set(0);
+        updates.set(0);
+    }
+
+    @Override
+    public void beforeExecuteUpdate(Statement statement, String sql,
+                                    BoundParameters parameters) {
+        updates.incrementAndGet();
+    }
+
+    @Override
+    public void afterExecuteUpdate(Statement statement, int count) {
+    }
+
+    @Override
+    public void beforeExecuteBatchUpdate(Statement statement, String sql) {
+        updates.incrementAndGet();
+    }
+
+    @Override
+    public void afterExecuteBatchUpdate(Statement statement, int[] count) {
+    }
+
+    @Override
+    public void beforeExecuteQuery(Statement statement, String sql,
+                                   BoundParameters parameters) {
+        queries.incrementAndGet();
+    }
+
+    @Override
+    public void afterExecuteQuery(Statement statement) {
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2018 requery.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.requery.test;
+
+import io.requery.meta.Attribute;
+import io.requery.meta.EntityModel;
+import io.requery.meta.Types;
+import io.requery.proxy.EntityProxy;
+import io.requery.proxy.PropertyState;
+import io.requery.proxy.StatementWriter;
+import io.requery.sql.Configuration;
+import io.requery.sql.ConfigurationBuilder;
+import io.requery.sql.EntityDataStore;
+import io.requery.sql.GenericMapping;
+import io.requery.sql.Mapping;
+import io.requery.sql.Platform;
+import io.requery.sql.SchemaModifier;
+import io.requery.sql.TableCreationMode;
+import io.requery.sql.platform.H2;
+import io.requery.sql.type.VarCharType;
+import io.requery.test.model.Models;
+import io.requery.test.model.Person;
+import io.requery.test.model.Phone;
+import io.requery.test.model3.Tag;
+import org.junit.After;
+import org.junit.Test;
+
+import javax.sql.CommonDataSource;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests inserting entities with the {@link StatementWriter} generated for a type, and falling
+ * back to the mapping when the writer can't be used.
+ */
+public class StatementWriterTest {
+
+    private EntityDataStore<Object> data;
+    private Configuration configuration;
+    private final StatementCounter counter = new StatementCounter();
+
+    private void setup(EntityModel model, Mapping mapping) {
+        Platform platform = new H2();
+        CommonDataSource dataSource = DatabaseType.getDataSource(platform);
+        configuration = new ConfigurationBuilder(dataSource, model)
+            .setMapping(mapping)
+            .addStatementListener(counter)
+            .build();
+        new SchemaModifier(configuration).createTables(TableCreationMode.DROP_CREATE);
+        data = new EntityDataStore<>(configuration);
+    }
+
+    @After
+    public void teardown() {
+        if (data != null) {
+            data.close();
+        }
+    }
+
+    private <E> E reload(Class<E> type, Object key) {
+        configuration.getCache().clear();
+        return data.findByKey(type, key);
+    }
+
+    private List<Tag> insertTags(int count) {
+        List<Tag> tags = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Tag tag = new Tag();
+            tag.setId(UUID.randomUUID());
+            // alternate null and non null values
+            tag.setName(i % 3 == 0 ? null : "tag " + i);
+            tags.add(tag);
+        }
+        data.insert(tags);
+        return tags;
+    }
+
+    @Test
+    public void testGeneratedWriterAttributes() {
+        StatementWriter<Phone> writer = Types.getStatementWriter(Phone.$TYPE);
+        assertNotNull(writer);
+        List<Attribute<Phone, ?>> attributes = writer.getAttributes();
+        // generated key is not bound, foreign keys and converted attributes are
+        assertFalse(attributes.contains(Phone.ID));
+        assertTrue(attributes.contains(Phone.PHONE_NUMBER));
+        assertTrue(attributes.contains(Phone.NORMALIZED));
+        assertTrue(attributes.contains(Phone.EXTENSIONS));
+        assertTrue(attributes.contains(Phone.OWNER));
+    }
+
+    @Test
+    public void testInsertValues() {
+        setup(Models.DEFAULT, null);
+        Person person = RandomData.randomPerson();
+        data.insert(person);
+        Phone phone = RandomData.randomPhone();
+        phone.setNormalized(true);
+        phone.getExtensions().add(123);
+        phone.setOwner(person);
+        data.insert(phone);
+        EntityProxy<Phone> proxy = Phone.$TYPE.getProxyProvider().apply(phone);
+        assertEquals(PropertyState.LOADED, proxy.getState(Phone.PHONE_NUMBER));
+        assertEquals(PropertyState.LOADED, proxy.getState(Phone.NORMALIZED));
+
+        Phone loaded = reload(Phone.class, phone.getId());
+        assertEquals(phone.getPhoneNumber(), loaded.getPhoneNumber());
+        assertTrue(loaded.isNormalized());
+        assertEquals(phone.getExtensions(), loaded.getExtensions());
+        assertEquals(person.getId(), loaded.getOwner().getId());
+    }
+
+    @Test
+    public void testInsertNullValues() {
+        setup(Models.DEFAULT, null);
+        Phone phone = new Phone();
+        phone.setNormalized(false);
+        data.insert(phone);
+
+        Phone loaded = reload(Phone.class, phone.getId());
+        assertNull(loaded.getPhoneNumber());
+        assertFalse(loaded.isNormalized());
+        assertNull(loaded.getOwner());
+    }
+
+    @Test
+    public void testBatchInsertBindOrder() {
+        setup(io.requery.test.model3.Models.MODEL3, null);
+        counter.reset();
+        List<Tag> tags = insertTags(20);
+        // no generated key so the rows are inserted in a single batch
+        assertEquals(1, counter.updates.get());
+
+        for (Tag tag : tags) {
+            Tag loaded = reload(Tag.class, tag.getId());
+            assertNotNull(loaded);
+            assertEquals(tag.getName(), loaded.getName());
+        }
+    }
+
+    @Test
+    public void testInsertReplacedType() {
+        // a replaced string type must be used instead of the generated writer
+        GenericMapping mapping = new GenericMapping();
+        mapping.putType(String.class, new VarCharType() {
+            @Override
+            public void write(PreparedStatement statement, int index, String value)
+                throws SQLException {
+                super.write(statement, index,
+                    value == null ? null : value.toUpperCase(Locale.ROOT));
+            }
+        });
+        setup(io.requery.test.model3.Models.MODEL3, mapping);
+        List<Tag> tags = insertTags(3);
+
+        for (Tag tag : tags) {
+            Tag loaded = reload(Tag.class, tag.getId());
+            String name = tag.getName();
+            assertEquals(name == null ? null : name.toUpperCase(Locale.ROOT), loaded.getName());
+        }
+    }
+}
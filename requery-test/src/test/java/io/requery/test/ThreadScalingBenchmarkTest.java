@@ -0,0 +1,120 @@
+package io.requery.test;
+
+import io.requery.meta.EntityModel;
+import io.requery.query.Result;
+import io.requery.sql.EntityDataStore;
+import io.requery.sql.Platform;
+import io.requery.sql.SchemaModifier;
+import io.requery.sql.TableCreationMode;
+import io.requery.sql.platform.H2;
+import io.requery.test.model.Models;
+import io.requery.test.model.Person;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.runner.NoBenchmarksException;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of small entity queries and updates against a single shared
+ * {@link EntityDataStore} with an increasing number of threads. Every operation goes through the
+ * store's reader/writer lookup and metadata access, so contention there shows up as flat or
+ * falling throughput as threads are added. Takes minutes to run so it is ignored by default,
+ * remove the {@link Ignore} to run it.
+ */
+@State(Scope.Benchmark)
+public class ThreadScalingBenchmarkTest {
+
+    private static final int[] THREADS = { 1, 2, 4, 8 };
+    private static final int COUNT = 1000;
+
+    private Platform platform;
+    private EntityDataStore<Object> data;
+    private List<Integer> ids;
+
+    public ThreadScalingBenchmarkTest() {
+        this.platform = new H2();
+    }
+
+    @Test
+    @Ignore
+    public void testThreadScaling() throws RunnerException {
+        for (int threads : THREADS) {
+            Options options = new OptionsBuilder()
+                .include(getClass().getName() + ".*")
+                .mode(Mode.Throughput)
+                .timeUnit(TimeUnit.MILLISECONDS)
+                .warmupTime(TimeValue.seconds(2))
+                .warmupIterations(2)
+                .measurementTime(TimeValue.seconds(5))
+                .measurementIterations(3)
+                .threads(threads)
+                .forks(1)
+                .build();
+            try {
+                new Runner(options).run();
+            } catch (NoBenchmarksException ignored) {
+                // benchmarks not compiled in by the annotation processor
+            }
+        }
+    }
+
+    @Setup
+    public void setup() {
+        EntityModel model = Models.DEFAULT;
+        DataSource dataSource = (DataSource) DatabaseType.getDataSource(platform);
+        data = new EntityDataStore<>(dataSource, model);
+        new SchemaModifier(dataSource, model).createTables(TableCreationMode.DROP_CREATE);
+        ids = new ArrayList<>(COUNT);
+        data.runInTransaction(new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+                for (int i = 0; i < COUNT; i++) {
+                    Person person = FunctionalTest.randomPerson();
+                    data.insert(person);
+                    ids.add(person.getId());
+                }
+                return null;
+            }
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        data.close();
+    }
+
+    private int randomId() {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+
+    @Benchmark
+    public Person queryByKey() {
+        try (Result<Person> result =
+                 data.select(Person.class).where(Person.ID.eq(randomId())).get()) {
+            return result.firstOrNull();
+        }
+    }
+
+    @Benchmark
+    public Person refreshPerson() {
+        Person person = data.findByKey(Person.class, randomId());
+        return data.refresh(person);
+    }
+}
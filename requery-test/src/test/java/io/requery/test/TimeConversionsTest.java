@@ -19,6 +19,8 @@ package io.requery.test;
 import io.requery.Persistable;
 import io.requery.cache.EmptyEntityCache;
 import io.requery.meta.EntityModel;
+import io.requery.query.BulkResult;
+import io.requery.query.Result;
 import io.requery.sql.Configuration;
 import io.requery.sql.ConfigurationBuilder;
 import io.requery.sql.EntityDataStore;
@@ -109,4 +111,35 @@ public class TimeConversionsTest {
         Assert.assertEquals(offsetDateTimeNow, event.getOffsetDateTime());
         Assert.assertEquals(zonedDateTimeNow.toInstant(), event.getZonedDateTime().toInstant());
     }
+
+    @Test
+    public void testDetachedReadDateTime() {
+        Event event = new Event();
+        UUID id = UUID.randomUUID();
+        LocalDate localDateNow = LocalDate.now();
+        LocalTime localTimeNow = LocalTime.now().withNano(0);
+        LocalDateTime localDateTimeNow = LocalDateTime.now().withNano(0);
+        OffsetDateTime offsetDateTimeNow = OffsetDateTime.now(ZoneId.systemDefault()).withNano(0);
+        event.setId(id);
+        event.setLocalDate(localDateNow);
+        event.setLocalTime(localTimeNow);
+        event.setLocalDateTime(localDateTimeNow);
+        event.setOffsetDateTime(offsetDateTimeNow);
+        data.insert(event);
+
+        Result<Event> detached;
+        try (BulkResult<Event> result =
+                 (BulkResult<Event>) data.select(Event.class).where(Event.ID.eq(id)).get()) {
+            detached = result.detach();
+        }
+        try {
+            event = detached.first();
+        } finally {
+            detached.close();
+        }
+        Assert.assertEquals(localDateNow, event.getLocalDate());
+        Assert.assertEquals(localTimeNow, event.getLocalTime());
+        Assert.assertEquals(localDateTimeNow, event.getLocalDateTime());
+        Assert.assertEquals(offsetDateTimeNow, event.getOffsetDateTime());
+    }
 }
@@ -38,5 +38,14 @@ public enum CascadeAction {
     /**
      * When the parent element is deleted its associated elements are also deleted.
      */
-    DELETE
+    DELETE,
+
+    /**
+     * When the parent element is deleted its associated elements are deleted by the database
+     * through the {@link ReferentialAction#CASCADE} delete action of the referencing
+     * {@link ForeignKey}. The associated elements are not loaded and their delete callbacks and
+     * listeners are not invoked, cached elements are invalidated. Only applies to the mapped side
+     * of one-to-one and one-to-many associations, use {@link #DELETE} otherwise.
+     */
+    DATABASE_DELETE
 }
@@ -64,6 +64,15 @@ public @interface Entity {
      */
     boolean cacheable() default true;
 
+    /**
+     * @return true if all the rows of the entity should be loaded into the entity cache at once
+     * when the type is accessed by key, for small reference tables that are read often. Simple
+     * queries of the type are then evaluated against the cached entities, except while a
+     * transaction has uncommitted changes of the type. Invalidated rows are loaded again before
+     * the next use. Only applies if the entity is {@link #cacheable()}.
+     */
+    boolean preload() default false;
+
     /**
      * @return true if the entity should be trivially copyable. In which case the annotation
      * processor will generate a copy() method returning a shallow copy of the given object.
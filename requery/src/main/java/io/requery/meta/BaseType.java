@@ -17,6 +17,8 @@
 package io.requery.meta;
 
 import io.requery.proxy.EntityProxy;
+import io.requery.proxy.ResultSetReader;
+import io.requery.proxy.StatementWriter;
 import io.requery.query.Expression;
 import io.requery.query.ExpressionType;
 import io.requery.util.Objects;
@@ -33,6 +35,7 @@ abstract class BaseType<T> implements Type<T> {
     Type<?> superType;
     String name;
     boolean cacheable;
+    boolean preloaded;
     boolean stateless;
     boolean readOnly;
     boolean immutable;
@@ -41,6 +44,8 @@ abstract class BaseType<T> implements Type<T> {
     Set<QueryExpression<?>> expressions;
     Supplier<T> factory;
     Function<T, EntityProxy<T>> proxyProvider;
+    ResultSetReader<T> resultSetReader;
+    StatementWriter<T> statementWriter;
     Set<Class<?>> referencedTypes;
     String[] tableCreateAttributes;
     String[] tableUniqueIndexes;
@@ -89,6 +94,11 @@ abstract class BaseType<T> implements Type<T> {
         return cacheable;
     }
 
+    @Override
+    public boolean isPreloaded() {
+        return preloaded;
+    }
+
     @Override
     public boolean isImmutable() {
         return immutable;
@@ -153,6 +163,14 @@ abstract class BaseType<T> implements Type<T> {
         return proxyProvider;
     }
 
+    ResultSetReader<T> getResultSetReader() {
+        return resultSetReader;
+    }
+
+    StatementWriter<T> getStatementWriter() {
+        return statementWriter;
+    }
+
     @Override
     public String[] getTableCreateAttributes() {
         return tableCreateAttributes;
@@ -28,12 +28,15 @@ final class ImmutableType<T> extends BaseType<T> {
         this.baseType = builder.getBaseType();
         this.name = builder.getName();
         this.cacheable = builder.isCacheable();
+        this.preloaded = builder.isPreloaded();
         this.readOnly = builder.isReadOnly();
         this.immutable = builder.isImmutable();
         this.isView = builder.isView();
         this.stateless = builder.isStateless();
         this.factory = builder.getFactory();
         this.proxyProvider = builder.getProxyProvider();
+        this.resultSetReader = builder.getResultSetReader();
+        this.statementWriter = builder.getStatementWriter();
         this.tableCreateAttributes = builder.getTableCreateAttributes();
         this.tableUniqueIndexes = builder.getTableUniqueIndexes();
         this.builderFactory = builder.getBuilderFactory();
@@ -61,6 +61,11 @@ public interface Type<T> extends Expression<T> {
      */
     boolean isCacheable();
 
+    /**
+     * @return true if all instances of this type should be loaded into the cache at once.
+     */
+    boolean isPreloaded();
+
     /**
      * @return true if the type being represented is immutable and its values cannot be modified.
      */
@@ -17,6 +17,8 @@
 package io.requery.meta;
 
 import io.requery.proxy.EntityProxy;
+import io.requery.proxy.ResultSetReader;
+import io.requery.proxy.StatementWriter;
 import io.requery.util.Objects;
 import io.requery.util.function.Function;
 import io.requery.util.function.Supplier;
@@ -58,6 +60,11 @@ public class TypeBuilder<T> extends BaseType<T> {
         return this;
     }
 
+    public TypeBuilder<T> setPreloaded(boolean preloaded) {
+        this.preloaded = preloaded;
+        return this;
+    }
+
     public TypeBuilder<T> setImmutable(boolean immutable) {
         this.immutable = immutable;
         return this;
@@ -88,6 +95,16 @@ public class TypeBuilder<T> extends BaseType<T> {
         return this;
     }
 
+    public TypeBuilder<T> setResultSetReader(ResultSetReader<T> reader) {
+        this.resultSetReader = reader;
+        return this;
+    }
+
+    public TypeBuilder<T> setStatementWriter(StatementWriter<T> writer) {
+        this.statementWriter = writer;
+        return this;
+    }
+
     public <B> TypeBuilder<T> setBuilderFactory(Supplier<B> factory) {
         this.builderFactory = factory;
         return this;
@@ -16,6 +16,9 @@
 
 package io.requery.meta;
 
+import io.requery.proxy.ResultSetReader;
+import io.requery.proxy.StatementWriter;
+
 import java.util.Set;
 
 public final class Types {
@@ -46,4 +49,24 @@ public final class Types {
         }
         return false;
     }
+
+    /**
+     * @param type entity type
+     * @param <T>  entity java type
+     * @return optional generated {@link ResultSetReader} for reading the default selection of
+     * the type, null if not available.
+     */
+    public static <T> ResultSetReader<T> getResultSetReader(Type<T> type) {
+        return type instanceof BaseType ? ((BaseType<T>) type).getResultSetReader() : null;
+    }
+
+    /**
+     * @param type entity type
+     * @param <T>  entity java type
+     * @return optional generated {@link StatementWriter} for binding the insertable attributes of
+     * the type, null if not available.
+     */
+    public static <T> StatementWriter<T> getStatementWriter(Type<T> type) {
+        return type instanceof BaseType ? ((BaseType<T>) type).getStatementWriter() : null;
+    }
 }
@@ -37,6 +37,10 @@ public class CollectionChanges<T, E> implements CollectionObserver<E> {
         removed = new ArrayList<>();
     }
 
+    public Attribute<T, ?> getAttribute() {
+        return attribute;
+    }
+
     public Collection<E> addedElements() {
         return added;
     }
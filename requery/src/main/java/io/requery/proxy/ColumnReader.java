@@ -0,0 +1,46 @@
+/*
+ * Copyright 2018 requery.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.requery.proxy;
+
+import io.requery.meta.Attribute;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Reads a single column of a result row into an entity using the runtime type mapping. Used by a
+ * {@link ResultSetReader} for the columns it does not read directly.
+ *
+ * @param <E> entity type
+ *
+ * @author Nikhil Purushe
+ */
+public interface ColumnReader<E> {
+
+    /**
+     * Reads the value of the given attribute from the current row and sets it on the entity.
+     *
+     * @param entity    target entity
+     * @param attribute attribute being read
+     * @param results   result set positioned on the row being read
+     * @param column    column index of the attribute in the row
+     * @param overwrite true to replace modified values, false to keep them
+     * @throws SQLException on a failure reading from the result
+     */
+    void read(E entity, Attribute<E, ?> attribute, ResultSet results, int column,
+              boolean overwrite) throws SQLException;
+}
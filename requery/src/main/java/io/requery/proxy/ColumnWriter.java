@@ -0,0 +1,45 @@
+/*
+ * Copyright 2018 requery.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.requery.proxy;
+
+import io.requery.meta.Attribute;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Binds a single attribute value of an entity as a statement parameter using the runtime type
+ * mapping. Used by a {@link StatementWriter} for the columns it does not bind directly.
+ *
+ * @param <E> entity type
+ *
+ * @author Nikhil Purushe
+ */
+public interface ColumnWriter<E> {
+
+    /**
+     * Binds the value of the given attribute of the entity to the statement.
+     *
+     * @param entity    source entity
+     * @param attribute attribute being written
+     * @param statement statement being bound
+     * @param index     parameter index of the attribute in the statement
+     * @throws SQLException on a failure setting the parameter
+     */
+    void write(E entity, Attribute<E, ?> attribute, PreparedStatement statement, int index)
+        throws SQLException;
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2018 requery.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.requery.proxy;
+
+import io.requery.meta.Attribute;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Reads the default selection of an entity type from a result row directly into the entity
+ * fields. Implementations are generated by the annotation processor and read non key primitive,
+ * boxed primitive and {@link String} attributes without converters with the matching typed
+ * {@link ResultSet} getter at a fixed column index. All other columns are passed to the
+ * {@link ColumnReader}. The runtime only uses the reader when the mapping reads those types the
+ * same way, otherwise it falls back to reading each attribute through the mapping.
+ *
+ * @param <E> entity type
+ *
+ * @author Nikhil Purushe
+ */
+public interface ResultSetReader<E> {
+
+    /**
+     * @return the attributes read by this reader, in column order.
+     */
+    List<Attribute<E, ?>> getAttributes();
+
+    /**
+     * Reads the current row into the entity.
+     *
+     * @param entity    target entity
+     * @param results   result set positioned on the row being read
+     * @param reader    reader used for columns not read directly
+     * @param overwrite true to replace modified values, false to keep them
+     * @throws SQLException on a failure reading from the result
+     */
+    void read(E entity, ResultSet results, ColumnReader<E> reader, boolean overwrite)
+        throws SQLException;
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2018 requery.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.requery.proxy;
+
+import io.requery.meta.Attribute;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Binds the insertable attributes of an entity as the parameters of an insert or update
+ * statement. Implementations are generated by the annotation processor and bind non key
+ * primitive, boxed primitive and {@link String} attributes without converters with the matching
+ * typed {@link PreparedStatement} setter. All other attributes are passed to the
+ * {@link ColumnWriter}. Like {@link ResultSetReader} it is only used when the mapping writes
+ * those types the same way.
+ *
+ * @param <E> entity type
+ *
+ * @author Nikhil Purushe
+ */
+public interface StatementWriter<E> {
+
+    /**
+     * @return the attributes bound by this writer, in parameter order.
+     */
+    List<Attribute<E, ?>> getAttributes();
+
+    /**
+     * Binds all the attributes of the entity to the statement and marks them as loaded.
+     *
+     * @param entity    source entity
+     * @param statement statement being bound
+     * @param writer    writer used for attributes not bound directly
+     * @throws SQLException on a failure setting a parameter
+     */
+    void write(E entity, PreparedStatement statement, ColumnWriter<E> writer)
+        throws SQLException;
+}
@@ -21,21 +21,35 @@ import io.requery.meta.Type;
 import io.requery.proxy.EntityProxy;
 import io.requery.util.CloseableIterable;
 import io.requery.util.CloseableIterator;
+import io.requery.util.PrefetchingIterator;
 import io.requery.util.function.Consumer;
 import io.requery.util.function.Supplier;
 
 import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
 import java.util.Queue;
+import java.util.Set;
 import java.util.Spliterator;
 import java.util.Spliterators;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.DoubleStream;
+import java.util.stream.LongStream;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -46,7 +60,7 @@ import java.util.stream.StreamSupport;
  *
  * @author Nikhil Purushe
  */
-public abstract class BaseResult<E> implements Result<E>, CloseableIterable<E> {
+public abstract class BaseResult<E> implements BulkResult<E>, CloseableIterable<E> {
 
     private final Integer maxSize;
     private final Queue<CloseableIterator<E>> iterators;
@@ -132,6 +146,68 @@ public abstract class BaseResult<E> implements Result<E>, CloseableIterable<E> {
         return iterator;
     }
 
+    @Override
+    public CloseableIterator<E> pipelinedIterator(Executor executor) {
+        if (closed.get()) {
+            throw new IllegalStateException();
+        }
+        CloseableIterator<E> iterator = createPipelinedIterator(executor);
+        iterators.add(iterator);
+        return iterator;
+    }
+
+    protected CloseableIterator<E> createPipelinedIterator(Executor executor) {
+        return createIterator();
+    }
+
+    @Override
+    public CloseableIterator<E> prefetchingIterator(int fetchSize) {
+        if (closed.get()) {
+            throw new IllegalStateException();
+        }
+        CloseableIterator<E> iterator = createPrefetchingIterator(fetchSize);
+        iterators.add(iterator);
+        return iterator;
+    }
+
+    protected CloseableIterator<E> createPrefetchingIterator(int fetchSize) {
+        return new PrefetchingIterator<>(createIterator(), fetchSize);
+    }
+
+    @Override
+    public BulkResult<E> detach() {
+        // by default the elements are materialized
+        final List<E> elements = toList();
+        return new BaseResult<E>(elements.size()) {
+            @Override
+            protected CloseableIterator<E> createIterator(int skip, int take) {
+                int from = Math.min(skip, elements.size());
+                int to = (int) Math.min((long) from + take, elements.size());
+                final Iterator<E> iterator = elements.subList(from, to).iterator();
+                return new CloseableIterator<E>() {
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public E next() {
+                        return iterator.next();
+                    }
+
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+
+                    @Override
+                    public void close() {
+                    }
+                };
+            }
+        };
+    }
+
     protected CloseableIterator<E> createIterator() {
         return createIterator(0, Integer.MAX_VALUE);
     }
@@ -152,6 +228,284 @@ public abstract class BaseResult<E> implements Result<E>, CloseableIterable<E> {
         });
     }
 
+    @Override
+    public <N extends Number> Stream<E> parallelStream(Expression<N> partitionKey,
+                                                       int partitions) {
+        return parallelStream(partitionKey, partitions, false);
+    }
+
+    @Override
+    public <N extends Number> Stream<E> parallelStream(Expression<N> partitionKey,
+                                                       int partitions, boolean snapshot) {
+        // not partitionable by default
+        return stream();
+    }
+
+    @Override
+    public LongStream longStream() {
+        final CloseableIterator<E> iterator = createIterator();
+        PrimitiveIterator.OfLong values = new PrimitiveIterator.OfLong() {
+            private Number next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && iterator.hasNext()) {
+                    next = firstValueOf(iterator.next());
+                }
+                return next != null;
+            }
+
+            @Override
+            public long nextLong() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Number value = next;
+                next = null;
+                return value.longValue();
+            }
+        };
+        return StreamSupport.longStream(Spliterators.spliteratorUnknownSize(values,
+            Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(new Runnable() {
+            @Override
+            public void run() {
+                iterator.close();
+            }
+        });
+    }
+
+    @Override
+    public DoubleStream doubleStream() {
+        final CloseableIterator<E> iterator = createIterator();
+        PrimitiveIterator.OfDouble values = new PrimitiveIterator.OfDouble() {
+            private Number next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && iterator.hasNext()) {
+                    next = firstValueOf(iterator.next());
+                }
+                return next != null;
+            }
+
+            @Override
+            public double nextDouble() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Number value = next;
+                next = null;
+                return value.doubleValue();
+            }
+        };
+        return StreamSupport.doubleStream(Spliterators.spliteratorUnknownSize(values,
+            Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(new Runnable() {
+            @Override
+            public void run() {
+                iterator.close();
+            }
+        });
+    }
+
+    /**
+     * @return the result as a {@link BulkResult}
+     * @throws UnsupportedOperationException if the result doesn't support bulk operations
+     */
+    static <E> BulkResult<E> bulkOf(Result<E> result) {
+        if (result instanceof BulkResult) {
+            return (BulkResult<E>) result;
+        }
+        throw new UnsupportedOperationException(
+            result.getClass().getName() + " doesn't support bulk operations");
+    }
+
+    private static Number firstValueOf(Object element) {
+        Object value = element instanceof Tuple ? ((Tuple) element).get(0) : element;
+        return (Number) value;
+    }
+
+    @Override
+    public Columns toColumns() {
+        TupleSchema schema = null;
+        Column[] columns = new Column[0];
+        try (CloseableIterator<E> iterator = createIterator()) {
+            while (iterator.hasNext()) {
+                E element = iterator.next();
+                if (!(element instanceof CompactTuple)) {
+                    // column names and types are only known for tuples read by a query
+                    throw new UnsupportedOperationException(
+                        "toColumns requires a result of query tuples, not " +
+                            element.getClass().getName());
+                }
+                CompactTuple tuple = (CompactTuple) element;
+                if (schema == null) {
+                    schema = tuple.schema();
+                    columns = new Column[schema.size()];
+                    for (int i = 0; i < columns.length; i++) {
+                        columns[i] = columnOf(schema.nameAt(i), schema.typeAt(i));
+                    }
+                }
+                for (int i = 0; i < columns.length; i++) {
+                    append(columns[i], tuple.get(i));
+                }
+            }
+        }
+        if (schema == null) {
+            schema = TupleSchema.EMPTY;
+        }
+        return new Columns(schema, columns);
+    }
+
+    /**
+     * @return the expressions selected by the query of this result or null if not known. Used to
+     * export entity elements by their attributes and to name the exported columns.
+     */
+    protected Set<? extends Expression<?>> selection() {
+        return null;
+    }
+
+    @Override
+    public void writeTo(Writer writer, ExportFormat format) throws IOException {
+        try (CloseableIterator<E> iterator = createIterator()) {
+            export(iterator, selection(), writer, format);
+        }
+    }
+
+    /**
+     * Writes tuples by their values and entities by the attributes in the selection. When the
+     * selection is known the header is written even if there are no elements.
+     */
+    static void export(Iterator<?> iterator, Set<? extends Expression<?>> selection,
+                       Writer writer, ExportFormat format) throws IOException {
+        Expression<?>[] expressions = null;
+        ExportWriter output = null;
+        if (selection != null) {
+            expressions = selection.toArray(new Expression<?>[selection.size()]);
+            String[] names = new String[expressions.length];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = nameOf(expressions[i]);
+            }
+            output = new ExportWriter(writer, format, names);
+            output.writeHeader();
+        }
+        while (iterator.hasNext()) {
+            Object element = iterator.next();
+            if (element instanceof Tuple) {
+                Tuple tuple = (Tuple) element;
+                if (output == null) {
+                    String[] names = new String[tuple.count()];
+                    for (int i = 0; i < names.length; i++) {
+                        String name = tuple instanceof CompactTuple ?
+                            ((CompactTuple) tuple).schema().nameAt(i) : null;
+                        names[i] = name == null ? "column" + (i + 1) : name;
+                    }
+                    output = new ExportWriter(writer, format, names);
+                    output.writeHeader();
+                }
+                output.beginRow();
+                for (int i = 0; i < tuple.count(); i++) {
+                    output.writeValue(tuple.get(i));
+                }
+            } else {
+                if (expressions == null) {
+                    // the entity type and its attributes aren't known without the selection
+                    throw new UnsupportedOperationException(
+                        "writeTo requires the selection of the query to export " +
+                            element.getClass().getName());
+                }
+                output.beginRow();
+                for (Expression<?> expression : expressions) {
+                    output.writeValue(valueOf(element, expression));
+                }
+            }
+            output.endRow();
+            output.flushIfFull();
+        }
+        if (output != null) {
+            output.flush();
+        }
+    }
+
+    /**
+     * @return the attributes of the type exported for an entity, the same as selected by a query
+     * of the type.
+     */
+    static <T> Set<Expression<?>> attributesOf(Type<T> type) {
+        Set<Expression<?>> attributes = new LinkedHashSet<>();
+        for (Attribute<T, ?> attribute : type.getAttributes()) {
+            boolean isKey = attribute.isForeignKey() || attribute.isKey();
+            if (!attribute.isLazy() && (isKey || !attribute.isAssociation())) {
+                attributes.add((Expression<?>) attribute);
+            }
+        }
+        return attributes;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object valueOf(Object entity, Expression<?> expression) {
+        if (expression instanceof AliasedExpression) {
+            expression = ((AliasedExpression<?>) expression).getInnerExpression();
+        }
+        if (!(expression instanceof Attribute)) {
+            throw new UnsupportedOperationException(
+                "writeTo can't export " + expression.getName() + " of an entity");
+        }
+        Attribute<Object, ?> attribute = (Attribute<Object, ?>) expression;
+        EntityProxy<Object> proxy = attribute.getDeclaringType().getProxyProvider().apply(entity);
+        // references are written as the referenced key, the same as the column in a query
+        return attribute.isAssociation() ? proxy.getKey(attribute) : proxy.get(attribute, false);
+    }
+
+    private static String nameOf(Expression<?> expression) {
+        if (expression instanceof Aliasable) {
+            String alias = ((Aliasable) expression).getAlias();
+            if (alias != null) {
+                return alias;
+            }
+        }
+        return expression.getName();
+    }
+
+    @Override
+    public void writeTo(OutputStream output, ExportFormat format) throws IOException {
+        Writer writer = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+        writeTo(writer, format);
+        writer.flush();
+    }
+
+    private static Column<?> columnOf(String name, Class<?> type) {
+        if (type == Long.class || type == long.class) {
+            return new LongColumn(name);
+        } else if (type == Integer.class || type == int.class ||
+            type == Short.class || type == short.class ||
+            type == Byte.class || type == byte.class) {
+            return new IntColumn(name);
+        } else if (type == Double.class || type == double.class ||
+            type == Float.class || type == float.class) {
+            return new DoubleColumn(name);
+        } else if (type == String.class) {
+            return new StringColumn(name);
+        }
+        return new ObjectColumn<>(name);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void append(Column column, Object value) {
+        if (value == null) {
+            column.addNull();
+        } else if (column instanceof LongColumn) {
+            ((LongColumn) column).add(((Number) value).longValue());
+        } else if (column instanceof IntColumn) {
+            ((IntColumn) column).add(((Number) value).intValue());
+        } else if (column instanceof DoubleColumn) {
+            ((DoubleColumn) column).add(((Number) value).doubleValue());
+        } else if (column instanceof StringColumn) {
+            ((StringColumn) column).add(value.toString());
+        } else {
+            ((ObjectColumn) column).add(value);
+        }
+    }
+
     @Override
     public void each(Consumer<? super E> action) {
         try (CloseableIterator<E> iterator = createIterator()) {
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2018 requery.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.requery.query;
+
+import io.requery.util.CloseableIterator;
+
+import javax.annotation.CheckReturnValue;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.concurrent.Executor;
+import java.util.stream.DoubleStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Bulk read operations for large results, implemented by the results returned from queries of an
+ * {@link io.requery.sql.EntityDataStore} and by {@link ResultDelegate}. Kept separate from
+ * {@link Result} so that existing implementations of it don't have to implement them. Delegating
+ * results throw {@link UnsupportedOperationException} if the delegate doesn't support them.
+ *
+ * @param <E> type of element.
+ *
+ * @author Nikhil Purushe
+ */
+public interface BulkResult<E> extends Result<E> {
+
+    /**
+     * Creates a {@link AutoCloseable} {@link java.util.Iterator} that fetches rows on a separate
+     * thread and converts them into elements on the given {@link Executor}, while keeping the
+     * order of the result. Useful for large results of types that are expensive to convert.
+     * Results that don't support pipelining return a regular iterator.
+     *
+     * @param executor used to convert the fetched rows into elements
+     * @return iterator over the result.
+     */
+    CloseableIterator<E> pipelinedIterator(Executor executor);
+
+    /**
+     * Creates a {@link AutoCloseable} {@link java.util.Iterator} that reads ahead the next chunk
+     * of elements on a background thread while the caller processes the current one, so the
+     * caller doesn't wait on the database fetching the next batch of rows.
+     *
+     * @param fetchSize number of elements read ahead
+     * @return iterator over the result.
+     */
+    CloseableIterator<E> prefetchingIterator(int fetchSize);
+
+    /**
+     * Executes the query and reads all of its rows into a buffer, closing the statement and
+     * connection before returning. Rows past a threshold are buffered in a temporary file.
+     * Elements of the returned result are decoded from the buffer as they are iterated so a slow
+     * consumer doesn't hold on to a connection. The returned result must be closed to release
+     * the buffer.
+     *
+     * @return a new result over the buffered rows
+     */
+    @CheckReturnValue
+    BulkResult<E> detach();
+
+    /**
+     * Creates a parallel {@link Stream} over the result by splitting the query into key ranges of
+     * the given partition expression. Each partition is executed on its own connection when it
+     * is consumed. If the query can't be partitioned, e.g. it is running in a transaction or is
+     * limited, a sequential stream is returned instead. The stream must be closed after use.
+     *
+     * @param partitionKey integral expression used to split the query, usually the key attribute
+     * @param partitions   maximum number of partitions
+     * @param <N>          type of the partition key
+     * @return {@link Stream} instance over the result set. Java 8 only.
+     */
+    @CheckReturnValue
+    <N extends Number> Stream<E> parallelStream(Expression<N> partitionKey, int partitions);
+
+    /**
+     * Same as {@link #parallelStream(Expression, int)} optionally requiring all partitions to
+     * read from the same snapshot of the database. If the platform can't share a snapshot between
+     * connections the query is executed on a single connection.
+     *
+     * @param partitionKey integral expression used to split the query, usually the key attribute
+     * @param partitions   maximum number of partitions
+     * @param snapshot     true if all partitions must see the same state of the database
+     * @param <N>          type of the partition key
+     * @return {@link Stream} instance over the result set. Java 8 only.
+     */
+    @CheckReturnValue
+    <N extends Number> Stream<E> parallelStream(Expression<N> partitionKey, int partitions,
+                                                boolean snapshot);
+
+    /**
+     * @return {@link LongStream} over the values of the first column of the result, null values
+     * are skipped. Java 8 only.
+     */
+    @CheckReturnValue
+    LongStream longStream();
+
+    /**
+     * @return {@link DoubleStream} over the values of the first column of the result, null values
+     * are skipped. Java 8 only.
+     */
+    @CheckReturnValue
+    DoubleStream doubleStream();
+
+    /**
+     * Reads all the rows of this result into column vectors. Numeric values are stored unboxed
+     * and string values are dictionary encoded.
+     *
+     * @return the {@link Columns} of the result
+     */
+    @CheckReturnValue
+    Columns toColumns();
+
+    /**
+     * Writes all the rows of this result to the given writer in a text format. Rows are read and
+     * formatted one at a time without creating an element per row where possible. The writer is
+     * flushed but not closed.
+     *
+     * @param writer to write to
+     * @param format output format
+     * @throws IOException on a failure to write
+     */
+    void writeTo(Writer writer, ExportFormat format) throws IOException;
+
+    /**
+     * Writes all the rows of this result to the given stream as UTF-8 text, see
+     * {@link #writeTo(Writer, ExportFormat)}. The stream is flushed but not closed.
+     *
+     * @param output to write to
+     * @param format output format
+     * @throws IOException on a failure to write
+     */
+    void writeTo(OutputStream output, ExportFormat format) throws IOException;
+}
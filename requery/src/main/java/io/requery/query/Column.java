@@ -0,0 +1,105 @@
+/*
+ * Copyright 2018 requery.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.requery.query;
+
+import java.util.BitSet;
+
+/**
+ * A single column of a query result stored as a vector of values, see {@link Result#toColumns()}.
+ * Values are stored in fixed size chunks so that growing the column never copies the values
+ * already read. Null values are tracked in a separate bitmap.
+ *
+ * @param <V> boxed type of the values
+ *
+ * @author Nikhil Purushe
+ */
+public abstract class Column<V> {
+
+    static final int CHUNK_SHIFT = 12;
+    static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    static final int INITIAL_CHUNKS = 8;
+
+    private final String name;
+    private final BitSet nulls;
+    private int size;
+
+    Column(String name) {
+        this.name = name;
+        this.nulls = new BitSet();
+    }
+
+    /**
+     * @return the column or alias name of the column
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return number of rows in the column
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param row 0 based row index
+     * @return true if the value in the row is null
+     */
+    public boolean isNull(int row) {
+        checkRow(row);
+        return nulls.get(row);
+    }
+
+    /**
+     * @return number of null values in the column
+     */
+    public int nullCount() {
+        return nulls.cardinality();
+    }
+
+    /**
+     * @param row 0 based row index
+     * @return the boxed value in the row or null
+     */
+    public abstract V get(int row);
+
+    /**
+     * Appends a null value to the column.
+     */
+    public void addNull() {
+        nulls.set(next());
+    }
+
+    // reserves the next row allocating a new chunk when the current one is full
+    final int next() {
+        int row = size++;
+        if ((row & CHUNK_MASK) == 0) {
+            allocate(row >>> CHUNK_SHIFT);
+        }
+        return row;
+    }
+
+    abstract void allocate(int chunk);
+
+    final void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException(String.valueOf(row));
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2018 requery.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.requery.query;
+
+/**
+ * Column oriented result of a query, see {@link Result#toColumns()}. Numeric columns are stored
+ * as {@link LongColumn}, {@link IntColumn} or {@link DoubleColumn}, strings as a dictionary
+ * encoded {@link StringColumn} and all other types as an {@link ObjectColumn}.
+ *
+ * @author Nikhil Purushe
+ */
+public final class Columns {
+
+    private final TupleSchema schema;
+    private final Column<?>[] columns;
+
+    public Columns(TupleSchema schema, Column<?>[] columns) {
+        if (schema.size() != columns.length) {
+            throw new IllegalArgumentException();
+        }
+        this.schema = schema;
+        this.columns = columns.clone();
+    }
+
+    /**
+     * @return number of columns
+     */
+    public int count() {
+        return columns.length;
+    }
+
+    /**
+     * @return number of rows
+     */
+    public int rows() {
+        return columns.length == 0 ? 0 : columns[0].size();
+    }
+
+    /**
+     * @param index 0 based column index
+     * @return the column at the index
+     */
+    public Column<?> get(int index) {
+        return columns[index];
+    }
+
+    /**
+     * @param expression expression used in the query
+     * @return the column for the expression or null if it is not part of the result
+     */
+    public Column<?> get(Expression<?> expression) {
+        int index = schema.indexOf(expression);
+        return index < 0 ? null : columns[index];
+    }
+
+    /**
+     * @param name column or alias name
+     * @return the column with the name or null if it is not part of the result
+     */
+    public Column<?> get(String name) {
+        int index = schema.indexOf(name);
+        return index < 0 ? null : columns[index];
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2018 requery.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.requery.query;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * {@link Tuple} backed by a single value array whose column names are resolved through a
+ * {@link TupleSchema} shared by all rows of a result. Integral primitive columns can be stored
+ * unboxed with {@link #setLong(int, long)} and read with {@link #getLong(int)} or
+ * {@link #getInt(int)}, they are only boxed when read as objects.
+ *
+ * @author Nikhil Purushe
+ */
+public class CompactTuple implements Tuple, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    // marks a slot whose value is held in the primitives array
+    private enum Slot { PRIMITIVE }
+
+    private final TupleSchema schema;
+    private final Object[] values;
+    private long[] primitives;
+
+    public CompactTuple(TupleSchema schema) {
+        this.schema = schema;
+        this.values = new Object[schema.size()];
+    }
+
+    public void set(int index, Object value) {
+        values[index] = value;
+    }
+
+    public void setLong(int index, long value) {
+        if (primitives == null) {
+            primitives = new long[values.length];
+        }
+        primitives[index] = value;
+        values[index] = Slot.PRIMITIVE;
+    }
+
+    public TupleSchema schema() {
+        return schema;
+    }
+
+    @Override
+    public <V> V get(Expression<V> key) {
+        int index = schema.indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+        Object value = valueAt(index);
+        if (value == null) {
+            return null;
+        }
+        Class<V> type = key.getClassType();
+        if (type.isPrimitive()) {
+            @SuppressWarnings("unchecked")
+            V result = (V) value;
+            return result;
+        }
+        return type.cast(value);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <V> V get(int index) {
+        return (V) valueAt(index);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <V> V get(String key) {
+        int index = schema.indexOf(key);
+        return index < 0 ? null : (V) valueAt(index);
+    }
+
+    /**
+     * Retrieve an integral value by a numeric index without boxing it if possible.
+     *
+     * @param index 0 based index of the result set.
+     * @return the value at the given index as a long, 0 if the value is null.
+     */
+    public long getLong(int index) {
+        Object value = values[index];
+        if (value == Slot.PRIMITIVE) {
+            return primitives[index];
+        }
+        return value == null ? 0 : ((Number) value).longValue();
+    }
+
+    /**
+     * Retrieve an integral value by a numeric index without boxing it if possible.
+     *
+     * @param index 0 based index of the result set.
+     * @return the value at the given index as an int, 0 if the value is null.
+     */
+    public int getInt(int index) {
+        Object value = values[index];
+        if (value == Slot.PRIMITIVE) {
+            return (int) primitives[index];
+        }
+        return value == null ? 0 : ((Number) value).intValue();
+    }
+
+    @Override
+    public int count() {
+        return values.length;
+    }
+
+    private Object valueAt(int index) {
+        Object value = values[index];
+        if (value == Slot.PRIMITIVE) {
+            return box(schema.typeAt(index), primitives[index]);
+        }
+        return value;
+    }
+
+    private static Object box(Class<?> type, long value) {
+        if (type == int.class || type == Integer.class) {
+            return (int) value;
+        } else if (type == short.class || type == Short.class) {
+            return (short) value;
+        } else if (type == byte.class || type == Byte.class) {
+            return (byte) value;
+        }
+        return value;
+    }
+
+    private Object[] toArray() {
+        Object[] array = new Object[values.length];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = valueAt(i);
+        }
+        return array;
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(toArray());
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof CompactTuple) {
+            CompactTuple other = (CompactTuple) obj;
+            return Arrays.equals(toArray(), other.toArray());
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(" [ ");
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            Object value = valueAt(i);
+            sb.append(value == null ? "null" : value.toString());
+        }
+        sb.append(" ]");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2018 requery.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.requery.query;
+
+import java.util.Arrays;
+
+/**
+ * {@link Column} of unboxed {@code double} values.
+ *
+ * @author Nikhil Purushe
+ */
+public final class DoubleColumn extends Column<Double> {
+
+    private double[][] chunks;
+
+    public DoubleColumn(String name) {
+        super(name);
+        chunks = new double[INITIAL_CHUNKS][];
+    }
+
+    /**
+     * Appends a value to the column.
+     *
+     * @param value to append
+     */
+    public void add(double value) {
+        int row = next();
+        chunks[row >>> CHUNK_SHIFT][row & CHUNK_MASK] = value;
+    }
+
+    /**
+     * @param row 0 based row index
+     * @return the value in the row, 0 if the value is null
+     */
+    public double getDouble(int row) {
+        checkRow(row);
+        return chunks[row >>> CHUNK_SHIFT][row & CHUNK_MASK];
+    }
+
+    @Override
+    public Double get(int row) {
+        return isNull(row) ? null : getDouble(row);
+    }
+
+    /**
+     * @return a new array with all the values of the column, null values are 0
+     */
+    public double[] toArray() {
+        double[] array = new double[size()];
+        for (int i = 0, chunk = 0; i < array.length; i += CHUNK_SIZE, chunk++) {
+            System.arraycopy(chunks[chunk], 0, array, i, Math.min(CHUNK_SIZE, array.length - i));
+        }
+        return array;
+    }
+
+    @Override
+    void allocate(int chunk) {
+        if (chunk == chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunks.length * 2);
+        }
+        chunks[chunk] = new double[CHUNK_SIZE];
+    }
+}
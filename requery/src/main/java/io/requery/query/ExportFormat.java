@@ -0,0 +1,36 @@
+/*
+ * Copyright 2018 requery.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.requery.query;
+
+/**
+ * Text formats a {@link BulkResult} can be written in, see
+ * {@link BulkResult#writeTo(java.io.Writer, ExportFormat)}.
+ *
+ * @author Nikhil Purushe
+ */
+public enum ExportFormat {
+
+    /**
+     * Comma separated values (RFC 4180) with a header line of column names.
+     */
+    CSV,
+
+    /**
+     * JSON Lines, one JSON object per row keyed by column name.
+     */
+    JSON_LINES
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2018 requery.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.requery.query;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Base64;
+
+/**
+ * Formats rows of values into a reusable buffer that is written out to a {@link Writer} in large
+ * blocks. Values of a row are appended in column order between {@link #beginRow()} and
+ * {@link #endRow()}, numeric values can be appended without boxing. Formatting doesn't perform
+ * any I/O, the buffer is only written by {@link #flushIfFull()} and {@link #flush()}.
+ *
+ * @author Nikhil Purushe
+ */
+public final class ExportWriter {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Writer writer;
+    private final ExportFormat format;
+    private final String[] names;
+    private final StringBuilder buffer;
+    private int column;
+
+    public ExportWriter(Writer writer, ExportFormat format, String[] names) {
+        this.writer = writer;
+        this.format = format;
+        this.buffer = new StringBuilder(BUFFER_SIZE * 2);
+        this.names = new String[names.length];
+        for (int i = 0; i < names.length; i++) {
+            if (format == ExportFormat.JSON_LINES) {
+                // keys are escaped once
+                StringBuilder sb = new StringBuilder();
+                appendJsonString(sb, names[i]);
+                this.names[i] = sb.append(':').toString();
+            } else {
+                this.names[i] = names[i];
+            }
+        }
+    }
+
+    /**
+     * Writes the header line if the format has one.
+     */
+    public void writeHeader() {
+        if (format == ExportFormat.CSV) {
+            for (int i = 0; i < names.length; i++) {
+                if (i > 0) {
+                    buffer.append(',');
+                }
+                appendCsvString(names[i]);
+            }
+            buffer.append("\r\n");
+        }
+    }
+
+    /**
+     * Starts a new row.
+     */
+    public void beginRow() {
+        column = 0;
+        if (format == ExportFormat.JSON_LINES) {
+            buffer.append('{');
+        }
+    }
+
+    /**
+     * Appends a null value to the current row.
+     */
+    public void writeNull() {
+        separator();
+        if (format == ExportFormat.JSON_LINES) {
+            buffer.append("null");
+        }
+    }
+
+    /**
+     * Appends an integral value to the current row.
+     */
+    public void writeLong(long value) {
+        separator();
+        buffer.append(value);
+    }
+
+    /**
+     * Appends a floating point value to the current row.
+     */
+    public void writeDouble(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            // not representable as a JSON number
+            if (format == ExportFormat.JSON_LINES) {
+                writeNull();
+            } else {
+                separator();
+                buffer.append(value);
+            }
+        } else {
+            separator();
+            buffer.append(value);
+        }
+    }
+
+    /**
+     * Appends a string value to the current row.
+     */
+    public void writeString(String value) {
+        if (value == null) {
+            writeNull();
+            return;
+        }
+        separator();
+        if (format == ExportFormat.JSON_LINES) {
+            appendJsonString(buffer, value);
+        } else {
+            appendCsvString(value);
+        }
+    }
+
+    /**
+     * Appends a value of any type to the current row, values other than numbers, booleans, enums
+     * and byte arrays (which are Base64 encoded) are written as strings.
+     */
+    public void writeValue(Object value) {
+        if (value == null) {
+            writeNull();
+        } else if (value instanceof Long || value instanceof Integer ||
+            value instanceof Short || value instanceof Byte) {
+            writeLong(((Number) value).longValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            writeDouble(((Number) value).doubleValue());
+        } else if (value instanceof Number || value instanceof Boolean) {
+            separator();
+            buffer.append(value.toString());
+        } else if (value instanceof byte[]) {
+            writeString(Base64.getEncoder().encodeToString((byte[]) value));
+        } else if (value instanceof Enum) {
+            writeString(((Enum) value).name());
+        } else {
+            writeString(value.toString());
+        }
+    }
+
+    /**
+     * Completes the current row.
+     */
+    public void endRow() {
+        if (format == ExportFormat.JSON_LINES) {
+            buffer.append("}\n");
+        } else {
+            buffer.append("\r\n");
+        }
+    }
+
+    /**
+     * Writes out the buffered rows if the buffer is large enough.
+     */
+    public void flushIfFull() throws IOException {
+        if (buffer.length() >= BUFFER_SIZE) {
+            writer.append(buffer);
+            buffer.setLength(0);
+        }
+    }
+
+    /**
+     * Writes out any buffered rows and flushes the underlying writer.
+     */
+    public void flush() throws IOException {
+        if (buffer.length() > 0) {
+            writer.append(buffer);
+            buffer.setLength(0);
+        }
+        writer.flush();
+    }
+
+    private void separator() {
+        if (column > 0) {
+            buffer.append(',');
+        }
+        if (format == ExportFormat.JSON_LINES) {
+            buffer.append(names[column]);
+        }
+        column++;
+    }
+
+    private void appendCsvString(String value) {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (!quote) {
+            buffer.append(value);
+            return;
+        }
+        buffer.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                buffer.append('"');
+            }
+            buffer.append(c);
+        }
+        buffer.append('"');
+    }
+
+    private static void appendJsonString(StringBuilder sb, String value) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                    break;
+            }
+        }
+        sb.append('"');
+    }
+}
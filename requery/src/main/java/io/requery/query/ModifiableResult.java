@@ -16,27 +16,39 @@
 
 package io.requery.query;
 
+import io.requery.meta.Attribute;
 import io.requery.proxy.CollectionChanges;
 import io.requery.util.CloseableIterator;
 import io.requery.util.CollectionObserver;
 import io.requery.util.CompositeIterator;
 import io.requery.util.FilteringIterator;
 import io.requery.util.ObservableCollection;
+import io.requery.util.PrefetchingIterator;
 import io.requery.util.function.Consumer;
 import io.requery.util.function.Predicate;
 import io.requery.util.function.Supplier;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.Spliterators;
+import java.util.concurrent.Executor;
+import java.util.stream.DoubleStream;
+import java.util.stream.LongStream;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
-public class ModifiableResult<E> implements MutableResult<E>, ObservableCollection<E> {
+public class ModifiableResult<E> implements MutableResult<E>, BulkResult<E>,
+    ObservableCollection<E> {
 
     private final Result<E> result;
     private final CollectionChanges<?, E> changes;
@@ -106,6 +118,23 @@ public class ModifiableResult<E> implements MutableResult<E>, ObservableCollecti
         return iterator();
     }
 
+    @Override
+    public CloseableIterator<E> pipelinedIterator(Executor executor) {
+        // added and removed elements are merged by the regular iterator
+        return iterator();
+    }
+
+    @Override
+    public CloseableIterator<E> prefetchingIterator(int fetchSize) {
+        return new PrefetchingIterator<>(iterator(), fetchSize);
+    }
+
+    @Override
+    public BulkResult<E> detach() {
+        return new ModifiableResult<>(
+            result == null ? null : BaseResult.bulkOf(result).detach(), changes);
+    }
+
     @Override
     public void close() {
         if (result != null) {
@@ -165,6 +194,63 @@ public class ModifiableResult<E> implements MutableResult<E>, ObservableCollecti
             StreamSupport.stream(Spliterators.<E>emptySpliterator(), false) : result.stream();
     }
 
+    @Override
+    public <N extends Number> Stream<E> parallelStream(Expression<N> partitionKey,
+                                                       int partitions) {
+        return result == null ?
+            stream() : BaseResult.bulkOf(result).parallelStream(partitionKey, partitions);
+    }
+
+    @Override
+    public <N extends Number> Stream<E> parallelStream(Expression<N> partitionKey,
+                                                       int partitions, boolean snapshot) {
+        return result == null ?
+            stream() : BaseResult.bulkOf(result).parallelStream(partitionKey, partitions, snapshot);
+    }
+
+    @Override
+    public LongStream longStream() {
+        return result == null ? LongStream.empty() : BaseResult.bulkOf(result).longStream();
+    }
+
+    @Override
+    public DoubleStream doubleStream() {
+        return result == null ? DoubleStream.empty() : BaseResult.bulkOf(result).doubleStream();
+    }
+
+    @Override
+    public Columns toColumns() {
+        return result == null ?
+            new Columns(TupleSchema.EMPTY, new Column<?>[0]) :
+            BaseResult.bulkOf(result).toColumns();
+    }
+
+    @Override
+    public void writeTo(Writer writer, ExportFormat format) throws IOException {
+        boolean modified = changes != null &&
+            (!changes.addedElements().isEmpty() || !changes.removedElements().isEmpty());
+        if (result != null && !modified) {
+            BaseResult.bulkOf(result).writeTo(writer, format);
+        } else if (changes != null) {
+            // export the elements merged with the changes by the attributes of the element type
+            Set<? extends Expression<?>> selection = null;
+            Supplier<Attribute> mapped = changes.getAttribute().getMappedAttribute();
+            if (mapped != null) {
+                selection = BaseResult.attributesOf(mapped.get().getDeclaringType());
+            }
+            try (CloseableIterator<E> iterator = iterator()) {
+                BaseResult.export(iterator, selection, writer, format);
+            }
+        }
+    }
+
+    @Override
+    public void writeTo(OutputStream output, ExportFormat format) throws IOException {
+        Writer writer = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+        writeTo(writer, format);
+        writer.flush();
+    }
+
     @Override
     public <K> Map<K, E> toMap(Expression<K> key) {
         return result == null ? Collections.<K, E>emptyMap() : result.toMap(key);
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2018 requery.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.requery.query;
+
+import java.util.Arrays;
+
+/**
+ * {@link Column} of values that have no primitive or dictionary representation.
+ *
+ * @param <V> type of the values
+ *
+ * @author Nikhil Purushe
+ */
+public final class ObjectColumn<V> extends Column<V> {
+
+    private Object[][] chunks;
+
+    public ObjectColumn(String name) {
+        super(name);
+        chunks = new Object[INITIAL_CHUNKS][];
+    }
+
+    /**
+     * Appends a value to the column.
+     *
+     * @param value to append, may be null
+     */
+    public void add(V value) {
+        if (value == null) {
+            addNull();
+            return;
+        }
+        int row = next();
+        chunks[row >>> CHUNK_SHIFT][row & CHUNK_MASK] = value;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V get(int row) {
+        checkRow(row);
+        return (V) chunks[row >>> CHUNK_SHIFT][row & CHUNK_MASK];
+    }
+
+    @Override
+    void allocate(int chunk) {
+        if (chunk == chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunks.length * 2);
+        }
+        chunks[chunk] = new Object[CHUNK_SIZE];
+    }
+}
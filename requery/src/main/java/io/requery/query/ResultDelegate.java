@@ -20,13 +20,19 @@ import io.requery.util.CloseableIterator;
 import io.requery.util.function.Consumer;
 import io.requery.util.function.Supplier;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.Executor;
+import java.util.stream.DoubleStream;
+import java.util.stream.LongStream;
 import java.util.stream.Stream;
 
-public class ResultDelegate<E> implements Result<E> {
+public class ResultDelegate<E> implements BulkResult<E> {
 
     protected final Result<E> delegate;
 
@@ -44,6 +50,21 @@ public class ResultDelegate<E> implements Result<E> {
         return delegate.iterator(skip, take);
     }
 
+    @Override
+    public CloseableIterator<E> pipelinedIterator(Executor executor) {
+        return BaseResult.bulkOf(delegate).pipelinedIterator(executor);
+    }
+
+    @Override
+    public CloseableIterator<E> prefetchingIterator(int fetchSize) {
+        return BaseResult.bulkOf(delegate).prefetchingIterator(fetchSize);
+    }
+
+    @Override
+    public BulkResult<E> detach() {
+        return BaseResult.bulkOf(delegate).detach();
+    }
+
     @Override
     public void close() {
         delegate.close();
@@ -54,6 +75,43 @@ public class ResultDelegate<E> implements Result<E> {
         return delegate.stream();
     }
 
+    @Override
+    public <N extends Number> Stream<E> parallelStream(Expression<N> partitionKey,
+                                                       int partitions) {
+        return BaseResult.bulkOf(delegate).parallelStream(partitionKey, partitions);
+    }
+
+    @Override
+    public <N extends Number> Stream<E> parallelStream(Expression<N> partitionKey,
+                                                       int partitions, boolean snapshot) {
+        return BaseResult.bulkOf(delegate).parallelStream(partitionKey, partitions, snapshot);
+    }
+
+    @Override
+    public LongStream longStream() {
+        return BaseResult.bulkOf(delegate).longStream();
+    }
+
+    @Override
+    public DoubleStream doubleStream() {
+        return BaseResult.bulkOf(delegate).doubleStream();
+    }
+
+    @Override
+    public Columns toColumns() {
+        return BaseResult.bulkOf(delegate).toColumns();
+    }
+
+    @Override
+    public void writeTo(Writer writer, ExportFormat format) throws IOException {
+        BaseResult.bulkOf(delegate).writeTo(writer, format);
+    }
+
+    @Override
+    public void writeTo(OutputStream output, ExportFormat format) throws IOException {
+        BaseResult.bulkOf(delegate).writeTo(output, format);
+    }
+
     @Override
     public <C extends Collection<E>> C collect(C collection) {
         return delegate.collect(collection);
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2018 requery.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.requery.query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dictionary encoded {@link Column} of {@link String} values. Each distinct value is stored once
+ * and rows hold the code of their value in the dictionary.
+ *
+ * @author Nikhil Purushe
+ */
+public final class StringColumn extends Column<String> {
+
+    private final List<String> dictionary;
+    private final Map<String, Integer> codes;
+    private int[][] chunks;
+
+    public StringColumn(String name) {
+        super(name);
+        dictionary = new ArrayList<>();
+        codes = new HashMap<>();
+        chunks = new int[INITIAL_CHUNKS][];
+    }
+
+    /**
+     * Appends a value to the column.
+     *
+     * @param value to append, may be null
+     */
+    public void add(String value) {
+        if (value == null) {
+            addNull();
+            return;
+        }
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = dictionary.size();
+            dictionary.add(value);
+            codes.put(value, code);
+        }
+        int row = next();
+        chunks[row >>> CHUNK_SHIFT][row & CHUNK_MASK] = code;
+    }
+
+    /**
+     * @param row 0 based row index
+     * @return the dictionary code of the value in the row, -1 if the value is null
+     */
+    public int getCode(int row) {
+        return isNull(row) ? -1 : chunks[row >>> CHUNK_SHIFT][row & CHUNK_MASK];
+    }
+
+    /**
+     * @return the distinct values of the column indexed by their code
+     */
+    public List<String> getDictionary() {
+        return Collections.unmodifiableList(dictionary);
+    }
+
+    @Override
+    public String get(int row) {
+        int code = getCode(row);
+        return code < 0 ? null : dictionary.get(code);
+    }
+
+    @Override
+    void allocate(int chunk) {
+        if (chunk == chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunks.length * 2);
+        }
+        chunks[chunk] = new int[CHUNK_SIZE];
+    }
+}
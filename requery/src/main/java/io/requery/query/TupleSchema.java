@@ -0,0 +1,148 @@
+/*
+ * Copyright 2018 requery.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.requery.query;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable description of the columns of a query result shared by all the {@link CompactTuple}
+ * rows of that result. Resolves expressions and column or alias names to column indexes.
+ *
+ * @author Nikhil Purushe
+ */
+public final class TupleSchema implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Schema without columns, e.g. of an empty result whose selection is not known.
+     */
+    public static final TupleSchema EMPTY = new TupleSchema();
+
+    private final Class<?>[] types;
+    private final String[] columnNames;
+    private final Map<String, Integer> names;
+    // expressions are not serialized, after deserialization only names are resolved
+    private transient Expression<?>[] expressions;
+    private transient Map<Expression<?>, Integer> indexes;
+
+    private TupleSchema() {
+        this.expressions = new Expression<?>[0];
+        this.types = new Class<?>[0];
+        this.columnNames = new String[0];
+        this.names = Collections.emptyMap();
+        this.indexes = Collections.emptyMap();
+    }
+
+    public TupleSchema(Collection<? extends Expression<?>> expressions) {
+        this(expressions.toArray(new Expression<?>[expressions.size()]));
+    }
+
+    public TupleSchema(Expression<?>[] expressions) {
+        if (expressions.length == 0) {
+            throw new IllegalStateException();
+        }
+        this.expressions = expressions.clone();
+        this.types = new Class<?>[expressions.length];
+        this.columnNames = new String[expressions.length];
+        this.names = new HashMap<>(expressions.length);
+        for (int i = 0; i < expressions.length; i++) {
+            types[i] = expressions[i].getClassType();
+            columnNames[i] = nameOf(expressions[i]);
+            String key = keyOf(expressions[i]);
+            // like MutableTuple the last expression with the same name wins
+            names.put(key, i);
+        }
+        this.indexes = new IdentityHashMap<>(expressions.length);
+        for (int i = 0; i < expressions.length; i++) {
+            indexes.put(expressions[i], i);
+        }
+    }
+
+    static String keyOf(Expression<?> expression) {
+        String key = nameOf(expression);
+        return key == null ? null : key.toLowerCase(Locale.ROOT);
+    }
+
+    private static String nameOf(Expression<?> expression) {
+        if (expression instanceof Aliasable) {
+            String alias = ((Aliasable) expression).getAlias();
+            if (alias != null) {
+                return alias;
+            }
+        }
+        return expression.getName();
+    }
+
+    /**
+     * @param expression to find
+     * @return 0 based index of the column for the expression or -1 if not part of the result
+     */
+    public int indexOf(Expression<?> expression) {
+        Integer index = indexes == null ? null : indexes.get(expression);
+        if (index == null) {
+            index = names.get(keyOf(expression));
+        }
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * @param name column or alias name
+     * @return 0 based index of the column with the name or -1 if not part of the result
+     */
+    public int indexOf(String name) {
+        Integer index = names.get(name.toLowerCase(Locale.ROOT));
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * @param index 0 based column index
+     * @return expression of the column, null if this instance was deserialized
+     */
+    public Expression<?> expressionAt(int index) {
+        return expressions == null ? null : expressions[index];
+    }
+
+    /**
+     * @param index 0 based column index
+     * @return alias or name of the column, also available after deserialization
+     */
+    public String nameAt(int index) {
+        return columnNames[index];
+    }
+
+    /**
+     * @param index 0 based column index
+     * @return class type of the column
+     */
+    public Class<?> typeAt(int index) {
+        return types[index];
+    }
+
+    /**
+     * @return number of columns
+     */
+    public int size() {
+        return types.length;
+    }
+}
@@ -0,0 +1,301 @@
+/*
+ * Copyright 2018 requery.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.requery.sql;
+
+import io.requery.EntityCache;
+import io.requery.meta.Attribute;
+import io.requery.meta.Cardinality;
+import io.requery.meta.EntityModel;
+import io.requery.meta.Type;
+import io.requery.proxy.EntityProxy;
+
+import io.requery.util.function.Supplier;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Caches the ordered element keys of loaded one to many and many to many associations by owner
+ * key, so that an association whose elements are all present in the {@link EntityCache} can be
+ * rebuilt without querying the database. At most {@link #MAX_ENTRIES} owners are kept per
+ * association, the least recently used are removed first. Associations loaded in a transaction
+ * are not cached since they may contain uncommitted changes, entries invalidated by a write in a
+ * transaction are invalidated again once it completes.
+ *
+ * @author Nikhil Purushe
+ */
+class AssociationCache {
+
+    static final int MAX_ENTRIES = 1024;
+
+    /**
+     * Owner key to element keys map of a single association, in access order.
+     */
+    private static class Entries extends LinkedHashMap<Object, List<Object>> {
+
+        private static final long serialVersionUID = 1L;
+
+        Entries() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Object, List<Object>> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    }
+
+    private final EntityModel model;
+    private final EntityCache cache;
+    private final Supplier<? extends EntityTransaction> transactions;
+    private final Map<Attribute<?, ?>, Entries> associations;
+    private final List<Attribute<?, ?>> attributes;
+
+    AssociationCache(EntityModel model, EntityCache cache,
+                     Supplier<? extends EntityTransaction> transactions) {
+        this.model = model;
+        this.cache = cache;
+        this.transactions = transactions;
+        this.associations = new LinkedHashMap<>();
+        this.attributes = new ArrayList<>();
+        for (Type<?> type : model.getTypes()) {
+            for (Attribute<?, ?> attribute : type.getAttributes()) {
+                if (isCacheable(attribute)) {
+                    attributes.add(attribute);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return true if the association can be cached, i.e. it's a one to many or many to many
+     * association of cacheable elements.
+     */
+    boolean isCacheable(Attribute<?, ?> attribute) {
+        Cardinality cardinality = attribute.getCardinality();
+        if (cardinality != Cardinality.ONE_TO_MANY && cardinality != Cardinality.MANY_TO_MANY) {
+            return false;
+        }
+        Class<?> elementClass = attribute.getElementClass();
+        if (elementClass == null || !model.containsTypeOf(elementClass)) {
+            return false;
+        }
+        Type<?> elementType = model.typeOf(elementClass);
+        return elementType.isCacheable() && !elementType.isStateless();
+    }
+
+    /**
+     * Gets the cached elements of an association.
+     *
+     * @param attribute association attribute
+     * @param key       owning entity key
+     * @param <U>       element type
+     * @return the elements in their loaded order or null if the association isn't cached or one
+     * of its elements is no longer in the entity cache.
+     */
+    <U> List<U> get(Attribute<?, ?> attribute, Object key) {
+        List<Object> keys;
+        synchronized (associations) {
+            Entries entries = associations.get(attribute);
+            keys = entries == null ? null : entries.get(key);
+        }
+        if (keys == null) {
+            return null;
+        }
+        @SuppressWarnings("unchecked")
+        Class<U> elementClass = (Class<U>) attribute.getElementClass();
+        Type<U> elementType = model.typeOf(elementClass);
+        Attribute<U, ?> mapped = attribute.getCardinality() == Cardinality.ONE_TO_MANY ?
+            Attributes.<U, Object>get(attribute.getMappedAttribute()) : null;
+        List<U> elements = new ArrayList<>(keys.size());
+        for (Object elementKey : keys) {
+            U element = cache.get(elementType.getClassType(), elementKey);
+            if (element == null) {
+                return null;
+            }
+            // the element may have been moved to another owner since it was cached
+            if (mapped != null) {
+                EntityProxy<U> proxy = elementType.getProxyProvider().apply(element);
+                if (!key.equals(proxy.getKey(mapped))) {
+                    return null;
+                }
+            }
+            elements.add(element);
+        }
+        return elements;
+    }
+
+    /**
+     * Caches the elements of a loaded association.
+     *
+     * @param attribute association attribute
+     * @param key       owning entity key
+     * @param elements  loaded elements in order
+     */
+    <U> void put(Attribute<?, ?> attribute, Object key, Collection<U> elements) {
+        if (transactions.get().active()) {
+            return;
+        }
+        List<Object> keys = new ArrayList<>(elements.size());
+        for (U element : elements) {
+            @SuppressWarnings("unchecked")
+            Type<U> type = (Type<U>) model.typeOf(element.getClass());
+            Object elementKey = type.getProxyProvider().apply(element).key();
+            if (elementKey == null) {
+                return;
+            }
+            keys.add(elementKey);
+        }
+        synchronized (associations) {
+            Entries entries = associations.get(attribute);
+            if (entries == null) {
+                entries = new Entries();
+                associations.put(attribute, entries);
+            }
+            entries.put(key, Collections.unmodifiableList(keys));
+        }
+    }
+
+    /**
+     * Removes a cached association of a specific owner.
+     *
+     * @param attribute association attribute
+     * @param key       owning entity key
+     */
+    void invalidate(final Attribute<?, ?> attribute, final Object key) {
+        if (key == null) {
+            return;
+        }
+        remove(attribute, key);
+        EntityTransaction transaction = transactions.get();
+        if (transaction.active()) {
+            transaction.addCompletionAction(new Runnable() {
+                @Override
+                public void run() {
+                    remove(attribute, key);
+                }
+            });
+        }
+    }
+
+    private void remove(Attribute<?, ?> attribute, Object key) {
+        synchronized (associations) {
+            Entries entries = associations.get(attribute);
+            if (entries != null) {
+                if (key == null) {
+                    entries.clear();
+                } else {
+                    entries.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the cached associations referencing an entity written to the database, i.e. the
+     * one to many associations of its owners and the many to many associations of a junction
+     * entity.
+     *
+     * @param type  written entity type
+     * @param proxy written entity proxy
+     */
+    <E> void invalidateReferences(Type<E> type, EntityProxy<E> proxy) {
+        Class<E> classType = type.getClassType();
+        for (Attribute<?, ?> attribute : attributes) {
+            if (attribute.getCardinality() == Cardinality.ONE_TO_MANY) {
+                if (attribute.getElementClass().isAssignableFrom(classType)) {
+                    Attribute<E, ?> mapped = Attributes.get(attribute.getMappedAttribute());
+                    invalidate(attribute, proxy.getKey(mapped));
+                }
+            } else if (classType == attribute.getReferencedClass()) {
+                Class<?> ownerClass = attribute.getDeclaringType().getClassType();
+                for (Attribute<E, ?> reference : type.getAttributes()) {
+                    Class<?> referenced = reference.getReferencedClass();
+                    if (referenced != null && ownerClass.isAssignableFrom(referenced)) {
+                        invalidate(attribute, proxy.getKey(reference));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the cached associations of an owner whose association was written.
+     *
+     * @param attribute one to many or many to many attribute
+     * @param proxy     owning entity proxy
+     */
+    <E> void invalidateOwner(Attribute<E, ?> attribute, EntityProxy<E> proxy) {
+        if (attribute.getCardinality() == Cardinality.ONE_TO_MANY) {
+            Attribute<?, ?> mapped = Attributes.get(attribute.getMappedAttribute());
+            Attribute<E, ?> referenced = Attributes.get(mapped.getReferencedAttribute());
+            invalidate(attribute, proxy.get(referenced, false));
+        } else if (attribute.getCardinality() == Cardinality.MANY_TO_MANY) {
+            Class<E> ownerClass = attribute.getDeclaringType().getClassType();
+            Type<?> junctionType = model.typeOf(attribute.getReferencedClass());
+            for (Attribute<?, ?> reference : junctionType.getAttributes()) {
+                Class<?> referenced = reference.getReferencedClass();
+                if (referenced != null && ownerClass.isAssignableFrom(referenced)) {
+                    Attribute<E, ?> key = Attributes.get(reference.getReferencedAttribute());
+                    invalidate(attribute, proxy.get(key, false));
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the cached associations with elements or junction rows of the given type, used when
+     * rows are modified by a query instead of an entity write. A query may change the foreign key
+     * of any element so the associations of all the owners are removed.
+     *
+     * @param type entity class
+     */
+    void invalidate(Class<?> type) {
+        for (Attribute<?, ?> attribute : attributes) {
+            Class<?> elementClass = attribute.getElementClass();
+            if (elementClass.isAssignableFrom(type) ||
+                (attribute.getCardinality() == Cardinality.MANY_TO_MANY &&
+                type == attribute.getReferencedClass())) {
+                invalidateAll(attribute);
+            }
+        }
+    }
+
+    private void invalidateAll(final Attribute<?, ?> attribute) {
+        remove(attribute, null);
+        EntityTransaction transaction = transactions.get();
+        if (transaction.active()) {
+            transaction.addCompletionAction(new Runnable() {
+                @Override
+                public void run() {
+                    remove(attribute, null);
+                }
+            });
+        }
+    }
+
+    void clear() {
+        synchronized (associations) {
+            associations.clear();
+        }
+    }
+}
@@ -0,0 +1,371 @@
+/*
+ * Copyright 2018 requery.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.requery.sql;
+
+import io.requery.query.Expression;
+
+import javax.sql.rowset.serial.SerialBlob;
+import javax.sql.rowset.serial.SerialClob;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Read only {@link ResultSet} view over a row of values copied out of another result set with
+ * {@link ResultSet#getObject(int)}. Allows a {@link ResultReader} to decode a row on a different
+ * thread than the one fetching from the database. Only the column getters, {@link #wasNull},
+ * {@link ResultSet#findColumn(String)} and {@link ResultSet#getMetaData()} are supported.
+ *
+ * @author Nikhil Purushe
+ */
+final class BufferedRow implements InvocationHandler {
+
+    private final ResultSetMetaData metadata;
+    private final Map<String, Integer> columns;
+    private final ResultSet results;
+    private Object[] values;
+    private boolean wasNull;
+
+    BufferedRow(ResultSetMetaData metadata, String[] labels) {
+        this.metadata = metadata;
+        this.columns = new HashMap<>();
+        for (int i = labels.length; i > 0; i--) {
+            // like ResultSet.findColumn the first matching column wins
+            columns.put(labels[i - 1].toLowerCase(Locale.ROOT), i);
+        }
+        this.results = (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+            new Class<?>[] { ResultSet.class }, this);
+    }
+
+    /**
+     * Copies the current row of a result set, large objects are copied into memory so that they
+     * remain valid after the result set is closed.
+     */
+    static Object[] copy(ResultSet results, Object[] row) throws SQLException {
+        for (int i = 0; i < row.length; i++) {
+            Object value = results.getObject(i + 1);
+            if (value instanceof Blob) {
+                value = new SerialBlob((Blob) value);
+            } else if (value instanceof Clob) {
+                value = new SerialClob((Clob) value);
+            }
+            row[i] = value;
+        }
+        return row;
+    }
+
+    ResultSet move(Object[] values) {
+        this.values = values;
+        this.wasNull = false;
+        return results;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        switch (name) {
+            case "wasNull":
+                return wasNull;
+            case "getMetaData":
+                return metadata;
+            case "findColumn":
+                return findColumn((String) args[0]);
+            case "isClosed":
+                return false;
+            case "close":
+                return null;
+            case "isWrapperFor":
+                return false;
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "BufferedRow";
+            default:
+                break;
+        }
+        if (name.startsWith("get") && args != null && args.length > 0 &&
+            (args[0] instanceof Integer || args[0] instanceof String)) {
+            int column = args[0] instanceof Integer ?
+                (Integer) args[0] : findColumn((String) args[0]);
+            Object value = values[column - 1];
+            wasNull = value == null;
+            Class<?> type = method.getReturnType();
+            if (args.length > 1 && args[1] instanceof Class) {
+                // getObject(int, Class)
+                type = (Class<?>) args[1];
+            }
+            return convert(value, type);
+        }
+        throw new SQLFeatureNotSupportedException(name);
+    }
+
+    private int findColumn(String label) throws SQLException {
+        Integer column = columns.get(label.toLowerCase(Locale.ROOT));
+        if (column == null) {
+            throw new SQLException("column not found " + label);
+        }
+        return column;
+    }
+
+    private static Object convert(Object value, Class<?> type) throws SQLException {
+        if (type.isPrimitive()) {
+            return convertPrimitive(value, type);
+        }
+        if (value == null || type.isInstance(value)) {
+            return value;
+        }
+        if (type == String.class) {
+            if (value instanceof Clob) {
+                Clob clob = (Clob) value;
+                return clob.getSubString(1, (int) clob.length());
+            }
+            return value.toString();
+        } else if (type == BigDecimal.class) {
+            return new BigDecimal(value.toString());
+        } else if (type == byte[].class && value instanceof Blob) {
+            Blob blob = (Blob) value;
+            return blob.getBytes(1, (int) blob.length());
+        } else if (type == Blob.class && value instanceof byte[]) {
+            return new SerialBlob((byte[]) value);
+        } else if (type == Clob.class && value instanceof String) {
+            return new SerialClob(((String) value).toCharArray());
+        } else if (isJavaTime(type) || isJavaTime(value.getClass())) {
+            return JavaTime.convert(value, type);
+        } else if (type == java.sql.Date.class || type == Time.class ||
+            type == Timestamp.class) {
+            long time;
+            if (value instanceof java.util.Date) {
+                time = ((java.util.Date) value).getTime();
+            } else if (value instanceof Number) {
+                time = ((Number) value).longValue();
+            } else {
+                return parseTime(value.toString(), type);
+            }
+            if (type == java.sql.Date.class) {
+                return new java.sql.Date(time);
+            } else if (type == Time.class) {
+                return new Time(time);
+            }
+            return new Timestamp(time);
+        } else if (Number.class.isAssignableFrom(type) || type == Boolean.class) {
+            return convertPrimitive(value, type);
+        }
+        throw new SQLException("can't convert " + value.getClass() + " to " + type);
+    }
+
+    private static boolean isJavaTime(Class<?> type) {
+        // by name so that java.time is only loaded if it is actually used
+        return type.getName().startsWith("java.time.");
+    }
+
+    private static Object parseTime(String value, Class<?> type) {
+        if (type == java.sql.Date.class) {
+            return java.sql.Date.valueOf(value);
+        } else if (type == Time.class) {
+            return Time.valueOf(value);
+        }
+        return Timestamp.valueOf(value);
+    }
+
+    private static Object convertPrimitive(Object value, Class<?> type) {
+        if (type == boolean.class || type == Boolean.class) {
+            if (value == null) {
+                return Boolean.FALSE;
+            } else if (value instanceof Boolean) {
+                return value;
+            } else if (value instanceof Number) {
+                return ((Number) value).intValue() != 0;
+            }
+            String string = value.toString();
+            return "1".equals(string) || Boolean.parseBoolean(string);
+        }
+        Number number;
+        if (value == null) {
+            number = 0;
+        } else if (value instanceof Number) {
+            number = (Number) value;
+        } else if (value instanceof Boolean) {
+            number = (Boolean) value ? 1 : 0;
+        } else {
+            number = new BigDecimal(value.toString());
+        }
+        if (type == int.class || type == Integer.class) {
+            return number.intValue();
+        } else if (type == long.class || type == Long.class) {
+            return number.longValue();
+        } else if (type == short.class || type == Short.class) {
+            return number.shortValue();
+        } else if (type == byte.class || type == Byte.class) {
+            return number.byteValue();
+        } else if (type == float.class || type == Float.class) {
+            return number.floatValue();
+        }
+        return number.doubleValue();
+    }
+
+    /**
+     * Conversions between the JDBC date/time types and java.time, as drivers may return either
+     * from {@link ResultSet#getObject(int)}. Zone less values are in the default time zone, like
+     * the JDBC types.
+     */
+    private static final class JavaTime {
+
+        static Object convert(Object value, Class<?> type) throws SQLException {
+            if (value instanceof String) {
+                return parse((String) value, type);
+            }
+            if (type == LocalDate.class) {
+                return toLocalDateTime(value).toLocalDate();
+            } else if (type == LocalDateTime.class) {
+                return toLocalDateTime(value);
+            } else if (type == LocalTime.class) {
+                if (value instanceof Time) {
+                    return ((Time) value).toLocalTime();
+                }
+                return toLocalDateTime(value).toLocalTime();
+            } else if (type == OffsetDateTime.class) {
+                return toInstant(value).atZone(ZoneId.systemDefault()).toOffsetDateTime();
+            } else if (type == ZonedDateTime.class) {
+                return toInstant(value).atZone(ZoneId.systemDefault());
+            } else if (type == Instant.class) {
+                return toInstant(value);
+            } else if (type == java.sql.Date.class) {
+                return java.sql.Date.valueOf(toLocalDateTime(value).toLocalDate());
+            } else if (type == Time.class) {
+                if (value instanceof LocalTime) {
+                    return Time.valueOf((LocalTime) value);
+                }
+                return Time.valueOf(toLocalDateTime(value).toLocalTime());
+            } else if (type == Timestamp.class || type == java.util.Date.class) {
+                if (value instanceof LocalDate || value instanceof LocalDateTime) {
+                    return Timestamp.valueOf(toLocalDateTime(value));
+                }
+                return Timestamp.from(toInstant(value));
+            }
+            throw new SQLException("can't convert " + value.getClass() + " to " + type);
+        }
+
+        private static LocalDateTime toLocalDateTime(Object value) throws SQLException {
+            if (value instanceof LocalDateTime) {
+                return (LocalDateTime) value;
+            } else if (value instanceof LocalDate) {
+                return ((LocalDate) value).atStartOfDay();
+            } else if (value instanceof Timestamp) {
+                return ((Timestamp) value).toLocalDateTime();
+            } else if (value instanceof java.sql.Date) {
+                return ((java.sql.Date) value).toLocalDate().atStartOfDay();
+            }
+            return LocalDateTime.ofInstant(toInstant(value), ZoneId.systemDefault());
+        }
+
+        private static Instant toInstant(Object value) throws SQLException {
+            if (value instanceof Instant) {
+                return (Instant) value;
+            } else if (value instanceof OffsetDateTime) {
+                return ((OffsetDateTime) value).toInstant();
+            } else if (value instanceof ZonedDateTime) {
+                return ((ZonedDateTime) value).toInstant();
+            } else if (value instanceof LocalDateTime || value instanceof LocalDate) {
+                return toLocalDateTime(value).atZone(ZoneId.systemDefault()).toInstant();
+            } else if (value instanceof Timestamp) {
+                return ((Timestamp) value).toInstant();
+            } else if (value instanceof java.util.Date) {
+                // java.sql.Date and Time don't support toInstant()
+                return Instant.ofEpochMilli(((java.util.Date) value).getTime());
+            } else if (value instanceof Number) {
+                return Instant.ofEpochMilli(((Number) value).longValue());
+            }
+            throw new SQLException("can't convert " + value.getClass() + " to an instant");
+        }
+
+        private static Object parse(String value, Class<?> type) throws SQLException {
+            if (type == LocalDate.class) {
+                return LocalDate.parse(value);
+            } else if (type == LocalTime.class) {
+                return LocalTime.parse(value);
+            } else if (type == LocalDateTime.class) {
+                // JDBC escape format uses a space instead of 'T'
+                return LocalDateTime.parse(value.replace(' ', 'T'));
+            } else if (type == OffsetDateTime.class) {
+                return OffsetDateTime.parse(value);
+            } else if (type == ZonedDateTime.class) {
+                return ZonedDateTime.parse(value);
+            } else if (type == Instant.class) {
+                return Instant.parse(value);
+            }
+            throw new SQLException("can't convert " + value.getClass() + " to " + type);
+        }
+    }
+
+    /**
+     * Copies the raw values of each row into a target array, by default the same array is reused
+     * for every row.
+     */
+    static final class Reader implements ResultReader<Object[]> {
+
+        private ResultSetMetaData metadata;
+        private String[] labels;
+        private Object[] target;
+
+        @Override
+        public Object[] read(ResultSet results, Set<? extends Expression<?>> selection)
+            throws SQLException {
+            if (metadata == null) {
+                // read once, the result set may be closed by the time rows are decoded
+                metadata = results.getMetaData();
+                labels = new String[metadata.getColumnCount()];
+                for (int i = 0; i < labels.length; i++) {
+                    labels[i] = metadata.getColumnLabel(i + 1);
+                }
+            }
+            if (target == null || target.length != labels.length) {
+                target = new Object[labels.length];
+            }
+            return copy(results, target);
+        }
+
+        void setTarget(Object[] target) {
+            this.target = target;
+        }
+
+        BufferedRow newRow() {
+            return new BufferedRow(metadata, labels);
+        }
+    }
+}
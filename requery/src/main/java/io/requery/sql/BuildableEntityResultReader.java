@@ -16,7 +16,6 @@
 
 package io.requery.sql;
 
-import io.requery.meta.Attribute;
 import io.requery.query.Expression;
 
 import java.sql.ResultSet;
@@ -26,15 +25,15 @@ import java.util.Set;
 class BuildableEntityResultReader<E extends S, S> implements ResultReader<E> {
 
     private final EntityReader<E, S> reader;
-    private Attribute<?, ?>[] attributes;
+    private final ColumnLayout<E> layout;
 
-    BuildableEntityResultReader(EntityReader<E, S> reader, Attribute<?, ?>[] attributes) {
+    BuildableEntityResultReader(EntityReader<E, S> reader, ColumnLayout<E> layout) {
         this.reader = reader;
-        this.attributes = attributes;
+        this.layout = layout;
     }
 
     @Override
     public E read(ResultSet results, Set<? extends Expression<?>> selection) throws SQLException {
-        return reader.fromBuilder(results, attributes);
+        return reader.fromBuilder(results, layout);
     }
 }
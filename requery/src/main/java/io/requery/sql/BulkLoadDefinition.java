@@ -0,0 +1,54 @@
+/*
+ * Copyright 2018 requery.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.requery.sql;
+
+import io.requery.meta.Attribute;
+import io.requery.meta.Type;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Defines how a {@link BulkLoader} writes rows into a table on a specific database.
+ *
+ * @author Nikhil Purushe
+ */
+public interface BulkLoadDefinition {
+
+    /**
+     * @param columns number of columns written per row
+     * @return maximum number of rows inserted by a single multi row insert statement, 1 if the
+     * database only supports inserting one row per statement.
+     */
+    int rowsPerStatement(int columns);
+
+    /**
+     * Writes rows using a vendor specific bulk API.
+     *
+     * @param connection connection to write with, part of the loading transaction
+     * @param mapping    mapping used to convert the values to their persisted form
+     * @param type       type being loaded
+     * @param columns    columns being written
+     * @param rows       values for each row in column order, foreign keys are already replaced with
+     *                   the referenced key value
+     * @return true if the rows were written, false to write them with insert statements instead
+     * @throws SQLException on failure
+     */
+    boolean write(Connection connection, Mapping mapping, Type<?> type,
+                  Attribute<?, ?>[] columns, List<Object[]> rows) throws SQLException;
+}
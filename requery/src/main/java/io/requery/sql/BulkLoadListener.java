@@ -0,0 +1,33 @@
+/*
+ * Copyright 2018 requery.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.requery.sql;
+
+/**
+ * Receives progress updates from a {@link BulkLoader}.
+ *
+ * @author Nikhil Purushe
+ */
+public interface BulkLoadListener {
+
+    /**
+     * Called after each chunk of rows has been written.
+     *
+     * @param rows          total number of rows written so far
+     * @param rowsPerSecond average number of rows written per second since the load started
+     */
+    void onProgress(long rows, double rowsPerSecond);
+}
@@ -0,0 +1,340 @@
+/*
+ * Copyright 2018 requery.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.requery.sql;
+
+import io.requery.PersistenceException;
+import io.requery.meta.Attribute;
+import io.requery.meta.Type;
+import io.requery.proxy.EntityProxy;
+import io.requery.proxy.PropertyState;
+import io.requery.query.Expression;
+import io.requery.util.Objects;
+import io.requery.util.function.Function;
+import io.requery.util.function.Predicate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static io.requery.sql.Keyword.INSERT;
+import static io.requery.sql.Keyword.INTO;
+import static io.requery.sql.Keyword.VALUES;
+
+/**
+ * Loads a large number of entities of a single type into the database using the fastest
+ * mechanism the {@link Platform} supports, see {@link BulkLoadDefinition}. Unlike a regular
+ * insert the loaded entities are not added to the entity cache, no entity state listeners are
+ * invoked, the entities are not tracked by the transaction and generated keys are not read back
+ * (keys from a configured {@link KeyAllocator} are assigned to the entities). All rows are
+ * written in one transaction, if there is no active transaction one is started and committed
+ * once all the entities have been loaded.
+ *
+ * @param <E> type of entity being loaded
+ *
+ * @author Nikhil Purushe
+ */
+public class BulkLoader<E> {
+
+    private static final int DEFAULT_CHUNK_SIZE = 8192;
+
+    private final RuntimeConfiguration configuration;
+    private final Type<E> type;
+    private final Attribute<E, ?>[] columns;
+    private final Attribute<E, ?> versionAttribute;
+    private final KeyAllocator keyAllocator;
+    private int chunkSize;
+    private BulkLoadListener listener;
+
+    BulkLoader(RuntimeConfiguration configuration, Type<E> type) {
+        this.configuration = Objects.requireNotNull(configuration);
+        this.type = Objects.requireNotNull(type);
+        final boolean systemVersion =
+            !configuration.getPlatform().versionColumnDefinition().createColumn();
+        final Attribute<E, ?> keyAttribute = type.getSingleKeyAttribute();
+        this.keyAllocator = EntityWriter.isAllocatedKey(configuration.getKeyAllocator(),
+            keyAttribute) ? configuration.getKeyAllocator() : null;
+        this.columns = Attributes.toArray(type.getAttributes(), new Predicate<Attribute<E, ?>>() {
+            @Override
+            public boolean test(Attribute<E, ?> value) {
+                boolean isGeneratedKey = value.isGenerated() && value.isKey() &&
+                    keyAllocator == null;
+                boolean isSystemVersion = value.isVersion() && systemVersion;
+                boolean isAssociation = value.isAssociation() &&
+                    !(value.isForeignKey() || value.isKey());
+                return !(isGeneratedKey || isSystemVersion || isAssociation ||
+                    value.isReadOnly());
+            }
+        });
+        Attribute<E, ?> versionAttribute = null;
+        for (Attribute<E, ?> attribute : columns) {
+            if (attribute.isVersion()) {
+                versionAttribute = attribute;
+            }
+        }
+        this.versionAttribute = versionAttribute;
+        this.chunkSize = DEFAULT_CHUNK_SIZE;
+    }
+
+    /**
+     * Sets the number of rows buffered before they are written, defaults to 8192.
+     *
+     * @param rows number of rows written at a time
+     * @return this loader
+     */
+    public BulkLoader<E> chunkSize(int rows) {
+        if (rows <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.chunkSize = rows;
+        return this;
+    }
+
+    /**
+     * Sets the listener notified after each chunk of rows is written.
+     *
+     * @param listener progress listener
+     * @return this loader
+     */
+    public BulkLoader<E> progress(BulkLoadListener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    /**
+     * Loads the given entities.
+     *
+     * @param entities to load
+     * @return number of rows written
+     */
+    public long load(Iterable<? extends E> entities) {
+        return load(entities.iterator());
+    }
+
+    /**
+     * Loads the given entities, the stream is consumed sequentially.
+     *
+     * @param entities to load
+     * @return number of rows written
+     */
+    public long load(Stream<? extends E> entities) {
+        try (Stream<? extends E> stream = entities) {
+            return load(stream.iterator());
+        }
+    }
+
+    /**
+     * Loads the given entities.
+     *
+     * @param entities to load
+     * @return number of rows written
+     */
+    public long load(Iterator<? extends E> entities) {
+        BulkLoadDefinition definition = configuration.getPlatform().bulkLoadDefinition();
+        int rowsPerStatement = Math.max(1, definition.rowsPerStatement(columns.length));
+        // whole statements only, so that just the last chunk needs a different statement
+        int chunk = (chunkSize + rowsPerStatement - 1) / rowsPerStatement * rowsPerStatement;
+        Function<E, EntityProxy<E>> proxyProvider = type.getProxyProvider();
+        long start = System.nanoTime();
+        long count = 0;
+        try (TransactionScope transaction =
+                 new TransactionScope(configuration.getTransactionProvider());
+             Connection connection = configuration.getConnection();
+             Writer writer = new Writer(connection, definition, rowsPerStatement)) {
+            List<Object[]> rows = new ArrayList<>(Math.min(chunk, DEFAULT_CHUNK_SIZE));
+            while (entities.hasNext()) {
+                rows.add(toRow(proxyProvider.apply(entities.next())));
+                if (rows.size() == chunk || !entities.hasNext()) {
+                    writer.write(rows);
+                    count += rows.size();
+                    rows.clear();
+                    if (listener != null) {
+                        long elapsed = Math.max(1, System.nanoTime() - start);
+                        listener.onProgress(count,
+                            count * (double) TimeUnit.SECONDS.toNanos(1) / elapsed);
+                    }
+                }
+            }
+            transaction.commit();
+        } catch (SQLException e) {
+            throw new PersistenceException(e);
+        }
+        return count;
+    }
+
+    private Object[] toRow(EntityProxy<E> proxy) {
+        Object[] row = new Object[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            Attribute<E, ?> attribute = columns[i];
+            if (attribute.isAssociation()) {
+                row[i] = proxy.getKey(attribute);
+            } else if (attribute == versionAttribute) {
+                row[i] = initialVersion(proxy);
+            } else if (keyAllocator != null && attribute.isKey()) {
+                row[i] = EntityWriter.allocateKey(keyAllocator, proxy, attribute);
+            } else {
+                row[i] = proxy.get(attribute, false);
+            }
+        }
+        return row;
+    }
+
+    private Object initialVersion(EntityProxy<E> proxy) {
+        Object version = proxy.get(versionAttribute, false);
+        if (version == null) {
+            Class<?> type = versionAttribute.getClassType();
+            if (type == Long.class || type == long.class) {
+                version = 1L;
+            } else if (type == Integer.class || type == int.class) {
+                version = 1;
+            } else if (type == Timestamp.class) {
+                version = new Timestamp(System.currentTimeMillis());
+            } else {
+                throw new PersistenceException("Unsupported version type: " + type);
+            }
+            proxy.setObject(versionAttribute, version, PropertyState.LOADED);
+        }
+        return version;
+    }
+
+    private String createSql(int rows) {
+        QueryBuilder qb = new QueryBuilder(configuration.getQueryBuilderOptions());
+        qb.keyword(INSERT, INTO)
+            .tableName(type.getName())
+            .openParenthesis()
+            .commaSeparatedAttributes(Arrays.asList(columns))
+            .closeParenthesis()
+            .space()
+            .keyword(VALUES);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                qb.comma();
+            }
+            qb.openParenthesis();
+            for (int j = 0; j < columns.length; j++) {
+                if (j > 0) {
+                    qb.comma();
+                }
+                qb.append("?", false);
+            }
+            qb.closeParenthesis();
+        }
+        return qb.toString();
+    }
+
+    /**
+     * Writes chunks of rows on a single connection, reusing the full size statement between
+     * chunks.
+     */
+    private class Writer implements AutoCloseable {
+
+        private final Connection connection;
+        private final BulkLoadDefinition definition;
+        private final int rowsPerStatement;
+        private final FieldMapping<Object>[] mappings;
+        private final StatementListener listener;
+        private final boolean batch;
+        private PreparedStatement statement;
+        private String sql;
+
+        @SuppressWarnings("unchecked")
+        Writer(Connection connection, BulkLoadDefinition definition, int rowsPerStatement) {
+            this.connection = connection;
+            this.definition = definition;
+            this.rowsPerStatement = rowsPerStatement;
+            MappingPlan plan = MappingPlan.of(configuration);
+            mappings = new FieldMapping[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                mappings[i] = (FieldMapping<Object>) plan.get((Expression) columns[i]);
+            }
+            this.listener = configuration.getStatementListener();
+            this.batch = configuration.supportsBatchUpdates();
+        }
+
+        void write(List<Object[]> rows) throws SQLException {
+            if (definition.write(connection, configuration.getMapping(), type, columns, rows)) {
+                return;
+            }
+            int size = rows.size();
+            int statements = size / rowsPerStatement;
+            if (statements > 0) {
+                if (statement == null) {
+                    sql = createSql(rowsPerStatement);
+                    statement = connection.prepareStatement(sql);
+                }
+                execute(statement, sql, rows, 0, statements);
+            }
+            int remaining = size - statements * rowsPerStatement;
+            if (remaining > 0) {
+                String sql = createSql(remaining);
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    int offset = statements * rowsPerStatement;
+                    bind(statement, rows, offset, remaining);
+                    listener.beforeExecuteBatchUpdate(statement, sql);
+                    int[] result = new int[] { statement.executeUpdate() };
+                    listener.afterExecuteBatchUpdate(statement, result);
+                }
+            }
+        }
+
+        private void execute(PreparedStatement statement, String sql,
+                             List<Object[]> rows, int offset, int statements)
+            throws SQLException {
+            if (batch && statements > 1) {
+                for (int i = 0; i < statements; i++) {
+                    bind(statement, rows, offset + i * rowsPerStatement, rowsPerStatement);
+                    statement.addBatch();
+                }
+                listener.beforeExecuteBatchUpdate(statement, sql);
+                int[] result = statement.executeBatch();
+                listener.afterExecuteBatchUpdate(statement, result);
+            } else {
+                int[] result = new int[1];
+                for (int i = 0; i < statements; i++) {
+                    bind(statement, rows, offset + i * rowsPerStatement, rowsPerStatement);
+                    listener.beforeExecuteBatchUpdate(statement, sql);
+                    result[0] = statement.executeUpdate();
+                    listener.afterExecuteBatchUpdate(statement, result);
+                }
+            }
+        }
+
+        private void bind(PreparedStatement statement, List<Object[]> rows, int offset, int count)
+            throws SQLException {
+            int index = 1;
+            for (int i = offset; i < offset + count; i++) {
+                Object[] row = rows.get(i);
+                for (int j = 0; j < columns.length; j++) {
+                    mappings[j].write(statement, index++, row[j]);
+                }
+            }
+        }
+
+        @Override
+        public void close() throws SQLException {
+            if (statement != null) {
+                statement.close();
+            }
+        }
+    }
+}
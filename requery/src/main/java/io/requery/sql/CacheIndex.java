@@ -0,0 +1,228 @@
+/*
+ * Copyright 2018 requery.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.requery.sql;
+
+import io.requery.meta.Attribute;
+import io.requery.meta.Type;
+import io.requery.proxy.EntityProxy;
+import io.requery.proxy.PropertyState;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Secondary index of the entities of a preloaded type by the value of an indexed attribute. Has
+ * a hash table for equality lookups and a sorted map for range lookups built on first use, both
+ * are updated as entities are put into or removed from the cache.
+ *
+ * @param <E> entity type
+ *
+ * @author Nikhil Purushe
+ */
+class CacheIndex<E> {
+
+    private final Type<E> type;
+    private final Attribute<E, ?> attribute;
+    // indexed value of each entity key, entities with a null value are not indexed
+    private final Map<Object, Object> values;
+    private final Map<Object, Map<Object, E>> entries;
+    private NavigableMap<Object, Map<Object, E>> sorted;
+    private Class<?> valueClass;
+    private boolean indexable;
+
+    private CacheIndex(Type<E> type, Attribute<E, ?> attribute) {
+        this.type = type;
+        this.attribute = attribute;
+        this.values = new HashMap<>();
+        this.entries = new HashMap<>();
+        this.indexable = true;
+    }
+
+    /**
+     * Indexes the given entities by attribute value.
+     *
+     * @param entities entities by key
+     * @return the index, which can't be used if one of the entities can't be indexed, i.e. the
+     * attribute isn't loaded or modified in one of the entities or the values are of different
+     * classes or can't be compared by equals.
+     */
+    static <E> CacheIndex<E> build(Type<E> type, Attribute<E, ?> attribute,
+                                   Map<Object, E> entities) {
+        CacheIndex<E> index = new CacheIndex<>(type, attribute);
+        for (Map.Entry<Object, E> entry : entities.entrySet()) {
+            if (!index.put(entry.getKey(), entry.getValue())) {
+                break;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * @return true if the index can be used
+     */
+    synchronized boolean isIndexable() {
+        return indexable;
+    }
+
+    /**
+     * Adds or moves an entity to the entry of its current value.
+     *
+     * @return false if the entity can't be indexed, after which the index can't be used
+     */
+    synchronized boolean put(Object key, E entity) {
+        remove(key);
+        if (!indexable) {
+            return false;
+        }
+        EntityProxy<E> proxy = type.getProxyProvider().apply(entity);
+        if (proxy.getState(attribute) != PropertyState.LOADED) {
+            indexable = false;
+            return false;
+        }
+        Object value = proxy.get(attribute, false);
+        // null never matches a comparison
+        if (value == null) {
+            return true;
+        }
+        if (valueClass == null) {
+            // equals of these doesn't match the database comparison
+            if (value.getClass().isArray() || value.getClass() == BigDecimal.class) {
+                indexable = false;
+                return false;
+            }
+            valueClass = value.getClass();
+        } else if (valueClass != value.getClass()) {
+            indexable = false;
+            return false;
+        }
+        Map<Object, E> entry = entries.get(value);
+        if (entry == null) {
+            entry = new HashMap<>();
+            entries.put(value, entry);
+            if (sorted != null) {
+                sorted.put(value, entry);
+            }
+        }
+        entry.put(key, entity);
+        values.put(key, value);
+        return true;
+    }
+
+    /**
+     * Removes an entity from the index.
+     */
+    synchronized void remove(Object key) {
+        Object value = values.remove(key);
+        if (value != null) {
+            Map<Object, E> entry = entries.get(value);
+            entry.remove(key);
+            if (entry.isEmpty()) {
+                entries.remove(value);
+                if (sorted != null) {
+                    sorted.remove(value);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the entities with the given value or null if the index can't be used for the value
+     */
+    synchronized Collection<E> equalTo(Object value) {
+        if (!isComparable(value)) {
+            return null;
+        }
+        Map<Object, E> entry = entries.get(value);
+        return entry == null ? Collections.<E>emptyList() : new ArrayList<>(entry.values());
+    }
+
+    /**
+     * @return the entities with one of the given values or null if the index can't be used
+     */
+    synchronized Collection<E> in(Collection<?> values) {
+        Set<Object> distinct = new LinkedHashSet<>();
+        for (Object value : values) {
+            // a null value never matches
+            if (value != null) {
+                if (!isComparable(value)) {
+                    return null;
+                }
+                distinct.add(value);
+            }
+        }
+        List<E> result = new ArrayList<>();
+        for (Object value : distinct) {
+            Map<Object, E> entry = entries.get(value);
+            if (entry != null) {
+                result.addAll(entry.values());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the entities with a value in the given range (a null bound is unbounded) or null if
+     * the index can't be used
+     */
+    synchronized Collection<E> range(Object from, boolean fromInclusive,
+                                     Object to, boolean toInclusive) {
+        if ((from != null && !isComparable(from)) || (to != null && !isComparable(to)) ||
+            (valueClass != null && !Comparable.class.isAssignableFrom(valueClass))) {
+            return null;
+        }
+        NavigableMap<Object, Map<Object, E>> map = sorted();
+        if (from != null && to != null) {
+            @SuppressWarnings("unchecked")
+            Comparable<Object> low = (Comparable<Object>) from;
+            if (low.compareTo(to) > 0) {
+                return Collections.emptyList();
+            }
+            map = map.subMap(from, fromInclusive, to, toInclusive);
+        } else if (from != null) {
+            map = map.tailMap(from, fromInclusive);
+        } else if (to != null) {
+            map = map.headMap(to, toInclusive);
+        }
+        List<E> result = new ArrayList<>();
+        for (Map<Object, E> entry : map.values()) {
+            result.addAll(entry.values());
+        }
+        return result;
+    }
+
+    private boolean isComparable(Object value) {
+        return value != null && (valueClass == null || valueClass == value.getClass());
+    }
+
+    private NavigableMap<Object, Map<Object, E>> sorted() {
+        if (sorted == null) {
+            // kept up to date by put and remove once built
+            sorted = new TreeMap<>(entries);
+        }
+        return sorted;
+    }
+}
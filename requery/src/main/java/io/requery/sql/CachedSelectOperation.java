@@ -0,0 +1,572 @@
+/*
+ * Copyright 2018 requery.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.requery.sql;
+
+import io.requery.meta.Attribute;
+import io.requery.meta.Type;
+import io.requery.proxy.EntityProxy;
+import io.requery.proxy.PropertyState;
+import io.requery.query.Condition;
+import io.requery.query.Expression;
+import io.requery.query.NullOperand;
+import io.requery.query.Order;
+import io.requery.query.OrderingExpression;
+import io.requery.query.Result;
+import io.requery.query.element.LogicalOperator;
+import io.requery.query.element.QueryElement;
+import io.requery.query.element.QueryOperation;
+import io.requery.query.element.QueryType;
+import io.requery.query.element.QueryWrapper;
+import io.requery.query.element.WhereConditionElement;
+import io.requery.util.function.Supplier;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Evaluates entity select queries against the entities in the cache when the type is completely
+ * loaded in a {@link PreloadedEntityCache}, otherwise or if the query can't be evaluated in memory
+ * executes the query in the database.
+ * <p>
+ * Supports queries on a single type with where conditions on basic attributes (=, !=, <, <=, >,
+ * >=, between, in, not in, like, not like, is null, is not null combined with and, or, not) and
+ * order by, limit and offset. To give the same results as the database, string conditions are
+ * only evaluated if the platform compares strings case sensitively, and ordering comparisons only
+ * on numbers, dates and booleans. Conditions on {@link Attribute#isIndexed()} attributes use a
+ * {@link CacheIndex} instead of scanning all the entities. Queries are executed in the database
+ * while a transaction has uncommitted changes of the type, so they aren't seen by other threads.
+ *
+ * @param <E> entity type
+ *
+ * @author Nikhil Purushe
+ */
+class CachedSelectOperation<E> implements QueryOperation<Result<E>> {
+
+    // thrown when the query can't be evaluated against a cached entity
+    private static final class NotEvaluableException extends RuntimeException {
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    private static final NotEvaluableException NOT_EVALUABLE = new NotEvaluableException();
+
+    private final RuntimeConfiguration configuration;
+    private final PreloadedEntityCache cache;
+    private final Type<E> type;
+    private final QueryOperation<Result<E>> operation;
+    private final Map<String, Pattern> patterns;
+
+    CachedSelectOperation(RuntimeConfiguration configuration, PreloadedEntityCache cache,
+                          Type<E> type, QueryOperation<Result<E>> operation) {
+        this.configuration = configuration;
+        this.cache = cache;
+        this.type = type;
+        this.operation = operation;
+        this.patterns = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public Result<E> evaluate(QueryElement<Result<E>> query) {
+        Collection<E> entities = null;
+        if (isEvaluable(query)) {
+            entities = cache.values(type.getClassType());
+            // read the invalidated entities of the type again if there are any
+            if (entities == null && cache.reload(type.getClassType())) {
+                entities = cache.values(type.getClassType());
+            }
+        }
+        if (entities != null) {
+            try {
+                return new CollectionResult<>(select(query, entities), query.getSelection());
+            } catch (NotEvaluableException e) {
+                // execute in the database
+            }
+        }
+        return operation.evaluate(query);
+    }
+
+    private List<E> select(QueryElement<?> query, Collection<E> entities) {
+        Set<WhereConditionElement<?>> where = query.getWhereElements();
+        List<E> result = new ArrayList<>();
+        for (E entity : candidates(where, entities)) {
+            if (matches(where, type.getProxyProvider().apply(entity))) {
+                result.add(entity);
+            }
+        }
+        Set<Expression<?>> orderBy = query.getOrderByExpressions();
+        if (orderBy != null && !orderBy.isEmpty()) {
+            sort(result, orderBy);
+        }
+        int offset = query.getOffset() == null ? 0 : query.getOffset();
+        Integer limit = query.getLimit();
+        if (offset > 0 || limit != null) {
+            int from = Math.min(offset, result.size());
+            int to = limit == null ? result.size() : Math.min(result.size(), from + limit);
+            result = new ArrayList<>(result.subList(from, to));
+        }
+        return result;
+    }
+
+    private boolean isEvaluable(QueryElement<?> query) {
+        if (query.queryType() != QueryType.SELECT ||
+            query.getWhereExistsElement() != null ||
+            query.getInnerSetQuery() != null ||
+            !isEmpty(query.joinElements()) ||
+            !isEmpty(query.getGroupByExpressions()) ||
+            !isEmpty(query.getHavingElements())) {
+            return false;
+        }
+        Set<Expression<?>> from = query.fromExpressions();
+        if (from.size() != 1 || !from.contains(type)) {
+            return false;
+        }
+        Set<WhereConditionElement<?>> where = query.getWhereElements();
+        if (where != null) {
+            for (WhereConditionElement<?> element : where) {
+                if (element.getOperator() == LogicalOperator.NOT ||
+                    !isEvaluable(element.getCondition())) {
+                    return false;
+                }
+            }
+        }
+        Set<Expression<?>> orderBy = query.getOrderByExpressions();
+        if (orderBy != null) {
+            for (Expression<?> expression : orderBy) {
+                if (expression instanceof OrderingExpression) {
+                    expression = ((OrderingExpression<?>) expression).getInnerExpression();
+                }
+                Attribute<E, ?> attribute = attributeOf(expression);
+                if (attribute == null || !isOrderable(attribute)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean isEvaluable(Condition<?, ?> condition) {
+        Object left = condition.getLeftOperand();
+        Object right = condition.getRightOperand();
+        if (left instanceof Condition) {
+            switch (condition.getOperator()) {
+                case AND:
+                case OR:
+                    return right instanceof Condition &&
+                        isEvaluable((Condition<?, ?>) left) &&
+                        isEvaluable((Condition<?, ?>) right);
+                case NOT:
+                    return right instanceof NullOperand && isEvaluable((Condition<?, ?>) left);
+                default:
+                    return false;
+            }
+        }
+        Attribute<E, ?> attribute = attributeOf(left);
+        if (attribute == null) {
+            return false;
+        }
+        switch (condition.getOperator()) {
+            case IS_NULL:
+            case NOT_NULL:
+                return true;
+        }
+        if (isText(attribute) && !configuration.getPlatform().supportsCaseSensitiveComparisons()) {
+            return false;
+        }
+        switch (condition.getOperator()) {
+            case EQUAL:
+            case NOT_EQUAL:
+                return isValue(right);
+            case IN:
+            case NOT_IN:
+                if (!(right instanceof Collection)) {
+                    return false;
+                }
+                for (Object value : (Collection<?>) right) {
+                    if (value != null && !isValue(value)) {
+                        return false;
+                    }
+                }
+                return true;
+            case LESS_THAN:
+            case LESS_THAN_OR_EQUAL:
+            case GREATER_THAN:
+            case GREATER_THAN_OR_EQUAL:
+                return isOrderable(attribute) && isValue(right);
+            case BETWEEN:
+                if (right instanceof Object[]) {
+                    Object[] range = (Object[]) right;
+                    return range.length == 2 && isOrderable(attribute) &&
+                        isValue(range[0]) && isValue(range[1]);
+                }
+                return false;
+            case LIKE:
+            case NOT_LIKE:
+                return right instanceof String && attribute.getConverter() == null;
+            default:
+                return false;
+        }
+    }
+
+    private Attribute<E, ?> attributeOf(Object operand) {
+        if (operand instanceof Attribute) {
+            @SuppressWarnings("unchecked")
+            Attribute<E, ?> attribute = (Attribute<E, ?>) operand;
+            if (type.equals(attribute.getDeclaringType()) && !attribute.isAssociation()) {
+                return attribute;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isValue(Object value) {
+        return value != null &&
+            !(value instanceof Expression) &&
+            !(value instanceof Condition) &&
+            !(value instanceof QueryWrapper) &&
+            !(value instanceof Supplier) &&
+            !(value instanceof Collection) &&
+            !value.getClass().isArray();
+    }
+
+    private static boolean isText(Attribute<?, ?> attribute) {
+        Class<?> type = attribute.getClassType();
+        return CharSequence.class.isAssignableFrom(type) ||
+            type == Character.class || type == char.class;
+    }
+
+    // types ordered the same way in memory and in the database, unlike strings (collations)
+    private static boolean isOrderable(Attribute<?, ?> attribute) {
+        if (attribute.getConverter() != null) {
+            return false;
+        }
+        Class<?> type = attribute.getClassType();
+        if (type.isPrimitive()) {
+            return type != char.class;
+        }
+        return Number.class.isAssignableFrom(type) ||
+            Date.class.isAssignableFrom(type) ||
+            type == Boolean.class ||
+            type.getName().startsWith("java.time.");
+    }
+
+    private static boolean isEmpty(Collection<?> collection) {
+        return collection == null || collection.isEmpty();
+    }
+
+    private Collection<E> candidates(Set<WhereConditionElement<?>> where,
+                                     Collection<E> entities) {
+        if (where == null || where.isEmpty()) {
+            return entities;
+        }
+        for (WhereConditionElement<?> element : where) {
+            if (element.getOperator() == LogicalOperator.OR) {
+                return entities;
+            }
+        }
+        // all conditions must match, use the first one on an indexed attribute
+        for (WhereConditionElement<?> element : where) {
+            Condition<?, ?> condition = element.getCondition();
+            Attribute<E, ?> attribute = attributeOf(condition.getLeftOperand());
+            if (attribute == null || !attribute.isIndexed()) {
+                continue;
+            }
+            CacheIndex<E> index = cache.index(type, attribute);
+            if (index != null) {
+                Collection<E> result = lookup(index, condition);
+                if (result != null) {
+                    return result;
+                }
+            }
+        }
+        return entities;
+    }
+
+    private Collection<E> lookup(CacheIndex<E> index, Condition<?, ?> condition) {
+        Object value = condition.getRightOperand();
+        switch (condition.getOperator()) {
+            case EQUAL:
+                return index.equalTo(value);
+            case IN:
+                return index.in((Collection<?>) value);
+            case LESS_THAN:
+                return index.range(null, false, value, false);
+            case LESS_THAN_OR_EQUAL:
+                return index.range(null, false, value, true);
+            case GREATER_THAN:
+                return index.range(value, false, null, false);
+            case GREATER_THAN_OR_EQUAL:
+                return index.range(value, true, null, false);
+            case BETWEEN:
+                Object[] range = (Object[]) value;
+                return index.range(range[0], true, range[1], true);
+            default:
+                return null;
+        }
+    }
+
+    // where elements are joined with and having precedence over or, same as in SQL
+    private boolean matches(Set<WhereConditionElement<?>> where, EntityProxy<E> proxy) {
+        if (where == null || where.isEmpty()) {
+            return true;
+        }
+        Boolean result = Boolean.FALSE;
+        Boolean term = null;
+        boolean first = true;
+        for (WhereConditionElement<?> element : where) {
+            Boolean value = test(element.getCondition(), proxy);
+            if (first) {
+                term = value;
+                first = false;
+            } else if (element.getOperator() == LogicalOperator.OR) {
+                result = or(result, term);
+                term = value;
+            } else {
+                term = and(term, value);
+            }
+        }
+        return or(result, term) == Boolean.TRUE;
+    }
+
+    /**
+     * @return the result of the condition in three valued logic, null if unknown (a comparison
+     * with null)
+     */
+    private Boolean test(Condition<?, ?> condition, EntityProxy<E> proxy) {
+        Object left = condition.getLeftOperand();
+        Object right = condition.getRightOperand();
+        if (left instanceof Condition) {
+            Boolean value = test((Condition<?, ?>) left, proxy);
+            switch (condition.getOperator()) {
+                case AND:
+                    return value == Boolean.FALSE ?
+                        Boolean.FALSE : and(value, test((Condition<?, ?>) right, proxy));
+                case OR:
+                    return value == Boolean.TRUE ?
+                        Boolean.TRUE : or(value, test((Condition<?, ?>) right, proxy));
+                case NOT:
+                    return value == null ? null : !value;
+                default:
+                    throw NOT_EVALUABLE;
+            }
+        }
+        @SuppressWarnings("unchecked")
+        Attribute<E, ?> attribute = (Attribute<E, ?>) left;
+        Object value = valueOf(proxy, attribute);
+        switch (condition.getOperator()) {
+            case IS_NULL:
+                return value == null;
+            case NOT_NULL:
+                return value != null;
+        }
+        if (value == null) {
+            return null;
+        }
+        switch (condition.getOperator()) {
+            case EQUAL:
+                return isEqual(value, right);
+            case NOT_EQUAL:
+                return !isEqual(value, right);
+            case IN:
+                return in(value, (Collection<?>) right);
+            case NOT_IN:
+                Boolean in = in(value, (Collection<?>) right);
+                return in == null ? null : !in;
+            case LESS_THAN:
+                return compare(value, right) < 0;
+            case LESS_THAN_OR_EQUAL:
+                return compare(value, right) <= 0;
+            case GREATER_THAN:
+                return compare(value, right) > 0;
+            case GREATER_THAN_OR_EQUAL:
+                return compare(value, right) >= 0;
+            case BETWEEN:
+                Object[] range = (Object[]) right;
+                return compare(value, range[0]) >= 0 && compare(value, range[1]) <= 0;
+            case LIKE:
+                return like(value, (String) right);
+            case NOT_LIKE:
+                return !like(value, (String) right);
+            default:
+                throw NOT_EVALUABLE;
+        }
+    }
+
+    private static Boolean and(Boolean a, Boolean b) {
+        if (a == Boolean.FALSE || b == Boolean.FALSE) {
+            return Boolean.FALSE;
+        }
+        return a == null || b == null ? null : Boolean.TRUE;
+    }
+
+    private static Boolean or(Boolean a, Boolean b) {
+        if (a == Boolean.TRUE || b == Boolean.TRUE) {
+            return Boolean.TRUE;
+        }
+        return a == null || b == null ? null : Boolean.FALSE;
+    }
+
+    private Object valueOf(EntityProxy<E> proxy, Attribute<E, ?> attribute) {
+        // not loaded (lazy) or modified and not yet written values are only known by the database
+        if (proxy.getState(attribute) != PropertyState.LOADED) {
+            throw NOT_EVALUABLE;
+        }
+        return proxy.get(attribute, false);
+    }
+
+    private static Boolean in(Object value, Collection<?> values) {
+        boolean containsNull = false;
+        for (Object element : values) {
+            if (element == null) {
+                containsNull = true;
+            } else if (isEqual(value, element)) {
+                return Boolean.TRUE;
+            }
+        }
+        return containsNull ? null : Boolean.FALSE;
+    }
+
+    private static boolean isEqual(Object a, Object b) {
+        if (a instanceof Number && b instanceof Number) {
+            return compareNumbers((Number) a, (Number) b) == 0;
+        } else if (a instanceof Date && b instanceof Date) {
+            return ((Date) a).compareTo((Date) b) == 0;
+        } else if (a.getClass() == b.getClass() && !a.getClass().isArray()) {
+            return a.equals(b);
+        }
+        throw NOT_EVALUABLE;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compare(Object a, Object b) {
+        if (a instanceof Number && b instanceof Number) {
+            return compareNumbers((Number) a, (Number) b);
+        } else if (a instanceof Date && b instanceof Date) {
+            return ((Date) a).compareTo((Date) b);
+        } else if (a.getClass() == b.getClass() && a instanceof Comparable) {
+            return ((Comparable<Object>) a).compareTo(b);
+        }
+        throw NOT_EVALUABLE;
+    }
+
+    private static int compareNumbers(Number a, Number b) {
+        if (isIntegral(a) && isIntegral(b)) {
+            long x = a.longValue();
+            long y = b.longValue();
+            return x < y ? -1 : (x == y ? 0 : 1);
+        } else if (a instanceof BigDecimal || b instanceof BigDecimal ||
+                   a instanceof BigInteger || b instanceof BigInteger) {
+            try {
+                return new BigDecimal(a.toString()).compareTo(new BigDecimal(b.toString()));
+            } catch (NumberFormatException e) {
+                throw NOT_EVALUABLE;
+            }
+        }
+        return Double.compare(a.doubleValue(), b.doubleValue());
+    }
+
+    private static boolean isIntegral(Number number) {
+        return number instanceof Integer || number instanceof Long ||
+            number instanceof Short || number instanceof Byte;
+    }
+
+    private boolean like(Object value, String pattern) {
+        if (!(value instanceof String)) {
+            throw NOT_EVALUABLE;
+        }
+        Pattern compiled = patterns.get(pattern);
+        if (compiled == null) {
+            StringBuilder regex = new StringBuilder();
+            StringBuilder literal = new StringBuilder();
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                if (c == '%' || c == '_') {
+                    if (literal.length() > 0) {
+                        regex.append(Pattern.quote(literal.toString()));
+                        literal.setLength(0);
+                    }
+                    regex.append(c == '%' ? ".*" : ".");
+                } else {
+                    literal.append(c);
+                }
+            }
+            if (literal.length() > 0) {
+                regex.append(Pattern.quote(literal.toString()));
+            }
+            compiled = Pattern.compile(regex.toString(), Pattern.DOTALL);
+            patterns.put(pattern, compiled);
+        }
+        return compiled.matcher((String) value).matches();
+    }
+
+    private void sort(List<E> list, Set<Expression<?>> orderBy) {
+        final List<Attribute<E, ?>> attributes = new ArrayList<>(orderBy.size());
+        final List<OrderingExpression<?>> orderings = new ArrayList<>(orderBy.size());
+        for (Expression<?> expression : orderBy) {
+            OrderingExpression<?> ordering = null;
+            if (expression instanceof OrderingExpression) {
+                ordering = (OrderingExpression<?>) expression;
+                expression = ordering.getInnerExpression();
+            }
+            attributes.add(attributeOf(expression));
+            orderings.add(ordering);
+        }
+        Collections.sort(list, new Comparator<E>() {
+            @Override
+            public int compare(E a, E b) {
+                EntityProxy<E> x = type.getProxyProvider().apply(a);
+                EntityProxy<E> y = type.getProxyProvider().apply(b);
+                for (int i = 0; i < attributes.size(); i++) {
+                    int result = compareValues(valueOf(x, attributes.get(i)),
+                        valueOf(y, attributes.get(i)), orderings.get(i));
+                    if (result != 0) {
+                        return result;
+                    }
+                }
+                return 0;
+            }
+        });
+    }
+
+    private static int compareValues(Object a, Object b, OrderingExpression<?> ordering) {
+        if (a == null || b == null) {
+            if (a == b) {
+                return 0;
+            }
+            // the position of nulls depends on the database unless specified
+            if (ordering == null || ordering.getNullOrder() == null) {
+                throw NOT_EVALUABLE;
+            }
+            boolean nullsFirst = ordering.getNullOrder() == OrderingExpression.NullOrder.FIRST;
+            return (a == null) == nullsFirst ? -1 : 1;
+        }
+        int result = compare(a, b);
+        return ordering != null && ordering.getOrder() == Order.DESC ? -result : result;
+    }
+}
@@ -17,11 +17,13 @@
 package io.requery.sql;
 
 import io.requery.query.BaseResult;
+import io.requery.query.Expression;
 import io.requery.util.CloseableIterator;
 
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.Set;
 
 /**
  * A {@link io.requery.query.Result} that wraps a collection.
@@ -31,6 +33,7 @@ import java.util.Iterator;
 public class CollectionResult<E> extends BaseResult<E> {
 
     private Collection<E> elements;
+    private Set<? extends Expression<?>> selection;
 
     /**
      * Creates an empty result
@@ -54,6 +57,20 @@ public class CollectionResult<E> extends BaseResult<E> {
         this.elements = collection;
     }
 
+    /**
+     * Creates a result from a collection instance holding the results of a query with the given
+     * selection.
+     */
+    public CollectionResult(Collection<E> collection, Set<? extends Expression<?>> selection) {
+        this(collection);
+        this.selection = selection;
+    }
+
+    @Override
+    protected Set<? extends Expression<?>> selection() {
+        return selection;
+    }
+
     @Override
     public CloseableIterator<E> createIterator(int skip, int take) {
         final Iterator<E> iterator = elements.iterator();
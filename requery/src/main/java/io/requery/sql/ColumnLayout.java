@@ -0,0 +1,139 @@
+/*
+ * Copyright 2018 requery.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.requery.sql;
+
+import io.requery.meta.Attribute;
+import io.requery.meta.Type;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Column positions of the attributes of an entity type in a result. Computed once per query,
+ * either from the order of the selection or from the {@link ResultSetMetaData} of a raw query, so
+ * that rows can be read without looking up columns by name.
+ *
+ * @param <E> entity type
+ *
+ * @author Nikhil Purushe
+ */
+final class ColumnLayout<E> {
+
+    private final Attribute<E, ?>[] attributes;
+    private final int[] columns;
+    private final int[] keyColumns;
+
+    private ColumnLayout(Type<E> type, List<Attribute<E, ?>> attributes, List<Integer> columns) {
+        this.attributes = attributes.toArray(Attributes.<E>newArray(attributes.size()));
+        this.columns = new int[columns.size()];
+        for (int i = 0; i < this.columns.length; i++) {
+            this.columns[i] = columns.get(i);
+        }
+        // key columns in the order of Type#getKeyAttributes, 0 if not in the result
+        keyColumns = new int[type.getKeyAttributes().size()];
+        int index = 0;
+        for (Attribute<E, ?> key : type.getKeyAttributes()) {
+            int position = attributes.indexOf(key);
+            keyColumns[index++] = position < 0 ? 0 : this.columns[position];
+        }
+    }
+
+    /**
+     * Creates a layout where the selected attributes are in consecutive columns starting at 1,
+     * associations not stored in the type's table are not part of the result.
+     *
+     * @param type      entity type
+     * @param selection selected attributes in column order
+     * @param <E>       entity type
+     * @return layout for the selection
+     */
+    @SuppressWarnings("unchecked")
+    static <E> ColumnLayout<E> of(Type<E> type, Attribute[] selection) {
+        List<Attribute<E, ?>> attributes = new ArrayList<>(selection.length);
+        List<Integer> columns = new ArrayList<>(selection.length);
+        int index = 1;
+        for (Attribute attribute : selection) {
+            boolean isKey = attribute.isForeignKey() || attribute.isKey();
+            if (attribute.isAssociation() && !isKey) {
+                continue;
+            }
+            attributes.add((Attribute<E, ?>) attribute);
+            columns.add(index++);
+        }
+        return new ColumnLayout<>(type, attributes, columns);
+    }
+
+    /**
+     * Creates a layout by matching the column names of a result to the attribute names of the
+     * type, columns not matching any attribute are ignored.
+     *
+     * @param type     entity type
+     * @param metadata result metadata
+     * @param <E>      entity type
+     * @return layout for the result
+     * @throws SQLException on a failure reading the metadata
+     */
+    static <E> ColumnLayout<E> of(Type<E> type, ResultSetMetaData metadata) throws SQLException {
+        // map of entity column names to attributes
+        Map<String, Attribute<E, ?>> map = new HashMap<>();
+        for (Attribute<E, ?> attribute : type.getAttributes()) {
+            boolean isKey = attribute.isForeignKey() || attribute.isKey();
+            if (!attribute.isAssociation() || isKey) {
+                map.put(attribute.getName().toLowerCase(Locale.ROOT), attribute);
+            }
+        }
+        List<Attribute<E, ?>> attributes = new ArrayList<>();
+        List<Integer> columns = new ArrayList<>();
+        for (int i = 1; i <= metadata.getColumnCount(); i++) {
+            String name = metadata.getColumnName(i);
+            Attribute<E, ?> attribute = map.remove(name.toLowerCase(Locale.ROOT));
+            if (attribute != null) {
+                attributes.add(attribute);
+                columns.add(i);
+            }
+        }
+        return new ColumnLayout<>(type, attributes, columns);
+    }
+
+    Attribute<E, ?>[] attributes() {
+        return attributes;
+    }
+
+    int[] columns() {
+        return columns;
+    }
+
+    /**
+     * Gets the column index of a key attribute.
+     *
+     * @param keyIndex  index of the key in {@link Type#getKeyAttributes()}
+     * @param key       the key attribute
+     * @param results   result being read, only used if the key column was not selected
+     * @return column index of the key
+     * @throws SQLException if the key column is not part of the result
+     */
+    int keyColumn(int keyIndex, Attribute<E, ?> key, ResultSet results) throws SQLException {
+        int column = keyColumns[keyIndex];
+        return column > 0 ? column : results.findColumn(key.getName());
+    }
+}
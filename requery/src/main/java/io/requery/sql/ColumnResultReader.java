@@ -0,0 +1,179 @@
+/*
+ * Copyright 2018 requery.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.requery.sql;
+
+import io.requery.meta.Attribute;
+import io.requery.query.Aliasable;
+import io.requery.query.Column;
+import io.requery.query.Columns;
+import io.requery.query.DoubleColumn;
+import io.requery.query.Expression;
+import io.requery.query.ExpressionType;
+import io.requery.query.IntColumn;
+import io.requery.query.LongColumn;
+import io.requery.query.ObjectColumn;
+import io.requery.query.StringColumn;
+import io.requery.query.TupleSchema;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Set;
+
+/**
+ * Reads every row of a result into a set of {@link Column} vectors instead of creating an
+ * element per row. Numeric columns are read with the primitive methods of {@link Mapping}.
+ *
+ * @author Nikhil Purushe
+ */
+class ColumnResultReader implements ResultReader<Object> {
+
+    enum Kind {
+        LONG,
+        INT,
+        DOUBLE,
+        STRING,
+        OBJECT
+    }
+
+    private final Mapping mapping;
+    private final Expression<?>[] expressions;
+    private final Kind[] kinds;
+    private final FieldMapping[] mappings;
+    private final Column[] columns;
+
+    ColumnResultReader(RuntimeConfiguration configuration,
+                       Set<? extends Expression<?>> selection) {
+        this.mapping = configuration.getMapping();
+        MappingPlan plan = MappingPlan.of(configuration);
+        expressions = selection.toArray(new Expression<?>[selection.size()]);
+        kinds = new Kind[expressions.length];
+        mappings = new FieldMapping[expressions.length];
+        columns = new Column[expressions.length];
+        for (int i = 0; i < expressions.length; i++) {
+            Expression<?> expression = expressions[i];
+            String name = nameOf(expression);
+            kinds[i] = kindOf(expression);
+            switch (kinds[i]) {
+                case LONG:
+                    columns[i] = new LongColumn(name);
+                    break;
+                case INT:
+                    columns[i] = new IntColumn(name);
+                    break;
+                case DOUBLE:
+                    columns[i] = new DoubleColumn(name);
+                    break;
+                case STRING:
+                    columns[i] = new StringColumn(name);
+                    break;
+                default:
+                    columns[i] = new ObjectColumn<>(name);
+                    break;
+            }
+            mappings[i] = plan.get(expression);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Object read(ResultSet results, Set<? extends Expression<?>> selection)
+        throws SQLException {
+        for (int i = 0; i < expressions.length; i++) {
+            int column = i + 1;
+            switch (kinds[i]) {
+                case LONG: {
+                    long value = mapping.readLong(results, column);
+                    if (results.wasNull()) {
+                        columns[i].addNull();
+                    } else {
+                        ((LongColumn) columns[i]).add(value);
+                    }
+                    break;
+                }
+                case INT: {
+                    int value = mapping.readInt(results, column);
+                    if (results.wasNull()) {
+                        columns[i].addNull();
+                    } else {
+                        ((IntColumn) columns[i]).add(value);
+                    }
+                    break;
+                }
+                case DOUBLE: {
+                    double value = mapping.readDouble(results, column);
+                    if (results.wasNull()) {
+                        columns[i].addNull();
+                    } else {
+                        ((DoubleColumn) columns[i]).add(value);
+                    }
+                    break;
+                }
+                case STRING:
+                    ((StringColumn) columns[i]).add((String) mappings[i].read(results, column));
+                    break;
+                default:
+                    ((ObjectColumn) columns[i]).add(mappings[i].read(results, column));
+                    break;
+            }
+        }
+        // rows are accumulated in the columns
+        return null;
+    }
+
+    Columns getColumns() {
+        return new Columns(new TupleSchema(expressions), columns);
+    }
+
+    static Kind kindOf(Expression<?> expression) {
+        Expression<?> inner = expression;
+        if (inner.getExpressionType() == ExpressionType.ALIAS) {
+            inner = inner.getInnerExpression();
+        }
+        if (inner.getExpressionType() == ExpressionType.ATTRIBUTE) {
+            Attribute<?, ?> attribute = (Attribute<?, ?>) inner;
+            if (attribute.getConverter() != null || attribute.isAssociation()) {
+                return Kind.OBJECT;
+            }
+        }
+        Class<?> type = expression.getClassType();
+        if (type == null) {
+            return Kind.OBJECT;
+        } else if (type == long.class || type == Long.class) {
+            return Kind.LONG;
+        } else if (type == int.class || type == Integer.class ||
+            type == short.class || type == Short.class ||
+            type == byte.class || type == Byte.class) {
+            return Kind.INT;
+        } else if (type == double.class || type == Double.class ||
+            type == float.class || type == Float.class) {
+            return Kind.DOUBLE;
+        } else if (type == String.class) {
+            return Kind.STRING;
+        }
+        return Kind.OBJECT;
+    }
+
+    static String nameOf(Expression<?> expression) {
+        if (expression instanceof Aliasable) {
+            String alias = ((Aliasable) expression).getAlias();
+            if (alias != null) {
+                return alias;
+            }
+        }
+        return expression.getName();
+    }
+}
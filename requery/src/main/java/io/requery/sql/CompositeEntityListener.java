@@ -26,9 +26,14 @@ import io.requery.proxy.PreDeleteListener;
 import io.requery.proxy.PreUpdateListener;
 import io.requery.proxy.EntityProxy;
 
+import java.util.ArrayList;
+import java.util.List;
+
 class CompositeEntityListener<T> extends EntityStateEventListeners<T> {
 
     private boolean enableStateListeners;
+    // post insert/update events of writes on this thread that may still be rolled back
+    private final ThreadLocal<List<PostEvent<T>>> deferred = new ThreadLocal<>();
 
     void enableStateListeners(boolean enabled) {
         this.enableStateListeners = enabled;
@@ -45,7 +50,64 @@ class CompositeEntityListener<T> extends EntityStateEventListeners<T> {
         }
     }
 
+    /**
+     * Records the post insert and update events on the current thread instead of notifying the
+     * listeners until {@link #endDeferring(boolean)} is called.
+     */
+    void beginDeferring() {
+        deferred.set(new ArrayList<PostEvent<T>>());
+    }
+
+    /**
+     * @return number of events recorded so far, used to discard the events of rolled back writes
+     */
+    int deferredCount() {
+        List<PostEvent<T>> events = deferred.get();
+        return events == null ? 0 : events.size();
+    }
+
+    /**
+     * Drops the events recorded after the given count, e.g. the writes were rolled back to a
+     * savepoint.
+     */
+    void discardDeferred(int count) {
+        List<PostEvent<T>> events = deferred.get();
+        if (events != null) {
+            events.subList(count, events.size()).clear();
+        }
+    }
+
+    /**
+     * Stops recording events and notifies the listeners of the recorded events if the writes
+     * were committed.
+     */
+    void endDeferring(boolean notify) {
+        List<PostEvent<T>> events = deferred.get();
+        deferred.remove();
+        if (notify && events != null) {
+            for (PostEvent<T> event : events) {
+                if (event.insert) {
+                    postInsert(event.entity, event.proxy);
+                } else {
+                    postUpdate(event.entity, event.proxy);
+                }
+            }
+        }
+    }
+
+    private boolean defer(boolean insert, T entity, EntityProxy<? extends T> proxy) {
+        List<PostEvent<T>> events = deferred.get();
+        if (events == null) {
+            return false;
+        }
+        events.add(new PostEvent<>(insert, entity, proxy));
+        return true;
+    }
+
     void postUpdate(T entity, EntityProxy<? extends T> proxy) {
+        if (defer(false, entity, proxy)) {
+            return;
+        }
         if (enableStateListeners) {
             for (PostUpdateListener<T> listener : postUpdateListeners) {
                 listener.postUpdate(entity);
@@ -68,6 +130,9 @@ class CompositeEntityListener<T> extends EntityStateEventListeners<T> {
     }
 
     void postInsert(T entity, EntityProxy<? extends T> proxy) {
+        if (defer(true, entity, proxy)) {
+            return;
+        }
         if (enableStateListeners) {
             for (PostInsertListener<T> listener : postInsertListeners) {
                 listener.postInsert(entity);
@@ -110,4 +175,17 @@ class CompositeEntityListener<T> extends EntityStateEventListeners<T> {
             proxy.postLoad();
         }
     }
+
+    private static final class PostEvent<T> {
+
+        private final boolean insert;
+        private final T entity;
+        private final EntityProxy<? extends T> proxy;
+
+        PostEvent(boolean insert, T entity, EntityProxy<? extends T> proxy) {
+            this.insert = insert;
+            this.entity = entity;
+            this.proxy = proxy;
+        }
+    }
 }
@@ -127,4 +127,23 @@ public interface Configuration {
      * @return for asynchronous operations the {@link Executor} that is used to perform the write.
      */
     Executor getWriteExecutor();
+
+    /**
+     * @return optional {@link KeyAllocator} assigning generated keys before they are inserted, if
+     * null generated keys are assigned by the database.
+     */
+    KeyAllocator getKeyAllocator();
+
+    /**
+     * @return how cached entities are invalidated by query based updates and deletes, defaults to
+     * {@link QueryCacheInvalidation#TYPE}
+     */
+    QueryCacheInvalidation getQueryCacheInvalidation();
+
+    /**
+     * @return true if the keys of loaded one to many and many to many associations are cached so
+     * that the association can be rebuilt from the entity cache without a query. Associations are
+     * cached when they are loaded outside of a transaction, an explicit refresh always queries.
+     */
+    boolean getCacheAssociations();
 }
@@ -59,6 +59,9 @@ public class ConfigurationBuilder {
     private Function<String, String> tableTransformer;
     private Function<String, String> columnTransformer;
     private Executor writeExecutor;
+    private KeyAllocator keyAllocator;
+    private QueryCacheInvalidation queryCacheInvalidation;
+    private boolean cacheAssociations;
 
     public ConfigurationBuilder(ConnectionProvider connectionProvider, EntityModel model) {
         this.connectionProvider = Objects.requireNotNull(connectionProvider);
@@ -72,6 +75,7 @@ public class ConfigurationBuilder {
         setStatementCacheSize(0);
         setBatchUpdateSize(64);
         setTransactionMode(TransactionMode.AUTO);
+        setQueryCacheInvalidation(QueryCacheInvalidation.TYPE);
         setTransactionIsolation(null);
         setTableTransformer(null);
         setColumnTransformer(null);
@@ -147,6 +151,21 @@ public class ConfigurationBuilder {
         return this;
     }
 
+    public ConfigurationBuilder setKeyAllocator(KeyAllocator keyAllocator) {
+        this.keyAllocator = keyAllocator;
+        return this;
+    }
+
+    public ConfigurationBuilder setQueryCacheInvalidation(QueryCacheInvalidation invalidation) {
+        this.queryCacheInvalidation = Objects.requireNotNull(invalidation);
+        return this;
+    }
+
+    public ConfigurationBuilder setCacheAssociations(boolean cache) {
+        this.cacheAssociations = cache;
+        return this;
+    }
+
     public ConfigurationBuilder addStatementListener(StatementListener listener) {
         this.statementListeners.add(Objects.requireNotNull(listener));
         return this;
@@ -198,6 +217,9 @@ public class ConfigurationBuilder {
             transactionMode,
             transactionIsolation,
             transactionListenerFactory,
-            writeExecutor);
+            writeExecutor,
+            keyAllocator,
+            queryCacheInvalidation,
+            cacheAssociations);
     }
 }
@@ -141,6 +141,7 @@ class ConnectionTransaction implements EntityTransaction, ConnectionProvider {
                 connection.commit();
                 committed = true;
             }
+            entities.complete();
             transactionListener.afterCommit(entities.types());
             entities.clear();
         } catch (SQLException e) {
@@ -160,6 +161,7 @@ class ConnectionTransaction implements EntityTransaction, ConnectionProvider {
                 rolledBack = true;
                 entities.clearAndInvalidate();
             }
+            entities.complete();
             transactionListener.afterRollback(entities.types());
             entities.clear();
         } catch (SQLException e) {
@@ -188,6 +190,24 @@ class ConnectionTransaction implements EntityTransaction, ConnectionProvider {
         entities.types().addAll(types);
     }
 
+    @Override
+    public void addCompletionAction(Runnable action) {
+        entities.addCompletionAction(action);
+    }
+
+    @Override
+    public void beginUnitOfWork() {
+        if (!active()) {
+            throw new IllegalStateException("no active transaction");
+        }
+        entities.beginUnitOfWork();
+    }
+
+    @Override
+    public UnitOfWork unitOfWork() {
+        return entities.unitOfWork();
+    }
+
     private void resetConnection() {
         if (supportsTransaction) {
             try {
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2018 requery.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.requery.sql;
+
+import io.requery.PersistenceException;
+import io.requery.query.BaseResult;
+import io.requery.query.Expression;
+import io.requery.util.CloseableIterator;
+
+import java.sql.SQLException;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Result over rows that have already been read from the database into a {@link RowBuffer}. The
+ * statement and connection are closed before this result is created, elements are decoded from
+ * the buffered values as they are iterated. Closing the result releases the buffer.
+ *
+ * @param <E> type of element
+ *
+ * @author Nikhil Purushe
+ */
+class DetachedResult<E> extends BaseResult<E> {
+
+    private final ResultReader<E> reader;
+    private final Set<? extends Expression<?>> selection;
+    private final RowBuffer buffer;
+    private final BufferedRow.Reader rowReader;
+
+    DetachedResult(ResultReader<E> reader,
+                   Set<? extends Expression<?>> selection,
+                   RowBuffer buffer,
+                   BufferedRow.Reader rowReader) {
+        super(buffer.size());
+        this.reader = reader;
+        this.selection = selection;
+        this.buffer = buffer;
+        this.rowReader = rowReader;
+    }
+
+    @Override
+    protected CloseableIterator<E> createIterator(int skip, final int take) {
+        final CloseableIterator<Object[]> rows = buffer.iterator();
+        for (int i = 0; i < skip && rows.hasNext(); i++) {
+            rows.next();
+        }
+        final BufferedRow row = rowReader.newRow();
+        return new CloseableIterator<E>() {
+            private int count;
+
+            @Override
+            public boolean hasNext() {
+                return count < take && rows.hasNext();
+            }
+
+            @Override
+            public E next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                try {
+                    E element = reader.read(row.move(rows.next()), selection);
+                    count++;
+                    return element;
+                } catch (SQLException e) {
+                    throw new PersistenceException(e);
+                }
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void close() {
+                rows.close();
+            }
+        };
+    }
+
+    @Override
+    protected Set<? extends Expression<?>> selection() {
+        return selection;
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        buffer.close();
+    }
+}
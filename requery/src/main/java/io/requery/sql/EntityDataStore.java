@@ -19,6 +19,7 @@ package io.requery.sql;
 import io.requery.BlockingEntityStore;
 import io.requery.EntityCache;
 import io.requery.PersistenceException;
+import io.requery.Queryable;
 import io.requery.ReadOnlyException;
 import io.requery.RollbackException;
 import io.requery.Transaction;
@@ -42,11 +43,12 @@ import io.requery.query.Selection;
 import io.requery.query.Tuple;
 import io.requery.query.Update;
 import io.requery.query.element.QueryElement;
+import io.requery.query.element.QueryOperation;
 import io.requery.query.function.Count;
 import io.requery.sql.gen.Generator;
 import io.requery.sql.gen.StatementGenerator;
 import io.requery.sql.platform.PlatformDelegate;
-import io.requery.util.ClassMap;
+import io.requery.util.CloseableIterator;
 import io.requery.util.Objects;
 import io.requery.util.function.Supplier;
 
@@ -56,13 +58,18 @@ import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static io.requery.query.element.QueryType.DELETE;
@@ -83,10 +90,9 @@ import static io.requery.query.element.QueryType.UPDATE;
 public class EntityDataStore<T> implements BlockingEntityStore<T> {
 
     private final EntityModel entityModel;
-    private final EntityCache entityCache;
+    private final PreloadedEntityCache entityCache;
+    private final AssociationCache associationCache;
     private final ConnectionProvider connectionProvider;
-    private final ClassMap<EntityReader<?, ?>> readers;
-    private final ClassMap<EntityWriter<?, ?>> writers;
     private final CompositeEntityListener<T> stateListeners;
     private final CompositeStatementListener statementListeners;
     private final UpdateOperation updateOperation;
@@ -96,12 +102,16 @@ public class EntityDataStore<T> implements BlockingEntityStore<T> {
     private final AtomicBoolean closed;
     private final DataContext context;
     private final Mapping mapping;
+    private final Object platformLock;
+    private final Object accessorLock;
     private TransactionMode transactionMode;
     private PreparedStatementCache statementCache;
     private QueryBuilder.Options queryOptions;
-    private Platform platform;
-    private Generator<QueryElement<?>> statementGenerator;
-    private boolean metadataChecked;
+    private MappingPlan mappingPlan;
+    private volatile Platform platform;
+    private volatile Generator<QueryElement<?>> statementGenerator;
+    private volatile boolean metadataChecked;
+    private volatile EntityAccessors<T> accessors;
     private boolean supportsBatchUpdates;
 
     /**
@@ -136,8 +146,8 @@ public class EntityDataStore<T> implements BlockingEntityStore<T> {
      */
     public EntityDataStore(Configuration configuration) {
         closed = new AtomicBoolean();
-        readers = new ClassMap<>();
-        writers = new ClassMap<>();
+        platformLock = new Object();
+        accessorLock = new Object();
         entityModel = Objects.requireNotNull(configuration.getModel());
         connectionProvider = Objects.requireNotNull(configuration.getConnectionProvider());
         mapping = configuration.getMapping() == null? new GenericMapping() : configuration.getMapping();
@@ -147,8 +157,6 @@ public class EntityDataStore<T> implements BlockingEntityStore<T> {
         statementListeners = new CompositeStatementListener(configuration.getStatementListeners());
         stateListeners = new CompositeEntityListener<>();
 
-        entityCache = configuration.getCache() == null ?
-                new EmptyEntityCache() : configuration.getCache();
         int statementCacheSize = configuration.getStatementCacheSize();
         if (statementCacheSize > 0) {
             statementCache = new PreparedStatementCache(statementCacheSize);
@@ -159,6 +167,20 @@ public class EntityDataStore<T> implements BlockingEntityStore<T> {
         }
         context = new DataContext();
         transactionProvider = new TransactionProvider(context);
+        entityCache = new PreloadedEntityCache(configuration.getCache() == null ?
+                new EmptyEntityCache() : configuration.getCache(),
+            new PreloadedEntityCache.Loader() {
+                @Override
+                public void load(Class<?> type, Set<Object> keys) {
+                    @SuppressWarnings("unchecked")
+                    Type<T> entityType = (Type<T>) entityModel.typeOf(type);
+                    for (Object key : keys) {
+                        selectByKey(entityType.getClassType(), entityType, key);
+                    }
+                }
+            }, transactionProvider);
+        associationCache = configuration.getCacheAssociations() ?
+                new AssociationCache(entityModel, entityCache, transactionProvider) : null;
         updateOperation = new UpdateOperation(context);
         countOperation = new SelectCountOperation(context);
         Set<EntityStateListener<T>> entityListeners = new LinkedHashSet<>();
@@ -195,6 +217,10 @@ public class EntityDataStore<T> implements BlockingEntityStore<T> {
 
     @Override
     public <K, E extends T> K insert(E entity, @Nullable Class<K> keyClass) {
+        if (keyClass == null && defer(entity, UnitOfWork.Operation.INSERT)) {
+            return null;
+        }
+        flushUnitOfWork();
         try (TransactionScope transaction = new TransactionScope(transactionProvider)) {
             EntityProxy<E> proxy = context.proxyOf(entity, true);
             synchronized (proxy.syncObject()) {
@@ -221,6 +247,13 @@ public class EntityDataStore<T> implements BlockingEntityStore<T> {
 
     @Override
     public <K, E extends T> Iterable<K> insert(Iterable<E> entities, @Nullable Class<K> keyClass) {
+        if (keyClass == null && inUnitOfWork()) {
+            for (E entity : entities) {
+                defer(entity, UnitOfWork.Operation.INSERT);
+            }
+            return null;
+        }
+        flushUnitOfWork();
         Iterator<E> iterator = entities.iterator();
         if (iterator.hasNext()) {
             try (TransactionScope transaction = new TransactionScope(transactionProvider)) {
@@ -239,6 +272,9 @@ public class EntityDataStore<T> implements BlockingEntityStore<T> {
 
     @Override
     public <E extends T> E update(E entity) {
+        if (defer(entity, UnitOfWork.Operation.UPDATE)) {
+            return entity;
+        }
         try (TransactionScope transaction = new TransactionScope(transactionProvider)) {
             EntityProxy<E> proxy = context.proxyOf(entity, true);
             synchronized (proxy.syncObject()) {
@@ -252,6 +288,7 @@ public class EntityDataStore<T> implements BlockingEntityStore<T> {
     @SuppressWarnings("unchecked")
     @Override
     public <E extends T> E update(E entity, Attribute<?, ?>... attributes) {
+        flushUnitOfWork();
         try (TransactionScope transaction = new TransactionScope(transactionProvider)) {
             EntityProxy<E> proxy = context.proxyOf(entity, true);
             synchronized (proxy.syncObject()) {
@@ -276,6 +313,7 @@ public class EntityDataStore<T> implements BlockingEntityStore<T> {
 
     @Override
     public <E extends T> E upsert(E entity) {
+        flushUnitOfWork();
         try (TransactionScope transaction = new TransactionScope(transactionProvider)) {
             EntityProxy<E> proxy = context.proxyOf(entity, true);
             synchronized (proxy.syncObject()) {
@@ -339,6 +377,9 @@ public class EntityDataStore<T> implements BlockingEntityStore<T> {
 
     @Override
     public <E extends T> Void delete(E entity) {
+        if (defer(entity, UnitOfWork.Operation.DELETE)) {
+            return null;
+        }
         try (TransactionScope transaction = new TransactionScope(transactionProvider)) {
             EntityProxy<E> proxy = context.proxyOf(entity, true);
             synchronized (proxy.syncObject()) {
@@ -357,6 +398,12 @@ public class EntityDataStore<T> implements BlockingEntityStore<T> {
             Result<E> result = (Result<E>) entities;
             entities = result.toList();
         }
+        if (inUnitOfWork()) {
+            for (E entity : entities) {
+                defer(entity, UnitOfWork.Operation.DELETE);
+            }
+            return null;
+        }
         Iterator<E> iterator = entities.iterator();
         if (iterator.hasNext()) {
             try (TransactionScope transaction = new TransactionScope(transactionProvider)) {
@@ -374,11 +421,23 @@ public class EntityDataStore<T> implements BlockingEntityStore<T> {
     public <E extends T, K> E findByKey(Class<E> type, K key) {
         Type<E> entityType = entityModel.typeOf(type);
         if (entityType.isCacheable() && entityCache != null) {
+            if (entityType.isPreloaded()) {
+                Class<E> classType = entityType.getClassType();
+                if (entityCache.isComplete(classType) || entityCache.reload(classType) ||
+                    (!entityCache.isPreloaded(classType) && preload(entityType))) {
+                    // all entities are cached, a missing key doesn't exist
+                    return entityCache.get(classType, key);
+                }
+            }
             E entity = entityCache.get(type, key);
             if (entity != null) {
                 return entity;
             }
         }
+        return selectByKey(type, entityType, key);
+    }
+
+    private <E extends T> E selectByKey(Class<E> type, Type<E> entityType, Object key) {
         Set<Attribute<E, ?>> keys = entityType.getKeyAttributes();
         if (keys.isEmpty()) {
             throw new MissingKeyException();
@@ -412,6 +471,9 @@ public class EntityDataStore<T> implements BlockingEntityStore<T> {
     public void close() {
         if (closed.compareAndSet(false, true)) {
             entityCache.clear();
+            if (associationCache != null) {
+                associationCache.clear();
+            }
             if (statementCache != null) {
                 statementCache.close();
             }
@@ -458,7 +520,11 @@ public class EntityDataStore<T> implements BlockingEntityStore<T> {
             selection = new LinkedHashSet<>(Arrays.<Expression<?>>asList(attributes));
             resultReader = reader.newResultReader(attributes);
         }
-        SelectOperation<E> select = new SelectOperation<>(context, resultReader);
+        QueryOperation<Result<E>> select = new SelectOperation<>(context, resultReader);
+        Type<E> entityType = entityModel.typeOf(type);
+        if (attributes.length == 0 && entityType.isCacheable() && !entityType.isStateless()) {
+            select = new CachedSelectOperation<>(context, entityCache, entityType, select);
+        }
         QueryElement<? extends Result<E>> query = new QueryElement<>(SELECT, entityModel, select);
         return query.select(selection).from(type);
     }
@@ -537,6 +603,87 @@ public class EntityDataStore<T> implements BlockingEntityStore<T> {
         return new RawEntityQuery<>(context, type, query, parameters).get();
     }
 
+    /**
+     * Creates a {@link BulkLoader} for loading a large number of entities of the given type.
+     * Loaded entities bypass the entity cache, state listeners and transaction tracking.
+     *
+     * @param type entity class
+     * @param <E>  entity type
+     * @return a new bulk loader for the type
+     */
+    public <E extends T> BulkLoader<E> bulkLoader(Class<E> type) {
+        checkClosed();
+        return new BulkLoader<>(context, entityModel.typeOf(type));
+    }
+
+    /**
+     * Loads all the entities of the given types into the entity cache, with one query per type.
+     * Until one of its entities is invalidated a loaded type is complete, and
+     * {@link #findByKey(Class, Object)} returns from the cache without querying the database even
+     * for keys that don't exist. May be called concurrently from different threads to load types
+     * in parallel.
+     *
+     * @param types entity classes to load, if none are given the types marked with
+     * {@link io.requery.Entity#preload()} are loaded
+     */
+    public void preload(Class<?>... types) {
+        checkClosed();
+        List<Type<?>> preload = new ArrayList<>();
+        if (types.length == 0) {
+            for (Type<?> type : entityModel.getTypes()) {
+                if (type.isPreloaded() && type.isCacheable()) {
+                    preload.add(type);
+                }
+            }
+        } else {
+            for (Class<?> type : types) {
+                Type<?> entityType = entityModel.typeOf(type);
+                if (!entityType.isCacheable()) {
+                    throw new IllegalArgumentException(type + " is not cacheable");
+                }
+                preload.add(entityType);
+            }
+        }
+        for (Type<?> type : preload) {
+            @SuppressWarnings("unchecked")
+            Type<T> entityType = (Type<T>) type;
+            preload(entityType);
+        }
+    }
+
+    private <E extends T> boolean preload(Type<E> type) {
+        Class<E> classType = type.getClassType();
+        Object table = entityCache.beginPreload(classType);
+        boolean loaded = false;
+        try {
+            // read entities are put into the cache, no need to keep them
+            try (CloseableIterator<E> iterator = select(classType).get().iterator()) {
+                while (iterator.hasNext()) {
+                    iterator.next();
+                }
+            }
+            loaded = true;
+        } finally {
+            if (!loaded) {
+                entityCache.cancel(classType, table);
+            }
+        }
+        return entityCache.complete(classType, table);
+    }
+
+    /**
+     * Creates a {@link GroupCommitWriter} that commits inserts and updates made concurrently from
+     * different threads together.
+     *
+     * @param window time to wait for more writes after the first write of a group arrives
+     * @param unit   time unit of the window
+     * @return a new group commit writer, must be closed when no longer used
+     */
+    public GroupCommitWriter<T> groupCommitWriter(long window, TimeUnit unit) {
+        checkClosed();
+        return new GroupCommitWriter<>(this, context, window, unit);
+    }
+
     @Override
     public <V> V runInTransaction(Callable<V> callable, @Nullable TransactionIsolation isolation) {
         Objects.requireNotNull(callable);
@@ -562,12 +709,81 @@ public class EntityDataStore<T> implements BlockingEntityStore<T> {
         return runInTransaction(callable, null);
     }
 
+    /**
+     * Runs the callable in a transaction in unit of work mode. Inserts, updates and deletes made
+     * from the callable are recorded instead of being executed immediately and are written in
+     * batches, ordered by foreign key dependencies, before the transaction is committed or when
+     * {@link #flush()} is called. Repeated writes of the same entity are combined. Queries don't
+     * see the recorded writes until they are flushed, generated keys of recorded inserts are
+     * only available after the flush.
+     *
+     * @param callable to run
+     * @param <V>      result type
+     * @return the result of the callable
+     */
+    public <V> V runInUnitOfWork(Callable<V> callable) {
+        Objects.requireNotNull(callable);
+        checkClosed();
+        try (EntityTransaction transaction = transactionProvider.get()) {
+            try {
+                transaction.begin();
+                transaction.beginUnitOfWork();
+                V result = callable.call();
+                flushUnitOfWork();
+                transaction.commit();
+                return result;
+            } catch (Exception e) {
+                transaction.rollback();
+                throw new RollbackException(e);
+            }
+        }
+    }
+
+    /**
+     * Executes the writes recorded in the current unit of work, see
+     * {@link #runInUnitOfWork(Callable)}. Does nothing outside of a unit of work.
+     */
+    public void flush() {
+        checkClosed();
+        flushUnitOfWork();
+    }
+
+    private boolean inUnitOfWork() {
+        return transactionProvider.get().unitOfWork() != null;
+    }
+
+    private void flushUnitOfWork() {
+        UnitOfWork unitOfWork = transactionProvider.get().unitOfWork();
+        if (unitOfWork != null) {
+            unitOfWork.flush(context);
+        }
+    }
+
+    // records the write if the current transaction is a unit of work
+    private boolean defer(Object entity, UnitOfWork.Operation operation) {
+        UnitOfWork unitOfWork = transactionProvider.get().unitOfWork();
+        if (unitOfWork == null) {
+            return false;
+        }
+        EntityProxy<?> proxy = context.proxyOf(entity, true);
+        if (!unitOfWork.add(entity, proxy, operation)) {
+            // can't be combined with the recorded write of the entity
+            unitOfWork.flush(context);
+            unitOfWork.add(entity, proxy, operation);
+        }
+        return true;
+    }
+
     @Override
     public BlockingEntityStore<T> toBlocking() {
         return this;
     }
 
     protected void checkConnectionMetadata() {
+        // fast path, the fields below are published by the volatile write of metadataChecked
+        if (metadataChecked) {
+            return;
+        }
         synchronized (configuration) {
             // only done once metadata assumed to be the same for every connection
             if (!metadataChecked) {
@@ -583,6 +799,8 @@ public class EntityDataStore<T> implements BlockingEntityStore<T> {
                             configuration.getColumnTransformer(),
                             configuration.getQuoteTableNames(),
                             configuration.getQuoteColumnNames());
+                    // platform mappings are added by now so the field mappings can be resolved
+                    mappingPlan = new MappingPlan(mapping, entityModel);
                     metadataChecked = true;
                 } catch (SQLException e) {
                     throw new PersistenceException(e);
@@ -591,6 +809,22 @@ public class EntityDataStore<T> implements BlockingEntityStore<T> {
         }
     }
 
+    private EntityAccessors<T> accessors() {
+        EntityAccessors<T> accessors = this.accessors;
+        if (accessors == null) {
+            // readers/writers depend on the platform so are created once the metadata is known
+            checkConnectionMetadata();
+            synchronized (accessorLock) {
+                accessors = this.accessors;
+                if (accessors == null) {
+                    accessors = new EntityAccessors<>(entityModel, context, this);
+                    this.accessors = accessors;
+                }
+            }
+        }
+        return accessors;
+    }
+
     protected void checkClosed() {
         if (closed.get()) {
             throw new PersistenceException("closed");
@@ -638,11 +872,14 @@ public class EntityDataStore<T> implements BlockingEntityStore<T> {
                     connection = new StatementCachingConnection(statementCache, connection);
                 }
             }
-            synchronized (mapping) {
-                // lazily create things that depend on a connection
-                if (platform == null) {
-                    platform = new PlatformDelegate(connection);
-                    platform.addMappings(mapping);
+            if (platform == null) {
+                synchronized (platformLock) {
+                    // lazily create things that depend on a connection
+                    if (platform == null) {
+                        Platform delegate = new PlatformDelegate(connection);
+                        delegate.addMappings(mapping);
+                        platform = delegate;
+                    }
                 }
             }
             return connection;
@@ -650,30 +887,12 @@ public class EntityDataStore<T> implements BlockingEntityStore<T> {
 
         @Override
         public <E extends T> EntityReader<E, T> read(Class<? extends E> type) {
-            synchronized (readers) {
-                @SuppressWarnings("unchecked")
-                EntityReader<E, T> reader = (EntityReader<E, T>) readers.get(type);
-                if (reader == null) {
-                    checkConnectionMetadata();
-                    reader = new EntityReader<>(entityModel.typeOf(type), this, EntityDataStore.this);
-                    readers.put(type, reader);
-                }
-                return reader;
-            }
+            return accessors().reader(type);
         }
 
         @Override
         public <E extends T> EntityWriter<E, T> write(Class<? extends E> type) {
-            synchronized (writers) {
-                @SuppressWarnings("unchecked")
-                EntityWriter<E, T> writer = (EntityWriter<E, T>) writers.get(type);
-                if (writer == null) {
-                    checkConnectionMetadata();
-                    writer = new EntityWriter<>(entityModel.typeOf(type), this, EntityDataStore.this);
-                    writers.put(type, writer);
-                }
-                return writer;
-            }
+            return accessors().writer(type);
         }
 
         @Override
@@ -681,6 +900,11 @@ public class EntityDataStore<T> implements BlockingEntityStore<T> {
             return stateListeners;
         }
 
+        @Override
+        public AssociationCache getAssociationCache() {
+            return associationCache;
+        }
+
         @Override
         public boolean supportsBatchUpdates() {
             checkConnectionMetadata();
@@ -703,6 +927,11 @@ public class EntityDataStore<T> implements BlockingEntityStore<T> {
             return mapping;
         }
 
+        MappingPlan getMappingPlan() {
+            checkConnectionMetadata();
+            return mappingPlan;
+        }
+
         @Override
         public EntityModel getModel() {
             return entityModel;
@@ -721,10 +950,13 @@ public class EntityDataStore<T> implements BlockingEntityStore<T> {
 
         @Override
         public Generator<QueryElement<?>> getStatementGenerator() {
-            if (statementGenerator == null) {
-                statementGenerator = new StatementGenerator(getPlatform());
+            Generator<QueryElement<?>> generator = statementGenerator;
+            if (generator == null) {
+                // stateless, so a redundant instance from a racing thread is harmless
+                generator = new StatementGenerator(getPlatform());
+                statementGenerator = generator;
             }
-            return statementGenerator;
+            return generator;
         }
 
         @Override
@@ -757,5 +989,67 @@ public class EntityDataStore<T> implements BlockingEntityStore<T> {
         public Executor getWriteExecutor() {
             return configuration.getWriteExecutor();
         }
+
+        @Override
+        public KeyAllocator getKeyAllocator() {
+            return configuration.getKeyAllocator();
+        }
+
+        @Override
+        public QueryCacheInvalidation getQueryCacheInvalidation() {
+            return configuration.getQueryCacheInvalidation();
+        }
+    }
+
+    /**
+     * Immutable tables of the {@link EntityReader} and {@link EntityWriter} instances for every
+     * type in the model. Built once so that lookups on the query path don't need to lock.
+     */
+    private static final class EntityAccessors<T> {
+
+        private final EntityModel model;
+        private final Map<Class<?>, EntityReader<?, ?>> readers;
+        private final Map<Class<?>, EntityWriter<?, ?>> writers;
+
+        @SuppressWarnings("unchecked")
+        EntityAccessors(EntityModel model, EntityContext<T> context, Queryable<T> queryable) {
+            this.model = model;
+            this.readers = new IdentityHashMap<>();
+            this.writers = new IdentityHashMap<>();
+            for (Type<?> type : model.getTypes()) {
+                Type<T> entityType = (Type<T>) type;
+                EntityReader<T, T> reader = new EntityReader<>(entityType, context, queryable);
+                EntityWriter<T, T> writer = new EntityWriter<>(entityType, context, queryable);
+                readers.put(type.getClassType(), reader);
+                writers.put(type.getClassType(), writer);
+                if (type.getBaseType() != null) {
+                    readers.put(type.getBaseType(), reader);
+                    writers.put(type.getBaseType(), writer);
+                }
+            }
+        }
+
+        private Class<?> resolve(Class<?> type) {
+            // subclass of a mapped type (throws NotMappedException if not in the model)
+            return model.typeOf(type).getClassType();
+        }
+
+        @SuppressWarnings("unchecked")
+        <E extends T> EntityReader<E, T> reader(Class<? extends E> type) {
+            EntityReader<?, ?> reader = readers.get(type);
+            if (reader == null) {
+                reader = readers.get(resolve(type));
+            }
+            return (EntityReader<E, T>) reader;
+        }
+
+        @SuppressWarnings("unchecked")
+        <E extends T> EntityWriter<E, T> writer(Class<? extends E> type) {
+            EntityWriter<?, ?> writer = writers.get(type);
+            if (writer == null) {
+                writer = writers.get(resolve(type));
+            }
+            return (EntityWriter<E, T>) writer;
+        }
     }
 }
@@ -22,6 +22,9 @@ import io.requery.Queryable;
 import io.requery.meta.Attribute;
 import io.requery.meta.QueryAttribute;
 import io.requery.meta.Type;
+import io.requery.meta.Types;
+import io.requery.proxy.CollectionInitializer;
+import io.requery.proxy.ColumnReader;
 import io.requery.proxy.CompositeKey;
 import io.requery.proxy.EntityBuilderProxy;
 import io.requery.proxy.EntityProxy;
@@ -29,6 +32,7 @@ import io.requery.proxy.Initializer;
 import io.requery.proxy.PropertyLoader;
 import io.requery.proxy.PropertyState;
 import io.requery.proxy.QueryInitializer;
+import io.requery.proxy.ResultSetReader;
 import io.requery.proxy.Settable;
 import io.requery.query.AliasedExpression;
 import io.requery.query.Condition;
@@ -55,6 +59,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -71,11 +76,12 @@ import static io.requery.sql.Keyword.WHERE;
  *
  * @author Nikhil Purushe
  */
-class EntityReader<E extends S, S> implements PropertyLoader<E> {
+class EntityReader<E extends S, S> implements PropertyLoader<E>, ColumnReader<E> {
 
     private final EntityCache cache;
     private final Type<E> type;
     private final Mapping mapping;
+    private final MappingPlan plan;
     private final EntityContext<S> context;
     private final Queryable<S> queryable;
     private final QueryAttribute<E, ?> keyAttribute;
@@ -83,6 +89,8 @@ class EntityReader<E extends S, S> implements PropertyLoader<E> {
     private final boolean cacheable;
     private final Set<Expression<?>> defaultSelection;
     private final Attribute<E, ?>[] defaultSelectionAttributes;
+    private final ResultSetReader<E> resultSetReader;
+    private final ColumnLayout<E> defaultLayout;
 
     EntityReader(Type<E> type, EntityContext<S> context, Queryable<S> queryable) {
         this.type = Objects.requireNotNull(type);
@@ -90,6 +98,7 @@ class EntityReader<E extends S, S> implements PropertyLoader<E> {
         this.queryable = Objects.requireNotNull(queryable);
         this.cache = this.context.getCache();
         this.mapping = this.context.getMapping();
+        this.plan = MappingPlan.of(this.context);
         this.stateless = type.isStateless();
         this.cacheable = type.isCacheable();
         // compute default/minimum selections for the type
@@ -99,15 +108,23 @@ class EntityReader<E extends S, S> implements PropertyLoader<E> {
             // include foreign or primary key
             boolean isKey = (attribute.isForeignKey() || attribute.isKey());
             if (!attribute.isLazy() && (isKey || !attribute.isAssociation())) {
-                if (attribute.isVersion()) {
-                    Expression<?> expression = aliasVersion(attribute);
-                    selection.add(expression);
-                } else {
-                    selection.add((Expression)attribute);
-                }
                 selectAttributes.add(attribute);
             }
         }
+        // use the generated reader if it reads the same columns the same way
+        ResultSetReader<E> reader = Types.getResultSetReader(type);
+        resultSetReader = canReadDirectly(reader, selectAttributes) ? reader : null;
+        if (resultSetReader != null) {
+            selectAttributes = new LinkedHashSet<>(resultSetReader.getAttributes());
+        }
+        for (Attribute<E, ?> attribute : selectAttributes) {
+            if (attribute.isVersion()) {
+                Expression<?> expression = aliasVersion(attribute);
+                selection.add(expression);
+            } else {
+                selection.add((Expression)attribute);
+            }
+        }
         defaultSelection = Collections.unmodifiableSet(selection);
         // optimization for single key attribute
         keyAttribute = Attributes.query(type.getSingleKeyAttribute());
@@ -119,6 +136,24 @@ class EntityReader<E extends S, S> implements PropertyLoader<E> {
                 return true;
             }
         });
+        defaultLayout = ColumnLayout.of(type, defaultSelectionAttributes);
+    }
+
+    private boolean canReadDirectly(ResultSetReader<E> reader, Set<Attribute<E, ?>> selection) {
+        if (reader == null || !(mapping instanceof GenericMapping)) {
+            return false;
+        }
+        List<Attribute<E, ?>> attributes = reader.getAttributes();
+        if (attributes.size() != selection.size() || !selection.containsAll(attributes)) {
+            return false;
+        }
+        GenericMapping genericMapping = (GenericMapping) mapping;
+        for (Attribute<E, ?> attribute : attributes) {
+            if (!genericMapping.hasDefaultType(attribute)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     Set<Expression<?>> defaultSelection() {
@@ -130,10 +165,15 @@ class EntityReader<E extends S, S> implements PropertyLoader<E> {
     }
 
     ResultReader<E> newResultReader(Attribute[] attributes) {
+        return newResultReader(attributes == defaultSelectionAttributes ?
+            defaultLayout : ColumnLayout.of(type, attributes));
+    }
+
+    ResultReader<E> newResultReader(ColumnLayout<E> layout) {
         if (type.isBuildable()) {
-            return new BuildableEntityResultReader<>(this, attributes);
+            return new BuildableEntityResultReader<>(this, layout);
         } else {
-            return new EntityResultReader<>(this, attributes);
+            return new EntityResultReader<>(this, layout);
         }
     }
 
@@ -149,7 +189,8 @@ class EntityReader<E extends S, S> implements PropertyLoader<E> {
 
     @Override
     public <V> void load(E entity, EntityProxy<E> proxy, Attribute<E, V> attribute) {
-        refresh(entity, proxy, attribute);
+        // loading may use cached associations, an explicit refresh always queries
+        refresh(entity, proxy, Collections.<Attribute<E, ?>>singleton(attribute), true);
     }
 
     public E refresh(E entity, EntityProxy<E> proxy) {
@@ -160,11 +201,11 @@ class EntityReader<E extends S, S> implements PropertyLoader<E> {
                 refreshAttributes.add(attribute);
             }
         }
-        return refresh(entity, proxy, refreshAttributes);
+        return refresh(entity, proxy, refreshAttributes, false);
     }
 
     public E refreshAll(E entity, EntityProxy<E> proxy) {
-        return refresh(entity, proxy, type.getAttributes());
+        return refresh(entity, proxy, type.getAttributes(), false);
     }
 
     @SafeVarargs
@@ -179,10 +220,11 @@ class EntityReader<E extends S, S> implements PropertyLoader<E> {
             elements = new LinkedHashSet<>(attributes.length);
             Collections.addAll(elements, attributes);
         }
-        return refresh(entity, proxy, elements);
+        return refresh(entity, proxy, elements, false);
     }
 
-    private E refresh(E entity, EntityProxy<E> proxy, final Set<Attribute<E, ?>> attributes) {
+    private E refresh(E entity, EntityProxy<E> proxy, final Set<Attribute<E, ?>> attributes,
+                      boolean fromCache) {
 
         Predicate<Attribute<E, ?>> basicFilter = new Predicate<Attribute<E, ?>>() {
             @Override
@@ -224,7 +266,7 @@ class EntityReader<E extends S, S> implements PropertyLoader<E> {
                     if (value == null) {
                         throw new MissingKeyException(proxy);
                     }
-                    mapping.write((Expression) attribute, statement, index++, value);
+                    plan.get((Expression) attribute).write(statement, index++, value);
                 }
                 context.getStatementListener().beforeExecuteQuery(statement, sql, null);
                 ResultSet results = statement.executeQuery();
@@ -232,12 +274,19 @@ class EntityReader<E extends S, S> implements PropertyLoader<E> {
                 if (results.next()) {
                     Attribute[] selection = new Attribute[attributes.size()];
                     attributes.toArray(selection);
+                    ColumnLayout<E> layout = ColumnLayout.of(type, selection);
                     // if the type is immutable create a new entity and return it, otherwise
                     // modify the given entity
                     if (type.isImmutable()) {
-                        entity = fromBuilder(results, selection);
+                        entity = fromBuilder(results, layout);
                     } else {
-                        entity = fromResult(entity, results, selection);
+                        entity = fromResult(entity, results, layout);
+                        Object key = proxy.key();
+                        // lets the cache know the values of the cached entity changed
+                        if (cacheable && key != null &&
+                            cache.get(type.getClassType(), key) == entity) {
+                            cache.put(type.getClassType(), key, entity);
+                        }
                     }
                 }
             } catch (SQLException e) {
@@ -248,14 +297,15 @@ class EntityReader<E extends S, S> implements PropertyLoader<E> {
         for (Attribute<E, ?> attribute : attributes) {
             // if it's a foreign key its resolved as part of the basic properties
             if (attribute.isAssociation()) {
-                refreshAssociation(proxy, attribute);
+                refreshAssociation(proxy, attribute, fromCache);
             }
         }
         return entity;
     }
 
-    private <V> void refreshAssociation(EntityProxy<E> proxy, Attribute<E, V> attribute) {
-        Supplier<? extends Result<S>> query = associativeQuery(proxy, attribute);
+    private <V> void refreshAssociation(EntityProxy<E> proxy, Attribute<E, V> attribute,
+                                        boolean fromCache) {
+        Supplier<? extends Result<S>> query = associativeQuery(proxy, attribute, fromCache);
         switch (attribute.getCardinality()) {
             case ONE_TO_ONE:
             case MANY_TO_ONE:
@@ -278,7 +328,7 @@ class EntityReader<E extends S, S> implements PropertyLoader<E> {
     }
 
     private <Q extends S> Supplier<? extends Result<Q>>
-    associativeQuery(EntityProxy<E> proxy, Attribute<E, ?> attribute) {
+    associativeQuery(EntityProxy<E> proxy, Attribute<E, ?> attribute, boolean fromCache) {
         switch (attribute.getCardinality()) {
             case ONE_TO_ONE:
             case ONE_TO_MANY:
@@ -304,8 +354,9 @@ class EntityReader<E extends S, S> implements PropertyLoader<E> {
                         keyAttribute.getReferencedAttribute());
                     key = proxy.get(referenced);
                 }
-                return order(queryable.select(uType).where(keyAttribute.equal(key)),
-                    attribute.getOrderByAttribute());
+                return cached(attribute, key, fromCache,
+                    order(queryable.select(uType).where(keyAttribute.equal(key)),
+                    attribute.getOrderByAttribute()));
             }
             case MANY_TO_MANY: {
                 @SuppressWarnings("unchecked")
@@ -332,16 +383,40 @@ class EntityReader<E extends S, S> implements PropertyLoader<E> {
                     throw new IllegalStateException();
                 }
                 // create the many to many join query
-                return order(queryable.select(uType)
+                return cached(attribute, id, fromCache, order(queryable.select(uType)
                     .join(junctionType.getClassType()).on(uId.equal(uKey))
                     .join(type.getClassType()).on(tKey.equal(tId))
-                    .where(tId.equal(id)), attribute.getOrderByAttribute());
+                    .where(tId.equal(id)), attribute.getOrderByAttribute()));
             }
             default:
                 throw new IllegalStateException();
         }
     }
 
+    private <Q extends S> Supplier<? extends Result<Q>>
+    cached(final Attribute<E, ?> attribute, final Object key, final boolean fromCache,
+           final Supplier<? extends Result<Q>> query) {
+        final AssociationCache associations = context.getAssociationCache();
+        // only collections are cached, a result type keeps its query
+        if (associations == null || key == null ||
+            !(attribute.getInitializer() instanceof CollectionInitializer) ||
+            !associations.isCacheable(attribute)) {
+            return query;
+        }
+        return new Supplier<Result<Q>>() {
+            @Override
+            public Result<Q> get() {
+                // a refresh reads the elements from the database and caches them again
+                List<Q> elements = fromCache ? associations.<Q>get(attribute, key) : null;
+                if (elements == null) {
+                    elements = query.get().toList();
+                    associations.put(attribute, key, elements);
+                }
+                return new CollectionResult<>(elements);
+            }
+        };
+    }
+
     private <Q extends S> Supplier<? extends Result<Q>>
     order(WhereAndOr<? extends Result<Q>> query, Supplier<Attribute> supplier) {
         if (supplier != null) {
@@ -450,7 +525,7 @@ class EntityReader<E extends S, S> implements PropertyLoader<E> {
                 for (Attribute<E, ?> attribute : attributes) {
                     if (attribute.isAssociation()) {
                         for (EntityProxy<E> proxy : map.values()) {
-                            refreshAssociation(proxy, attribute);
+                            refreshAssociation(proxy, attribute, false);
                         }
                     }
                 }
@@ -466,17 +541,18 @@ class EntityReader<E extends S, S> implements PropertyLoader<E> {
         return entity;
     }
 
-    private Object readCacheKey(ResultSet results) throws SQLException {
+    private Object readCacheKey(ResultSet results, ColumnLayout<E> layout) throws SQLException {
         Object key = null;
         if (keyAttribute != null) { // common case 1 primary key
-            key = readKey(keyAttribute, results, results.findColumn(keyAttribute.getName()));
+            key = readKey(keyAttribute, results, layout.keyColumn(0, keyAttribute, results));
         } else {
             int count = type.getKeyAttributes().size();
             if (count > 1) {
                 LinkedHashMap<Attribute<E, ?>, Object> keys = new LinkedHashMap<>(count);
+                int index = 0;
                 for (Attribute<E, ?> attribute : type.getKeyAttributes()) {
-                    String name = attribute.getName();
-                    Object value = readKey(attribute, results, results.findColumn(name));
+                    int column = layout.keyColumn(index++, attribute, results);
+                    Object value = readKey(attribute, results, column);
                     keys.put(attribute, value);
                 }
                 key = new CompositeKey<>(keys);
@@ -492,10 +568,10 @@ class EntityReader<E extends S, S> implements PropertyLoader<E> {
             // in the case of a foreign key referenced read the type of the key in the other type
             referenced = Attributes.get(attribute.getReferencedAttribute());
         }
-        return mapping.read((Expression) referenced, results, index);
+        return plan.get((Expression) referenced).read(results, index);
     }
 
-    final E fromResult(E entity, ResultSet results, Attribute[] selection) throws SQLException {
+    final E fromResult(E entity, ResultSet results, ColumnLayout<E> layout) throws SQLException {
         // if refreshing (entity not null) overwrite the properties
         boolean overwrite = entity != null || stateless;
 
@@ -504,7 +580,7 @@ class EntityReader<E extends S, S> implements PropertyLoader<E> {
             if (cacheable) {
                 synchronized (type) {
                     // try lookup cached object
-                    final Object key = readCacheKey(results);
+                    final Object key = readCacheKey(results, layout);
                     if (key != null) {
                         entity = cache.get(type.getClassType(), key);
                     }
@@ -525,67 +601,75 @@ class EntityReader<E extends S, S> implements PropertyLoader<E> {
         EntityProxy<E> proxy = type.getProxyProvider().apply(entity);
         synchronized (proxy.syncObject()) {
             proxy.link(this);
-            int index = 1;
-            for (Attribute expression : selection) {
-                @SuppressWarnings("unchecked")
-                Attribute<E, ?> attribute = (Attribute<E, ?>) expression;
-                boolean isAssociation = attribute.isAssociation();
-
-                if ((attribute.isForeignKey() || attribute.isKey()) && isAssociation) {
-                    // handle loading the foreign key into referenced object
-                    Attribute referenced = Attributes.get(attribute.getReferencedAttribute());
-
-                    Object key = mapping.read((Expression) referenced, results, index);
-                    if (key != null) {
-                        Object value = proxy.get(attribute, false);
-                        if (value == null) {
-                            // create one...
-                            Class classType = attribute.getClassType();
-                            EntityReader reader = context.read(classType);
-                            value = reader.createEntity();
-                        }
-                        context.proxyOf(value, false)
-                            .set(Attributes.get(attribute.getReferencedAttribute()), key,
-                                PropertyState.LOADED);
-
-                        // leave in fetch state if only key is loaded
-                        PropertyState state = PropertyState.LOADED;
-                        if (!stateless) {
-                            state = proxy.getState(attribute);
-                            state = state == PropertyState.LOADED ? state : PropertyState.FETCH;
-                        }
-                        proxy.setObject(attribute, value, state);
-                    }
-                } else if (isAssociation) {
-                    continue;
-                } else if (overwrite || proxy.getState(attribute) != PropertyState.MODIFIED) {
-                    if (attribute.getPrimitiveKind() != null) {
-                        readPrimitiveField(proxy, attribute, results, index);
-                    } else {
-                        Object value = mapping.read((Expression) attribute, results, index);
-                        proxy.setObject(attribute, value, PropertyState.LOADED);
-                    }
+            if (resultSetReader != null && layout == defaultLayout) {
+                resultSetReader.read(entity, results, this, overwrite);
+            } else {
+                Attribute<E, ?>[] attributes = layout.attributes();
+                int[] columns = layout.columns();
+                for (int i = 0; i < attributes.length; i++) {
+                    readColumn(proxy, attributes[i], results, columns[i], overwrite);
                 }
-                index++;
             }
         }
         context.getStateListener().postLoad(entity, proxy);
         return entity;
     }
 
-    final <B> E fromBuilder(ResultSet results, Attribute[] selection) throws SQLException {
-        EntityBuilderProxy<B, E> proxy = new EntityBuilderProxy<>(type);
-        int index = 1;
-        for (Attribute expression : selection) {
-            @SuppressWarnings("unchecked")
-            Attribute<E, ?> attribute = (Attribute<E, ?>) expression;
+    @Override
+    public void read(E entity, Attribute<E, ?> attribute, ResultSet results, int column,
+                     boolean overwrite) throws SQLException {
+        readColumn(type.getProxyProvider().apply(entity), attribute, results, column, overwrite);
+    }
+
+    private void readColumn(EntityProxy<E> proxy, Attribute<E, ?> attribute,
+                            ResultSet results, int index, boolean overwrite) throws SQLException {
+        if (attribute.isAssociation()) {
+            // handle loading the foreign key into referenced object
+            Attribute referenced = Attributes.get(attribute.getReferencedAttribute());
+
+            Object key = plan.get((Expression) referenced).read(results, index);
+            if (key != null) {
+                Object value = proxy.get(attribute, false);
+                if (value == null) {
+                    // create one...
+                    Class classType = attribute.getClassType();
+                    EntityReader reader = context.read(classType);
+                    value = reader.createEntity();
+                }
+                context.proxyOf(value, false)
+                    .set(Attributes.get(attribute.getReferencedAttribute()), key,
+                        PropertyState.LOADED);
+
+                // leave in fetch state if only key is loaded
+                PropertyState state = PropertyState.LOADED;
+                if (!stateless) {
+                    state = proxy.getState(attribute);
+                    state = state == PropertyState.LOADED ? state : PropertyState.FETCH;
+                }
+                proxy.setObject(attribute, value, state);
+            }
+        } else if (overwrite || proxy.getState(attribute) != PropertyState.MODIFIED) {
             if (attribute.getPrimitiveKind() != null) {
                 readPrimitiveField(proxy, attribute, results, index);
             } else {
-                Object value = mapping.read((Expression) attribute, results, index);
+                Object value = plan.get((Expression) attribute).read(results, index);
+                proxy.setObject(attribute, value, PropertyState.LOADED);
+            }
+        }
+    }
+
+    final <B> E fromBuilder(ResultSet results, ColumnLayout<E> layout) throws SQLException {
+        EntityBuilderProxy<B, E> proxy = new EntityBuilderProxy<>(type);
+        Attribute<E, ?>[] attributes = layout.attributes();
+        int[] columns = layout.columns();
+        for (int i = 0; i < attributes.length; i++) {
+            Attribute<E, ?> attribute = attributes[i];
+            if (attribute.getPrimitiveKind() != null) {
+                readPrimitiveField(proxy, attribute, results, columns[i]);
+            } else {
+                Object value = plan.get((Expression) attribute).read(results, columns[i]);
                 proxy.setObject(attribute, value, PropertyState.LOADED);
             }
-            index++;
         }
         return proxy.build();
     }
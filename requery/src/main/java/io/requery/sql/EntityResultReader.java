@@ -16,7 +16,6 @@
 
 package io.requery.sql;
 
-import io.requery.meta.Attribute;
 import io.requery.query.Expression;
 
 import java.sql.ResultSet;
@@ -26,22 +25,22 @@ import java.util.Set;
 class EntityResultReader<E extends S, S> implements ResultReader<E> {
 
     private final EntityReader<E, S> reader;
-    private final Attribute[] attributes;
+    private final ColumnLayout<E> layout;
 
     /**
      * Creates a new reader instance for transforming a result to an entity.
      *
-     * @param reader     to use
-     * @param attributes this is used instead of the set in
-     *                   {@link ResultReader#read(ResultSet, Set)} for performance reasons
+     * @param reader to use
+     * @param layout column positions of the attributes, this is used instead of the set in
+     *               {@link ResultReader#read(ResultSet, Set)} for performance reasons
      */
-    EntityResultReader(EntityReader<E, S> reader, Attribute[] attributes) {
+    EntityResultReader(EntityReader<E, S> reader, ColumnLayout<E> layout) {
         this.reader = reader;
-        this.attributes = attributes;
+        this.layout = layout;
     }
 
     @Override
     public E read(ResultSet results, Set<? extends Expression<?>> selection) throws SQLException {
-        return reader.fromResult(null, results, attributes);
+        return reader.fromResult(null, results, layout);
     }
 }
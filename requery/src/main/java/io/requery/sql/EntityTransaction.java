@@ -27,4 +27,21 @@ interface EntityTransaction extends Transaction {
     void addToTransaction(Collection<Type<?>> types);
 
     void addToTransaction(EntityProxy<?> proxy);
+
+    /**
+     * Adds an action run once the transaction is committed or rolled back, e.g. to invalidate
+     * cached state that other transactions may have loaded before the changes were committed.
+     */
+    void addCompletionAction(Runnable action);
+
+    /**
+     * Switches the active transaction into unit of work mode, where writes are recorded and
+     * executed on flush.
+     */
+    void beginUnitOfWork();
+
+    /**
+     * @return the writes recorded by the transaction or null if not in unit of work mode.
+     */
+    UnitOfWork unitOfWork();
 }
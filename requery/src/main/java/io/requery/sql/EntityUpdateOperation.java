@@ -16,6 +16,7 @@
 
 package io.requery.sql;
 
+import io.requery.meta.Attribute;
 import io.requery.query.BaseScalar;
 import io.requery.query.Scalar;
 import io.requery.query.element.QueryElement;
@@ -23,11 +24,14 @@ import io.requery.sql.gen.DefaultOutput;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 
 /**
  * Extends {@link UpdateOperation} specifically for binding to an entity, skipping the query
- * parameters to avoid boxing overhead.
+ * parameters to avoid boxing overhead. If the platform supports it values of the written row can
+ * be read back with a returning clause, see {@link #returningAttributes()}.
  */
 abstract class EntityUpdateOperation extends UpdateOperation {
 
@@ -45,15 +49,37 @@ abstract class EntityUpdateOperation extends UpdateOperation {
                 DefaultOutput output =
                 new DefaultOutput(configuration, query, qb, null, false);
                 String sql = output.toSql();
+                Attribute[] returning = configuration.getPlatform().supportsReturning() ?
+                    returningAttributes() : null;
+                if (returning != null && returning.length > 0) {
+                    sql = appendReturning(qb, returning).toString();
+                }
                 int result;
                 try (Connection connection = configuration.getConnection()) {
                     StatementListener listener = configuration.getStatementListener();
-                    try (PreparedStatement statement = prepare(sql, connection)) {
-                        bindParameters(statement);
-                        listener.beforeExecuteUpdate(statement, sql, null);
-                        result = statement.executeUpdate();
-                        listener.afterExecuteUpdate(statement, result);
-                        readGeneratedKeys(0, statement);
+                    if (returning != null && returning.length > 0) {
+                        try (PreparedStatement statement =
+                                 connection.prepareStatement(sql, Statement.NO_GENERATED_KEYS)) {
+                            bindParameters(statement);
+                            listener.beforeExecuteUpdate(statement, sql, null);
+                            result = 0;
+                            // one row is returned for each row written
+                            try (ResultSet results = statement.executeQuery()) {
+                                while (results.next()) {
+                                    readReturning(results);
+                                    result++;
+                                }
+                            }
+                            listener.afterExecuteUpdate(statement, result);
+                        }
+                    } else {
+                        try (PreparedStatement statement = prepare(sql, connection)) {
+                            bindParameters(statement);
+                            listener.beforeExecuteUpdate(statement, sql, null);
+                            result = statement.executeUpdate();
+                            listener.afterExecuteUpdate(statement, result);
+                            readGeneratedKeys(0, statement);
+                        }
                     }
                 } catch (SQLException e) {
                     throw new StatementExecutionException(e, sql);
@@ -63,5 +89,39 @@ abstract class EntityUpdateOperation extends UpdateOperation {
         };
     }
 
+    private QueryBuilder appendReturning(QueryBuilder qb, Attribute[] attributes) {
+        VersionColumnDefinition definition = configuration.getPlatform().versionColumnDefinition();
+        qb.keyword(Keyword.RETURNING);
+        int index = 0;
+        for (Attribute attribute : attributes) {
+            if (index > 0) {
+                qb.comma();
+            }
+            if (attribute.isVersion() && !definition.createColumn() &&
+                definition.columnName() != null) {
+                qb.append(definition.columnName()).space();
+            } else {
+                qb.attribute(attribute);
+            }
+            index++;
+        }
+        return qb;
+    }
+
     public abstract int bindParameters(PreparedStatement statement) throws SQLException;
+
+    /**
+     * @return attributes of the written row to read back in the same statement, only used if the
+     * platform {@link Platform#supportsReturning() supports} it.
+     */
+    Attribute[] returningAttributes() {
+        return null;
+    }
+
+    /**
+     * Reads the values of the {@link #returningAttributes()} in the same order from the current
+     * row.
+     */
+    void readReturning(ResultSet results) throws SQLException {
+    }
 }
@@ -22,16 +22,21 @@ import io.requery.PersistenceException;
 import io.requery.Queryable;
 import io.requery.ReferentialAction;
 import io.requery.meta.Attribute;
+import io.requery.meta.Cardinality;
 import io.requery.meta.EntityModel;
 import io.requery.meta.QueryAttribute;
 import io.requery.meta.Type;
+import io.requery.meta.Types;
 import io.requery.proxy.CollectionChanges;
+import io.requery.proxy.ColumnWriter;
 import io.requery.proxy.EntityProxy;
 import io.requery.proxy.PropertyState;
 import io.requery.proxy.Settable;
+import io.requery.proxy.StatementWriter;
 import io.requery.query.Deletion;
 import io.requery.query.Expression;
 import io.requery.query.FieldExpression;
+import io.requery.query.ModifiableResult;
 import io.requery.query.MutableResult;
 import io.requery.query.Scalar;
 import io.requery.query.Where;
@@ -46,15 +51,21 @@ import io.requery.util.function.Supplier;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static io.requery.query.element.QueryType.UPDATE;
 
@@ -66,15 +77,17 @@ import static io.requery.query.element.QueryType.UPDATE;
  *
  * @author Nikhil Purushe
  */
-class EntityWriter<E extends S, S> implements ParameterBinder<E> {
+class EntityWriter<E extends S, S> implements ParameterBinder<E>, ColumnWriter<E> {
 
     private enum Cascade { AUTO, INSERT, UPDATE, UPSERT }
 
     private final EntityCache cache;
+    private final AssociationCache associations;
     private final EntityModel model;
     private final Type<E> type;
     private final EntityContext<S> context;
     private final Mapping mapping;
+    private final MappingPlan plan;
     private final Queryable<S> queryable;
     private final boolean hasGeneratedKey;
     private final boolean hasForeignKeys;
@@ -90,14 +103,18 @@ class EntityWriter<E extends S, S> implements ParameterBinder<E> {
     private final boolean cacheable;
     private final boolean stateless;
     private final boolean hasDefaultValues;
+    private final StatementWriter<E> statementWriter;
+    private final KeyAllocator keyAllocator;
 
     EntityWriter(Type<E> type, EntityContext<S> context, Queryable<S> queryable) {
         this.type = Objects.requireNotNull(type);
         this.context = Objects.requireNotNull(context);
         this.queryable = Objects.requireNotNull(queryable);
         this.cache = this.context.getCache();
+        this.associations = this.context.getAssociationCache();
         this.model = this.context.getModel();
         this.mapping = this.context.getMapping();
+        this.plan = MappingPlan.of(this.context);
         // check type attributes
         boolean hasGeneratedKey = false;
         boolean hasForeignKeys = false;
@@ -117,16 +134,23 @@ class EntityWriter<E extends S, S> implements ParameterBinder<E> {
                 hasDefaultValues = true;
             }
         }
+        this.keyAttribute = type.getSingleKeyAttribute();
+        // keys assigned by the allocator are inserted like any other value
+        if (isAllocatedKey(context.getKeyAllocator(), keyAttribute)) {
+            this.keyAllocator = context.getKeyAllocator();
+            hasGeneratedKey = false;
+        } else {
+            this.keyAllocator = null;
+        }
         this.hasGeneratedKey = hasGeneratedKey;
         this.hasForeignKeys = hasForeignKeys;
         this.versionAttribute = versionAttribute;
         this.hasDefaultValues = hasDefaultValues;
-        this.keyAttribute = type.getSingleKeyAttribute();
         this.keyCount = type.getKeyAttributes().size();
         Collection<Attribute<E, ?>> keys = type.getKeyAttributes();
         ArrayList<String> generatedKeyNames = new ArrayList<>();
         for (Attribute<E, ?> attribute : keys) {
-            if (attribute.isGenerated()) {
+            if (attribute.isGenerated() && keyAllocator == null) {
                 generatedKeyNames.add(attribute.getName());
             }
         }
@@ -139,7 +163,8 @@ class EntityWriter<E extends S, S> implements ParameterBinder<E> {
         Predicate<Attribute<E, ?>> bindable = new Predicate<Attribute<E, ?>>() {
             @Override
             public boolean test(Attribute<E, ?> value) {
-                boolean isGeneratedKey = value.isGenerated() && value.isKey();
+                boolean isGeneratedKey = value.isGenerated() && value.isKey() &&
+                    keyAllocator == null;
                 boolean isSystemVersion = value.isVersion() && hasSystemVersionColumn();
                 boolean isAssociation = value.isAssociation() &&
                     !(value.isForeignKey() || value.isKey());
@@ -148,7 +173,17 @@ class EntityWriter<E extends S, S> implements ParameterBinder<E> {
             }
         };
         // create bindable attributes as an array for performance
-        bindableAttributes = Attributes.toArray(type.getAttributes(), bindable);
+        Attribute<E, ?>[] attributes = Attributes.toArray(type.getAttributes(), bindable);
+        // use the generated writer if it binds the same attributes the same way
+        StatementWriter<E> writer = Types.getStatementWriter(type);
+        if (canWriteDirectly(writer, attributes)) {
+            statementWriter = writer;
+            attributes = statementWriter.getAttributes()
+                .toArray(Attributes.<E>newArray(attributes.length));
+        } else {
+            statementWriter = null;
+        }
+        bindableAttributes = attributes;
         associativeAttributes = Attributes.toArray(type.getAttributes(),
             new Predicate<Attribute<E, ?>>() {
             @Override
@@ -174,6 +209,67 @@ class EntityWriter<E extends S, S> implements ParameterBinder<E> {
         }
     }
 
+    /**
+     * @return true if the values of the key attribute are assigned by the given allocator before
+     * the entity is inserted.
+     */
+    static boolean isAllocatedKey(KeyAllocator allocator, Attribute<?, ?> attribute) {
+        return allocator != null && attribute != null && attribute.isKey() &&
+            attribute.isGenerated() && !attribute.getDeclaringType().isImmutable() &&
+            attribute.getDeclaringType().getKeyAttributes().size() == 1 &&
+            allocator.canAllocate(attribute);
+    }
+
+    /**
+     * Assigns the next key from the allocator to the key attribute if it isn't set yet.
+     *
+     * @return the key value of the entity
+     */
+    static <E> Object allocateKey(KeyAllocator allocator, EntityProxy<E> proxy,
+                                  Attribute<E, ?> attribute) {
+        PropertyState state = proxy.getState(attribute);
+        if (state == PropertyState.MODIFIED || state == PropertyState.LOADED) {
+            return proxy.get(attribute, false);
+        }
+        Object value = allocator.allocate(attribute);
+        if (value instanceof Number) {
+            Number number = (Number) value;
+            Class<?> type = attribute.getClassType();
+            if (type == int.class || type == Integer.class) {
+                value = number.intValue();
+            } else if (type == long.class || type == Long.class) {
+                value = number.longValue();
+            } else if (type == short.class || type == Short.class) {
+                value = number.shortValue();
+            }
+            // narrowing must not wrap around
+            if (((Number) value).longValue() != number.longValue()) {
+                throw new PersistenceException(
+                    "allocated key " + number + " overflows " + attribute.getName());
+            }
+        }
+        proxy.setObject(attribute, value, PropertyState.MODIFIED);
+        return value;
+    }
+
+    private boolean canWriteDirectly(StatementWriter<E> writer, Attribute<E, ?>[] attributes) {
+        if (writer == null || !(mapping instanceof GenericMapping)) {
+            return false;
+        }
+        List<Attribute<E, ?>> writerAttributes = writer.getAttributes();
+        if (writerAttributes.size() != attributes.length ||
+            !writerAttributes.containsAll(Arrays.asList(attributes))) {
+            return false;
+        }
+        GenericMapping genericMapping = (GenericMapping) mapping;
+        for (Attribute<E, ?> attribute : writerAttributes) {
+            if (!genericMapping.hasDefaultType(attribute)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private void checkRowsAffected(int count, E entity, EntityProxy<E> proxy) {
         if (proxy != null && versionAttribute != null && count == 0) {
             throw new OptimisticLockException(entity, proxy.get(versionAttribute));
@@ -217,7 +313,8 @@ class EntityWriter<E extends S, S> implements ParameterBinder<E> {
         final EntityReader<E, S> reader = context.read(entityClass);
         final Iterator<E> iterator = entities.iterator();
         final boolean isImmtuable = type.isImmutable();
-        final GeneratedKeys<E> keys = returnKeys && hasGeneratedKey? new GeneratedKeys<E>() : null;
+        final GeneratedKeys<E> keys = returnKeys && (hasGeneratedKey || keyAllocator != null) ?
+            new GeneratedKeys<E>() : null;
 
         int collectionSize = entities instanceof Collection ? ((Collection)entities).size() : -1;
         @SuppressWarnings("unchecked")
@@ -246,6 +343,12 @@ class EntityWriter<E extends S, S> implements ParameterBinder<E> {
                         }
                     }
                 }
+                if (keyAllocator != null) {
+                    Object key = allocateKey(keyAllocator, proxy, keyAttribute);
+                    if (keys != null) {
+                        keys.add(key);
+                    }
+                }
                 incrementVersion(proxy);
                 context.getStateListener().preInsert(entity, proxy);
                 index++;
@@ -316,7 +419,6 @@ class EntityWriter<E extends S, S> implements ParameterBinder<E> {
     private void readKeyFromResult(Attribute<E, ?> key, Settable<E> proxy, ResultSet results)
         throws SQLException {
 
-        Object generatedKey;
         String column = key.getName();
         int resultIndex = 1;
         try {
@@ -324,6 +426,13 @@ class EntityWriter<E extends S, S> implements ParameterBinder<E> {
             resultIndex = results.findColumn(column);
         } catch (SQLException ignored) {
         }
+        readKeyFromResult(key, proxy, results, resultIndex);
+    }
+
+    @SuppressWarnings("unchecked") // checked by primitiveKind()
+    private void readKeyFromResult(Attribute<E, ?> key, Settable<E> proxy, ResultSet results,
+                                   int resultIndex) throws SQLException {
+        Object generatedKey;
         if (key.getPrimitiveKind() != null) {
             switch (key.getPrimitiveKind()) {
                 case INT:
@@ -336,7 +445,7 @@ class EntityWriter<E extends S, S> implements ParameterBinder<E> {
                     break;
             }
         } else {
-            generatedKey = mapping.read((Expression) key, results, resultIndex);
+            generatedKey = plan.get((Expression) key).read(results, resultIndex);
             if (generatedKey == null) {
                 throw new MissingKeyException();
             }
@@ -347,31 +456,46 @@ class EntityWriter<E extends S, S> implements ParameterBinder<E> {
     @Override
     public int bindParameters(PreparedStatement statement, E element,
                               Predicate<Attribute<E, ?>> filter) throws SQLException {
+        if (filter == null && statementWriter != null) {
+            statementWriter.write(element, statement, this);
+            return bindableAttributes.length;
+        }
         int i = 0;
         EntityProxy<E> proxy = type.getProxyProvider().apply(element);
         for (Attribute<E, ?> attribute : bindableAttributes) {
             if (filter != null && !filter.test(attribute)) {
                 continue;
             }
-            if (attribute.isAssociation()) {
-                // get the referenced value
-                Object value = proxy.getKey(attribute);
-                mapping.write((Expression) attribute, statement, i + 1, value);
-            } else {
-                if (attribute.getPrimitiveKind() != null) {
-                    mapPrimitiveType(proxy, attribute, statement, i + 1);
-                } else {
-                    Object value = proxy.get(attribute, false);
-                    mapping.write((Expression) attribute, statement, i + 1, value);
-                }
-            }
-            // optimistically setting to loaded
-            proxy.setState(attribute, PropertyState.LOADED);
+            bindParameter(proxy, attribute, statement, i + 1);
             i++;
         }
         return i;
     }
 
+    @Override
+    public void write(E entity, Attribute<E, ?> attribute, PreparedStatement statement, int index)
+        throws SQLException {
+        bindParameter(type.getProxyProvider().apply(entity), attribute, statement, index);
+    }
+
+    private void bindParameter(EntityProxy<E> proxy, Attribute<E, ?> attribute,
+                               PreparedStatement statement, int index) throws SQLException {
+        if (attribute.isAssociation()) {
+            // get the referenced value
+            Object value = proxy.getKey(attribute);
+            plan.get((Expression) attribute).write(statement, index, value);
+        } else {
+            if (attribute.getPrimitiveKind() != null) {
+                mapPrimitiveType(proxy, attribute, statement, index);
+            } else {
+                Object value = proxy.get(attribute, false);
+                plan.get((Expression) attribute).write(statement, index, value);
+            }
+        }
+        // optimistically setting to loaded
+        proxy.setState(attribute, PropertyState.LOADED);
+    }
+
     @SuppressWarnings("unchecked") // checked by primitiveKind()
     private void mapPrimitiveType(EntityProxy<E> proxy, Attribute<E, ?> attribute,
                                   PreparedStatement statement, int index) throws SQLException {
@@ -413,9 +537,11 @@ class EntityWriter<E extends S, S> implements ParameterBinder<E> {
 
     void insert(final E entity, final EntityProxy<E> proxy, Cascade mode, GeneratedKeys<E> keys) {
         // if the type is immutable return the key(s) to the caller instead of modifying the object
+        final Settable<E> settable = keys == null ? proxy : keys;
+        final Predicate<Attribute<E, ?>> filter = filterDefaultValues(proxy);
+        final Attribute<E, ?>[] returning = insertReturningAttributes(filter);
         GeneratedResultReader keyReader = null;
-        if (hasGeneratedKey) {
-            final Settable<E> settable = keys == null ? proxy : keys;
+        if (hasGeneratedKey && returning == null) {
             keyReader = new GeneratedResultReader() {
                 @Override
                 public void read(int index, ResultSet results) throws SQLException {
@@ -429,12 +555,27 @@ class EntityWriter<E extends S, S> implements ParameterBinder<E> {
                 }
             };
         }
-        final Predicate<Attribute<E, ?>> filter = filterDefaultValues(proxy);
+        if (keyAllocator != null) {
+            Object key = allocateKey(keyAllocator, proxy, keyAttribute);
+            if (keys != null) {
+                keys.add(key);
+            }
+        }
         EntityUpdateOperation insert = new EntityUpdateOperation(context, keyReader) {
             @Override
             public int bindParameters(PreparedStatement statement) throws SQLException {
                 return EntityWriter.this.bindParameters(statement, entity, filter);
             }
+
+            @Override
+            Attribute[] returningAttributes() {
+                return returning;
+            }
+
+            @Override
+            void readReturning(ResultSet results) throws SQLException {
+                readReturned(returning, settable, proxy, results);
+            }
         };
         QueryElement<Scalar<Integer>> query = new QueryElement<>(QueryType.INSERT, model, insert);
         query.from(entityClass);
@@ -466,6 +607,51 @@ class EntityWriter<E extends S, S> implements ParameterBinder<E> {
         }
     }
 
+    /**
+     * @return the values generated by the database for an inserted row: generated keys, default
+     * values not written and the system version, or null if they can't be returned by the insert.
+     */
+    private Attribute<E, ?>[] insertReturningAttributes(Predicate<Attribute<E, ?>> filter) {
+        if (!context.getPlatform().supportsReturning()) {
+            return null;
+        }
+        List<Attribute<E, ?>> attributes = new ArrayList<>();
+        if (hasGeneratedKey) {
+            for (Attribute<E, ?> attribute : type.getKeyAttributes()) {
+                if (attribute.isGenerated()) {
+                    attributes.add(attribute);
+                }
+            }
+        }
+        if (!type.isImmutable()) {
+            if (filter != null) {
+                for (Attribute<E, ?> attribute : bindableAttributes) {
+                    if (!filter.test(attribute)) {
+                        attributes.add(attribute);
+                    }
+                }
+            }
+            if (versionAttribute != null && hasSystemVersionColumn()) {
+                attributes.add(versionAttribute);
+            }
+        }
+        return attributes.isEmpty() ? null :
+            attributes.toArray(Attributes.<E>newArray(attributes.size()));
+    }
+
+    private void readReturned(Attribute<E, ?>[] attributes, Settable<E> keys,
+                              EntityProxy<E> proxy, ResultSet results) throws SQLException {
+        for (int i = 0; i < attributes.length; i++) {
+            Attribute<E, ?> attribute = attributes[i];
+            if (attribute.isKey()) {
+                readKeyFromResult(attribute, keys, results, i + 1);
+            } else {
+                Object value = plan.get((Expression) attribute).read(results, i + 1);
+                proxy.setObject(attribute, value, PropertyState.LOADED);
+            }
+        }
+    }
+
     private Predicate<Attribute<E, ?>> filterDefaultValues(final EntityProxy<E> proxy) {
         if (hasDefaultValues) {
             return new Predicate<Attribute<E, ?>>() {
@@ -483,7 +669,7 @@ class EntityWriter<E extends S, S> implements ParameterBinder<E> {
     }
 
     public void upsert(E entity, final EntityProxy<E> proxy) {
-        if (hasGeneratedKey) {
+        if (hasGeneratedKey || keyAllocator != null) {
             if (hasKey(proxy)) {
                 update(entity, proxy, Cascade.UPSERT, null, null);
             } else {
@@ -545,6 +731,136 @@ class EntityWriter<E extends S, S> implements ParameterBinder<E> {
         }
     }
 
+    /**
+     * Updates the modified attributes of the given entities using JDBC batches, entities with the
+     * same set of modified attributes share the same update statement.
+     */
+    void batchUpdate(Iterable<E> entities) {
+        if (keyCount == 0 || stateless || (versionAttribute != null && hasSystemVersionColumn())) {
+            for (E entity : entities) {
+                update(entity, proxyProvider.apply(entity));
+            }
+            return;
+        }
+        // group the entities by the attributes being written, preserving order
+        Map<List<Attribute<E, ?>>, List<E>> groups = new LinkedHashMap<>();
+        for (E entity : entities) {
+            EntityProxy<E> proxy = proxyProvider.apply(entity);
+            List<Attribute<E, ?>> modified = new ArrayList<>();
+            for (Attribute<E, ?> attribute : bindableAttributes) {
+                if (proxy.getState(attribute) == PropertyState.MODIFIED ||
+                    attribute == versionAttribute) {
+                    modified.add(attribute);
+                }
+            }
+            List<E> group = groups.get(modified);
+            if (group == null) {
+                groups.put(modified, group = new ArrayList<>());
+            }
+            group.add(entity);
+        }
+        final int batchSize = Math.max(1, context.getBatchUpdateSize());
+        for (Map.Entry<List<Attribute<E, ?>>, List<E>> entry : groups.entrySet()) {
+            List<E> group = entry.getValue();
+            for (int i = 0; i < group.size(); i += batchSize) {
+                int end = Math.min(group.size(), i + batchSize);
+                batchUpdate(entry.getKey(), group.subList(i, end));
+            }
+        }
+    }
+
+    private void batchUpdate(final List<Attribute<E, ?>> attributes, List<E> entities) {
+        final Predicate<Attribute<E, ?>> filter = new Predicate<Attribute<E, ?>>() {
+            @Override
+            public boolean test(Attribute<E, ?> value) {
+                return attributes.contains(value);
+            }
+        };
+        final Map<E, Object> versions = new IdentityHashMap<>();
+        @SuppressWarnings("unchecked")
+        final E[] elements = (E[]) new Object[entities.size()];
+        int length = 0;
+        for (E entity : entities) {
+            EntityProxy<E> proxy = proxyProvider.apply(entity);
+            context.getStateListener().preUpdate(entity, proxy);
+            if (versionAttribute != null) {
+                versions.put(entity, incrementVersion(proxy, filter));
+            }
+            for (Attribute<E, ?> attribute : attributes) {
+                // persist the foreign key object if needed
+                S referenced = foreignKeyReference(proxy, attribute);
+                if (referenced != null &&
+                    !attribute.getCascadeActions().contains(CascadeAction.NONE)) {
+                    proxy.setState(attribute, PropertyState.LOADED);
+                    cascadeWrite(Cascade.AUTO, referenced, null);
+                }
+            }
+            elements[length++] = entity;
+        }
+        if (attributes.isEmpty() || (attributes.size() == 1 && versionAttribute != null)) {
+            // nothing to write, only the associations may have changed
+            for (E entity : entities) {
+                EntityProxy<E> proxy = proxyProvider.apply(entity);
+                updateAssociations(Cascade.AUTO, entity, proxy, null);
+                context.getStateListener().postUpdate(entity, proxy);
+            }
+            return;
+        }
+        ParameterBinder<E> binder = new ParameterBinder<E>() {
+            @Override
+            public int bindParameters(PreparedStatement statement, E element,
+                                      Predicate<Attribute<E, ?>> ignored) throws SQLException {
+                int index = EntityWriter.this.bindParameters(statement, element, filter);
+                EntityProxy<E> proxy = proxyProvider.apply(element);
+                for (Attribute<E, ?> attribute : whereAttributes) {
+                    if (attribute == versionAttribute) {
+                        plan.get((Expression) attribute)
+                            .write(statement, index + 1, versions.get(element));
+                    } else if (attribute.getPrimitiveKind() != null) {
+                        mapPrimitiveType(proxy, attribute, statement, index + 1);
+                    } else {
+                        Object value = attribute.isAssociation() ?
+                            proxy.getKey(attribute) : proxy.get(attribute, false);
+                        plan.get((Expression) attribute).write(statement, index + 1, value);
+                    }
+                    index++;
+                }
+                return index;
+            }
+        };
+        BatchUpdateOperation<E> operation = new BatchUpdateOperation<>(
+            context, elements, length, binder, null, context.supportsBatchUpdates());
+        QueryElement<int[]> query = new QueryElement<>(UPDATE, model, operation);
+        query.from(entityClass);
+        for (Attribute<E, ?> attribute : attributes) {
+            query.set((Expression) attribute, null);
+        }
+        for (Attribute<E, ?> attribute : whereAttributes) {
+            if (attribute != versionAttribute) {
+                query.where(Attributes.query(attribute).equal("?"));
+            }
+        }
+        if (versionAttribute != null) {
+            addVersionCondition(query, "?");
+        }
+        int[] updates = query.get();
+        EntityReader<E, S> reader = context.read(entityClass);
+        for (int i = 0; i < length; i++) {
+            E entity = elements[i];
+            EntityProxy<E> proxy = proxyProvider.apply(entity);
+            if (updates[i] != Statement.SUCCESS_NO_INFO) {
+                checkRowsAffected(updates[i], entity, proxy);
+            }
+            proxy.link(reader);
+            updateAssociations(Cascade.AUTO, entity, proxy, null);
+            if (cacheable) {
+                // lets the cache know the values of the entity changed
+                cache.put(entityClass, proxy.key(), entity);
+            }
+            context.getStateListener().postUpdate(entity, proxy);
+        }
+    }
+
     private int update(final E entity, final EntityProxy<E> proxy, Cascade mode,
                        Predicate<Attribute<E, ?>> filterBindable,
                        Predicate<Attribute<E, ?>> filterAssociations) {
@@ -570,6 +886,9 @@ class EntityWriter<E extends S, S> implements ParameterBinder<E> {
         boolean hasVersion = versionAttribute != null;
         final Object version = hasVersion ? incrementVersion(proxy, filterBindable) : null;
         final Predicate<Attribute<E, ?>> filter = filterBindable;
+        // read back the new system version in the update itself if possible
+        final boolean returnVersion = hasVersion && hasSystemVersionColumn() &&
+            context.getPlatform().supportsReturning();
 
         EntityUpdateOperation operation = new EntityUpdateOperation(context, null) {
             @Override
@@ -579,7 +898,7 @@ class EntityWriter<E extends S, S> implements ParameterBinder<E> {
                 // write the where arguments
                 for (Attribute<E, ?> attribute : whereAttributes) {
                     if (attribute == versionAttribute) {
-                        mapping.write((Expression) attribute, statement, index + 1, version);
+                        plan.get((Expression) attribute).write(statement, index + 1, version);
                     } else {
                         if (attribute.getPrimitiveKind() != null) {
                             mapPrimitiveType(proxy, attribute, statement, index + 1);
@@ -590,13 +909,24 @@ class EntityWriter<E extends S, S> implements ParameterBinder<E> {
                             } else {
                                 value = proxy.get(attribute, false);
                             }
-                            mapping.write((Expression) attribute, statement, index + 1, value);
+                            plan.get((Expression) attribute).write(statement, index + 1, value);
                         }
                     }
                     index++;
                 }
                 return index;
             }
+
+            @Override
+            Attribute[] returningAttributes() {
+                return returnVersion ? new Attribute[] { versionAttribute } : null;
+            }
+
+            @Override
+            void readReturning(ResultSet results) throws SQLException {
+                Object value = plan.get((Expression) versionAttribute).read(results, 1);
+                proxy.setObject(versionAttribute, value, PropertyState.LOADED);
+            }
         };
         QueryElement<Scalar<Integer>> query = new QueryElement<>(UPDATE, model, operation);
         query.from(entityClass);
@@ -633,11 +963,15 @@ class EntityWriter<E extends S, S> implements ParameterBinder<E> {
             EntityReader<E, S> reader = context.read(entityClass);
             proxy.link(reader);
 
-            if (hasVersion && hasSystemVersionColumn()) {
+            if (hasVersion && hasSystemVersionColumn() && !returnVersion) {
                 reader.refresh(entity, proxy, versionAttribute);
             }
             if (result > 0) {
                 updateAssociations(mode, entity, proxy, filterAssociations);
+                if (cacheable) {
+                    // lets the cache know the values of the entity changed
+                    cache.put(entityClass, proxy.key(), entity);
+                }
             }
         } else {
             updateAssociations(mode, entity, proxy, filterAssociations);
@@ -660,6 +994,9 @@ class EntityWriter<E extends S, S> implements ParameterBinder<E> {
 
     private void updateAssociations(Cascade mode, E entity, EntityProxy<E> proxy,
                                     Predicate<Attribute<E, ?>> filter) {
+        if (associations != null) {
+            associations.invalidateReferences(type, proxy);
+        }
         for (Attribute<E, ?> attribute : associativeAttributes) {
             if ((filter != null && filter.test(attribute)) ||
                     (stateless || proxy.getState(attribute) == PropertyState.MODIFIED)) {
@@ -693,17 +1030,13 @@ class EntityWriter<E extends S, S> implements ParameterBinder<E> {
                     List<S> added = new ArrayList<>(changes.addedElements());
                     List<S> removed = new ArrayList<>(changes.removedElements());
                     changes.clear();
-                    for (S element : added) {
-                        updateMappedAssociation(mode, element, attribute, entity);
-                    }
+                    updateMappedAssociations(mode, added, attribute, entity);
                     for (S element : removed) {
                         updateMappedAssociation(Cascade.UPDATE, element, attribute, null);
                     }
                 } else if (relation instanceof Iterable) {
                     Iterable<S> iterable = (Iterable<S>) relation;
-                    for (S added : iterable) {
-                        updateMappedAssociation(mode, added, attribute, entity);
-                    }
+                    updateMappedAssociations(mode, iterable, attribute, entity);
                 } else {
                     throw new IllegalStateException("unsupported relation type " + relation);
                 }
@@ -743,6 +1076,11 @@ class EntityWriter<E extends S, S> implements ParameterBinder<E> {
                         addedElements = changes.addedElements();
                     }
                 }
+                Class<? extends S> junctionClass = (Class<? extends S>)
+                        referencedType.getClassType();
+                Cascade cascade = isObservable && mode == Cascade.UPSERT ?
+                        Cascade.UPSERT : Cascade.INSERT;
+                List<S> junctions = new ArrayList<>();
                 for (S added : addedElements) {
                     S junction = (S) referencedType.getFactory().get();
                     EntityProxy<S> junctionProxy = context.proxyOf(junction, false);
@@ -756,26 +1094,25 @@ class EntityWriter<E extends S, S> implements ParameterBinder<E> {
 
                     junctionProxy.set(tKey, tValue, PropertyState.MODIFIED);
                     junctionProxy.set(uKey, uValue, PropertyState.MODIFIED);
-
-                    Cascade cascade = isObservable && mode == Cascade.UPSERT ?
-                            Cascade.UPSERT : Cascade.INSERT;
-                    cascadeWrite(cascade, junction, null);
+                    junctions.add(junction);
+                }
+                EntityWriter<S, S> junctionWriter =
+                    (EntityWriter<S, S>) context.write(junctionClass);
+                if (cascade == Cascade.INSERT && junctions.size() > 1 &&
+                    !junctionWriter.hasDefaultValues && !junctionWriter.stateless) {
+                    junctionWriter.batchInsert(junctions, false);
+                } else {
+                    for (S junction : junctions) {
+                        cascadeWrite(cascade, junction, null);
+                    }
                 }
                 if (changes != null) {
                     Object keyValue = proxy.get(tRef, false);
+                    Set<Object> removedValues = new LinkedHashSet<>();
                     for (S removed : changes.removedElements()) {
-                        Object otherValue = context.proxyOf(removed, false).get(uRef);
-                        Class<? extends S> removeType = (Class<? extends S>)
-                                referencedType.getClassType();
-
-                        Supplier<? extends Scalar<Integer>> query = queryable.delete(removeType)
-                                .where(tKey.equal(keyValue))
-                                .and(uKey.equal(otherValue));
-                        int count = query.get().value();
-                        if (count != 1) {
-                            throw new RowCountException(entity.getClass(), 1, count);
-                        }
+                        removedValues.add(context.proxyOf(removed, false).get(uRef));
                     }
+                    deleteJunctions(junctionClass, tKey, keyValue, uKey, removedValues);
                     changes.clear();
                 }
                 break;
@@ -783,7 +1120,137 @@ class EntityWriter<E extends S, S> implements ParameterBinder<E> {
             default:
                 break;
         }
-        context.read(type.getClassType()).refresh(entity, proxy, attribute);
+        if (associations != null) {
+            associations.invalidateOwner(attribute, proxy);
+        }
+        if (requiresRefresh(proxy, attribute)) {
+            context.read(type.getClassType()).refresh(entity, proxy, attribute);
+        } else {
+            // the association is already in its written state
+            proxy.setState(attribute, PropertyState.LOADED);
+        }
+    }
+
+    /**
+     * Removes the junction rows linking the owner key to the given keys of the other side, with
+     * one delete per chunk of keys instead of one per removed element.
+     */
+    private void deleteJunctions(Class<? extends S> junctionClass,
+                                 QueryAttribute<S, Object> tKey, Object keyValue,
+                                 QueryAttribute<S, Object> uKey, Collection<Object> values) {
+        int chunkSize = Math.max(1, context.getBatchUpdateSize());
+        List<Object> chunk = new ArrayList<>(Math.min(values.size(), chunkSize));
+        Iterator<Object> iterator = values.iterator();
+        while (iterator.hasNext()) {
+            chunk.add(iterator.next());
+            if (chunk.size() == chunkSize || !iterator.hasNext()) {
+                Supplier<? extends Scalar<Integer>> query = queryable.delete(junctionClass)
+                        .where(tKey.equal(keyValue))
+                        .and(uKey.in(chunk));
+                int count = query.get().value();
+                if (count != chunk.size()) {
+                    throw new RowCountException(junctionClass, chunk.size(), count);
+                }
+                chunk.clear();
+            }
+        }
+    }
+
+    /**
+     * Checks if an association has to be read back after it was written, which is only the case
+     * if the referenced rows can contain values generated by the database (other than generated
+     * keys which are read on insert) or the written collection doesn't hold its elements.
+     */
+    private boolean requiresRefresh(EntityProxy<E> proxy, Attribute<E, ?> attribute) {
+        if (stateless) {
+            return true;
+        }
+        Class<?> referencedClass;
+        switch (attribute.getCardinality()) {
+            case ONE_TO_MANY:
+            case MANY_TO_MANY:
+                // a result is backed by a lazy query which has to be rebuilt once the key is known
+                Object relation = proxy.get(attribute, false);
+                if (!(relation instanceof ObservableCollection) ||
+                    relation instanceof ModifiableResult) {
+                    return true;
+                }
+                if (attribute.getReferencedClass() != null &&
+                    hasServerGeneratedValues(attribute.getReferencedClass())) {
+                    return true;
+                }
+                referencedClass = attribute.getElementClass();
+                break;
+            default:
+                referencedClass = attribute.getClassType();
+                break;
+        }
+        return referencedClass == null || hasServerGeneratedValues(referencedClass);
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean hasServerGeneratedValues(Class<?> referencedClass) {
+        if (!model.containsTypeOf(referencedClass)) {
+            return true;
+        }
+        EntityWriter<?, S> writer = context.write((Class<? extends S>) referencedClass);
+        if (writer.stateless) {
+            return true;
+        }
+        // returned by the insert if supported, such types aren't batch inserted by a cascade
+        return !context.getPlatform().supportsReturning() && (writer.hasDefaultValues ||
+            (writer.versionAttribute != null && writer.hasSystemVersionColumn()));
+    }
+
+    /**
+     * Sets the mapped attribute of the elements of a one to many association to the owning
+     * entity and writes them. Elements that would be inserted one at a time by
+     * {@link #cascadeWrite(Cascade, Object, EntityProxy)} are inserted in batches per type
+     * instead, their foreign key is taken from the already written owning entity.
+     */
+    @SuppressWarnings("unchecked")
+    private void updateMappedAssociations(Cascade mode, Iterable<S> elements,
+                                          Attribute<E, ?> attribute, E entity) {
+        boolean save = attribute.getCascadeActions().contains(CascadeAction.SAVE);
+        Map<Class<? extends S>, List<S>> inserts = new LinkedHashMap<>();
+        for (S element : elements) {
+            EntityProxy<S> elementProxy = context.proxyOf(element, false);
+            EntityWriter<S, S> writer = context.write(elementProxy.type().getClassType());
+            if (save && writer.isCascadeInsert(mode, elementProxy)) {
+                Attribute<S, Object> mapped = Attributes.get(attribute.getMappedAttribute());
+                elementProxy.set(mapped, entity, PropertyState.MODIFIED);
+                Class<? extends S> key = elementProxy.type().getClassType();
+                List<S> list = inserts.get(key);
+                if (list == null) {
+                    inserts.put(key, list = new ArrayList<>());
+                }
+                list.add(element);
+            } else {
+                updateMappedAssociation(mode, element, attribute, entity);
+            }
+        }
+        for (Map.Entry<Class<? extends S>, List<S>> entry : inserts.entrySet()) {
+            List<S> list = entry.getValue();
+            if (list.size() == 1) {
+                updateMappedAssociation(mode, list.get(0), attribute, entity);
+            } else {
+                context.<S>write(entry.getKey()).batchInsert(list, false);
+            }
+        }
+    }
+
+    /**
+     * @return true if {@link #cascadeWrite(Cascade, Object, EntityProxy)} would insert the entity
+     * and a batch insert of the entity writes the same values. Default values and a system version
+     * aren't read back by batch inserts, types with them are inserted one at a time.
+     */
+    private boolean isCascadeInsert(Cascade mode, EntityProxy<E> proxy) {
+        if (hasDefaultValues || stateless ||
+            (versionAttribute != null && hasSystemVersionColumn())) {
+            return false;
+        }
+        return (mode == Cascade.AUTO || mode == Cascade.UPSERT) &&
+            !proxy.isLinked() && (hasGeneratedKey || keyAllocator != null) && !hasKey(proxy);
     }
 
     private void incrementVersion(EntityProxy<E> proxy) {
@@ -850,9 +1317,13 @@ class EntityWriter<E extends S, S> implements ParameterBinder<E> {
         if (cacheable) {
             cache.invalidate(entityClass, proxy.key());
         }
+        if (associations != null) {
+            associations.invalidateReferences(type, proxy);
+        }
         // if cascade delete and the property is not loaded (load it)
         for (Attribute<E, ?> attribute : associativeAttributes) {
-            boolean delete = attribute.getCascadeActions().contains(CascadeAction.DELETE);
+            boolean delete = attribute.getCascadeActions().contains(CascadeAction.DELETE) &&
+                !isDatabaseCascade(attribute);
             if (delete && (stateless || proxy.getState(attribute) == PropertyState.FETCH)) {
                 context.read(type.getClassType()).refresh(entity, proxy, attribute);
             }
@@ -888,7 +1359,9 @@ class EntityWriter<E extends S, S> implements ParameterBinder<E> {
             boolean delete = attribute.getCascadeActions().contains(CascadeAction.DELETE);
             Object value = proxy.get(attribute, false);
             proxy.set(attribute, null, PropertyState.LOADED);
-            if (value != null) {
+            if (isDatabaseCascade(attribute)) {
+                invalidateDeleted(attribute, value);
+            } else if (value != null) {
                 if (delete && attribute.isForeignKey() &&
                     attribute.getDeleteAction() == ReferentialAction.CASCADE) {
                     cascade = true;
@@ -922,6 +1395,57 @@ class EntityWriter<E extends S, S> implements ParameterBinder<E> {
         return cascade;
     }
 
+    /**
+     * @return true if the elements of the association are deleted by the database when this
+     * entity is deleted and the association is marked to rely on it.
+     */
+    private boolean isDatabaseCascade(Attribute<E, ?> attribute) {
+        if (!attribute.getCascadeActions().contains(CascadeAction.DATABASE_DELETE) ||
+            attribute.isForeignKey() || attribute.getMappedAttribute() == null) {
+            return false;
+        }
+        switch (attribute.getCardinality()) {
+            case ONE_TO_ONE:
+            case ONE_TO_MANY:
+                Attribute<S, ?> mapped = Attributes.get(attribute.getMappedAttribute());
+                return mapped.isForeignKey() &&
+                    mapped.getDeleteAction() == ReferentialAction.CASCADE;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Invalidates the elements of an association deleted by the database. Elements that are
+     * already in memory are unlinked and invalidated by key, otherwise the element type is
+     * invalidated since the deleted keys aren't known.
+     */
+    private void invalidateDeleted(Attribute<E, ?> attribute, Object value) {
+        Class<?> elementClass = attribute.getCardinality() == Cardinality.ONE_TO_MANY ?
+            attribute.getElementClass() : attribute.getClassType();
+        Iterable<?> elements = null;
+        if (value instanceof Collection) {
+            elements = (Collection<?>) value;
+        } else if (value != null && !(value instanceof Iterable)) {
+            elements = Collections.singleton(value);
+        }
+        if (elements == null) {
+            cache.invalidate(elementClass);
+            return;
+        }
+        for (Object element : elements) {
+            @SuppressWarnings("unchecked")
+            EntityProxy<S> elementProxy = context.proxyOf((S) element, false);
+            if (elementProxy != null) {
+                Object key = elementProxy.key();
+                elementProxy.unlink();
+                if (key != null) {
+                    cache.invalidate(elementProxy.type().getClassType(), key);
+                }
+            }
+        }
+    }
+
     private void cascadeKeyReference(Cascade mode, EntityProxy<E> proxy,
                                      Attribute<E, ?> attribute) {
         S referenced = foreignKeyReference(proxy, attribute);
@@ -1006,6 +1530,9 @@ class EntityWriter<E extends S, S> implements ParameterBinder<E> {
                     if (cacheable) {
                         cache.invalidate(entityClass, key);
                     }
+                    if (associations != null) {
+                        associations.invalidateReferences(type, proxy);
+                    }
                     if (!cascaded) {
                         ids.add(key);
                     }
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2018 requery.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.requery.sql;
+
+import io.requery.meta.Attribute;
+import io.requery.query.ExportFormat;
+import io.requery.query.ExportWriter;
+import io.requery.query.Expression;
+import io.requery.query.ExpressionType;
+
+import java.io.Writer;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Set;
+
+/**
+ * Formats each row of a result directly into an {@link ExportWriter} without creating an element
+ * per row. Numeric columns are read with the primitive methods of {@link Mapping}.
+ *
+ * @author Nikhil Purushe
+ */
+class ExportResultReader implements ResultReader<Boolean> {
+
+    private final Mapping mapping;
+    private final ColumnResultReader.Kind[] kinds;
+    private final FieldMapping[] mappings;
+    private final boolean[] references;
+    private final ExportWriter output;
+
+    ExportResultReader(RuntimeConfiguration configuration,
+                       Set<? extends Expression<?>> selection,
+                       Writer writer, ExportFormat format) {
+        this.mapping = configuration.getMapping();
+        MappingPlan plan = MappingPlan.of(configuration);
+        Expression<?>[] expressions = selection.toArray(new Expression<?>[selection.size()]);
+        String[] names = new String[expressions.length];
+        kinds = new ColumnResultReader.Kind[expressions.length];
+        mappings = new FieldMapping[expressions.length];
+        references = new boolean[expressions.length];
+        for (int i = 0; i < expressions.length; i++) {
+            Expression<?> expression = expressions[i];
+            names[i] = ColumnResultReader.nameOf(expression);
+            kinds[i] = ColumnResultReader.kindOf(expression);
+            mappings[i] = plan.get(expression);
+            // foreign keys are written as the referenced key value
+            references[i] = expression.getExpressionType() == ExpressionType.ATTRIBUTE &&
+                ((Attribute<?, ?>) expression).isAssociation();
+        }
+        output = new ExportWriter(writer, format, names);
+    }
+
+    ExportWriter getOutput() {
+        return output;
+    }
+
+    @Override
+    public Boolean read(ResultSet results, Set<? extends Expression<?>> selection)
+        throws SQLException {
+        output.beginRow();
+        for (int i = 0; i < kinds.length; i++) {
+            int column = i + 1;
+            switch (kinds[i]) {
+                case LONG: {
+                    long value = mapping.readLong(results, column);
+                    if (results.wasNull()) {
+                        output.writeNull();
+                    } else {
+                        output.writeLong(value);
+                    }
+                    break;
+                }
+                case INT: {
+                    int value = mapping.readInt(results, column);
+                    if (results.wasNull()) {
+                        output.writeNull();
+                    } else {
+                        output.writeLong(value);
+                    }
+                    break;
+                }
+                case DOUBLE: {
+                    double value = mapping.readDouble(results, column);
+                    if (results.wasNull()) {
+                        output.writeNull();
+                    } else {
+                        output.writeDouble(value);
+                    }
+                    break;
+                }
+                case STRING:
+                    output.writeString((String) mappings[i].read(results, column));
+                    break;
+                default:
+                    if (references[i]) {
+                        output.writeValue(results.getObject(column));
+                    } else {
+                        output.writeValue(mappings[i].read(results, column));
+                    }
+                    break;
+            }
+        }
+        output.endRow();
+        return Boolean.TRUE;
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2018 requery.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.requery.sql;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Reads and writes the value of a single expression with the {@link FieldType} and
+ * {@link io.requery.Converter} already resolved, see {@link MappingPlan}.
+ *
+ * @param <A> mapped type
+ *
+ * @author Nikhil Purushe
+ */
+interface FieldMapping<A> {
+
+    /**
+     * Read the mapped value from a {@link ResultSet}.
+     *
+     * @param results {@link ResultSet} instance
+     * @param column  column index
+     * @return the read value
+     * @throws SQLException on a failure to read from the {@link ResultSet}
+     */
+    A read(ResultSet results, int column) throws SQLException;
+
+    /**
+     * Bind the mapped value into a {@link PreparedStatement}.
+     *
+     * @param statement prepared statement instance
+     * @param index     statement index
+     * @param value     value
+     * @throws SQLException on a failure to set the value on the {@link PreparedStatement}
+     */
+    void write(PreparedStatement statement, int index, A value) throws SQLException;
+}
@@ -69,11 +69,11 @@ import java.sql.Time;
 import java.sql.Timestamp;
 import java.util.Comparator;
 import java.util.HashSet;
-import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Default mapping of Java types to Persisted types.
@@ -139,7 +139,7 @@ public class GenericMapping implements Mapping {
         fixedTypes.put(byte[].class, new BinaryType());
         functionTypes = new ClassMap<>();
         converters = new ClassMap<>();
-        resolvedTypes = new IdentityHashMap<>();
+        resolvedTypes = new ConcurrentHashMap<>();
         Set<Converter> converters = new HashSet<>();
         converters.add(new EnumStringConverter<>(Enum.class));
         converters.add(new UUIDConverter());
@@ -327,6 +327,118 @@ public class GenericMapping implements Mapping {
         }
     }
 
+    /**
+     * Checks if an attribute is mapped the way a generated {@link io.requery.proxy.ResultSetReader}
+     * or {@link io.requery.proxy.StatementWriter} handles it directly, that is a non key
+     * primitive, boxed primitive or String attribute without a converter whose field type is
+     * still the default one.
+     *
+     * @param attribute to check
+     * @return true if the attribute uses the default field type for its class, or is not handled
+     * directly by generated code at all.
+     */
+    boolean hasDefaultType(Attribute<?, ?> attribute) {
+        Class<?> type = attribute.getClassType();
+        if (attribute.isKey() || attribute.isAssociation() || attribute.getConverter() != null) {
+            return true;
+        }
+        Class<?> defaultType = defaultReadTypeOf(type);
+        if (defaultType == null) {
+            return true;
+        }
+        if (converterForType(type) != null || mapAttribute(attribute).getClass() != defaultType) {
+            return false;
+        }
+        if (type == int.class) {
+            return primitiveIntType.getClass() == defaultType;
+        } else if (type == long.class) {
+            return primitiveLongType.getClass() == defaultType;
+        } else if (type == short.class) {
+            return primitiveShortType.getClass() == defaultType;
+        } else if (type == byte.class) {
+            return primitiveByteType.getClass() == defaultType;
+        } else if (type == boolean.class) {
+            return primitiveBooleanType.getClass() == defaultType;
+        } else if (type == float.class) {
+            return primitiveFloatType.getClass() == defaultType;
+        } else if (type == double.class) {
+            return primitiveDoubleType.getClass() == defaultType;
+        }
+        return true;
+    }
+
+    private static Class<?> defaultReadTypeOf(Class<?> type) {
+        if (type == int.class || type == Integer.class) {
+            return IntegerType.class;
+        } else if (type == long.class || type == Long.class) {
+            return BigIntType.class;
+        } else if (type == short.class || type == Short.class) {
+            return SmallIntType.class;
+        } else if (type == byte.class || type == Byte.class) {
+            return TinyIntType.class;
+        } else if (type == boolean.class || type == Boolean.class) {
+            return BooleanType.class;
+        } else if (type == float.class || type == Float.class) {
+            return FloatType.class;
+        } else if (type == double.class || type == Double.class) {
+            return RealType.class;
+        } else if (type == String.class) {
+            return VarCharType.class;
+        }
+        return null;
+    }
+
+    /**
+     * Resolves the types and converters {@link #read(Expression, ResultSet, int)} and
+     * {@link #write(Expression, PreparedStatement, int, Object)} would use for the expression
+     * once, returning a {@link FieldMapping} that performs the same conversions without any
+     * further lookups.
+     */
+    @SuppressWarnings("unchecked")
+    <A> FieldMapping<A> bind(Expression<A> expression) {
+        // resolve the read side
+        Class<A> readType;
+        Converter readConverter = null;
+        FieldType readFieldType;
+        if (expression.getExpressionType() == ExpressionType.ATTRIBUTE) {
+            Attribute<?, A> attribute = (Attribute) expression;
+            readConverter = attribute.getConverter();
+            readType = attribute.getClassType();
+            readFieldType = mapAttribute(attribute);
+        } else if (expression.getExpressionType() == ExpressionType.ALIAS) {
+            Attribute<?, A> attribute = (Attribute) expression.getInnerExpression();
+            readConverter = attribute.getConverter();
+            readType = attribute.getClassType();
+            readFieldType = mapAttribute(attribute);
+        } else {
+            readType = expression.getClassType();
+            readFieldType = getSubstitutedType(readType);
+        }
+        if (readConverter == null && !readType.isPrimitive()) {
+            readConverter = converterForType(readType);
+        }
+        // resolve the write side
+        Class<?> writeType;
+        Converter writeConverter = null;
+        FieldType writeFieldType;
+        if (expression.getExpressionType() == ExpressionType.ATTRIBUTE) {
+            Attribute<?, A> attribute = (Attribute) expression;
+            writeConverter = attribute.getConverter();
+            writeFieldType = mapAttribute(attribute);
+            writeType = attribute.isAssociation() && attribute.getReferencedAttribute() != null ?
+                    attribute.getReferencedAttribute().get().getClassType() :
+                    attribute.getClassType();
+        } else {
+            writeType = expression.getClassType();
+            writeFieldType = getSubstitutedType(writeType);
+        }
+        if (writeConverter == null && !writeType.isPrimitive()) {
+            writeConverter = converterForType(writeType);
+        }
+        return new BoundFieldMapping<>(readType, readConverter, readFieldType,
+            writeConverter, writeFieldType);
+    }
+
     @Override
     public boolean readBoolean(ResultSet results, int column) throws SQLException {
         return primitiveBooleanType.readBoolean(results, column);
@@ -440,4 +552,52 @@ public class GenericMapping implements Mapping {
     private static <A, B> A toMapped(Converter<A, B> converter, Class<? extends A> type, B value) {
         return converter.convertToMapped(type, value);
     }
+
+    private static final class BoundFieldMapping<A> implements FieldMapping<A> {
+
+        private final Class<A> type;
+        private final boolean primitive;
+        private final Converter readConverter;
+        private final FieldType readFieldType;
+        private final Converter writeConverter;
+        private final FieldType writeFieldType;
+
+        BoundFieldMapping(Class<A> type,
+                          Converter readConverter,
+                          FieldType readFieldType,
+                          Converter writeConverter,
+                          FieldType writeFieldType) {
+            this.type = type;
+            this.primitive = type.isPrimitive();
+            this.readConverter = readConverter;
+            this.readFieldType = readFieldType;
+            this.writeConverter = writeConverter;
+            this.writeFieldType = writeFieldType;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public A read(ResultSet results, int column) throws SQLException {
+            Object value = readFieldType.read(results, column);
+            // if the type is primitive the wasNull check isn't performed by the type, check here
+            if (primitive && results.wasNull()) {
+                value = null;
+            }
+            if (readConverter != null) {
+                value = toMapped(readConverter, type, value);
+            }
+            // cast primitive types only into their boxed type
+            return primitive ? (A) value : type.cast(value);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public void write(PreparedStatement statement, int index, A value) throws SQLException {
+            Object converted = value;
+            if (writeConverter != null) {
+                converted = writeConverter.convertToPersisted(value);
+            }
+            writeFieldType.write(statement, index, converted);
+        }
+    }
 }
@@ -0,0 +1,413 @@
+/*
+ * Copyright 2018 requery.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.requery.sql;
+
+import io.requery.EntityCache;
+import io.requery.PersistenceException;
+import io.requery.meta.Attribute;
+import io.requery.meta.Type;
+import io.requery.proxy.EntityProxy;
+import io.requery.proxy.PropertyState;
+import io.requery.util.Objects;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Combines single entity inserts and updates made concurrently from different threads into
+ * groups that are written in one transaction, so that many writers share a single commit. Inserts
+ * of the same type within a group are written as one JDBC batch. Each call blocks until the group
+ * containing it has been committed and then returns its own result or throws its own exception.
+ * A failing write is rolled back to a savepoint and the rest of its batch is retried individually
+ * so that one bad row doesn't fail the whole group. If the database doesn't support savepoints a
+ * failed group is rolled back and each of its writes retried in its own transaction. Post insert
+ * and update listeners are notified once the group is committed, so not for rolled back writes.
+ * <p>
+ * Writes made from a thread that is already in a transaction are executed directly.
+ *
+ * @param <T> base entity type
+ *
+ * @author Nikhil Purushe
+ */
+public class GroupCommitWriter<T> implements AutoCloseable {
+
+    private static final long POLL_MILLIS = 10;
+    private static final int MAX_GROUP_SIZE = 256;
+
+    private final EntityDataStore<T> store;
+    private final EntityContext<T> configuration;
+    private final long windowNanos;
+    private final BlockingQueue<Write<?>> queue;
+    private final Thread thread;
+    private volatile boolean closed;
+
+    GroupCommitWriter(EntityDataStore<T> store, EntityContext<T> configuration,
+                      long window, TimeUnit unit) {
+        this.store = Objects.requireNotNull(store);
+        this.configuration = Objects.requireNotNull(configuration);
+        this.windowNanos = unit.toNanos(window);
+        this.queue = new LinkedBlockingQueue<>();
+        this.thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeGroups();
+            }
+        }, "requery-group-commit");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Inserts the entity as part of the next group commit.
+     *
+     * @param entity to insert
+     * @param <E>    entity type
+     * @return the inserted entity
+     */
+    public <E extends T> E insert(E entity) {
+        insert(entity, null);
+        return entity;
+    }
+
+    /**
+     * Inserts the entity as part of the next group commit.
+     *
+     * @param entity   to insert
+     * @param keyClass type of the generated key or null
+     * @param <K>      key type
+     * @param <E>      entity type
+     * @return the generated key if keyClass is specified
+     */
+    public <K, E extends T> K insert(E entity, Class<K> keyClass) {
+        if (inTransaction()) {
+            return store.insert(entity, keyClass);
+        }
+        Write<E> write = new Write<>(true, entity, keyClass);
+        submit(write);
+        return keyClass == null ? null : keyClass.cast(write.await());
+    }
+
+    /**
+     * Updates the entity as part of the next group commit.
+     *
+     * @param entity to update
+     * @param <E>    entity type
+     * @return the updated entity
+     */
+    public <E extends T> E update(E entity) {
+        if (inTransaction()) {
+            return store.update(entity);
+        }
+        Write<E> write = new Write<>(false, entity, null);
+        submit(write);
+        write.await();
+        return entity;
+    }
+
+    /**
+     * Stops accepting writes, waits for the pending writes to be committed.
+     */
+    @Override
+    public void close() {
+        synchronized (queue) {
+            closed = true;
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean inTransaction() {
+        return configuration.getTransactionProvider().get().active();
+    }
+
+    private void submit(Write<?> write) {
+        // closed is checked and the write queued atomically so none are left behind on close
+        synchronized (queue) {
+            if (closed) {
+                throw new IllegalStateException("closed");
+            }
+            queue.add(write);
+        }
+    }
+
+    private void writeGroups() {
+        List<Write<?>> group = new ArrayList<>();
+        while (!(closed && queue.isEmpty())) {
+            try {
+                Write<?> first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                long deadline = System.nanoTime() + windowNanos;
+                while (group.size() < MAX_GROUP_SIZE) {
+                    long remaining = deadline - System.nanoTime();
+                    Write<?> next = remaining > 0 ?
+                        queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                }
+            } catch (InterruptedException e) {
+                // not expected, keep running until closed
+            }
+            if (!group.isEmpty()) {
+                try {
+                    writeGroup(group);
+                } catch (Throwable e) {
+                    // fail the writes instead of leaving the callers blocked
+                    for (Write<?> write : group) {
+                        write.error = e;
+                    }
+                } finally {
+                    for (Write<?> write : group) {
+                        write.complete();
+                    }
+                    group.clear();
+                }
+            }
+        }
+    }
+
+    private void writeGroup(List<Write<?>> group) {
+        // same type writes of the same kind are executed together in arrival order
+        Map<Object, List<Write<?>>> runs = new LinkedHashMap<>();
+        for (Write<?> write : group) {
+            Object key = write.insert ? write.proxy.type() : write;
+            List<Write<?>> run = runs.get(key);
+            if (run == null) {
+                run = new ArrayList<>();
+                runs.put(key, run);
+            }
+            run.add(write);
+        }
+        boolean committed = false;
+        // listeners are notified once the group is committed, not for writes rolled back
+        CompositeEntityListener<T> listener = configuration.getStateListener();
+        listener.beginDeferring();
+        try (EntityTransaction transaction = configuration.getTransactionProvider().get()) {
+            transaction.begin();
+            try (Connection connection = configuration.getConnection()) {
+                for (List<Write<?>> run : runs.values()) {
+                    if (run.size() > 1) {
+                        writeBatch(connection, run);
+                    } else {
+                        writeEach(connection, run);
+                    }
+                }
+            }
+            transaction.commit();
+            committed = true;
+        } catch (Exception ignored) {
+            // rolled back when the transaction is closed
+        } finally {
+            listener.endDeferring(committed);
+        }
+        if (!committed) {
+            // the group was rolled back, retry each write in its own transaction
+            for (Write<?> write : group) {
+                write.retry();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeBatch(Connection connection, List<Write<?>> run) throws SQLException {
+        Savepoint savepoint = savepoint(connection);
+        int events = configuration.getStateListener().deferredCount();
+        try {
+            List<T> entities = new ArrayList<>(run.size());
+            Class<?> keyClass = null;
+            for (Write<?> write : run) {
+                entities.add(write.entity);
+                if (write.keyClass != null) {
+                    keyClass = write.keyClass;
+                }
+            }
+            Iterable<?> keys = store.insert(entities, keyClass);
+            if (keyClass != null) {
+                Iterator<?> iterator = keys.iterator();
+                for (Write<?> write : run) {
+                    write.result = iterator.hasNext() ? iterator.next() : null;
+                }
+            }
+        } catch (RuntimeException e) {
+            if (savepoint == null) {
+                throw e;
+            }
+            connection.rollback(savepoint);
+            configuration.getStateListener().discardDeferred(events);
+            for (Write<?> write : run) {
+                write.restore();
+            }
+            writeEach(connection, run);
+        }
+    }
+
+    private void writeEach(Connection connection, List<Write<?>> run) throws SQLException {
+        for (Write<?> write : run) {
+            Savepoint savepoint = savepoint(connection);
+            int events = configuration.getStateListener().deferredCount();
+            try {
+                write.result = write.insert ?
+                    store.insert(write.entity, write.keyClass) : store.update(write.entity);
+            } catch (RuntimeException e) {
+                if (savepoint == null) {
+                    throw e;
+                }
+                connection.rollback(savepoint);
+                configuration.getStateListener().discardDeferred(events);
+                write.restore();
+                write.error = e;
+            }
+        }
+    }
+
+    private static Savepoint savepoint(Connection connection) throws SQLException {
+        try {
+            return connection.setSavepoint();
+        } catch (SQLFeatureNotSupportedException e) {
+            return null;
+        }
+    }
+
+    /**
+     * A single pending insert or update, holds a copy of the entity state so that a write that
+     * was rolled back can be retried.
+     */
+    private class Write<E extends T> {
+
+        private final boolean insert;
+        private final E entity;
+        private final Class<?> keyClass;
+        private final EntityProxy<E> proxy;
+        private final PropertyState[] states;
+        private final Object[] values;
+        private final CountDownLatch latch;
+        private Object result;
+        private Throwable error;
+
+        @SuppressWarnings("unchecked")
+        Write(boolean insert, E entity, Class<?> keyClass) {
+            this.insert = insert;
+            this.entity = Objects.requireNotNull(entity);
+            this.keyClass = keyClass;
+            Type<E> type = (Type<E>) configuration.getModel().typeOf(entity.getClass());
+            this.proxy = type.getProxyProvider().apply(entity);
+            this.latch = new CountDownLatch(1);
+            if (type.isImmutable() || type.isStateless()) {
+                states = null;
+                values = null;
+            } else {
+                // only the states, generated keys and version are changed by a failed write
+                int size = type.getAttributes().size();
+                states = new PropertyState[size];
+                values = new Object[size];
+                int i = 0;
+                for (Attribute<E, ?> attribute : type.getAttributes()) {
+                    states[i] = proxy.getState(attribute);
+                    if (isRestored(attribute)) {
+                        values[i] = proxy.get(attribute, false);
+                    }
+                    i++;
+                }
+            }
+        }
+
+        private boolean isRestored(Attribute<E, ?> attribute) {
+            return (attribute.isKey() && attribute.isGenerated()) || attribute.isVersion();
+        }
+
+        void restore() {
+            if (insert) {
+                // the entity was cached with a key that was rolled back
+                EntityCache cache = configuration.getCache();
+                Object key = proxy.key();
+                if (cache != null && key != null) {
+                    cache.invalidate(proxy.type().getClassType(), key);
+                }
+            }
+            if (states == null) {
+                return;
+            }
+            int i = 0;
+            for (Attribute<E, ?> attribute : proxy.type().getAttributes()) {
+                if (isRestored(attribute)) {
+                    proxy.setObject(attribute, values[i], states[i]);
+                } else {
+                    proxy.setState(attribute, states[i]);
+                }
+                i++;
+            }
+            result = null;
+            error = null;
+        }
+
+        void retry() {
+            try {
+                restore();
+                result = insert ?
+                    store.insert(entity, keyClass) : store.update(entity);
+            } catch (Throwable e) {
+                error = e;
+            }
+        }
+
+        void complete() {
+            latch.countDown();
+        }
+
+        Object await() {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    latch.await();
+                    break;
+                } catch (InterruptedException e) {
+                    // the write can't be cancelled once queued
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (error instanceof RuntimeException) {
+                throw (RuntimeException) error;
+            } else if (error instanceof Error) {
+                throw (Error) error;
+            } else if (error != null) {
+                throw new PersistenceException(error);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2018 requery.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.requery.sql;
+
+import io.requery.PersistenceException;
+import io.requery.meta.Attribute;
+import io.requery.util.Objects;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * {@link KeyAllocator} using the hi/lo algorithm. Each value read from a database sequence (the
+ * hi value) reserves a block of keys, which are then handed out without going to the database
+ * until the block is used up. The sequence must be incremented by 1 and is shared by all the
+ * numeric generated keys, so keys are unique across tables.
+ *
+ * @author Nikhil Purushe
+ */
+public class HiLoKeyAllocator implements KeyAllocator {
+
+    private final ConnectionProvider connectionProvider;
+    private final Platform platform;
+    private final String sequence;
+    private final int blockSize;
+    private long next;
+    private long limit;
+
+    /**
+     * @param connectionProvider provider of the connections used to read the sequence, the
+     *                           sequence is read outside of any transaction in progress
+     * @param platform           platform of the database containing the sequence
+     * @param sequence           name of the sequence
+     * @param blockSize          number of keys reserved for each sequence value
+     */
+    public HiLoKeyAllocator(ConnectionProvider connectionProvider, Platform platform,
+                            String sequence, int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.connectionProvider = Objects.requireNotNull(connectionProvider);
+        this.platform = Objects.requireNotNull(platform);
+        this.sequence = Objects.requireNotNull(sequence);
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public boolean canAllocate(Attribute<?, ?> attribute) {
+        Class<?> type = attribute.getClassType();
+        return type == int.class || type == Integer.class ||
+               type == long.class || type == Long.class;
+    }
+
+    @Override
+    public synchronized Object allocate(Attribute<?, ?> attribute) {
+        if (next >= limit) {
+            try {
+                next = Math.multiplyExact(nextSequenceValue(), (long) blockSize);
+                limit = Math.addExact(next, (long) blockSize);
+            } catch (ArithmeticException e) {
+                next = limit = 0;
+                throw new PersistenceException("keys of sequence " + sequence + " overflow", e);
+            }
+        }
+        Class<?> type = attribute.getClassType();
+        if ((type == int.class || type == Integer.class) && next > Integer.MAX_VALUE) {
+            throw new PersistenceException(
+                "key " + next + " of sequence " + sequence + " overflows " + attribute.getName());
+        }
+        return next++;
+    }
+
+    private long nextSequenceValue() {
+        String sql = platform.sequenceDefinition().nextValueQuery(sequence);
+        if (sql == null) {
+            throw new UnsupportedOperationException("sequences not supported by " + platform);
+        }
+        try (Connection connection = connectionProvider.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet results = statement.executeQuery(sql)) {
+            if (!results.next()) {
+                throw new PersistenceException("no value for sequence " + sequence);
+            }
+            return results.getLong(1);
+        } catch (SQLException e) {
+            throw new PersistenceException(e);
+        }
+    }
+}
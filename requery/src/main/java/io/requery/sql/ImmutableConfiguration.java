@@ -48,6 +48,9 @@ final class ImmutableConfiguration implements Configuration {
     private final Set<StatementListener> statementListeners;
     private final Set<Supplier<TransactionListener>> transactionListenerFactories;
     private final Executor writeExecutor;
+    private final KeyAllocator keyAllocator;
+    private final QueryCacheInvalidation queryCacheInvalidation;
+    private final boolean cacheAssociations;
 
     ImmutableConfiguration(ConnectionProvider connectionProvider,
                            Platform platform,
@@ -66,7 +69,10 @@ final class ImmutableConfiguration implements Configuration {
                            TransactionMode transactionMode,
                            TransactionIsolation transactionIsolation,
                            Set<Supplier<TransactionListener>> transactionListenerFactories,
-                           Executor writeExecutor) {
+                           Executor writeExecutor,
+                           KeyAllocator keyAllocator,
+                           QueryCacheInvalidation queryCacheInvalidation,
+                           boolean cacheAssociations) {
         this.connectionProvider = connectionProvider;
         this.platform = platform;
         this.model = model;
@@ -85,6 +91,9 @@ final class ImmutableConfiguration implements Configuration {
         this.transactionIsolation = transactionIsolation;
         this.transactionListenerFactories = transactionListenerFactories;
         this.writeExecutor = writeExecutor;
+        this.keyAllocator = keyAllocator;
+        this.queryCacheInvalidation = queryCacheInvalidation;
+        this.cacheAssociations = cacheAssociations;
     }
 
     @Override
@@ -177,6 +186,21 @@ final class ImmutableConfiguration implements Configuration {
         return writeExecutor;
     }
 
+    @Override
+    public KeyAllocator getKeyAllocator() {
+        return keyAllocator;
+    }
+
+    @Override
+    public QueryCacheInvalidation getQueryCacheInvalidation() {
+        return queryCacheInvalidation;
+    }
+
+    @Override
+    public boolean getCacheAssociations() {
+        return cacheAssociations;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj instanceof Configuration) {
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2018 requery.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.requery.sql;
+
+import io.requery.meta.Attribute;
+
+/**
+ * Assigns the values of {@link io.requery.Generated} key attributes on the client before the
+ * entity is inserted. Since the key is then known up front the insert doesn't have to read back
+ * generated keys and can be batched on every platform.
+ *
+ * @author Nikhil Purushe
+ */
+public interface KeyAllocator {
+
+    /**
+     * @param attribute generated key attribute
+     * @return true if this allocator assigns the values of the attribute, false to let the
+     * database generate them
+     */
+    boolean canAllocate(Attribute<?, ?> attribute);
+
+    /**
+     * @param attribute generated key attribute
+     * @return the next unique key value for the attribute, {@link Number} values are converted to
+     * the type of the attribute
+     */
+    Object allocate(Attribute<?, ?> attribute);
+}
@@ -151,6 +151,7 @@ public enum Keyword {
     RENAME,
     REPLACE,
     RESTRICT,
+    RETURNING,
     RIGHT,
     ROLLBACK,
     ROW,
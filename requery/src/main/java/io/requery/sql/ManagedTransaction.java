@@ -152,6 +152,7 @@ class ManagedTransaction implements EntityTransaction, ConnectionProvider, Synch
             try {
                 transactionListener.beforeCommit(entities.types());
                 getUserTransaction().commit();
+                entities.complete();
                 transactionListener.afterCommit(entities.types());
             } catch (RollbackException | SystemException | HeuristicMixedException |
                 HeuristicRollbackException e) {
@@ -184,6 +185,7 @@ class ManagedTransaction implements EntityTransaction, ConnectionProvider, Synch
                 }
             } finally {
                 rolledBack = true;
+                entities.complete();
                 entities.clearAndInvalidate();
             }
         }
@@ -202,6 +204,10 @@ class ManagedTransaction implements EntityTransaction, ConnectionProvider, Synch
     @Override
     public void afterCompletion(int status) {
         switch (status) {
+            case Status.STATUS_COMMITTED:
+                // commit of a transaction not initiated here
+                entities.complete();
+                break;
             case Status.STATUS_ROLLEDBACK:
             case Status.STATUS_MARKED_ROLLBACK:
             case Status.STATUS_ROLLING_BACK:
@@ -222,4 +228,22 @@ class ManagedTransaction implements EntityTransaction, ConnectionProvider, Synch
     public void addToTransaction(Collection<Type<?>> types) {
         entities.types().addAll(types);
     }
+
+    @Override
+    public void addCompletionAction(Runnable action) {
+        entities.addCompletionAction(action);
+    }
+
+    @Override
+    public void beginUnitOfWork() {
+        if (!active()) {
+            throw new IllegalStateException("no active transaction");
+        }
+        entities.beginUnitOfWork();
+    }
+
+    @Override
+    public UnitOfWork unitOfWork() {
+        return entities.unitOfWork();
+    }
 }
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2018 requery.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.requery.sql;
+
+import io.requery.meta.Attribute;
+import io.requery.meta.EntityModel;
+import io.requery.meta.Type;
+import io.requery.query.Expression;
+import io.requery.query.ExpressionType;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Holds a {@link FieldMapping} for every attribute in an {@link EntityModel}, resolved once from
+ * the {@link Mapping} when the store is first used. Mappings of other expressions are resolved on
+ * first use, by class type, aliased attribute or expression. The plan should be created after all
+ * types have been added to the {@link Mapping}, changes to the mapping made after that are not
+ * reflected.
+ *
+ * @author Nikhil Purushe
+ */
+final class MappingPlan {
+
+    // bounds the mappings resolved on first use, if many distinct expressions are used
+    private static final int MAX_RESOLVED = 256;
+
+    private final Mapping mapping;
+    private final Map<Attribute<?, ?>, FieldMapping<?>> attributes;
+    private final ConcurrentMap<Class<?>, FieldMapping<?>> types;
+    private final ConcurrentMap<Expression<?>, FieldMapping<?>> aliases;
+    private final ConcurrentMap<Expression<?>, FieldMapping<?>> expressions;
+
+    MappingPlan(Mapping mapping, EntityModel model) {
+        this.mapping = mapping;
+        Map<Attribute<?, ?>, FieldMapping<?>> attributes = new IdentityHashMap<>();
+        for (Type<?> type : model.getTypes()) {
+            for (Attribute<?, ?> attribute : type.getAttributes()) {
+                // skip associations that aren't stored in a column of the type
+                if (attribute.isAssociation() &&
+                    !(attribute.isForeignKey() || attribute.isKey())) {
+                    continue;
+                }
+                attributes.put(attribute, create((Expression<?>) attribute));
+            }
+        }
+        this.attributes = Collections.unmodifiableMap(attributes);
+        this.types = new ConcurrentHashMap<>();
+        this.aliases = new ConcurrentHashMap<>();
+        this.expressions = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * @param configuration store configuration
+     * @return the plan of the store, or a new plan if the configuration isn't from a store
+     */
+    static MappingPlan of(RuntimeConfiguration configuration) {
+        if (configuration instanceof EntityDataStore.DataContext) {
+            return ((EntityDataStore.DataContext) configuration).getMappingPlan();
+        }
+        return new MappingPlan(configuration.getMapping(), configuration.getModel());
+    }
+
+    @SuppressWarnings("unchecked")
+    <A> FieldMapping<A> get(Expression<A> expression) {
+        FieldMapping<?> fieldMapping;
+        ExpressionType expressionType = expression.getExpressionType();
+        if (expressionType == ExpressionType.ATTRIBUTE) {
+            fieldMapping = attributes.get(expression);
+            if (fieldMapping == null) {
+                // attribute not part of the model
+                fieldMapping = create(expression);
+            }
+        } else if (expressionType == ExpressionType.ALIAS &&
+            expression.getInnerExpression() != null) {
+            // only depends on the aliased attribute, not on the alias name
+            fieldMapping = resolve(aliases, expression.getInnerExpression(), expression);
+        } else if (expression.getClassType() != null && mapping instanceof GenericMapping) {
+            // only depends on the class type of the expression
+            fieldMapping = resolve(types, expression.getClassType(), expression);
+        } else {
+            fieldMapping = resolve(expressions, expression, expression);
+        }
+        return (FieldMapping<A>) fieldMapping;
+    }
+
+    private <K> FieldMapping<?> resolve(ConcurrentMap<K, FieldMapping<?>> resolved, K key,
+                                        Expression<?> expression) {
+        FieldMapping<?> fieldMapping = resolved.get(key);
+        if (fieldMapping == null) {
+            fieldMapping = create(expression);
+            if (resolved.size() < MAX_RESOLVED) {
+                FieldMapping<?> existing = resolved.putIfAbsent(key, fieldMapping);
+                if (existing != null) {
+                    fieldMapping = existing;
+                }
+            }
+        }
+        return fieldMapping;
+    }
+
+    private <A> FieldMapping<A> create(Expression<A> expression) {
+        if (mapping instanceof GenericMapping) {
+            return ((GenericMapping) mapping).bind(expression);
+        }
+        return new DelegatingFieldMapping<>(mapping, expression);
+    }
+
+    private static final class DelegatingFieldMapping<A> implements FieldMapping<A> {
+
+        private final Mapping mapping;
+        private final Expression<A> expression;
+
+        DelegatingFieldMapping(Mapping mapping, Expression<A> expression) {
+            this.mapping = mapping;
+            this.expression = expression;
+        }
+
+        @Override
+        public A read(ResultSet results, int column) throws SQLException {
+            return mapping.read(expression, results, column);
+        }
+
+        @Override
+        public void write(PreparedStatement statement, int index, A value) throws SQLException {
+            mapping.write(expression, statement, index, value);
+        }
+    }
+}
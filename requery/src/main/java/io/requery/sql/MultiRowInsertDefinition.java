@@ -0,0 +1,52 @@
+/*
+ * Copyright 2018 requery.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.requery.sql;
+
+import io.requery.meta.Attribute;
+import io.requery.meta.Type;
+
+import java.sql.Connection;
+import java.util.List;
+
+/**
+ * Loads rows with insert statements containing multiple rows in the values clause, limited by the
+ * number of parameters the database accepts in a single statement.
+ *
+ * @author Nikhil Purushe
+ */
+public class MultiRowInsertDefinition implements BulkLoadDefinition {
+
+    private final int maxParameters;
+    private final int maxRows;
+
+    public MultiRowInsertDefinition(int maxParameters, int maxRows) {
+        this.maxParameters = maxParameters;
+        this.maxRows = maxRows;
+    }
+
+    @Override
+    public int rowsPerStatement(int columns) {
+        int rows = maxParameters / Math.max(1, columns);
+        return Math.max(1, Math.min(maxRows, rows));
+    }
+
+    @Override
+    public boolean write(Connection connection, Mapping mapping, Type<?> type,
+                         Attribute<?, ?>[] columns, List<Object[]> rows) {
+        return false;
+    }
+}
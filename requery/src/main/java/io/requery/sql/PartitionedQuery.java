@@ -0,0 +1,409 @@
+/*
+ * Copyright 2018 requery.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.requery.sql;
+
+import io.requery.PersistenceException;
+import io.requery.meta.Attribute;
+import io.requery.meta.Type;
+import io.requery.query.Condition;
+import io.requery.query.Expression;
+import io.requery.query.Operator;
+import io.requery.query.Result;
+import io.requery.query.Tuple;
+import io.requery.query.element.LogicalOperator;
+import io.requery.query.element.QueryElement;
+import io.requery.query.element.QueryType;
+import io.requery.query.element.WhereConditionElement;
+import io.requery.query.function.Max;
+import io.requery.query.function.Min;
+import io.requery.sql.gen.DefaultOutput;
+import io.requery.util.CloseableIterator;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Splits a select query into key ranges of an integral attribute and executes each range on its
+ * own connection. The ranges are exposed as a {@link Spliterator} that splits on partition
+ * boundaries so that a parallel stream consumes the partitions concurrently.
+ *
+ * @param <E> type of element
+ *
+ * @author Nikhil Purushe
+ */
+class PartitionedQuery<E> {
+
+    private final RuntimeConfiguration configuration;
+    private final QueryElement<?> query;
+    private final ResultReader<E> reader;
+    private final Set<? extends Expression<?>> selection;
+    private final List<String> statements;
+    private final List<BoundParameters> parameters;
+    private final Deque<AutoCloseable> resources;
+    private Connection[] connections;
+
+    PartitionedQuery(RuntimeConfiguration configuration,
+                     QueryElement<?> query, ResultReader<E> reader) {
+        this.configuration = configuration;
+        this.query = query;
+        this.reader = reader;
+        this.selection = query.getSelection();
+        this.statements = new ArrayList<>();
+        this.parameters = new ArrayList<>();
+        this.resources = new ConcurrentLinkedDeque<>();
+    }
+
+    static boolean canPartition(QueryElement<?> query) {
+        if (query.getLimit() != null || query.getOffset() != null || query.isDistinct() ||
+            query.getOperator() != null || query.getWhereExistsElement() != null) {
+            return false;
+        }
+        if (query.getGroupByExpressions() != null && !query.getGroupByExpressions().isEmpty()) {
+            return false;
+        }
+        if (query.getWhereElements() != null) {
+            for (WhereConditionElement<?> element : query.getWhereElements()) {
+                if (element.getOperator() == LogicalOperator.NOT) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    <N extends Number> Stream<E> stream(Expression<N> key, int partitions, boolean snapshot) {
+        if (!(key instanceof Attribute)) {
+            throw new IllegalArgumentException("partition key must be an attribute");
+        }
+        Class<N> type = key.getClassType();
+        long[] bounds = partitions > 1 ? bounds(key) : null;
+        long width = -1;
+        if (bounds != null) {
+            try {
+                width = Math.subtractExact(bounds[1], bounds[0]);
+            } catch (ArithmeticException e) {
+                // wider than a long, not split
+                width = -1;
+            }
+        }
+        if (width < 0) {
+            // no keys to split on
+            addPartition(null);
+        } else {
+            long min = bounds[0];
+            // partitions > 1 so step can't overflow, (count - 1) * step <= width so the range
+            // bounds below stay within min and max
+            long step = width / partitions + 1;
+            int count = (int) Math.min(partitions, width / step + 1);
+            for (int i = 0; i < count; i++) {
+                long lower = min + i * step;
+                // only used for ranges before the last one
+                long upper = i < count - 1 ? lower + step : bounds[1];
+                Condition<?, ?> range;
+                if (count == 1) {
+                    range = null;
+                } else if (i == 0) {
+                    // first range also holds values below the minimum and nulls
+                    range = new PartitionCondition(
+                        new PartitionCondition(key, Operator.LESS_THAN, valueOf(type, upper)),
+                        Operator.OR,
+                        new PartitionCondition(key, Operator.IS_NULL, null));
+                } else if (i == count - 1) {
+                    // last range is open to values above the maximum
+                    range = new PartitionCondition(
+                        key, Operator.GREATER_THAN_OR_EQUAL, valueOf(type, lower));
+                } else {
+                    range = new PartitionCondition(
+                        new PartitionCondition(
+                            key, Operator.GREATER_THAN_OR_EQUAL, valueOf(type, lower)),
+                        Operator.AND,
+                        new PartitionCondition(key, Operator.LESS_THAN, valueOf(type, upper)));
+                }
+                addPartition(range);
+            }
+        }
+        if (snapshot) {
+            shareSnapshot();
+        }
+        Spliterator<E> spliterator = new PartitionSpliterator(0, statements.size());
+        return StreamSupport.stream(spliterator, true).onClose(new Runnable() {
+            @Override
+            public void run() {
+                close();
+            }
+        });
+    }
+
+    private <N extends Number> long[] bounds(Expression<N> key) {
+        SelectOperation<Tuple> operation =
+            new SelectOperation<>(configuration, new TupleResultReader(configuration));
+        QueryElement<Result<Tuple>> boundsQuery =
+            new QueryElement<>(QueryType.SELECT, configuration.getModel(), operation);
+        boundsQuery.select(Min.min(key), Max.max(key));
+        // bounds of the selected rows only so that the partitions are balanced
+        Set<WhereConditionElement<?>> where = query.getWhereElements();
+        if (where != null && !where.isEmpty() && isSingleTable((Attribute<?, ?>) key)) {
+            boundsQuery.where(combine(new ArrayList<>(where)));
+        }
+        try (Result<Tuple> result = boundsQuery.get()) {
+            Tuple tuple = result.first();
+            Number min = tuple.get(0);
+            Number max = tuple.get(1);
+            if (min == null || max == null) {
+                return null;
+            }
+            return new long[] { min.longValue(), max.longValue() };
+        }
+    }
+
+    // the conditions can only be applied to the bounds query if they refer to the key's table
+    private boolean isSingleTable(Attribute<?, ?> key) {
+        if (query.joinElements() != null && !query.joinElements().isEmpty()) {
+            return false;
+        }
+        query.fromExpressions();
+        Set<Type<?>> types = query.entityTypes();
+        return types != null && types.size() == 1 && types.contains(key.getDeclaringType());
+    }
+
+    private static Object valueOf(Class<?> type, long value) {
+        if (type == Long.class || type == long.class) {
+            return value;
+        } else if (type == Integer.class || type == int.class) {
+            return (int) value;
+        } else if (type == Short.class || type == short.class) {
+            return (short) value;
+        } else if (type == Byte.class || type == byte.class) {
+            return (byte) value;
+        }
+        throw new IllegalArgumentException("partition key must be integral " + type);
+    }
+
+    private void addPartition(Condition<?, ?> range) {
+        Set<WhereConditionElement<?>> where = query.getWhereElements();
+        List<WhereConditionElement<?>> elements = where == null ?
+            Collections.<WhereConditionElement<?>>emptyList() : new ArrayList<>(where);
+        Condition<?, ?> existing = combine(elements);
+        Condition<?, ?> condition = range;
+        if (existing != null) {
+            condition = range == null ?
+                existing : new PartitionCondition(range, Operator.AND, existing);
+        }
+        try {
+            if (condition != null) {
+                if (where != null) {
+                    where.clear();
+                }
+                query.where(condition);
+            }
+            DefaultOutput generator = new DefaultOutput(configuration, query);
+            statements.add(generator.toSql());
+            parameters.add(generator.parameters());
+        } finally {
+            // restore the original conditions
+            where = query.getWhereElements();
+            if (where != null) {
+                where.clear();
+                where.addAll(elements);
+            }
+        }
+    }
+
+    // folds the where elements into a single condition keeping AND precedence over OR
+    private static Condition<?, ?> combine(List<WhereConditionElement<?>> elements) {
+        Condition<?, ?> result = null;
+        Condition<?, ?> group = null;
+        for (WhereConditionElement<?> element : elements) {
+            if (element.getOperator() == LogicalOperator.OR) {
+                result = result == null ? group :
+                    new PartitionCondition(result, Operator.OR, group);
+                group = element.getCondition();
+            } else {
+                group = group == null ? element.getCondition() :
+                    new PartitionCondition(group, Operator.AND, element.getCondition());
+            }
+        }
+        if (group == null) {
+            return result;
+        }
+        return result == null ? group : new PartitionCondition(result, Operator.OR, group);
+    }
+
+    private void shareSnapshot() {
+        SnapshotDefinition definition = configuration.getPlatform().snapshotDefinition();
+        connections = new Connection[statements.size()];
+        try {
+            String snapshot = null;
+            for (int i = 0; i < connections.length; i++) {
+                final Connection connection = configuration.getConnection();
+                connections[i] = connection;
+                // the snapshot changes these, restore them before the connection is pooled again
+                final int isolation = connection.getTransactionIsolation();
+                final boolean autoCommit = connection.getAutoCommit();
+                resources.add(new AutoCloseable() {
+                    @Override
+                    public void close() throws SQLException {
+                        try {
+                            // read only, end the snapshot transaction
+                            connection.rollback();
+                            connection.setAutoCommit(autoCommit);
+                            connection.setTransactionIsolation(isolation);
+                        } finally {
+                            connection.close();
+                        }
+                    }
+                });
+                if (snapshot == null) {
+                    snapshot = definition.exportSnapshot(connection);
+                } else {
+                    definition.importSnapshot(connection, snapshot);
+                }
+            }
+        } catch (SQLException e) {
+            close();
+            throw new PersistenceException(e);
+        }
+    }
+
+    private CloseableIterator<E> open(int partition) {
+        String sql = statements.get(partition);
+        BoundParameters boundParameters = parameters.get(partition);
+        PreparedStatement statement = null;
+        try {
+            boolean ownsConnection = connections == null;
+            Connection connection = ownsConnection ?
+                configuration.getConnection() : connections[partition];
+            statement = connection.prepareStatement(sql,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            StatementListener listener = configuration.getStatementListener();
+            listener.beforeExecuteQuery(statement, sql, boundParameters);
+            SelectResult.bindParameters(configuration.getMapping(), statement, boundParameters);
+            ResultSet results = statement.executeQuery();
+            listener.afterExecuteQuery(statement);
+            CloseableIterator<E> iterator = new ResultSetIterator<>(
+                reader, results, selection, true, ownsConnection);
+            resources.add(iterator);
+            return iterator;
+        } catch (Exception e) {
+            throw StatementExecutionException.closing(statement, e, sql);
+        }
+    }
+
+    private void close() {
+        // iterators are closed before the connections they were opened on
+        AutoCloseable resource = resources.pollLast();
+        while (resource != null) {
+            try {
+                resource.close();
+            } catch (Exception ignored) {
+            }
+            resource = resources.pollLast();
+        }
+    }
+
+    private static class PartitionCondition implements Condition<Object, Object> {
+
+        private final Object leftOperand;
+        private final Operator operator;
+        private final Object rightOperand;
+
+        PartitionCondition(Object leftOperand, Operator operator, Object rightOperand) {
+            this.leftOperand = leftOperand;
+            this.operator = operator;
+            this.rightOperand = rightOperand;
+        }
+
+        @Override
+        public Object getLeftOperand() {
+            return leftOperand;
+        }
+
+        @Override
+        public Operator getOperator() {
+            return operator;
+        }
+
+        @Override
+        public Object getRightOperand() {
+            return rightOperand;
+        }
+    }
+
+    private class PartitionSpliterator implements Spliterator<E> {
+
+        private int index;
+        private final int fence;
+        private CloseableIterator<E> current;
+
+        PartitionSpliterator(int index, int fence) {
+            this.index = index;
+            this.fence = fence;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super E> action) {
+            while (true) {
+                if (current == null) {
+                    if (index >= fence) {
+                        return false;
+                    }
+                    current = open(index++);
+                }
+                if (current.hasNext()) {
+                    action.accept(current.next());
+                    return true;
+                }
+                current.close();
+                current = null;
+            }
+        }
+
+        @Override
+        public Spliterator<E> trySplit() {
+            // only partitions that haven't been started are split off
+            if (fence - index < 2) {
+                return null;
+            }
+            int middle = (index + fence) >>> 1;
+            PartitionSpliterator prefix = new PartitionSpliterator(index, middle);
+            index = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.NONNULL;
+        }
+    }
+}
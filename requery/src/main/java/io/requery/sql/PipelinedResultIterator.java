@@ -0,0 +1,252 @@
+/*
+ * Copyright 2018 requery.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.requery.sql;
+
+import io.requery.PersistenceException;
+import io.requery.query.Expression;
+import io.requery.util.CloseableIterator;
+
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Iterator that decodes a result in a pipeline. A fetch thread copies the raw column values of
+ * the rows into reusable chunks and the chunks are converted into elements by the
+ * {@link ResultReader} on an {@link Executor}. Elements are returned in the order of the result.
+ * The number of chunks is bounded so a slow consumer blocks the fetch thread instead of buffering
+ * the whole result. If the executor hasn't started decoding a chunk by the time it is needed the
+ * consumer decodes it itself.
+ *
+ * @param <E> type of element returned by this iterator
+ *
+ * @author Nikhil Purushe
+ */
+class PipelinedResultIterator<E> implements CloseableIterator<E> {
+
+    static final int CHUNK_SIZE = 256;
+    static final int CHUNKS = 4;
+    private static final long POLL_MILLIS = 10;
+
+    private final ResultReader<E> reader;
+    private final Set<? extends Expression<?>> selection;
+    private final ResultSetIterator<Object[]> rows;
+    private final BufferedRow.Reader rowReader;
+    private final Executor executor;
+    private final BlockingQueue<Object[][]> buffers;
+    private final BlockingQueue<Chunk> chunks;
+    private final Thread fetchThread;
+    private volatile boolean closed;
+    private Object[] elements;
+    private int index;
+    private boolean done;
+
+    PipelinedResultIterator(ResultReader<E> reader,
+                            Set<? extends Expression<?>> selection,
+                            ResultSetIterator<Object[]> rows,
+                            BufferedRow.Reader rowReader,
+                            Executor executor) {
+        this.reader = reader;
+        this.selection = selection;
+        this.rows = rows;
+        this.rowReader = rowReader;
+        this.executor = executor;
+        this.buffers = new ArrayBlockingQueue<>(CHUNKS);
+        for (int i = 0; i < CHUNKS; i++) {
+            buffers.add(new Object[CHUNK_SIZE][]);
+        }
+        this.chunks = new LinkedBlockingQueue<>();
+        this.fetchThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                fetch();
+            }
+        }, "requery-fetch");
+        fetchThread.setDaemon(true);
+        fetchThread.start();
+    }
+
+    private void fetch() {
+        try {
+            while (!closed) {
+                Object[][] buffer = buffers.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (buffer == null) {
+                    continue;
+                }
+                int count = 0;
+                while (count < buffer.length && rows.hasNext()) {
+                    rowReader.setTarget(buffer[count]);
+                    buffer[count++] = rows.next();
+                }
+                boolean last = count < buffer.length;
+                if (count > 0) {
+                    Chunk chunk = new Chunk(new Decoder(buffer, count));
+                    chunks.put(chunk);
+                    try {
+                        executor.execute(chunk);
+                    } catch (RejectedExecutionException e) {
+                        // shutdown or saturated, the consumer decodes the chunk itself
+                    }
+                } else {
+                    buffers.put(buffer);
+                }
+                if (last) {
+                    break;
+                }
+            }
+            chunks.put(Chunk.END);
+        } catch (InterruptedException e) {
+            // closed
+        } catch (Throwable e) {
+            chunks.add(new Chunk(e));
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+        while (elements == null || index >= elements.length) {
+            if (done) {
+                return false;
+            }
+            Chunk chunk;
+            try {
+                chunk = chunks.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new PersistenceException(e);
+            }
+            if (chunk == Chunk.END) {
+                done = true;
+                close();
+                return false;
+            }
+            try {
+                if (chunk.error != null) {
+                    throw new ExecutionException(chunk.error);
+                }
+                // decode here if no worker has picked up the chunk yet
+                chunk.run();
+                elements = chunk.get();
+                index = 0;
+            } catch (InterruptedException | ExecutionException e) {
+                close();
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new PersistenceException(cause == null ? e : cause);
+            }
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public E next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return (E) elements[index++];
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            // not interrupted since some drivers close the connection when interrupted during
+            // I/O, the fetch thread stops waiting for buffers once closed
+            if (Thread.currentThread() != fetchThread) {
+                try {
+                    fetchThread.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            rows.close();
+        }
+    }
+
+    /**
+     * Decodes the rows of a buffer into elements and returns the buffer for reuse.
+     */
+    private final class Decoder implements Callable<Object[]> {
+
+        private final Object[][] buffer;
+        private final int count;
+
+        Decoder(Object[][] buffer, int count) {
+            this.buffer = buffer;
+            this.count = count;
+        }
+
+        @Override
+        public Object[] call() throws Exception {
+            try {
+                BufferedRow row = rowReader.newRow();
+                Object[] decoded = new Object[count];
+                for (int i = 0; i < count; i++) {
+                    decoded[i] = reader.read(row.move(buffer[i]), selection);
+                }
+                return decoded;
+            } finally {
+                buffers.offer(buffer);
+            }
+        }
+    }
+
+    /**
+     * Chunk of rows to be decoded, completes with the decoded elements.
+     */
+    private static final class Chunk extends FutureTask<Object[]> {
+
+        static final Chunk END = new Chunk((Throwable) null);
+
+        private final Throwable error;
+
+        Chunk(Throwable error) {
+            super(new Callable<Object[]>() {
+                @Override
+                public Object[] call() {
+                    return new Object[0];
+                }
+            });
+            this.error = error;
+        }
+
+        Chunk(Callable<Object[]> decoder) {
+            super(decoder);
+            this.error = null;
+        }
+    }
+}
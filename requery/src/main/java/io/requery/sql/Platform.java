@@ -81,6 +81,18 @@ public interface Platform {
      */
     boolean supportsUpsert();
 
+    /**
+     * @return true if insert and update statements can return values of the written row with a
+     * trailing returning clause.
+     */
+    boolean supportsReturning();
+
+    /**
+     * @return true if string equality and like comparisons are case sensitive by default, as
+     * opposed to databases using a case insensitive default collation.
+     */
+    boolean supportsCaseSensitiveComparisons();
+
     /**
      * @return the type of generated key type DDL this database supports.
      */
@@ -115,4 +127,20 @@ public interface Platform {
      * @return the type of version column this database supports.
      */
     VersionColumnDefinition versionColumnDefinition();
+
+    /**
+     * @return the definition used to share a snapshot between connections or null if the
+     * database does not support it.
+     */
+    SnapshotDefinition snapshotDefinition();
+
+    /**
+     * @return the definition used by a {@link BulkLoader} to write rows into a table.
+     */
+    BulkLoadDefinition bulkLoadDefinition();
+
+    /**
+     * @return the definition used to retrieve values from a database sequence.
+     */
+    SequenceDefinition sequenceDefinition();
 }
@@ -0,0 +1,329 @@
+/*
+ * Copyright 2018 requery.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.requery.sql;
+
+import io.requery.EntityCache;
+import io.requery.meta.Attribute;
+import io.requery.meta.Type;
+import io.requery.util.function.Supplier;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * {@link EntityCache} holding all the entities of preloaded types, delegating all other types to
+ * the configured cache. A preloaded type is complete, i.e. a key not in the cache doesn't exist.
+ * Invalidating an entity removes only that entity, its key is read from the database again by
+ * {@link #reload(Class)} before the type is complete again. Entities put or invalidated in a
+ * transaction are uncommitted changes, the type isn't complete until the transaction completes.
+ *
+ * @author Nikhil Purushe
+ */
+class PreloadedEntityCache implements EntityCache {
+
+    /**
+     * Reads entities of a preloaded type from the database, which puts them into the cache.
+     */
+    interface Loader {
+        void load(Class<?> type, Set<Object> keys);
+    }
+
+    private static class Table {
+        private final ConcurrentMap<Object, Object> entities = new ConcurrentHashMap<>();
+        // invalidated keys, mapped to a marker replaced each time the key is invalidated
+        private final ConcurrentMap<Object, Object> invalidated = new ConcurrentHashMap<>();
+        // threads with a transaction that changed the table and hasn't completed
+        private final ConcurrentMap<Thread, Boolean> writers = new ConcurrentHashMap<>();
+        // guards changes of the entities so that the indexes are kept in sync
+        private final Object lock = new Object();
+        private final Map<Attribute<?, ?>, CacheIndex<?>> indexes = new HashMap<>();
+        private Thread reloading;
+        private volatile boolean complete;
+
+        boolean isComplete() {
+            return complete && invalidated.isEmpty() && writers.isEmpty();
+        }
+    }
+
+    private final EntityCache delegate;
+    private final Loader loader;
+    private final Supplier<? extends EntityTransaction> transactions;
+    private final ConcurrentMap<Class<?>, Table> tables;
+
+    PreloadedEntityCache(EntityCache delegate, Loader loader,
+                         Supplier<? extends EntityTransaction> transactions) {
+        this.delegate = delegate;
+        this.loader = loader;
+        this.transactions = transactions;
+        this.tables = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Starts preloading a type, entities put into the cache until {@link #complete} is called are
+     * held by this cache.
+     *
+     * @param type entity class
+     * @return the table to complete once all entities are loaded
+     */
+    Object beginPreload(Class<?> type) {
+        Table table = new Table();
+        Table existing = tables.putIfAbsent(type, table);
+        return existing == null ? table : existing;
+    }
+
+    /**
+     * Marks a type as completely loaded, unless it was invalidated during the load.
+     *
+     * @param type  entity class
+     * @param table value returned by {@link #beginPreload(Class)}
+     * @return true if the type is complete
+     */
+    boolean complete(Class<?> type, Object table) {
+        Table current = tables.get(type);
+        if (current == table) {
+            current.complete = true;
+            return current.isComplete();
+        }
+        return false;
+    }
+
+    /**
+     * @param type entity class
+     * @return true if the type was preloaded, it may not be complete
+     */
+    boolean isPreloaded(Class<?> type) {
+        return tables.containsKey(type);
+    }
+
+    /**
+     * @param type entity class
+     * @return true if all the entities of the type are held by the cache
+     */
+    boolean isComplete(Class<?> type) {
+        Table table = tables.get(type);
+        return table != null && table.isComplete();
+    }
+
+    /**
+     * Reads the entities of a loaded type invalidated since it was loaded, only one thread reads
+     * a type while the others wait for it.
+     *
+     * @param type entity class
+     * @return true if the type is complete
+     */
+    boolean reload(Class<?> type) {
+        Table table = tables.get(type);
+        if (table == null || !table.complete) {
+            return false;
+        }
+        synchronized (table) {
+            // the loader queries the type again, which must not reload it
+            if (table.reloading == Thread.currentThread()) {
+                return false;
+            }
+            if (!table.invalidated.isEmpty() && table.writers.isEmpty()) {
+                Map<Object, Object> keys = new HashMap<>(table.invalidated);
+                table.reloading = Thread.currentThread();
+                try {
+                    loader.load(type, keys.keySet());
+                } finally {
+                    table.reloading = null;
+                }
+                // keys invalidated again while loading are kept
+                for (Map.Entry<Object, Object> entry : keys.entrySet()) {
+                    table.invalidated.remove(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        return isComplete(type);
+    }
+
+    /**
+     * @param type entity class
+     * @param <T>  entity type
+     * @return the entities of a complete type or null if the type isn't complete
+     */
+    <T> Collection<T> values(Class<T> type) {
+        Table table = tables.get(type);
+        if (table == null || !table.isComplete()) {
+            return null;
+        }
+        @SuppressWarnings("unchecked")
+        Collection<T> values = (Collection<T>) table.entities.values();
+        return Collections.unmodifiableCollection(values);
+    }
+
+    /**
+     * Gets an index of the entities of a complete type by the value of an attribute, the index is
+     * built on first use and updated as entities are put into the cache.
+     *
+     * @param type      entity type
+     * @param attribute indexed attribute
+     * @param <T>       entity type
+     * @return the index or null if the type isn't complete or the attribute can't be indexed
+     */
+    <T> CacheIndex<T> index(Type<T> type, Attribute<T, ?> attribute) {
+        Table table = tables.get(type.getClassType());
+        if (table == null || !table.isComplete()) {
+            return null;
+        }
+        CacheIndex<?> index;
+        synchronized (table.lock) {
+            index = table.indexes.get(attribute);
+            if (index == null) {
+                @SuppressWarnings("unchecked")
+                Map<Object, T> entities = (Map<Object, T>) table.entities;
+                index = CacheIndex.build(type, attribute, entities);
+                table.indexes.put(attribute, index);
+            }
+        }
+        @SuppressWarnings("unchecked")
+        CacheIndex<T> result = (CacheIndex<T>) index;
+        return result.isIndexable() ? result : null;
+    }
+
+    @Override
+    public <T> T get(Class<T> type, Object key) {
+        Table table = tables.get(type);
+        if (table != null) {
+            Object value = table.entities.get(key);
+            if (value != null || (table.complete && !table.invalidated.containsKey(key))) {
+                return type.cast(value);
+            }
+            T cached = delegate.get(type, key);
+            if (cached != null) {
+                // cached before the type was preloaded, the reader reuses it without putting it
+                // into the cache so move it into the table
+                putEntity(table, key, cached);
+                delegate.invalidate(type, key);
+            }
+            return cached;
+        }
+        return delegate.get(type, key);
+    }
+
+    @Override
+    public <T> void put(Class<T> type, Object key, T value) {
+        Table table = tables.get(type);
+        if (table != null) {
+            markWriter(table);
+            putEntity(table, key, value);
+        } else {
+            delegate.put(type, key, value);
+        }
+    }
+
+    private <T> void putEntity(Table table, Object key, T value) {
+        synchronized (table.lock) {
+            table.entities.put(key, value);
+            Iterator<CacheIndex<?>> iterator = table.indexes.values().iterator();
+            while (iterator.hasNext()) {
+                @SuppressWarnings("unchecked")
+                CacheIndex<T> index = (CacheIndex<T>) iterator.next();
+                // built again on next use
+                if (!index.put(key, value)) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean contains(Class<?> type, Object key) {
+        Table table = tables.get(type);
+        if (table != null && table.entities.containsKey(key)) {
+            return true;
+        }
+        return delegate.contains(type, key);
+    }
+
+    /**
+     * Removes a preloaded type, it is loaded again with a full query on next use. Query based
+     * updates and deletes of preloaded types invalidate the affected keys instead, see
+     * {@link QueryCacheInvalidation}.
+     */
+    @Override
+    public void invalidate(Class<?> type) {
+        tables.remove(type);
+        delegate.invalidate(type);
+    }
+
+    @Override
+    public void invalidate(Class<?> type, Object key) {
+        Table table = tables.get(type);
+        if (table != null) {
+            markWriter(table);
+            // marked first so the key is never seen as missing from a complete type
+            table.invalidated.put(key, new Object());
+            synchronized (table.lock) {
+                table.entities.remove(key);
+                for (CacheIndex<?> index : table.indexes.values()) {
+                    index.remove(key);
+                }
+            }
+        }
+        delegate.invalidate(type, key);
+    }
+
+    // changes made in a transaction aren't committed, don't evaluate queries with them until the
+    // transaction completes
+    private void markWriter(final Table table) {
+        EntityTransaction transaction = transactions.get();
+        final Thread thread = Thread.currentThread();
+        if (!table.writers.containsKey(thread) && transaction.active()) {
+            table.writers.put(thread, Boolean.TRUE);
+            transaction.addCompletionAction(new Runnable() {
+                @Override
+                public void run() {
+                    table.writers.remove(thread);
+                }
+            });
+        }
+    }
+
+    /**
+     * Stops preloading a type after a failed load.
+     *
+     * @param type  entity class
+     * @param table value returned by {@link #beginPreload(Class)}
+     */
+    void cancel(Class<?> type, Object table) {
+        if (tables.remove(type, table)) {
+            release(type, (Table) table);
+        }
+    }
+
+    // the type is no longer complete, keep its entities in the delegate cache
+    @SuppressWarnings("unchecked")
+    private void release(Class<?> type, Table table) {
+        for (Map.Entry<Object, Object> entry : table.entities.entrySet()) {
+            delegate.put((Class<Object>) type, entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public void clear() {
+        tables.clear();
+        delegate.clear();
+    }
+}
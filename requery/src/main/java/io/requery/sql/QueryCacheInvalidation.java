@@ -0,0 +1,50 @@
+/*
+ * Copyright 2018 requery.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.requery.sql;
+
+/**
+ * Defines how cached entities are invalidated when they are changed by a query based update or
+ * delete, e.g. {@code data.update(Person.class).set(...).where(...)}. The entities are invalidated
+ * after the statement and again when the transaction it's part of completes.
+ *
+ * @author Nikhil Purushe
+ */
+public enum QueryCacheInvalidation {
+
+    /**
+     * The cache is not changed, cached entities may be stale after the query.
+     */
+    NONE,
+
+    /**
+     * All cached entities of the types affected by the query are invalidated, the default. Types
+     * preloaded into the cache are invalidated as with {@link #KEYS} instead, so that a query
+     * doesn't discard all the preloaded entities.
+     */
+    TYPE,
+
+    /**
+     * Only the cached entities with the keys affected by the query are invalidated. The keys are
+     * taken from the where clause if it selects rows by key, otherwise they are returned by the
+     * statement itself if the platform {@link Platform#supportsReturning() supports} it or
+     * selected with the same conditions before the statement is executed. Falls back to
+     * {@link #TYPE} if the keys can't be determined, e.g. for composite keys, joins or a large
+     * number of affected rows. Must be enabled explicitly since it may execute an additional
+     * query for each update or delete.
+     */
+    KEYS
+}
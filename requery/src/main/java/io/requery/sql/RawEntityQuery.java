@@ -17,24 +17,16 @@
 package io.requery.sql;
 
 import io.requery.PersistenceException;
-import io.requery.meta.Attribute;
 import io.requery.meta.Type;
 import io.requery.query.BaseResult;
 import io.requery.query.Result;
 import io.requery.util.CloseableIterator;
-import io.requery.util.function.Predicate;
 import io.requery.util.function.Supplier;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
-import java.util.HashMap;
-import java.util.LinkedHashSet;
-import java.util.Locale;
-import java.util.Map;
-import java.util.Set;
 
 /**
  * Executes a raw string query using a prepared statement with optional parameters returning a
@@ -87,29 +79,9 @@ class RawEntityQuery<E extends S, S> extends PreparedQueryOperation implements
                 listener.beforeExecuteQuery(statement, sql, boundParameters);
                 ResultSet results = statement.executeQuery();
                 listener.afterExecuteQuery(statement);
-                // read the result meta data
-                ResultSetMetaData metadata = results.getMetaData();
-                // map of entity column names to attributes
-                Map<String, Attribute<E, ?>> map = new HashMap<>();
-                for (Attribute<E, ?> attribute : type.getAttributes()) {
-                    map.put(attribute.getName().toLowerCase(Locale.ROOT), attribute);
-                }
-                Set<Attribute<E, ?>> attributes = new LinkedHashSet<>();
-                for (int i = 0; i < metadata.getColumnCount(); i++) {
-                    String name = metadata.getColumnName(i + 1);
-                    Attribute<E, ?> attribute = map.get(name.toLowerCase(Locale.ROOT));
-                    if (attribute != null) {
-                        attributes.add(attribute);
-                    }
-                }
-                Attribute[] array = Attributes.toArray(attributes,
-                    new Predicate<Attribute<E, ?>>() {
-                    @Override
-                    public boolean test(Attribute<E, ?> value) {
-                        return true;
-                    }
-                });
-                EntityResultReader<E, S> entityReader = new EntityResultReader<>(reader, array);
+                // map the result columns to attributes once from the meta data
+                ColumnLayout<E> layout = ColumnLayout.of(type, results.getMetaData());
+                ResultReader<E> entityReader = reader.newResultReader(layout);
                 return new ResultSetIterator<>(entityReader, results, null, true, true);
             } catch (SQLException e) {
                 throw new PersistenceException(e);
@@ -110,7 +110,7 @@ class RawTupleQuery extends PreparedQueryOperation implements Supplier<Result<Tu
     private class TupleResult extends BaseResult<Tuple> implements ResultReader<Tuple> {
 
         private final PreparedStatement statement;
-        private Expression[] expressions;
+        private TupleResultReader.Layout layout;
 
         private TupleResult(PreparedStatement statement) {
             this.statement = statement;
@@ -119,13 +119,7 @@ class RawTupleQuery extends PreparedQueryOperation implements Supplier<Result<Tu
         @Override
         public Tuple read(ResultSet results, Set<? extends Expression<?>> selection)
             throws SQLException {
-            Mapping mapping = configuration.getMapping();
-            MutableTuple tuple = new MutableTuple(expressions.length);
-            for (int i = 0; i < tuple.count(); i++) {
-                Object value = mapping.read(expressions[i], results, i + 1);
-                tuple.set(i, expressions[i], value);
-            }
-            return tuple;
+            return layout.read(results);
         }
 
         @Override
@@ -139,7 +133,7 @@ class RawTupleQuery extends PreparedQueryOperation implements Supplier<Result<Tu
                 // read the result meta data
                 ResultSetMetaData metadata = results.getMetaData();
                 int columns = metadata.getColumnCount();
-                expressions = new Expression[columns];
+                Expression[] expressions = new Expression[columns];
                 Mapping mapping = configuration.getMapping();
 
                 CloseableIterator<Tuple> iterator =
@@ -154,6 +148,7 @@ class RawTupleQuery extends PreparedQueryOperation implements Supplier<Result<Tu
                         Set<Class<?>> types = mapping.typesOf(sqlType);
                         expressions[i] = NamedExpression.of(name, types.iterator().next());
                     }
+                    layout = new TupleResultReader.Layout(null, expressions, configuration);
                 }
                 return iterator;
             } catch (SQLException e) {
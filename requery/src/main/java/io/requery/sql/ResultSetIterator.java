@@ -153,6 +153,20 @@ public class ResultSetIterator<E> implements CloseableIterator<E>, IndexAccessib
         }
     }
 
+    /**
+     * Cancels the statement of the result, can be called from another thread to stop a fetch in
+     * progress.
+     */
+    void cancel() {
+        try {
+            Statement statement = results.getStatement();
+            if (statement != null) {
+                statement.cancel();
+            }
+        } catch (SQLException ignored) {
+        }
+    }
+
     @Override
     public void close() {
         synchronized (results) {
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2018 requery.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.requery.sql;
+
+import io.requery.PersistenceException;
+import io.requery.util.CloseableIterator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Buffer of the raw column values of a result. Rows are stored in a single flat array up to a
+ * threshold, the remaining rows are written to a temporary file. Driver values that can't be
+ * serialized (e.g. {@link java.sql.Array}) can't be written to the file, from the first row
+ * containing one the rows are kept in memory instead. Rows are read back through a reused array
+ * so that they can be decoded one at a time.
+ *
+ * @author Nikhil Purushe
+ */
+final class RowBuffer implements AutoCloseable {
+
+    private static final int RESET_ROWS = 1024;
+
+    private final int columns;
+    private final int memoryRows;
+    private Object[] values;
+    private int rows;
+    private File file;
+    private ObjectOutputStream output;
+    private int fileRows;
+    private List<Object[]> tail;
+
+    RowBuffer(int columns, int memoryRows) {
+        this.columns = columns;
+        this.memoryRows = memoryRows;
+        this.values = new Object[Math.min(memoryRows, 64) * columns];
+    }
+
+    void add(Object[] row) throws IOException {
+        if (rows < memoryRows) {
+            int offset = rows * columns;
+            if (offset + columns > values.length) {
+                int capacity = Math.min(memoryRows, Math.max(rows * 2, 1)) * columns;
+                values = Arrays.copyOf(values, capacity);
+            }
+            System.arraycopy(row, 0, values, offset, columns);
+            rows++;
+        } else if (tail != null || !isSerializable(row)) {
+            if (tail == null) {
+                tail = new ArrayList<>();
+            }
+            tail.add(row.clone());
+        } else {
+            if (output == null) {
+                // deleted on close, not registered with deleteOnExit which is never cleared
+                file = File.createTempFile("requery", ".rows");
+                output = new ObjectOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(file)));
+            }
+            for (Object value : row) {
+                output.writeObject(value);
+            }
+            // don't let the stream hold on to the written values
+            if (++fileRows % RESET_ROWS == 0) {
+                output.reset();
+            }
+        }
+    }
+
+    private static boolean isSerializable(Object[] row) {
+        for (Object value : row) {
+            if (value != null && !(value instanceof Serializable)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void finish() throws IOException {
+        if (output != null) {
+            output.close();
+            output = null;
+        }
+    }
+
+    int size() {
+        return rows + fileRows + (tail == null ? 0 : tail.size());
+    }
+
+    CloseableIterator<Object[]> iterator() {
+        return new CloseableIterator<Object[]>() {
+            private final Object[] row = new Object[columns];
+            private ObjectInputStream input;
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < size();
+            }
+
+            @Override
+            public Object[] next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                if (index < rows) {
+                    System.arraycopy(values, index * columns, row, 0, columns);
+                } else if (index >= rows + fileRows) {
+                    System.arraycopy(tail.get(index - rows - fileRows), 0, row, 0, columns);
+                } else {
+                    try {
+                        if (input == null) {
+                            input = new ObjectInputStream(
+                                new BufferedInputStream(new FileInputStream(file)));
+                        }
+                        for (int i = 0; i < columns; i++) {
+                            row[i] = input.readObject();
+                        }
+                    } catch (IOException | ClassNotFoundException e) {
+                        close();
+                        throw new PersistenceException(e);
+                    }
+                }
+                index++;
+                return row;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void close() {
+                index = size();
+                if (input != null) {
+                    try {
+                        input.close();
+                    } catch (IOException ignored) {
+                    }
+                    input = null;
+                }
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        try {
+            finish();
+        } catch (IOException ignored) {
+        }
+        values = null;
+        tail = null;
+        if (file != null) {
+            file.delete();
+            file = null;
+        }
+    }
+}
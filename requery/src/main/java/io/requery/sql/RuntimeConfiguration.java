@@ -35,6 +35,8 @@ public interface RuntimeConfiguration extends ConnectionProvider {
 
     EntityCache getCache();
 
+    AssociationCache getAssociationCache();
+
     Platform getPlatform();
 
     Generator<QueryElement<?>> getStatementGenerator();
@@ -55,5 +57,9 @@ public interface RuntimeConfiguration extends ConnectionProvider {
 
     Executor getWriteExecutor();
 
+    KeyAllocator getKeyAllocator();
+
+    QueryCacheInvalidation getQueryCacheInvalidation();
+
     QueryBuilder.Options getQueryBuilderOptions();
 }
@@ -553,8 +553,11 @@ public class SchemaModifier implements ConnectionProvider {
         qb.attribute(attribute);
         FieldType fieldType = mapping.mapAttribute(attribute);
         GeneratedColumnDefinition generatedColumnDefinition = platform.generatedColumnDefinition();
+        // keys assigned by a key allocator are plain columns
+        boolean generated = attribute.isGenerated() &&
+            !EntityWriter.isAllocatedKey(configuration.getKeyAllocator(), attribute);
 
-        if(!(attribute.isGenerated() && generatedColumnDefinition.skipTypeIdentifier())) {
+        if(!(generated && generatedColumnDefinition.skipTypeIdentifier())) {
 
             // type id
             Object identifier = fieldType.getIdentifier();
@@ -595,7 +598,7 @@ public class SchemaModifier implements ConnectionProvider {
         }
         // generate the primary key
         if (attribute.isKey() && !attribute.isForeignKey()) {
-            if (attribute.isGenerated() && !generatedColumnDefinition.postFixPrimaryKey()) {
+            if (generated && !generatedColumnDefinition.postFixPrimaryKey()) {
                 generatedColumnDefinition.appendGeneratedSequence(qb, attribute);
                 qb.space();
             }
@@ -603,11 +606,11 @@ public class SchemaModifier implements ConnectionProvider {
             if (attribute.getDeclaringType().getKeyAttributes().size() == 1) {
                 qb.keyword(PRIMARY, KEY);
             }
-            if (attribute.isGenerated() && generatedColumnDefinition.postFixPrimaryKey()) {
+            if (generated && generatedColumnDefinition.postFixPrimaryKey()) {
                 generatedColumnDefinition.appendGeneratedSequence(qb, attribute);
                 qb.space();
             }
-        } else if (attribute.isGenerated()) {
+        } else if (generated) {
             generatedColumnDefinition.appendGeneratedSequence(qb, attribute);
             qb.space();
         }
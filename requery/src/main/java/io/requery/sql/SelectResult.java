@@ -16,23 +16,40 @@
 
 package io.requery.sql;
 
+import io.requery.PersistenceException;
 import io.requery.TransactionListenable;
 import io.requery.TransactionListener;
 import io.requery.meta.Attribute;
 import io.requery.query.BaseResult;
+import io.requery.query.BulkResult;
+import io.requery.query.Columns;
+import io.requery.query.ExportFormat;
+import io.requery.query.ExportWriter;
 import io.requery.query.Expression;
 import io.requery.query.element.QueryElement;
 import io.requery.query.element.QueryWrapper;
 import io.requery.sql.gen.DefaultOutput;
 import io.requery.util.CloseableIterator;
+import io.requery.util.PrefetchingIterator;
 import io.requery.util.function.Supplier;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Executor;
+import java.util.stream.DoubleStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Represents the result of a select query.
@@ -41,6 +58,11 @@ import java.util.Set;
  */
 class SelectResult<E> extends BaseResult<E> implements TransactionListenable, QueryWrapper {
 
+    // rows kept in memory by a detached result before spilling to a temporary file
+    private static final int DETACHED_MEMORY_ROWS = 10000;
+    // rows fetched at a time when writing the result out
+    private static final int EXPORT_FETCH_SIZE = 1000;
+
     private final QueryElement<?> query;
     private final RuntimeConfiguration configuration;
     private final ResultReader<E> reader;
@@ -88,12 +110,33 @@ class SelectResult<E> extends BaseResult<E> implements TransactionListenable, Qu
 
     @Override
     public CloseableIterator<E> createIterator(int skip, int take) {
+        return execute(reader, skip, take);
+    }
+
+    @Override
+    protected CloseableIterator<E> createPrefetchingIterator(int fetchSize) {
+        // fetch from the database in the same chunks that are read ahead
+        final ResultSetIterator<E> iterator = execute(reader, 0, Integer.MAX_VALUE, fetchSize);
+        return new PrefetchingIterator<E>(iterator, fetchSize) {
+            @Override
+            protected void cancel() {
+                iterator.cancel();
+            }
+        };
+    }
+
+    private <T> ResultSetIterator<T> execute(ResultReader<T> reader, int skip, int take) {
+        return execute(reader, skip, take, limit == null ? 0 : limit);
+    }
+
+    private <T> ResultSetIterator<T> execute(ResultReader<T> reader,
+                                             int skip, int take, int fetchSize) {
         Statement statement = null;
         try {
             // connection held by the iterator if statement not reused
             BoundParameters parameters = createQuery(skip, take);
             statement = createStatement(!parameters.isEmpty());
-            statement.setFetchSize(limit == null ? 0 : limit);
+            statement.setFetchSize(fetchSize);
 
             StatementListener listener = configuration.getStatementListener();
             listener.beforeExecuteQuery(statement, sql, parameters);
@@ -103,25 +146,7 @@ class SelectResult<E> extends BaseResult<E> implements TransactionListenable, Qu
                 results = statement.executeQuery(sql);
             } else {
                 PreparedStatement preparedStatement = (PreparedStatement) statement;
-                Mapping mapping = configuration.getMapping();
-                for (int i = 0; i < parameters.count(); i++) {
-                    Expression expression = parameters.expressionAt(i);
-                    Object value = parameters.valueAt(i);
-                    if (expression instanceof Attribute) {
-                        // extract foreign key reference
-                        Attribute attribute = (Attribute) expression;
-                        if (attribute.isAssociation() &&
-                            (attribute.isForeignKey() || attribute.isKey())) {
-                            // get the referenced value
-                            if (value != null &&
-                                ((Expression<?>)expression).getClassType()
-                                    .isAssignableFrom(value.getClass())) {
-                                value = Attributes.replaceKeyReference(value, attribute);
-                            }
-                        }
-                    }
-                    mapping.write(expression, preparedStatement, i + 1, value);
-                }
+                bindParameters(configuration.getMapping(), preparedStatement, parameters);
                 results = preparedStatement.executeQuery();
             }
             listener.afterExecuteQuery(statement);
@@ -132,6 +157,203 @@ class SelectResult<E> extends BaseResult<E> implements TransactionListenable, Qu
         }
     }
 
+    @Override
+    protected CloseableIterator<E> createPipelinedIterator(Executor executor) {
+        BufferedRow.Reader rowReader = new BufferedRow.Reader();
+        ResultSetIterator<Object[]> rows = execute(rowReader, 0, Integer.MAX_VALUE);
+        return new PipelinedResultIterator<>(reader, selection, rows, rowReader, executor);
+    }
+
+    @Override
+    public BulkResult<E> detach() {
+        BufferedRow.Reader rowReader = new BufferedRow.Reader();
+        RowBuffer buffer = null;
+        try (ResultSetIterator<Object[]> rows = execute(rowReader, 0, Integer.MAX_VALUE)) {
+            while (rows.hasNext()) {
+                Object[] row = rows.next();
+                if (buffer == null) {
+                    buffer = new RowBuffer(row.length, DETACHED_MEMORY_ROWS);
+                }
+                buffer.add(row);
+            }
+            if (buffer == null) {
+                return new CollectionResult<>();
+            }
+            buffer.finish();
+        } catch (IOException e) {
+            if (buffer != null) {
+                buffer.close();
+            }
+            throw new PersistenceException(e);
+        }
+        return new DetachedResult<>(reader, selection, buffer, rowReader);
+    }
+
+    @SuppressWarnings("unchecked")
+    static void bindParameters(Mapping mapping, PreparedStatement statement,
+                               BoundParameters parameters) throws SQLException {
+        for (int i = 0; i < parameters.count(); i++) {
+            Expression expression = parameters.expressionAt(i);
+            Object value = parameters.valueAt(i);
+            if (expression instanceof Attribute) {
+                // extract foreign key reference
+                Attribute attribute = (Attribute) expression;
+                if (attribute.isAssociation() &&
+                    (attribute.isForeignKey() || attribute.isKey())) {
+                    // get the referenced value
+                    if (value != null &&
+                        ((Expression<?>)expression).getClassType()
+                            .isAssignableFrom(value.getClass())) {
+                        value = Attributes.replaceKeyReference(value, attribute);
+                    }
+                }
+            }
+            mapping.write(expression, statement, i + 1, value);
+        }
+    }
+
+    @Override
+    public <N extends Number> Stream<E> parallelStream(Expression<N> partitionKey,
+                                                       int partitions, boolean snapshot) {
+        EntityTransaction transaction = configuration.getTransactionProvider().get();
+        boolean inTransaction = transaction != null && transaction.active();
+        // partitions run on separate connections, outside of the current transaction
+        if (partitions < 2 || inTransaction || !PartitionedQuery.canPartition(query) ||
+            (snapshot && configuration.getPlatform().snapshotDefinition() == null)) {
+            return stream();
+        }
+        return new PartitionedQuery<>(configuration, query, reader)
+            .stream(partitionKey, partitions, snapshot);
+    }
+
+    @Override
+    public Columns toColumns() {
+        ColumnResultReader columnReader = new ColumnResultReader(configuration, selection);
+        try (CloseableIterator<Object> iterator = execute(columnReader, 0, Integer.MAX_VALUE)) {
+            while (iterator.hasNext()) {
+                iterator.next();
+            }
+        }
+        return columnReader.getColumns();
+    }
+
+    @Override
+    public void writeTo(Writer writer, ExportFormat format) throws IOException {
+        ExportResultReader exportReader =
+            new ExportResultReader(configuration, selection, writer, format);
+        ExportWriter output = exportReader.getOutput();
+        output.writeHeader();
+        try (CloseableIterator<Boolean> iterator =
+                 execute(exportReader, 0, Integer.MAX_VALUE, EXPORT_FETCH_SIZE)) {
+            while (iterator.hasNext()) {
+                iterator.next();
+                output.flushIfFull();
+            }
+        }
+        output.flush();
+    }
+
+    @Override
+    public LongStream longStream() {
+        ColumnResultReader.Kind kind = ColumnResultReader.kindOf(selection.iterator().next());
+        if (kind != ColumnResultReader.Kind.LONG && kind != ColumnResultReader.Kind.INT) {
+            return super.longStream();
+        }
+        final NumberReader numberReader = new NumberReader(configuration.getMapping(), false);
+        final CloseableIterator<Boolean> iterator = execute(numberReader, 0, Integer.MAX_VALUE);
+        PrimitiveIterator.OfLong values = new PrimitiveIterator.OfLong() {
+            private boolean ready;
+
+            @Override
+            public boolean hasNext() {
+                while (!ready && iterator.hasNext()) {
+                    ready = iterator.next();
+                }
+                return ready;
+            }
+
+            @Override
+            public long nextLong() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                ready = false;
+                return numberReader.longValue;
+            }
+        };
+        return StreamSupport.longStream(Spliterators.spliteratorUnknownSize(values,
+            Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(new Runnable() {
+            @Override
+            public void run() {
+                iterator.close();
+            }
+        });
+    }
+
+    @Override
+    public DoubleStream doubleStream() {
+        ColumnResultReader.Kind kind = ColumnResultReader.kindOf(selection.iterator().next());
+        if (kind == ColumnResultReader.Kind.STRING || kind == ColumnResultReader.Kind.OBJECT) {
+            return super.doubleStream();
+        }
+        final NumberReader numberReader = new NumberReader(configuration.getMapping(), true);
+        final CloseableIterator<Boolean> iterator = execute(numberReader, 0, Integer.MAX_VALUE);
+        PrimitiveIterator.OfDouble values = new PrimitiveIterator.OfDouble() {
+            private boolean ready;
+
+            @Override
+            public boolean hasNext() {
+                while (!ready && iterator.hasNext()) {
+                    ready = iterator.next();
+                }
+                return ready;
+            }
+
+            @Override
+            public double nextDouble() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                ready = false;
+                return numberReader.doubleValue;
+            }
+        };
+        return StreamSupport.doubleStream(Spliterators.spliteratorUnknownSize(values,
+            Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(new Runnable() {
+            @Override
+            public void run() {
+                iterator.close();
+            }
+        });
+    }
+
+    /**
+     * Reads the first column of each row into a primitive field, returning false for null values.
+     */
+    private static final class NumberReader implements ResultReader<Boolean> {
+
+        private final Mapping mapping;
+        private final boolean floating;
+        private long longValue;
+        private double doubleValue;
+
+        NumberReader(Mapping mapping, boolean floating) {
+            this.mapping = mapping;
+            this.floating = floating;
+        }
+
+        @Override
+        public Boolean read(ResultSet results, Set<? extends Expression<?>> selection)
+            throws SQLException {
+            if (floating) {
+                doubleValue = mapping.readDouble(results, 1);
+            } else {
+                longValue = mapping.readLong(results, 1);
+            }
+            return results.wasNull() ? Boolean.FALSE : Boolean.TRUE;
+        }
+    }
+
     @Override
     public void addTransactionListener(Supplier<TransactionListener> supplier) {
         if (supplier != null) {
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2018 requery.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.requery.sql;
+
+/**
+ * {@link SequenceDefinition} using a query format where the sequence name is substituted.
+ *
+ * @author Nikhil Purushe
+ */
+public class SelectSequenceDefinition implements SequenceDefinition {
+
+    private final String format;
+
+    /**
+     * @param format query format with a single %s for the sequence name, null if sequences are
+     *               not supported
+     */
+    public SelectSequenceDefinition(String format) {
+        this.format = format;
+    }
+
+    @Override
+    public String nextValueQuery(String sequence) {
+        return format == null ? null : String.format(format, sequence);
+    }
+}
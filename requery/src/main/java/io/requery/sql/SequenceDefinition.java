@@ -0,0 +1,32 @@
+/*
+ * Copyright 2018 requery.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.requery.sql;
+
+/**
+ * Defines how the next value of a database sequence is retrieved on a specific database.
+ *
+ * @author Nikhil Purushe
+ */
+public interface SequenceDefinition {
+
+    /**
+     * @param sequence name of the sequence
+     * @return query returning the next value of the sequence as a single row and column, or null
+     * if the database doesn't support sequences
+     */
+    String nextValueQuery(String sequence);
+}
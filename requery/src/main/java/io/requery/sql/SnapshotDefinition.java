@@ -0,0 +1,48 @@
+/*
+ * Copyright 2018 requery.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.requery.sql;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Shares a transaction snapshot between connections so that queries running on different
+ * connections see the same consistent state of the database.
+ *
+ * @author Nikhil Purushe
+ */
+public interface SnapshotDefinition {
+
+    /**
+     * Starts a transaction on the connection and exports its snapshot. The connection must stay
+     * open until the snapshot has been imported by the other connections.
+     *
+     * @param connection to export the snapshot from
+     * @return identifier of the exported snapshot
+     * @throws SQLException on failure
+     */
+    String exportSnapshot(Connection connection) throws SQLException;
+
+    /**
+     * Starts a transaction on the connection using a previously exported snapshot.
+     *
+     * @param connection to import the snapshot into
+     * @param snapshot   identifier returned by {@link #exportSnapshot(Connection)}
+     * @throws SQLException on failure
+     */
+    void importSnapshot(Connection connection, String snapshot) throws SQLException;
+}
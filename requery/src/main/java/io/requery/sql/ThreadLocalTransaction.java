@@ -107,6 +107,31 @@ class ThreadLocalTransaction implements EntityTransaction, ConnectionProvider {
         }
     }
 
+    @Override
+    public void addCompletionAction(Runnable action) {
+        EntityTransaction transaction = threadLocal.get();
+        if (transaction != null) {
+            transaction.addCompletionAction(action);
+        } else {
+            action.run();
+        }
+    }
+
+    @Override
+    public void beginUnitOfWork() {
+        EntityTransaction transaction = threadLocal.get();
+        if (transaction == null) {
+            throw new IllegalStateException();
+        }
+        transaction.beginUnitOfWork();
+    }
+
+    @Override
+    public UnitOfWork unitOfWork() {
+        EntityTransaction transaction = threadLocal.get();
+        return transaction == null ? null : transaction.unitOfWork();
+    }
+
     @Override
     public void close() {
         Transaction transaction = threadLocal.get();
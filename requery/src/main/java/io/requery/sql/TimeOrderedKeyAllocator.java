@@ -0,0 +1,82 @@
+/*
+ * Copyright 2018 requery.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.requery.sql;
+
+import io.requery.meta.Attribute;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link KeyAllocator} generating time ordered 64 bit keys without going to the database, in the
+ * style of Snowflake ids: 41 bits of milliseconds since 2018-01-01 UTC, 10 bits of node id and a
+ * 12 bit sequence within the same millisecond. Keys from the same allocator are strictly
+ * increasing, each process writing to the same tables must use a different node id. Only applies
+ * to long keys.
+ *
+ * @author Nikhil Purushe
+ */
+public class TimeOrderedKeyAllocator implements KeyAllocator {
+
+    private static final long EPOCH = 1514764800000L;
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final long node;
+    // timestamp and sequence of the last key
+    private final AtomicLong last;
+
+    /**
+     * @param node node id between 0 and 1023 unique to this process
+     */
+    public TimeOrderedKeyAllocator(int node) {
+        if (node < 0 || node >= 1 << NODE_BITS) {
+            throw new IllegalArgumentException("invalid node " + node);
+        }
+        this.node = node;
+        this.last = new AtomicLong();
+    }
+
+    @Override
+    public boolean canAllocate(Attribute<?, ?> attribute) {
+        Class<?> type = attribute.getClassType();
+        return type == long.class || type == Long.class;
+    }
+
+    @Override
+    public Object allocate(Attribute<?, ?> attribute) {
+        return next();
+    }
+
+    /**
+     * @return the next key
+     */
+    public long next() {
+        while (true) {
+            long now = System.currentTimeMillis() - EPOCH;
+            long previous = last.get();
+            // a sequence overflow or a clock moving backwards continues from the last timestamp
+            long value = now > previous >>> SEQUENCE_BITS ? now << SEQUENCE_BITS : previous + 1;
+            if (last.compareAndSet(previous, value)) {
+                long timestamp = value >>> SEQUENCE_BITS;
+                long sequence = value & SEQUENCE_MASK;
+                return (timestamp << (NODE_BITS + SEQUENCE_BITS)) |
+                    (node << SEQUENCE_BITS) | sequence;
+            }
+        }
+    }
+}
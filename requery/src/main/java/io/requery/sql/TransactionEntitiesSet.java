@@ -20,18 +20,23 @@ import io.requery.EntityCache;
 import io.requery.meta.Type;
 import io.requery.proxy.EntityProxy;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 
 class TransactionEntitiesSet extends LinkedHashSet<EntityProxy<?>> {
 
     private final EntityCache cache;
     private final Set<Type<?>> types;
+    private final List<Runnable> completionActions;
+    private UnitOfWork unitOfWork;
 
     TransactionEntitiesSet(EntityCache cache) {
         this.cache = cache;
         this.types = new HashSet<>();
+        this.completionActions = new ArrayList<>();
     }
 
     @Override
@@ -47,6 +52,8 @@ class TransactionEntitiesSet extends LinkedHashSet<EntityProxy<?>> {
     public void clear() {
         super.clear();
         types.clear();
+        completionActions.clear();
+        unitOfWork = null;
     }
 
     void clearAndInvalidate() {
@@ -60,7 +67,32 @@ class TransactionEntitiesSet extends LinkedHashSet<EntityProxy<?>> {
         clear();
     }
 
+    void addCompletionAction(Runnable action) {
+        completionActions.add(action);
+    }
+
+    /**
+     * Runs the completion actions added to the transaction, each action is run only once.
+     */
+    void complete() {
+        List<Runnable> actions = new ArrayList<>(completionActions);
+        completionActions.clear();
+        for (Runnable action : actions) {
+            action.run();
+        }
+    }
+
     Set<Type<?>> types() {
         return types;
     }
+
+    void beginUnitOfWork() {
+        if (unitOfWork == null) {
+            unitOfWork = new UnitOfWork();
+        }
+    }
+
+    UnitOfWork unitOfWork() {
+        return unitOfWork;
+    }
 }
@@ -16,9 +16,13 @@
 
 package io.requery.sql;
 
-import io.requery.query.MutableTuple;
-import io.requery.query.Tuple;
+import io.requery.meta.Attribute;
+import io.requery.meta.PrimitiveKind;
+import io.requery.query.CompactTuple;
 import io.requery.query.Expression;
+import io.requery.query.ExpressionType;
+import io.requery.query.Tuple;
+import io.requery.query.TupleSchema;
 import io.requery.util.Objects;
 
 import java.sql.ResultSet;
@@ -28,6 +32,7 @@ import java.util.Set;
 class TupleResultReader implements ResultReader<Tuple> {
 
     private final RuntimeConfiguration configuration;
+    private volatile Layout layout;
 
     TupleResultReader(RuntimeConfiguration configuration) {
         this.configuration = Objects.requireNotNull(configuration);
@@ -36,14 +41,96 @@ class TupleResultReader implements ResultReader<Tuple> {
     @Override
     public Tuple read(ResultSet results, Set<? extends Expression<?>> selection)
         throws SQLException {
-        MutableTuple tuple = new MutableTuple(selection.size());
-        int index = 1;
-        Mapping mapping = configuration.getMapping();
-        for (Expression<?> expression : selection) {
-            Object value = mapping.read(expression, results, index);
-            tuple.set(index - 1, expression, value);
-            index++;
+        // the selection is the same set for every row of a result, resolve it once
+        Layout layout = this.layout;
+        if (layout == null || layout.selection != selection) {
+            this.layout = layout = new Layout(selection, configuration);
+        }
+        return layout.read(results);
+    }
+
+    /**
+     * Schema, field mappings and primitive kinds of the columns of a selection.
+     */
+    static final class Layout {
+
+        private final Set<? extends Expression<?>> selection;
+        private final TupleSchema schema;
+        private final FieldMapping[] mappings;
+        private final PrimitiveKind[] kinds;
+        private final Mapping mapping;
+
+        Layout(Set<? extends Expression<?>> selection, RuntimeConfiguration configuration) {
+            this(selection, selection.toArray(new Expression<?>[selection.size()]), configuration);
+        }
+
+        Layout(Set<? extends Expression<?>> selection,
+               Expression<?>[] expressions, RuntimeConfiguration configuration) {
+            this.selection = selection;
+            this.schema = new TupleSchema(expressions);
+            this.mapping = configuration.getMapping();
+            MappingPlan plan = MappingPlan.of(configuration);
+            mappings = new FieldMapping[expressions.length];
+            kinds = new PrimitiveKind[expressions.length];
+            for (int i = 0; i < expressions.length; i++) {
+                mappings[i] = plan.get(expressions[i]);
+                kinds[i] = integralKindOf(expressions[i]);
+            }
+        }
+
+        private static PrimitiveKind integralKindOf(Expression<?> expression) {
+            if (expression.getExpressionType() == ExpressionType.ALIAS) {
+                expression = expression.getInnerExpression();
+            }
+            if (expression.getExpressionType() != ExpressionType.ATTRIBUTE) {
+                return null;
+            }
+            Attribute<?, ?> attribute = (Attribute<?, ?>) expression;
+            PrimitiveKind kind = attribute.getPrimitiveKind();
+            if (kind == null || attribute.getConverter() != null || attribute.isAssociation()) {
+                return null;
+            }
+            switch (kind) {
+                case INT:
+                case LONG:
+                case SHORT:
+                case BYTE:
+                    return kind;
+                default:
+                    return null;
+            }
+        }
+
+        CompactTuple read(ResultSet results) throws SQLException {
+            CompactTuple tuple = new CompactTuple(schema);
+            for (int i = 0; i < mappings.length; i++) {
+                int column = i + 1;
+                PrimitiveKind kind = kinds[i];
+                if (kind == null) {
+                    tuple.set(i, mappings[i].read(results, column));
+                    continue;
+                }
+                long value;
+                switch (kind) {
+                    case LONG:
+                        value = mapping.readLong(results, column);
+                        break;
+                    case SHORT:
+                        value = mapping.readShort(results, column);
+                        break;
+                    case BYTE:
+                        value = mapping.readByte(results, column);
+                        break;
+                    default:
+                        value = mapping.readInt(results, column);
+                        break;
+                }
+                // null values are left unset
+                if (!results.wasNull()) {
+                    tuple.setLong(i, value);
+                }
+            }
+            return tuple;
         }
-        return tuple;
     }
 }
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2018 requery.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.requery.sql;
+
+import io.requery.meta.Attribute;
+import io.requery.meta.EntityModel;
+import io.requery.meta.Type;
+import io.requery.proxy.EntityProxy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Records the inserts, updates and deletes made in a transaction instead of executing them. On
+ * {@link #flush(EntityContext)} the writes are grouped by type and operation and executed as
+ * batches, inserts in foreign key dependency order (referenced types first) and deletes in the
+ * reverse order. Repeated writes of the same entity are collapsed into one.
+ *
+ * @author Nikhil Purushe
+ */
+class UnitOfWork {
+
+    enum Operation {
+        INSERT,
+        UPDATE,
+        DELETE
+    }
+
+    private static class Write {
+        private final Object entity;
+        private final Type<?> type;
+        private Operation operation;
+
+        Write(Object entity, Type<?> type, Operation operation) {
+            this.entity = entity;
+            this.type = type;
+            this.operation = operation;
+        }
+    }
+
+    // entities are matched by identity since the proxy equality depends on the entity state
+    private final Map<Object, Write> pending;
+    private final List<Write> writes;
+
+    UnitOfWork() {
+        pending = new IdentityHashMap<>();
+        writes = new ArrayList<>();
+    }
+
+    /**
+     * Records a write of an entity.
+     *
+     * @param entity    entity being written
+     * @param proxy     entity proxy
+     * @param operation write operation
+     * @return true if recorded, false if the write can't be combined with an already recorded
+     * write of the same entity, in that case the pending writes must be flushed first.
+     */
+    boolean add(Object entity, EntityProxy<?> proxy, Operation operation) {
+        Write existing = pending.get(entity);
+        if (existing == null) {
+            Write write = new Write(entity, proxy.type(), operation);
+            pending.put(entity, write);
+            writes.add(write);
+            return true;
+        }
+        switch (existing.operation) {
+            case INSERT:
+                if (operation == Operation.UPDATE) {
+                    // the insert writes the current state
+                    return true;
+                } else if (operation == Operation.DELETE) {
+                    // never written
+                    existing.operation = null;
+                    pending.remove(entity);
+                    return true;
+                }
+                return false;
+            case UPDATE:
+                if (operation != Operation.INSERT) {
+                    existing.operation = operation;
+                    return true;
+                }
+                return false;
+            case DELETE:
+            default:
+                return false;
+        }
+    }
+
+    boolean isEmpty() {
+        return pending.isEmpty();
+    }
+
+    void clear() {
+        pending.clear();
+        writes.clear();
+    }
+
+    /**
+     * Executes all the recorded writes.
+     *
+     * @param context entity context
+     * @param <T>     base entity type
+     */
+    @SuppressWarnings("unchecked")
+    <T> void flush(EntityContext<T> context) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<Operation, Map<Type<?>, List<Object>>> grouped = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            grouped.put(operation, new LinkedHashMap<Type<?>, List<Object>>());
+        }
+        Set<Type<?>> types = new LinkedHashSet<>();
+        for (Write write : writes) {
+            if (write.operation == null) {
+                continue;
+            }
+            Map<Type<?>, List<Object>> map = grouped.get(write.operation);
+            List<Object> entities = map.get(write.type);
+            if (entities == null) {
+                map.put(write.type, entities = new ArrayList<>());
+            }
+            entities.add(write.entity);
+            types.add(write.type);
+        }
+        // cleared first so that a failed flush isn't repeated on commit
+        clear();
+        List<Type<?>> order = dependencyOrder(context.getModel(), types);
+
+        Map<Type<?>, List<Object>> inserts = grouped.get(Operation.INSERT);
+        for (Type<?> type : order) {
+            List<Object> entities = inserts.get(type);
+            if (entities != null) {
+                writer(context, type).batchInsert((List) entities, false);
+            }
+        }
+        Map<Type<?>, List<Object>> updates = grouped.get(Operation.UPDATE);
+        for (Type<?> type : order) {
+            List<Object> entities = updates.get(type);
+            if (entities != null) {
+                writer(context, type).batchUpdate((List) entities);
+            }
+        }
+        Map<Type<?>, List<Object>> deletes = grouped.get(Operation.DELETE);
+        Collections.reverse(order);
+        for (Type<?> type : order) {
+            List<Object> entities = deletes.get(type);
+            if (entities != null) {
+                writer(context, type).delete((List) entities);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> EntityWriter<T, T> writer(EntityContext<T> context, Type<?> type) {
+        return context.write((Class<T>) type.getClassType());
+    }
+
+    /**
+     * Orders the types so that every type comes after the types it references through a foreign
+     * key. Types in a reference cycle are kept in the order given.
+     */
+    static List<Type<?>> dependencyOrder(EntityModel model, Set<Type<?>> types) {
+        List<Type<?>> order = new ArrayList<>(types.size());
+        Set<Type<?>> visited = new LinkedHashSet<>();
+        for (Type<?> type : types) {
+            visit(model, type, types, visited, order);
+        }
+        return order;
+    }
+
+    private static void visit(EntityModel model, Type<?> type, Set<Type<?>> types,
+                              Set<Type<?>> visited, List<Type<?>> order) {
+        if (!visited.add(type)) {
+            return;
+        }
+        for (Attribute<?, ?> attribute : type.getAttributes()) {
+            if (!attribute.isForeignKey()) {
+                continue;
+            }
+            Class<?> referenced = attribute.getReferencedClass();
+            if (referenced == null) {
+                referenced = attribute.getClassType();
+            }
+            if (referenced != null && model.containsTypeOf(referenced)) {
+                Type<?> referencedType = model.typeOf(referenced);
+                if (referencedType != type && types.contains(referencedType)) {
+                    visit(model, referencedType, types, visited, order);
+                }
+            }
+        }
+        order.add(type);
+    }
+}
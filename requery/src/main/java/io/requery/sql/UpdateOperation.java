@@ -16,16 +16,28 @@
 
 package io.requery.sql;
 
+import io.requery.EntityCache;
+import io.requery.meta.Attribute;
 import io.requery.meta.Type;
 import io.requery.query.BaseScalar;
+import io.requery.query.Condition;
+import io.requery.query.Expression;
 import io.requery.query.Scalar;
+import io.requery.query.WhereAndOr;
+import io.requery.query.element.LogicalOperator;
 import io.requery.query.element.QueryElement;
 import io.requery.query.element.QueryOperation;
+import io.requery.query.element.QueryType;
+import io.requery.query.element.WhereConditionElement;
 import io.requery.sql.gen.DefaultOutput;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.Set;
 
 /**
@@ -35,6 +47,9 @@ import java.util.Set;
  */
 class UpdateOperation extends PreparedQueryOperation implements QueryOperation<Scalar<Integer>> {
 
+    // max number of affected keys invalidated individually
+    private static final int MAX_INVALIDATED_KEYS = 10000;
+
     UpdateOperation(RuntimeConfiguration configuration) {
         super(configuration, null);
     }
@@ -53,17 +68,52 @@ class UpdateOperation extends PreparedQueryOperation implements QueryOperation<S
                 int result;
                 TransactionProvider transactionProvider = configuration.getTransactionProvider();
                 Set<Type<?>> types = query.entityTypes();
+                Invalidation invalidation = invalidationOf(query);
                 try (TransactionScope scope = new TransactionScope(transactionProvider, types);
                      Connection connection = configuration.getConnection()) {
                     StatementListener listener = configuration.getStatementListener();
-                    try (PreparedStatement statement = prepare(sql, connection)) {
+                    Attribute<?, ?> returning = null;
+                    if (invalidation != null) {
+                        returning = invalidation.prepare(connection);
+                    }
+                    if (returning != null) {
+                        sql = new QueryBuilder(configuration.getQueryBuilderOptions())
+                            .append(sql).space()
+                            .keyword(Keyword.RETURNING)
+                            .attribute(returning).toString();
+                    }
+                    try (PreparedStatement statement = returning == null ?
+                        prepare(sql, connection) :
+                        connection.prepareStatement(sql, Statement.NO_GENERATED_KEYS)) {
                         BoundParameters parameters = output.parameters();
                         mapParameters(statement, parameters);
                         listener.beforeExecuteUpdate(statement, sql, parameters);
-                        result = statement.executeUpdate();
+                        if (returning == null) {
+                            result = statement.executeUpdate();
+                        } else {
+                            result = 0;
+                            try (ResultSet results = statement.executeQuery()) {
+                                while (results.next()) {
+                                    invalidation.addKey(results);
+                                    result++;
+                                }
+                            }
+                        }
                         listener.afterExecuteUpdate(statement, result);
                         readGeneratedKeys(0, statement);
                     }
+                    if (invalidation != null) {
+                        // invalidated now for this transaction and again once it completes, in
+                        // case other transactions load the old rows before the commit
+                        invalidation.invalidate();
+                        transactionProvider.get().addCompletionAction(invalidation);
+                    }
+                    AssociationCache associations = configuration.getAssociationCache();
+                    if (associations != null && query.queryType() != QueryType.SELECT) {
+                        for (Type<?> type : types) {
+                            associations.invalidate(type.getClassType());
+                        }
+                    }
                     scope.commit();
                 } catch (SQLException e) {
                     throw new StatementExecutionException(e, sql);
@@ -72,4 +122,187 @@ class UpdateOperation extends PreparedQueryOperation implements QueryOperation<S
             }
         };
     }
+
+    private Invalidation invalidationOf(QueryElement<?> query) {
+        QueryCacheInvalidation mode = configuration.getQueryCacheInvalidation();
+        if (mode == null || mode == QueryCacheInvalidation.NONE) {
+            return null;
+        }
+        if (query.queryType() != QueryType.UPDATE && query.queryType() != QueryType.DELETE) {
+            return null;
+        }
+        Set<Type<?>> types = query.entityTypes();
+        if (types == null || types.isEmpty()) {
+            return null;
+        }
+        boolean byKey = mode == QueryCacheInvalidation.KEYS;
+        EntityCache cache = configuration.getCache();
+        if (cache instanceof PreloadedEntityCache) {
+            // invalidating a preloaded type discards all its entities, only invalidate the keys
+            for (Type<?> type : types) {
+                byKey |= ((PreloadedEntityCache) cache).isPreloaded(type.getClassType());
+            }
+        }
+        return new Invalidation(query, types, byKey);
+    }
+
+    /**
+     * Determines and invalidates the cached entities affected by an update or delete query.
+     */
+    private class Invalidation implements Runnable {
+
+        private final QueryElement<?> query;
+        private final Set<Type<?>> types;
+        private final Type<?> type;
+        private final Attribute<?, ?> keyAttribute;
+        private Set<Object> keys;
+
+        Invalidation(QueryElement<?> query, Set<Type<?>> types, boolean byKey) {
+            this.query = query;
+            this.types = types;
+            Type<?> type = types.size() == 1 ? types.iterator().next() : null;
+            boolean singleTable = query.joinElements() == null ||
+                query.joinElements().isEmpty();
+            if (byKey && type != null && singleTable && query.getWhereExistsElement() == null) {
+                this.type = type;
+                this.keyAttribute = type.getSingleKeyAttribute();
+            } else {
+                this.type = null;
+                this.keyAttribute = null;
+            }
+        }
+
+        /**
+         * Determines the affected keys before the statement is executed.
+         *
+         * @return the key attribute to return from the statement or null
+         */
+        Attribute<?, ?> prepare(Connection connection) throws SQLException {
+            if (keyAttribute == null || !type.isCacheable()) {
+                return null;
+            }
+            keys = keysFromConditions();
+            if (keys != null) {
+                return null;
+            }
+            keys = new HashSet<>();
+            if (configuration.getPlatform().supportsReturning()) {
+                return keyAttribute;
+            }
+            selectKeys(connection);
+            return null;
+        }
+
+        void addKey(ResultSet results) throws SQLException {
+            if (keys != null) {
+                if (keys.size() < MAX_INVALIDATED_KEYS) {
+                    keys.add(readKey(results));
+                } else {
+                    keys = null;
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            invalidate();
+        }
+
+        void invalidate() {
+            EntityCache cache = configuration.getCache();
+            if (keys != null) {
+                for (Object key : keys) {
+                    cache.invalidate(type.getClassType(), key);
+                }
+            } else {
+                for (Type<?> type : types) {
+                    if (type.isCacheable()) {
+                        cache.invalidate(type.getClassType());
+                    }
+                }
+            }
+        }
+
+        private Object readKey(ResultSet results) throws SQLException {
+            @SuppressWarnings("unchecked")
+            Expression<Object> expression = (Expression<Object>) keyAttribute;
+            return configuration.getMapping().read(expression, results, 1);
+        }
+
+        /**
+         * @return keys if the where clause only matches rows with specific key values, i.e. the
+         * conditions are all joined with and, one of which is key = value or key in (values).
+         */
+        private Set<Object> keysFromConditions() {
+            Set<Object> values = null;
+            for (WhereConditionElement<?> element : query.getWhereElements()) {
+                if (element.getOperator() == LogicalOperator.OR) {
+                    return null;
+                }
+                Condition<?, ?> condition = element.getCondition();
+                if (values != null || !keyAttribute.equals(condition.getLeftOperand())) {
+                    continue;
+                }
+                Object operand = condition.getRightOperand();
+                switch (condition.getOperator()) {
+                    case EQUAL:
+                        if (isValue(operand)) {
+                            values = new HashSet<>();
+                            values.add(operand);
+                        }
+                        break;
+                    case IN:
+                        if (operand instanceof Collection) {
+                            Set<Object> set = new HashSet<>();
+                            for (Object value : (Collection<?>) operand) {
+                                if (!isValue(value)) {
+                                    set = null;
+                                    break;
+                                }
+                                set.add(value);
+                            }
+                            values = set;
+                        }
+                        break;
+                }
+            }
+            return values;
+        }
+
+        private boolean isValue(Object operand) {
+            return operand != null && !(operand instanceof Expression);
+        }
+
+        @SuppressWarnings("unchecked")
+        private void selectKeys(Connection connection) throws SQLException {
+            QueryElement<Object> select =
+                new QueryElement<>(QueryType.SELECT, configuration.getModel(), null);
+            select.select((Expression<?>) keyAttribute).from(type.getClassType());
+            WhereAndOr<Object> where = null;
+            for (WhereConditionElement<?> element : query.getWhereElements()) {
+                Condition condition = element.getCondition();
+                if (where == null) {
+                    where = select.where(condition);
+                } else if (element.getOperator() == LogicalOperator.OR) {
+                    where = where.or(condition);
+                } else {
+                    where = where.and(condition);
+                }
+            }
+            DefaultOutput output = new DefaultOutput(configuration, select);
+            String sql = output.toSql();
+            StatementListener listener = configuration.getStatementListener();
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                BoundParameters parameters = output.parameters();
+                mapParameters(statement, parameters);
+                listener.beforeExecuteQuery(statement, sql, parameters);
+                try (ResultSet results = statement.executeQuery()) {
+                    listener.afterExecuteQuery(statement);
+                    while (keys != null && results.next()) {
+                        addKey(results);
+                    }
+                }
+            }
+        }
+    }
 }
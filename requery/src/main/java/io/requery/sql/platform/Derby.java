@@ -21,6 +21,8 @@ import io.requery.query.function.Now;
 import io.requery.sql.BaseType;
 import io.requery.sql.Keyword;
 import io.requery.sql.Mapping;
+import io.requery.sql.SelectSequenceDefinition;
+import io.requery.sql.SequenceDefinition;
 import io.requery.sql.type.VarCharType;
 
 import java.sql.ResultSet;
@@ -102,4 +104,9 @@ public class Derby extends Generic {
         return false;
     }
 
+    @Override
+    public SequenceDefinition sequenceDefinition() {
+        return new SelectSequenceDefinition("values next value for %s");
+    }
+
 }
@@ -20,11 +20,16 @@ import io.requery.query.Expression;
 import io.requery.query.element.LimitedElement;
 import io.requery.query.element.OrderByElement;
 import io.requery.query.element.QueryElement;
+import io.requery.sql.BulkLoadDefinition;
 import io.requery.sql.GeneratedColumnDefinition;
 import io.requery.sql.IdentityColumnDefinition;
 import io.requery.sql.Mapping;
+import io.requery.sql.MultiRowInsertDefinition;
 import io.requery.sql.Platform;
+import io.requery.sql.SelectSequenceDefinition;
+import io.requery.sql.SequenceDefinition;
 import io.requery.sql.UserVersionColumnDefinition;
+import io.requery.sql.SnapshotDefinition;
 import io.requery.sql.VersionColumnDefinition;
 import io.requery.sql.gen.Generator;
 import io.requery.sql.gen.InsertGenerator;
@@ -48,6 +53,8 @@ public class Generic implements Platform {
     private final Generator<Map<Expression<?>, Object>> updateGenerator;
     private final Generator<Map<Expression<?>, Object>> upsertGenerator;
     private final Generator<OrderByElement> orderByGenerator;
+    private final BulkLoadDefinition bulkLoadDefinition;
+    private final SequenceDefinition sequenceDefinition;
 
     public Generic() {
         generatedColumnDefinition = new IdentityColumnDefinition();
@@ -57,6 +64,8 @@ public class Generic implements Platform {
         updateGenerator = new UpdateGenerator();
         upsertGenerator = new UpsertMergeGenerator();
         orderByGenerator = new OrderByGenerator();
+        bulkLoadDefinition = new MultiRowInsertDefinition(2000, 1000);
+        sequenceDefinition = new SelectSequenceDefinition("select next value for %s");
     }
 
     @Override
@@ -98,6 +107,16 @@ public class Generic implements Platform {
         return true;
     }
 
+    @Override
+    public boolean supportsReturning() {
+        return false;
+    }
+
+    @Override
+    public boolean supportsCaseSensitiveComparisons() {
+        return true;
+    }
+
     @Override
     public GeneratedColumnDefinition generatedColumnDefinition() {
         return generatedColumnDefinition;
@@ -113,6 +132,21 @@ public class Generic implements Platform {
         return versionColumnDefinition;
     }
 
+    @Override
+    public SnapshotDefinition snapshotDefinition() {
+        return null;
+    }
+
+    @Override
+    public BulkLoadDefinition bulkLoadDefinition() {
+        return bulkLoadDefinition;
+    }
+
+    @Override
+    public SequenceDefinition sequenceDefinition() {
+        return sequenceDefinition;
+    }
+
     @Override
     public Generator<QueryElement<?>> insertGenerator() {
         return insertGenerator;
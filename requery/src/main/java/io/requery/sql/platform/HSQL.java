@@ -20,6 +20,8 @@ import io.requery.query.element.LimitedElement;
 import io.requery.query.function.Function;
 import io.requery.query.function.Random;
 import io.requery.sql.Mapping;
+import io.requery.sql.SelectSequenceDefinition;
+import io.requery.sql.SequenceDefinition;
 import io.requery.sql.gen.LimitGenerator;
 import io.requery.sql.gen.Generator;
 
@@ -45,4 +47,9 @@ public class HSQL extends Generic {
     public boolean supportsGeneratedColumnsInPrepareStatement() {
         return false;
     }
+
+    @Override
+    public SequenceDefinition sequenceDefinition() {
+        return new SelectSequenceDefinition("call next value for %s");
+    }
 }
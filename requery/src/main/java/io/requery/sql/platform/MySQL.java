@@ -24,6 +24,8 @@ import io.requery.sql.AutoIncrementColumnDefinition;
 import io.requery.sql.GeneratedColumnDefinition;
 import io.requery.sql.Mapping;
 import io.requery.sql.QueryBuilder;
+import io.requery.sql.SelectSequenceDefinition;
+import io.requery.sql.SequenceDefinition;
 import io.requery.sql.gen.Generator;
 import io.requery.sql.gen.LimitGenerator;
 import io.requery.sql.gen.Output;
@@ -44,9 +46,12 @@ import static io.requery.sql.Keyword.VALUES;
 public class MySQL extends Generic {
 
     private final AutoIncrementColumnDefinition autoIncrementColumn;
+    private final SequenceDefinition sequenceDefinition;
 
     public MySQL() {
         autoIncrementColumn = new AutoIncrementColumnDefinition();
+        // no sequences
+        sequenceDefinition = new SelectSequenceDefinition(null);
     }
 
     @Override
@@ -59,11 +64,21 @@ public class MySQL extends Generic {
         return true;
     }
 
+    @Override
+    public boolean supportsCaseSensitiveComparisons() {
+        return false;
+    }
+
     @Override
     public GeneratedColumnDefinition generatedColumnDefinition() {
         return autoIncrementColumn;
     }
 
+    @Override
+    public SequenceDefinition sequenceDefinition() {
+        return sequenceDefinition;
+    }
+
     @Override
     public LimitGenerator limitGenerator() {
         return new LimitGenerator();
@@ -22,10 +22,14 @@ import io.requery.query.function.Function;
 import io.requery.query.function.Now;
 import io.requery.query.function.Random;
 import io.requery.sql.BaseType;
+import io.requery.sql.BulkLoadDefinition;
 import io.requery.sql.GeneratedColumnDefinition;
 import io.requery.sql.IdentityColumnDefinition;
 import io.requery.sql.Mapping;
+import io.requery.sql.MultiRowInsertDefinition;
 import io.requery.sql.QueryBuilder;
+import io.requery.sql.SelectSequenceDefinition;
+import io.requery.sql.SequenceDefinition;
 import io.requery.sql.gen.Generator;
 import io.requery.sql.gen.UpsertMergeGenerator;
 import io.requery.sql.gen.Output;
@@ -46,10 +50,15 @@ public class Oracle extends Generic {
 
     private final OracleIdentityColumnDefinition generatedColumn;
     private final UpsertMergeGenerator upsertMergeWriter;
+    private final BulkLoadDefinition bulkLoadDefinition;
+    private final SequenceDefinition sequenceDefinition;
 
     public Oracle() {
         generatedColumn = new OracleIdentityColumnDefinition();
         upsertMergeWriter = new UpsertMergeDual();
+        // no multi row values clause, single row inserts are batched instead
+        bulkLoadDefinition = new MultiRowInsertDefinition(Integer.MAX_VALUE, 1);
+        sequenceDefinition = new SelectSequenceDefinition("select %s.nextval from dual");
     }
 
     @Override
@@ -77,6 +86,16 @@ public class Oracle extends Generic {
         return false;
     }
 
+    @Override
+    public BulkLoadDefinition bulkLoadDefinition() {
+        return bulkLoadDefinition;
+    }
+
+    @Override
+    public SequenceDefinition sequenceDefinition() {
+        return sequenceDefinition;
+    }
+
     @Override
     public Generator<Map<Expression<?>, Object>> upsertGenerator() {
         return upsertMergeWriter;
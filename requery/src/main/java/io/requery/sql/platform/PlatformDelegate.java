@@ -20,9 +20,12 @@ import io.requery.query.Expression;
 import io.requery.query.element.LimitedElement;
 import io.requery.query.element.OrderByElement;
 import io.requery.query.element.QueryElement;
+import io.requery.sql.BulkLoadDefinition;
 import io.requery.sql.GeneratedColumnDefinition;
 import io.requery.sql.Mapping;
 import io.requery.sql.Platform;
+import io.requery.sql.SequenceDefinition;
+import io.requery.sql.SnapshotDefinition;
 import io.requery.sql.VersionColumnDefinition;
 import io.requery.sql.gen.Generator;
 
@@ -83,6 +86,16 @@ public class PlatformDelegate implements Platform {
         return platform.supportsUpsert();
     }
 
+    @Override
+    public boolean supportsReturning() {
+        return platform.supportsReturning();
+    }
+
+    @Override
+    public boolean supportsCaseSensitiveComparisons() {
+        return platform.supportsCaseSensitiveComparisons();
+    }
+
     @Override
     public GeneratedColumnDefinition generatedColumnDefinition() {
         return platform.generatedColumnDefinition();
@@ -98,6 +111,21 @@ public class PlatformDelegate implements Platform {
         return platform.versionColumnDefinition();
     }
 
+    @Override
+    public SnapshotDefinition snapshotDefinition() {
+        return platform.snapshotDefinition();
+    }
+
+    @Override
+    public BulkLoadDefinition bulkLoadDefinition() {
+        return platform.bulkLoadDefinition();
+    }
+
+    @Override
+    public SequenceDefinition sequenceDefinition() {
+        return platform.sequenceDefinition();
+    }
+
     @Override
     public Generator<QueryElement<?>> insertGenerator() {
         return platform.insertGenerator();
@@ -20,18 +20,25 @@ import io.requery.meta.Attribute;
 import io.requery.meta.Type;
 import io.requery.query.Expression;
 import io.requery.sql.BaseType;
+import io.requery.sql.BulkLoadDefinition;
 import io.requery.sql.GeneratedColumnDefinition;
 import io.requery.sql.Mapping;
+import io.requery.sql.MultiRowInsertDefinition;
 import io.requery.sql.QueryBuilder;
+import io.requery.sql.SelectSequenceDefinition;
+import io.requery.sql.SequenceDefinition;
+import io.requery.sql.SnapshotDefinition;
 import io.requery.sql.VersionColumnDefinition;
 import io.requery.sql.gen.Generator;
 import io.requery.sql.gen.LimitGenerator;
 import io.requery.sql.gen.Output;
 import io.requery.sql.type.VarCharType;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Types;
 import java.sql.Blob;
 import java.util.Map;
@@ -55,10 +62,16 @@ public class PostgresSQL extends Generic {
 
     private final SerialColumnDefinition serialColumnDefinition;
     private final VersionColumnDefinition versionColumnDefinition;
+    private final SnapshotDefinition snapshotDefinition;
+    private final BulkLoadDefinition bulkLoadDefinition;
+    private final SequenceDefinition sequenceDefinition;
 
     public PostgresSQL() {
         serialColumnDefinition = new SerialColumnDefinition();
         versionColumnDefinition = new SystemVersionColumnDefinition();
+        snapshotDefinition = new ExportedSnapshotDefinition();
+        bulkLoadDefinition = new MultiRowInsertDefinition(Short.MAX_VALUE, 1000);
+        sequenceDefinition = new SelectSequenceDefinition("select nextval('%s')");
     }
 
     @Override
@@ -76,6 +89,26 @@ public class PostgresSQL extends Generic {
         return serialColumnDefinition;
     }
 
+    @Override
+    public SnapshotDefinition snapshotDefinition() {
+        return snapshotDefinition;
+    }
+
+    @Override
+    public BulkLoadDefinition bulkLoadDefinition() {
+        return bulkLoadDefinition;
+    }
+
+    @Override
+    public SequenceDefinition sequenceDefinition() {
+        return sequenceDefinition;
+    }
+
+    @Override
+    public boolean supportsReturning() {
+        return true;
+    }
+
     @Override
     public void addMappings(Mapping mapping) {
         super.addMappings(mapping);
@@ -195,6 +228,36 @@ public class PostgresSQL extends Generic {
         }
     }
 
+    /**
+     * Shares a repeatable read snapshot between connections using pg_export_snapshot.
+     */
+    private static class ExportedSnapshotDefinition implements SnapshotDefinition {
+
+        @Override
+        public String exportSnapshot(Connection connection) throws SQLException {
+            begin(connection);
+            try (Statement statement = connection.createStatement();
+                 ResultSet results = statement.executeQuery("select pg_export_snapshot()")) {
+                results.next();
+                return results.getString(1);
+            }
+        }
+
+        @Override
+        public void importSnapshot(Connection connection, String snapshot) throws SQLException {
+            begin(connection);
+            try (Statement statement = connection.createStatement()) {
+                // the identifier is generated by the server and can't be bound as a parameter
+                statement.execute("set transaction snapshot '" + snapshot + "'");
+            }
+        }
+
+        private static void begin(Connection connection) throws SQLException {
+            connection.setAutoCommit(false);
+            connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+        }
+    }
+
     /**
      * Performs an upsert (insert/update) using insert on conflict do update.
      */
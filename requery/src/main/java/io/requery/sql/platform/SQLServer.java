@@ -67,6 +67,11 @@ public class SQLServer extends Generic {
         return false;
     }
 
+    @Override
+    public boolean supportsCaseSensitiveComparisons() {
+        return false;
+    }
+
     @Override
     public GeneratedColumnDefinition generatedColumnDefinition() {
         return generatedColumnDefinition;
@@ -24,10 +24,14 @@ import io.requery.query.function.Function;
 import io.requery.query.function.Now;
 import io.requery.sql.AutoIncrementColumnDefinition;
 import io.requery.sql.BasicType;
+import io.requery.sql.BulkLoadDefinition;
 import io.requery.sql.GeneratedColumnDefinition;
 import io.requery.sql.Keyword;
 import io.requery.sql.Mapping;
+import io.requery.sql.MultiRowInsertDefinition;
 import io.requery.sql.QueryBuilder;
+import io.requery.sql.SelectSequenceDefinition;
+import io.requery.sql.SequenceDefinition;
 import io.requery.sql.gen.Generator;
 import io.requery.sql.gen.LimitGenerator;
 import io.requery.sql.gen.Output;
@@ -47,9 +51,15 @@ import static io.requery.sql.Keyword.*;
 public class SQLite extends Generic {
 
     private final AutoIncrementColumnDefinition autoIncrementColumn;
+    private final BulkLoadDefinition bulkLoadDefinition;
+    private final SequenceDefinition sequenceDefinition;
 
     public SQLite() {
         autoIncrementColumn = new AutoIncrementColumnDefinition("autoincrement");
+        // older versions limit statements to 999 parameters and 500 rows in a values clause
+        bulkLoadDefinition = new MultiRowInsertDefinition(999, 500);
+        // no sequences
+        sequenceDefinition = new SelectSequenceDefinition(null);
     }
 
     @Override
@@ -75,6 +85,16 @@ public class SQLite extends Generic {
         return autoIncrementColumn;
     }
 
+    @Override
+    public BulkLoadDefinition bulkLoadDefinition() {
+        return bulkLoadDefinition;
+    }
+
+    @Override
+    public SequenceDefinition sequenceDefinition() {
+        return sequenceDefinition;
+    }
+
     @Override
     public LimitGenerator limitGenerator() {
         return new LimitGenerator();
@@ -90,6 +110,12 @@ public class SQLite extends Generic {
         return false;
     }
 
+    @Override
+    public boolean supportsCaseSensitiveComparisons() {
+        // like is case insensitive for ASCII characters
+        return false;
+    }
+
     // in SQLite BIGINT can be treated as just an integer, this handles the case when an long is
     // used as generated key
     private static class LongType extends BasicType<Long> implements PrimitiveLongType {
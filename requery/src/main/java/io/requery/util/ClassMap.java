@@ -21,6 +21,8 @@ import java.util.Collection;
 import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * A map of class instances to values. Maps classes to values in such a way that if you have a
@@ -31,7 +33,10 @@ import java.util.Set;
  *      String s = map.get(B.class);
  * </code>
  * </pre>
- * returns "any A" since B extends A. Null keys aren't allowed.
+ * returns "any A" since B extends A. Null keys aren't allowed. Exact matches are resolved with an
+ * identity lookup, and the result of matching a subclass (including no match) is remembered
+ * (for a bounded number of classes) until the map is next modified, so lookups don't depend on
+ * the number of keys. Concurrent reads are safe once the map is populated.
  *
  * @param <V> type of mapped values
  *
@@ -39,18 +44,49 @@ import java.util.Set;
  */
 public class ClassMap<V> implements Map<Class<?>, V> {
 
+    // marker for a class that has no assignable key, since the memo can't hold null values
+    private static final Class<?> NO_KEY = NoKey.class;
+    // bounds the memo, which holds strong class references, if many classes are looked up
+    private static final int MAX_RESOLVED = 256;
+
     private final IdentityHashMap<Class<?>, V> map = new IdentityHashMap<>();
-    private Class[] keys;
+    private final ConcurrentMap<Class<?>, Class<?>> resolved = new ConcurrentHashMap<>();
+    private volatile Class[] keys;
+    // incremented on every modification, lookups started before it are not remembered
+    private volatile int generation;
 
     private Class<?> findKey(Class<?> key) {
-        // normally the maps are created upfront and not modified so this is faster
+        if (key == null) {
+            return null;
+        }
+        if (map.containsKey(key)) {
+            return key;
+        }
+        // normally the maps are created upfront and not modified so memoize the subclass lookups
+        Class<?> found = resolved.get(key);
+        if (found == null) {
+            int generation = this.generation;
+            found = findAssignableKey(key, generation);
+            if (resolved.size() < MAX_RESOLVED && generation == this.generation) {
+                Class<?> value = found == null ? NO_KEY : found;
+                resolved.putIfAbsent(key, value);
+                // modified while installing, the value may be stale
+                if (generation != this.generation) {
+                    resolved.remove(key, value);
+                }
+            }
+            return found;
+        }
+        return found == NO_KEY ? null : found;
+    }
+
+    private Class<?> findAssignableKey(Class<?> key, int generation) {
+        Class[] keys = this.keys;
         if (keys == null) {
             Set<Class<?>> keySet = keySet();
-            keys = keySet.toArray(new Class[keySet.size()]);
-        }
-        for (Class<?> cls : keys) {
-            if (cls == key) {
-                return cls;
+            this.keys = keys = keySet.toArray(new Class[keySet.size()]);
+            if (generation != this.generation) {
+                this.keys = null;
             }
         }
         for (Class<?> cls : keys) {
@@ -61,6 +97,12 @@ public class ClassMap<V> implements Map<Class<?>, V> {
         return null;
     }
 
+    private void invalidate() {
+        generation++;
+        keys = null;
+        resolved.clear();
+    }
+
     @Override
     public int size() {
         return map.size();
@@ -91,13 +133,16 @@ public class ClassMap<V> implements Map<Class<?>, V> {
         if (key == null) {
             throw new IllegalArgumentException();
         }
-        keys = null;
-        return map.put(key, value);
+        V previous = map.put(key, value);
+        invalidate();
+        return previous;
     }
 
     @Override
     public V remove(Object key) {
-        return map.remove(key);
+        V previous = map.remove(key);
+        invalidate();
+        return previous;
     }
 
     @Override
@@ -110,6 +155,7 @@ public class ClassMap<V> implements Map<Class<?>, V> {
     @Override
     public void clear() {
         map.clear();
+        invalidate();
     }
 
     @Override @Nonnull
@@ -126,4 +172,7 @@ public class ClassMap<V> implements Map<Class<?>, V> {
     public Set<Entry<Class<?>, V>> entrySet() {
         return map.entrySet();
     }
+
+    private static final class NoKey {
+    }
 }
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2018 requery.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.requery.util;
+
+import io.requery.PersistenceException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CloseableIterator} that reads ahead a chunk of elements from another iterator on a
+ * background thread while the caller processes the current chunk. At most one chunk is read
+ * ahead. The wrapped iterator is only used by the background thread and is closed when this
+ * iterator is closed or exhausted.
+ *
+ * @param <E> type of elements in the iterator.
+ *
+ * @author Nikhil Purushe
+ */
+public class PrefetchingIterator<E> implements CloseableIterator<E> {
+
+    private static final Object END = new Object();
+    private static final long POLL_MILLIS = 10;
+
+    private final CloseableIterator<E> iterator;
+    private final int chunkSize;
+    private final BlockingQueue<Object> chunks;
+    private final Thread thread;
+    private volatile boolean closed;
+    private List<E> chunk;
+    private int index;
+    private boolean done;
+
+    public PrefetchingIterator(CloseableIterator<E> iterator, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.iterator = Objects.requireNotNull(iterator);
+        this.chunkSize = chunkSize;
+        this.chunks = new ArrayBlockingQueue<>(1);
+        this.thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                prefetch();
+            }
+        }, "requery-prefetch");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void prefetch() {
+        try {
+            while (!closed) {
+                List<E> elements = new ArrayList<>(chunkSize);
+                while (elements.size() < chunkSize && iterator.hasNext()) {
+                    elements.add(iterator.next());
+                }
+                if (!elements.isEmpty() && !handOff(elements)) {
+                    return;
+                }
+                if (elements.size() < chunkSize) {
+                    break;
+                }
+            }
+            handOff(END);
+        } catch (InterruptedException ignored) {
+        } catch (Throwable e) {
+            try {
+                handOff(e);
+            } catch (InterruptedException ignored) {
+            }
+        }
+    }
+
+    // the thread isn't interrupted on close since some drivers close the connection when
+    // interrupted during I/O, instead the hand off gives up once this iterator is closed
+    private boolean handOff(Object value) throws InterruptedException {
+        while (!closed) {
+            if (chunks.offer(value, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+        while (chunk == null || index >= chunk.size()) {
+            if (done) {
+                return false;
+            }
+            Object value;
+            try {
+                value = chunks.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new PersistenceException(e);
+            }
+            if (value == END) {
+                done = true;
+                close();
+                return false;
+            } else if (value instanceof Throwable) {
+                close();
+                if (value instanceof RuntimeException) {
+                    throw (RuntimeException) value;
+                } else if (value instanceof Error) {
+                    throw (Error) value;
+                }
+                throw new RuntimeException((Throwable) value);
+            }
+            chunk = (List<E>) value;
+            index = 0;
+        }
+        return true;
+    }
+
+    @Override
+    public E next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return chunk.get(index++);
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Called on close before waiting for the background thread if the wrapped iterator may still
+     * be reading, override to abort the read (e.g. cancel the statement).
+     */
+    protected void cancel() {
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            if (!done) {
+                cancel();
+            }
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            iterator.close();
+        }
+    }
+}